@@ -0,0 +1,129 @@
+/*
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.aop;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+import com.jdon.aop.interceptor.MetricsInterceptor;
+import com.jdon.bench.Benchmark;
+import com.jdon.bussinessproxy.meta.POJOTargetMetaDef;
+import com.jdon.container.access.TargetMetaRequestsHolder;
+
+/**
+ * the cost of MetricsInterceptor on a call: a invocation that calls the
+ * target directly, with and without the interceptor in front of it. the
+ * TargetMetaRequest of the call is set as the proxy of a service does.
+ *
+ */
+public class MetricsInterceptorBenchmark extends Benchmark {
+
+	public static class Target {
+		public int hash(String s) {
+			return s.hashCode();
+		}
+	}
+
+	static class DirectInvocation implements MethodInvocation {
+		private final Method method;
+
+		private final Object target;
+
+		private final Object[] args;
+
+		DirectInvocation(Method method, Object target, Object[] args) {
+			this.method = method;
+			this.target = target;
+			this.args = args;
+		}
+
+		public Method getMethod() {
+			return method;
+		}
+
+		public Object[] getArguments() {
+			return args;
+		}
+
+		public Object proceed() throws Throwable {
+			return method.invoke(target, args);
+		}
+
+		public Object getThis() {
+			return target;
+		}
+
+		public AccessibleObject getStaticPart() {
+			return method;
+		}
+	}
+
+	private final boolean intercepted;
+
+	private final POJOTargetMetaDef targetMetaDef = new POJOTargetMetaDef("targetService", Target.class.getName());
+
+	private final TargetMetaRequestsHolder holder = new TargetMetaRequestsHolder();
+
+	private MetricsInterceptor metricsInterceptor;
+
+	private MethodInvocation[] invocations;
+
+	/**
+	 * @param intercepted
+	 *            false: the invocation only
+	 */
+	public MetricsInterceptorBenchmark(boolean intercepted) {
+		this.intercepted = intercepted;
+	}
+
+	public String getName() {
+		return intercepted ? "MetricsInterceptor.invoke" : "MetricsInterceptor.invoke.none";
+	}
+
+	public void setUp(int threads) throws Exception {
+		Method method = Target.class.getMethod("hash", new Class[] { String.class });
+		invocations = new MethodInvocation[threads];
+		for (int i = 0; i < threads; i++) {
+			invocations[i] = new DirectInvocation(method, new Target(), new Object[] { "jdon" });
+		}
+		if (intercepted)
+			metricsInterceptor = new MetricsInterceptor(holder);
+	}
+
+	public void op(int thread) throws Exception {
+		holder.acquireTargetMetaRequest(targetMetaDef, null);
+		try {
+			if (intercepted)
+				metricsInterceptor.invoke(invocations[thread]);
+			else
+				invocations[thread].proceed();
+		} catch (Exception e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new Exception(e);
+		} finally {
+			holder.releaseTargetMetaRequest();
+		}
+	}
+
+	public void tearDown() throws Exception {
+		if (intercepted)
+			metricsInterceptor.stop();
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async;
+
+import com.jdon.annotation.model.Send;
+import com.jdon.bench.Benchmark;
+import com.jdon.controller.AppUtil;
+import com.jdon.domain.message.DomainMessage;
+
+/**
+ * EventMessageFirer.fire of a @Send message through the disruptor to its
+ * @Consumer, and the wait for the result, as a model does with
+ * DomainMessage.getEventResult().
+ *
+ * the consumer is EventMessageFirerBenchmarkHandler, found by the
+ * annotation scan of the classpath.
+ *
+ */
+public class EventMessageFirerBenchmark extends Benchmark {
+
+	public final static String TOPIC = "bench.fire";
+
+	private AppUtil appUtil;
+
+	private EventMessageFirer eventMessageFirer;
+
+	private Send send;
+
+	@Send(TOPIC)
+	public DomainMessage fire(Object source) {
+		return new DomainMessage(source);
+	}
+
+	public String getName() {
+		return "EventMessageFirer.fire";
+	}
+
+	public void setUp(int threads) throws Exception {
+		appUtil = new AppUtil("com.jdon.jdonframework.xml");
+		eventMessageFirer = (EventMessageFirer) appUtil.getComponentInstance("eventMessageFirer");
+		send = getClass().getMethod("fire", new Class[] { Object.class }).getAnnotation(Send.class);
+	}
+
+	public void op(int thread) throws Exception {
+		Integer source = Integer.valueOf(thread);
+		DomainMessage domainMessage = fire(source);
+		eventMessageFirer.fire(domainMessage, send);
+		if (domainMessage.getEventResult() != source)
+			throw new IllegalStateException("wrong result");
+	}
+
+	public void tearDown() throws Exception {
+		appUtil.clear();
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.bench;
+
+/**
+ * one benchmark of the suite, BenchmarkRunner calls op() from the measuring
+ * threads in a loop, as fast as it can, for a fixed time.
+ *
+ * setUp() and tearDown() are called once for every thread count, not in
+ * the measured time. op() must be thread safe, the thread index lets it keep
+ * the state of a thread in a array created by setUp().
+ *
+ */
+public abstract class Benchmark {
+
+	public abstract String getName();
+
+	/**
+	 * @param threads
+	 *            the number of threads that will call op()
+	 */
+	public void setUp(int threads) throws Exception {
+	}
+
+	/**
+	 * one operation
+	 *
+	 * @param thread
+	 *            0 to threads - 1
+	 */
+	public abstract void op(int thread) throws Exception;
+
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * the max operations of a thread in one iteration, 0 for no limit. a
+	 * benchmark whose operation leaves something behind (a thread, a file)
+	 * bounds it here.
+	 */
+	public int getMaxOps() {
+		return 0;
+	}
+
+	/**
+	 * a xorshift random, cheap and without contention, for choosing keys in
+	 * op()
+	 */
+	protected static int next(int seed) {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.bench;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * compares the results of two commits written by BenchmarkRunner, a
+ * benchmark is slower when its ops/s dropped by more than the threshold and
+ * by more than the errors of the two runs.
+ *
+ * usage: java com.jdon.bench.BenchmarkCompare base.json current.json
+ * [threshold percent, default 10]
+ *
+ * exits with 1 if a benchmark is slower, so a build can fail on it.
+ *
+ */
+public class BenchmarkCompare {
+
+	public static Map<String, BenchmarkResult> read(String file) throws Exception {
+		Map<String, BenchmarkResult> results = new LinkedHashMap<String, BenchmarkResult>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				BenchmarkResult result = BenchmarkResult.parse(line);
+				if (result != null)
+					results.put(result.getKey(), result);
+			}
+		} finally {
+			reader.close();
+		}
+		return results;
+	}
+
+	/**
+	 * @return the number of slower benchmarks
+	 */
+	public static int compare(Map<String, BenchmarkResult> base, Map<String, BenchmarkResult> current, double threshold) {
+		int slower = 0;
+		for (BenchmarkResult result : current.values()) {
+			BenchmarkResult old = base.get(result.getKey());
+			if (old == null) {
+				System.out.println(result.getKey() + " new " + result);
+				continue;
+			}
+			double change = old.getMean() == 0 ? 0 : (result.getMean() - old.getMean()) * 100 / old.getMean();
+			String state = "";
+			if (change < -threshold && old.getMean() - result.getMean() > old.getError() + result.getError()) {
+				state = " SLOWER";
+				slower++;
+			} else if (change > threshold && result.getMean() - old.getMean() > old.getError() + result.getError()) {
+				state = " faster";
+			}
+			System.out.println(result.getKey() + " " + Math.round(old.getMean()) + " -> " + Math.round(result.getMean()) + " ops/s "
+					+ (change >= 0 ? "+" : "") + Math.round(change * 10) / 10d + "%" + state);
+		}
+		for (String key : base.keySet()) {
+			if (!current.containsKey(key))
+				System.out.println(key + " missing");
+		}
+		return slower;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("usage: java com.jdon.bench.BenchmarkCompare base.json current.json [threshold]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+		int slower = compare(read(args[0]), read(args[1]), threshold);
+		System.exit(slower > 0 ? 1 : 0);
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.bench;
+
+/**
+ * the throughput of one benchmark with a thread count: the ops/s of every
+ * measured iteration.
+ *
+ * it is written as one line of json, so the result files of two commits can
+ * be compared line by line, and read back by parse() without a json library.
+ *
+ */
+public class BenchmarkResult {
+
+	private final String name;
+
+	private final int threads;
+
+	private final double[] scores;
+
+	public BenchmarkResult(String name, int threads, double[] scores) {
+		this.name = name;
+		this.threads = threads;
+		this.scores = scores;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * the name and the threads, it is the same in the results of two commits
+	 */
+	public String getKey() {
+		return name + ":" + threads;
+	}
+
+	public double[] getScores() {
+		return scores;
+	}
+
+	/**
+	 * @return ops/s
+	 */
+	public double getMean() {
+		if (scores.length == 0)
+			return 0;
+		double sum = 0;
+		for (int i = 0; i < scores.length; i++) {
+			sum += scores[i];
+		}
+		return sum / scores.length;
+	}
+
+	/**
+	 * @return the standard deviation of the iterations, ops/s
+	 */
+	public double getError() {
+		if (scores.length < 2)
+			return 0;
+		double mean = getMean();
+		double sum = 0;
+		for (int i = 0; i < scores.length; i++) {
+			sum += (scores[i] - mean) * (scores[i] - mean);
+		}
+		return Math.sqrt(sum / (scores.length - 1));
+	}
+
+	public double getMin() {
+		double min = Double.MAX_VALUE;
+		for (int i = 0; i < scores.length; i++) {
+			min = Math.min(min, scores[i]);
+		}
+		return scores.length == 0 ? 0 : min;
+	}
+
+	public double getMax() {
+		double max = 0;
+		for (int i = 0; i < scores.length; i++) {
+			max = Math.max(max, scores[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * @return the time of one operation of a thread
+	 */
+	public double getNanosPerOp() {
+		double mean = getMean();
+		return mean == 0 ? 0 : threads * 1e9 / mean;
+	}
+
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"benchmark\": \"").append(name).append("\", \"threads\": ").append(threads);
+		sb.append(", \"opsPerSecond\": ").append(round(getMean()));
+		sb.append(", \"error\": ").append(round(getError()));
+		sb.append(", \"min\": ").append(round(getMin()));
+		sb.append(", \"max\": ").append(round(getMax()));
+		sb.append(", \"nanosPerOp\": ").append(round(getNanosPerOp()));
+		sb.append(", \"scores\": [");
+		for (int i = 0; i < scores.length; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(round(scores[i]));
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+
+	/**
+	 * read back a line written by toJson()
+	 *
+	 * @return null if the line is not a result
+	 */
+	public static BenchmarkResult parse(String line) {
+		String name = field(line, "benchmark");
+		String threads = field(line, "threads");
+		String scores = field(line, "scores");
+		if (name == null || threads == null || scores == null)
+			return null;
+		String[] values = scores.trim().length() == 0 ? new String[0] : scores.split(",");
+		double[] s = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			s[i] = Double.parseDouble(values[i].trim());
+		}
+		return new BenchmarkResult(name, Integer.parseInt(threads), s);
+	}
+
+	private static String field(String line, String name) {
+		String key = "\"" + name + "\": ";
+		int i = line.indexOf(key);
+		if (i < 0)
+			return null;
+		i += key.length();
+		char c = line.charAt(i);
+		if (c == '"')
+			return line.substring(i + 1, line.indexOf('"', i + 1));
+		if (c == '[')
+			return line.substring(i + 1, line.indexOf(']', i));
+		int end = i;
+		while (end < line.length() && ",}".indexOf(line.charAt(end)) < 0)
+			end++;
+		return line.substring(i, end).trim();
+	}
+
+	private static String round(double d) {
+		return String.valueOf(Math.round(d * 100) / 100d);
+	}
+
+	public String toString() {
+		return name + " threads=" + threads + " " + round(getMean()) + " ops/s +- " + round(getError()) + " " + round(getNanosPerOp())
+				+ " ns/op";
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import com.jdon.aop.MetricsInterceptorBenchmark;
+import com.jdon.async.EventMessageFirerBenchmark;
+import com.jdon.bussinessproxy.remote.hessian.io.JdonJavaSerializerBenchmark;
+import com.jdon.cache.NearCacheBenchmark;
+import com.jdon.cache.UtilCacheBenchmark;
+import com.jdon.controller.pool.PoolContentionBenchmark;
+import com.jdon.controller.service.WebServiceImpBenchmark;
+import com.jdon.domain.message.BatchDomainEventHandlerBenchmark;
+import com.jdon.domain.model.injection.ModelProxyInjectionBenchmark;
+import com.jdon.model.query.PageIteratorSolverBenchmark;
+import com.jdon.persistence.hibernate.BatchWriteBenchmark;
+
+/**
+ * runs the benchmarks of the framework hot paths and writes the results as
+ * json, see BenchmarkResult; BenchmarkCompare compares the files of two
+ * commits. ant bench runs it.
+ *
+ * every benchmark is run for every thread count: warmup iterations, then
+ * measured iterations of a fixed time, the score of a iteration is the ops/s
+ * of all threads.
+ *
+ * usage: java com.jdon.bench.BenchmarkRunner [-threads 1,4] [-warmup 2]
+ * [-iterations 5] [-time 1000] [-filter regex] [-out bench.json] [-commit id]
+ *
+ */
+public class BenchmarkRunner {
+
+	private int[] threads = defaultThreads();
+
+	private int warmup = 2;
+
+	private int iterations = 5;
+
+	private long time = 1000;
+
+	private Pattern filter;
+
+	private String out = "bench.json";
+
+	private String commit = "unknown";
+
+	public static List<Benchmark> createSuite() {
+		List<Benchmark> suite = new ArrayList<Benchmark>();
+		suite.add(new WebServiceImpBenchmark());
+		suite.add(new UtilCacheBenchmark(false));
+		suite.add(new UtilCacheBenchmark(true));
+		suite.add(new NearCacheBenchmark(false, 0));
+		suite.add(new NearCacheBenchmark(true, 30000));
+		suite.add(new NearCacheBenchmark(true, 0));
+		suite.add(new PoolContentionBenchmark(true));
+		suite.add(new PoolContentionBenchmark(false));
+		suite.add(new MetricsInterceptorBenchmark(false));
+		suite.add(new MetricsInterceptorBenchmark(true));
+		suite.add(new PageIteratorSolverBenchmark(true));
+		suite.add(new PageIteratorSolverBenchmark(false));
+		suite.add(new JdonJavaSerializerBenchmark());
+		suite.add(new ModelProxyInjectionBenchmark(false));
+		suite.add(new ModelProxyInjectionBenchmark(true));
+		suite.add(new EventMessageFirerBenchmark());
+		suite.add(new BatchDomainEventHandlerBenchmark(1));
+		suite.add(new BatchDomainEventHandlerBenchmark(10));
+		suite.add(new BatchDomainEventHandlerBenchmark(100));
+		// the Hibernate writes need a database
+		String url = System.getProperty("bench.jdbc.url");
+		if (url != null && url.length() > 0) {
+			suite.add(new BatchWriteBenchmark(0));
+			suite.add(new BatchWriteBenchmark(50));
+			suite.add(new BatchWriteBenchmark(-1));
+		}
+		return suite;
+	}
+
+	private static int[] defaultThreads() {
+		int cpus = Runtime.getRuntime().availableProcessors();
+		return cpus > 1 ? new int[] { 1, cpus } : new int[] { 1 };
+	}
+
+	public List<BenchmarkResult> run(List<Benchmark> suite) {
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (Benchmark benchmark : suite) {
+			if (filter != null && !filter.matcher(benchmark.getName()).find())
+				continue;
+			for (int i = 0; i < threads.length; i++) {
+				try {
+					BenchmarkResult result = run(benchmark, threads[i]);
+					System.out.println(result);
+					results.add(result);
+				} catch (Throwable e) {
+					System.err.println(benchmark.getName() + " threads=" + threads[i] + " error:" + e);
+					e.printStackTrace();
+				}
+			}
+		}
+		return results;
+	}
+
+	public BenchmarkResult run(Benchmark benchmark, int threadCount) throws Throwable {
+		benchmark.setUp(threadCount);
+		try {
+			for (int i = 0; i < warmup; i++) {
+				iteration(benchmark, threadCount, time);
+			}
+			double[] scores = new double[iterations];
+			for (int i = 0; i < iterations; i++) {
+				scores[i] = iteration(benchmark, threadCount, time);
+			}
+			return new BenchmarkResult(benchmark.getName(), threadCount, scores);
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * @return ops/s of all threads
+	 */
+	static double iteration(final Benchmark benchmark, int threadCount, long millis) throws Throwable {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threadCount);
+		final long[] ops = new long[threadCount];
+		final Throwable[] error = new Throwable[1];
+		final AtomicBoolean stop = new AtomicBoolean();
+		final int maxOps = benchmark.getMaxOps();
+		for (int i = 0; i < threadCount; i++) {
+			final int thread = i;
+			Thread t = new Thread("bench-" + benchmark.getName() + "-" + i) {
+				public void run() {
+					long n = 0;
+					try {
+						start.await();
+						while (!stop.get() && (maxOps == 0 || n < maxOps)) {
+							benchmark.op(thread);
+							n++;
+						}
+					} catch (Throwable e) {
+						synchronized (error) {
+							if (error[0] == null)
+								error[0] = e;
+						}
+					} finally {
+						ops[thread] = n;
+						done.countDown();
+					}
+				}
+			};
+			t.setDaemon(true);
+			t.start();
+		}
+		long t = System.nanoTime();
+		start.countDown();
+		done.await(millis, TimeUnit.MILLISECONDS);
+		stop.set(true);
+		done.await();
+		long nanos = System.nanoTime() - t;
+		if (error[0] != null)
+			throw error[0];
+		long total = 0;
+		for (int i = 0; i < threadCount; i++) {
+			total += ops[i];
+		}
+		return total * 1e9 / nanos;
+	}
+
+	public void write(List<BenchmarkResult> results, File file) throws Exception {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null)
+			dir.mkdirs();
+		PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			pw.println("{");
+			pw.println("  \"commit\": \"" + commit + "\",");
+			pw.println("  \"date\": \"" + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date()) + "\",");
+			pw.println("  \"java\": \"" + System.getProperty("java.version") + "\",");
+			pw.println("  \"os\": \"" + System.getProperty("os.name") + " " + System.getProperty("os.arch") + "\",");
+			pw.println("  \"cpus\": " + Runtime.getRuntime().availableProcessors() + ",");
+			pw.println("  \"warmup\": " + warmup + ",");
+			pw.println("  \"iterations\": " + iterations + ",");
+			pw.println("  \"time\": " + time + ",");
+			pw.println("  \"results\": [");
+			for (int i = 0; i < results.size(); i++) {
+				pw.println("    " + results.get(i).toJson() + (i < results.size() - 1 ? "," : ""));
+			}
+			pw.println("  ]");
+			pw.println("}");
+		} finally {
+			pw.close();
+		}
+	}
+
+	void parse(String[] args) {
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String name = args[i];
+			String value = args[i + 1];
+			if (value.length() == 0)
+				continue;
+			if (name.equals("-threads")) {
+				String[] values = value.split(",");
+				threads = new int[values.length];
+				for (int j = 0; j < values.length; j++) {
+					threads[j] = Integer.parseInt(values[j].trim());
+				}
+			} else if (name.equals("-warmup")) {
+				warmup = Integer.parseInt(value);
+			} else if (name.equals("-iterations")) {
+				iterations = Integer.parseInt(value);
+			} else if (name.equals("-time")) {
+				time = Long.parseLong(value);
+			} else if (name.equals("-filter")) {
+				filter = Pattern.compile(value);
+			} else if (name.equals("-out")) {
+				out = value;
+			} else if (name.equals("-commit")) {
+				commit = value;
+			} else {
+				throw new IllegalArgumentException("unknown option " + name);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.parse(args);
+		List<BenchmarkResult> results = runner.run(createSuite());
+		File file = new File(runner.out);
+		runner.write(results, file);
+		System.out.println("results: " + file.getAbsolutePath());
+		// the threads of the container are not daemons
+		System.exit(0);
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.bussinessproxy.remote.hessian.io;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
+import com.jdon.bench.Benchmark;
+
+/**
+ * the encoding of a model by JdonJavaSerializer into a Hessian2Output, with
+ * the SerializerFactory of HessianToJdonRequestProcessor.
+ *
+ */
+public class JdonJavaSerializerBenchmark extends Benchmark {
+
+	public static class Item {
+		private Long id;
+
+		private String name;
+
+		private double price;
+
+		private Date created;
+
+		private List<String> tags;
+
+		public Long getId() {
+			return id;
+		}
+
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public double getPrice() {
+			return price;
+		}
+
+		public void setPrice(double price) {
+			this.price = price;
+		}
+
+		public Date getCreated() {
+			return created;
+		}
+
+		public void setCreated(Date created) {
+			this.created = created;
+		}
+
+		public List<String> getTags() {
+			return tags;
+		}
+
+		public void setTags(List<String> tags) {
+			this.tags = tags;
+		}
+	}
+
+	private SerializerFactory serializerFactory;
+
+	private Item item;
+
+	private ByteArrayOutputStream[] outs;
+
+	public String getName() {
+		return "JdonJavaSerializer.writeObject";
+	}
+
+	public void setUp(int threads) throws Exception {
+		serializerFactory = new SerializerFactory();
+		serializerFactory.setAllowNonSerializable(true);
+		serializerFactory.addFactory(new JdonSerializerFactory());
+		if (!(serializerFactory.getSerializer(Item.class) instanceof JdonJavaSerializer))
+			throw new IllegalStateException("not a JdonJavaSerializer: " + serializerFactory.getSerializer(Item.class));
+
+		item = new Item();
+		item.setId(Long.valueOf(1001));
+		item.setName("jdon framework");
+		item.setPrice(12.5);
+		item.setCreated(new Date());
+		List<String> tags = new ArrayList<String>();
+		tags.add("ddd");
+		tags.add("cqrs");
+		tags.add("event");
+		item.setTags(tags);
+
+		outs = new ByteArrayOutputStream[threads];
+		for (int i = 0; i < threads; i++) {
+			outs[i] = new ByteArrayOutputStream(256);
+		}
+	}
+
+	public void op(int thread) throws Exception {
+		ByteArrayOutputStream os = outs[thread];
+		os.reset();
+		Hessian2Output out = new Hessian2Output(os);
+		out.setSerializerFactory(serializerFactory);
+		out.writeObject(item);
+		out.flush();
+	}
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.components.encache.EhcacheConf;
+import com.jdon.components.encache.EncacheProvider;
+import com.jdon.controller.cache.Cache;
+
+/**
+ * the get hit path of EncacheProvider alone and of a NearCache in front of
+ * it, with a ttl (a hit reads the clock) or without a limit; the 256 keys
+ * all fit in the L1.
+ *
+ */
+public class NearCacheBenchmark extends Benchmark {
+
+	private final static int KEYS = 256;
+
+	private final boolean near;
+
+	private final long ttl;
+
+	private final String[] keys = new String[KEYS];
+
+	private EncacheProvider ehcache;
+
+	private Cache cache;
+
+	private int[] seeds;
+
+	/**
+	 * @param near
+	 *            false for the EncacheProvider alone
+	 * @param ttl
+	 *            the ttl of the NearCache, 0 is no limit
+	 */
+	public NearCacheBenchmark(boolean near, long ttl) {
+		this.near = near;
+		this.ttl = ttl;
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = "com.jdon.model.Key" + i;
+		}
+	}
+
+	public String getName() {
+		if (!near)
+			return "EncacheProvider.get";
+		return ttl > 0 ? "NearCache.get" : "NearCache.get.nottl";
+	}
+
+	public void setUp(int threads) throws Exception {
+		ehcache = new EncacheProvider(new EhcacheConf("jdon_ehcache.xml", "jdonCache"));
+		ehcache.start();
+		for (int i = 0; i < KEYS; i++) {
+			ehcache.put(keys[i], new Integer(i));
+		}
+		cache = near ? new NearCache(ehcache, KEYS * 2, ttl) : ehcache;
+		seeds = new int[threads * 16];
+		for (int i = 0; i < threads; i++) {
+			seeds[i * 16] = 0x9E3779B9 * (i + 1);
+		}
+	}
+
+	public void op(int thread) throws Exception {
+		int seed = next(seeds[thread * 16]);
+		seeds[thread * 16] = seed;
+		if (cache.get(keys[seed & (KEYS - 1)]) == null)
+			throw new IllegalStateException("miss");
+	}
+
+	public void tearDown() throws Exception {
+		ehcache.stop();
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.controller.cache.Cache;
+
+/**
+ * get and put of UtilCache, alone or as the LRUCache of container.xml, from
+ * all threads on the same cache: 15 of 16 operations are a get, a miss is
+ * followed by a put; there are twice as many keys as the max size, so the
+ * cache evicts all the time.
+ *
+ */
+public class UtilCacheBenchmark extends Benchmark {
+
+	private final static int MAX_SIZE = 10000;
+
+	private final static int KEYS = 16384;
+
+	private final boolean lru;
+
+	private final String[] keys = new String[KEYS];
+
+	private final Integer value = Integer.valueOf(1);
+
+	private Cache cache;
+
+	private UtilCache utilCache;
+
+	// 16 ints between two seeds, the threads don't share a cache line
+	private int[] seeds;
+
+	/**
+	 * @param lru
+	 *            true for a LRUCache with cache.xml, false for a UtilCache
+	 */
+	public UtilCacheBenchmark(boolean lru) {
+		this.lru = lru;
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = "com.jdon.model.Key" + i;
+		}
+	}
+
+	public String getName() {
+		return lru ? "LRUCache.getPut" : "UtilCache.getPut";
+	}
+
+	public void setUp(int threads) throws Exception {
+		if (lru)
+			cache = new LRUCache("cache.xml");
+		else
+			utilCache = new UtilCache(MAX_SIZE, 0, false);
+		seeds = new int[threads * 16];
+		for (int i = 0; i < threads; i++) {
+			seeds[i * 16] = 0x9E3779B9 * (i + 1);
+		}
+	}
+
+	public void op(int thread) throws Exception {
+		int seed = next(seeds[thread * 16]);
+		seeds[thread * 16] = seed;
+		String key = keys[seed & (KEYS - 1)];
+		if (lru) {
+			if ((seed >>> 28) == 0 || cache.get(key) == null)
+				cache.put(key, value);
+		} else {
+			if ((seed >>> 28) == 0 || utilCache.get(key) == null)
+				utilCache.put(key, value);
+		}
+	}
+
+	public void tearDown() throws Exception {
+		if (lru)
+			cache.clear();
+		else
+			utilCache.clearAllCaches();
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.controller.pool;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.bussinessproxy.target.TargetServiceFactory;
+
+/**
+ * borrow/return of a pool of 1000 objects by all threads, StripedPool or
+ * commons-pool; run it with many threads (-Dbench.threads=1,64) to see the
+ * contention.
+ *
+ */
+public class PoolContentionBenchmark extends Benchmark {
+
+	private final static int MAX_POOL_SIZE = 1000;
+
+	static class SimpleFactory implements TargetServiceFactory {
+		public Object create() {
+			return new StringBuilder();
+		}
+
+		public Object destroy() {
+			return null;
+		}
+	}
+
+	private final boolean striped;
+
+	private Pool pool;
+
+	/**
+	 * @param striped
+	 *            true for a StripedPool, false for the CommonsPoolAdapter
+	 */
+	public PoolContentionBenchmark(boolean striped) {
+		this.striped = striped;
+	}
+
+	public String getName() {
+		return striped ? "StripedPool.acquireRelease" : "CommonsPoolAdapter.acquireRelease";
+	}
+
+	public void setUp(int threads) throws Exception {
+		SimpleFactory factory = new SimpleFactory();
+		if (striped)
+			pool = new StripedPool(factory, MAX_POOL_SIZE);
+		else
+			pool = new CommonsPoolFactory(factory, String.valueOf(MAX_POOL_SIZE)).getPool();
+	}
+
+	public void op(int thread) throws Exception {
+		Object o = pool.acquirePoolable();
+		((StringBuilder) o).setLength(0);
+		pool.releasePoolable(o);
+	}
+
+	public void tearDown() throws Exception {
+		if (striped)
+			((StripedPool) pool).close();
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.controller.service;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.bussinessproxy.meta.MethodMetaArgs;
+import com.jdon.controller.AppUtil;
+import com.jdon.controller.context.RequestWrapper;
+
+/**
+ * WebServiceImp.execute end to end: the service lookup, the interceptors of
+ * aspect.xml and the call of the no-op service, with the mock request and
+ * session of com.jdon.controller.context.application.
+ *
+ */
+public class WebServiceImpBenchmark extends Benchmark {
+
+	private final static Class[] PARAM_TYPES = new Class[] { int.class };
+
+	private AppUtil appUtil;
+
+	private Service service;
+
+	private RequestWrapper[] requests;
+
+	public String getName() {
+		return "WebServiceImp.execute";
+	}
+
+	public void setUp(int threads) throws Exception {
+		appUtil = new AppUtil("com.jdon.jdonframework.xml");
+		service = new ServiceFacade().getService(appUtil);
+		requests = new RequestWrapper[threads];
+		// one session of every thread, as the requests of one user
+		for (int i = 0; i < threads; i++) {
+			requests[i] = appUtil.createDemoRequest();
+		}
+	}
+
+	public void op(int thread) throws Exception {
+		MethodMetaArgs methodMetaArgs = new MethodMetaArgs("echo", PARAM_TYPES, new Object[] { Integer.valueOf(thread) });
+		if (service.execute("noop", methodMetaArgs, requests[thread]) == null)
+			throw new IllegalStateException("no result");
+	}
+
+	public void tearDown() throws Exception {
+		appUtil.clear();
+	}
+
+}
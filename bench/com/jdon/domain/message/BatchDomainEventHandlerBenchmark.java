@@ -0,0 +1,90 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.domain.message;
+
+import com.jdon.annotation.model.Send;
+import com.jdon.async.EventMessageFirer;
+import com.jdon.bench.Benchmark;
+import com.jdon.controller.AppUtil;
+
+/**
+ * writes a second of a BatchDomainEventHandler with a max batch size of 1,
+ * 10 and 100: the producers send events without waiting for their result,
+ * the ring is full at once, so the rate is the one of the consumer.
+ *
+ * every batch is one write, with -Dbench.jdbc.url one jdbc insert batch and
+ * commit into the table bench_event, without it a round trip of
+ * -Dbench.batch.roundtrip microseconds (100) to a remote database.
+ *
+ */
+public class BatchDomainEventHandlerBenchmark extends Benchmark {
+
+	public final static String TOPIC = "bench.batch";
+
+	/**
+	 * the max batch size of the consumer created by the next setUp
+	 */
+	static volatile int maxBatchSize;
+
+	private final int batchSize;
+
+	private AppUtil appUtil;
+
+	private EventMessageFirer eventMessageFirer;
+
+	private Send send;
+
+	private DomainMessage[] last;
+
+	public BatchDomainEventHandlerBenchmark(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	@Send(TOPIC)
+	public DomainMessage write(Object source) {
+		return new DomainMessage(source);
+	}
+
+	public String getName() {
+		return "BatchDomainEventHandler.batch" + batchSize;
+	}
+
+	public void setUp(int threads) throws Exception {
+		maxBatchSize = batchSize;
+		BatchDomainEventHandlerBenchmarkHandler.reset();
+		appUtil = new AppUtil("com.jdon.jdonframework.xml");
+		eventMessageFirer = (EventMessageFirer) appUtil.getComponentInstance("eventMessageFirer");
+		send = getClass().getMethod("write", new Class[] { Object.class }).getAnnotation(Send.class);
+		last = new DomainMessage[threads];
+	}
+
+	public void op(int thread) throws Exception {
+		DomainMessage domainMessage = write(Integer.valueOf(thread));
+		eventMessageFirer.fire(domainMessage, send);
+		last[thread] = domainMessage;
+	}
+
+	public void tearDown() throws Exception {
+		for (int i = 0; i < last.length; i++) {
+			if (last[i] != null)
+				last[i].getEventResult();
+		}
+		System.out.println(getName() + " events=" + BatchDomainEventHandlerBenchmarkHandler.getEvents() + " mean batch="
+				+ BatchDomainEventHandlerBenchmarkHandler.getMeanBatch());
+		appUtil.clear();
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.domain.message;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.jdon.annotation.Consumer;
+
+/**
+ * the consumer of BatchDomainEventHandlerBenchmark, one write a batch.
+ *
+ */
+@Consumer(BatchDomainEventHandlerBenchmark.TOPIC)
+public class BatchDomainEventHandlerBenchmarkHandler extends BatchDomainEventHandler {
+
+	private final static AtomicLong batches = new AtomicLong();
+
+	private final static AtomicLong events = new AtomicLong();
+
+	private final long roundtrip = Long.getLong("bench.batch.roundtrip", 100).longValue() * 1000;
+
+	private Connection connection;
+
+	private PreparedStatement insert;
+
+	private long id;
+
+	// the only consumer of the topic, it completes the results the producer waits for
+	public BatchDomainEventHandlerBenchmarkHandler() {
+		super(BatchDomainEventHandlerBenchmark.maxBatchSize, DEFAULT_MAX_BATCH_MILLIS, true);
+	}
+
+	static void reset() {
+		batches.set(0);
+		events.set(0);
+	}
+
+	static long getEvents() {
+		return events.get();
+	}
+
+	static double getMeanBatch() {
+		long n = batches.get();
+		return n == 0 ? 0 : (double) events.get() / n;
+	}
+
+	protected void onBatch(List<DomainMessage> messages) throws Exception {
+		batches.incrementAndGet();
+		events.addAndGet(messages.size());
+		String url = System.getProperty("bench.jdbc.url");
+		if (url == null || url.length() == 0) {
+			LockSupport.parkNanos(roundtrip);
+			return;
+		}
+		if (connection == null)
+			open(url);
+		for (DomainMessage message : messages) {
+			insert.setLong(1, ++id);
+			insert.setString(2, String.valueOf(message.getEventSource()));
+			insert.addBatch();
+		}
+		insert.executeBatch();
+		connection.commit();
+	}
+
+	private void open(String url) throws Exception {
+		String driver = System.getProperty("bench.jdbc.driver");
+		if (driver != null && driver.length() > 0)
+			Class.forName(driver);
+		connection = DriverManager.getConnection(url, System.getProperty("bench.jdbc.user", ""), System.getProperty("bench.jdbc.password", ""));
+		Statement st = connection.createStatement();
+		try {
+			st.executeUpdate("drop table bench_event");
+		} catch (Exception e) {
+		}
+		st.executeUpdate("create table bench_event (id bigint primary key, source varchar(50))");
+		st.close();
+		connection.setAutoCommit(false);
+		insert = connection.prepareStatement("insert into bench_event (id, source) values (?, ?)");
+	}
+
+}
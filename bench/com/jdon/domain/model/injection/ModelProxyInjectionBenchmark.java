@@ -0,0 +1,74 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.domain.model.injection;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.controller.AppUtil;
+import com.jdon.domain.advsior.ModelAdvisor;
+import com.jdon.sample.test.domain.simplecase.MyModel;
+import com.jdon.sample.test.domain.simplecase.MyModelDomainEvent;
+
+/**
+ * the @Inject of a model loaded by a repository: ModelProxyInjection of the
+ * two fields of MyModel (a @Introduce proxy and a @Service component), or
+ * only the creation of the proxy by ModelAdvisor.
+ *
+ */
+public class ModelProxyInjectionBenchmark extends Benchmark {
+
+	private final boolean proxyOnly;
+
+	private AppUtil appUtil;
+
+	private ModelProxyInjection modelProxyInjection;
+
+	private ModelAdvisor modelAdvisor;
+
+	/**
+	 * @param proxyOnly
+	 *            true: ModelAdvisor.createProxy of a MyModelDomainEvent
+	 */
+	public ModelProxyInjectionBenchmark(boolean proxyOnly) {
+		this.proxyOnly = proxyOnly;
+	}
+
+	public String getName() {
+		return proxyOnly ? "ModelAdvisor.createProxy" : "ModelProxyInjection.injectProperties";
+	}
+
+	public void setUp(int threads) throws Exception {
+		appUtil = new AppUtil("com.jdon.jdonframework.xml");
+		modelProxyInjection = (ModelProxyInjection) appUtil.getComponentInstance("modelProxyInjection");
+		modelAdvisor = (ModelAdvisor) appUtil.getComponentInstance("modelAdvisor");
+	}
+
+	public void op(int thread) throws Exception {
+		if (proxyOnly) {
+			if (modelAdvisor.createProxy(new MyModelDomainEvent()) == null)
+				throw new IllegalStateException("no proxy");
+		} else {
+			MyModel myModel = new MyModel();
+			modelProxyInjection.injectProperties(myModel);
+			if (myModel.getMyModelDomainEvent() == null)
+				throw new IllegalStateException("not injected");
+		}
+	}
+
+	public void tearDown() throws Exception {
+		appUtil.clear();
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.model.query;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.cache.LRUCache;
+import com.jdon.controller.cache.CacheManager;
+import com.jdon.controller.model.PageIterator;
+
+/**
+ * PageIteratorSolver.getPageIterator of a random page of 20 of a table with
+ * 10000 rows, with the block cache or without it (every page queries the
+ * database).
+ *
+ * the database is the one of -Dbench.jdbc.url (-Dbench.jdbc.driver,
+ * -Dbench.jdbc.user, -Dbench.jdbc.password), e.g. a embedded H2 or Derby
+ * whose jar is given by -Dbench.jdbc.classpath to ant bench; the table
+ * bench_item is created and filled if it doesn't exist. without the url, a
+ * in-memory DataSource answers the two queries, so only the time of the
+ * framework is measured.
+ *
+ */
+public class PageIteratorSolverBenchmark extends Benchmark {
+
+	private final static int ROWS = 10000;
+
+	private final static String SQL_COUNT = "select count(1) from bench_item";
+
+	private final static String SQL_KEYS = "select id from bench_item order by id";
+
+	private final boolean cacheEnable;
+
+	private CacheManager cacheManager;
+
+	private PageIteratorSolver pageIteratorSolver;
+
+	private int[] seeds;
+
+	/**
+	 * @param cacheEnable
+	 *            false: every page queries the database
+	 */
+	public PageIteratorSolverBenchmark(boolean cacheEnable) {
+		this.cacheEnable = cacheEnable;
+	}
+
+	public String getName() {
+		return cacheEnable ? "PageIteratorSolver.getPageIterator" : "PageIteratorSolver.getPageIterator.nocache";
+	}
+
+	public void setUp(int threads) throws Exception {
+		String url = System.getProperty("bench.jdbc.url");
+		DataSource dataSource = (url == null || url.length() == 0) ? createMemoryDataSource() : createJdbcDataSource(url);
+		cacheManager = new CacheManager(new LRUCache("cache.xml"));
+		cacheManager.start();
+		pageIteratorSolver = new PageIteratorSolver(dataSource, cacheManager);
+		pageIteratorSolver.setCacheEnable(cacheEnable);
+		seeds = new int[threads * 16];
+		for (int i = 0; i < threads; i++) {
+			seeds[i * 16] = 0x9E3779B9 * (i + 1);
+		}
+	}
+
+	public void op(int thread) throws Exception {
+		int seed = next(seeds[thread * 16]);
+		seeds[thread * 16] = seed;
+		int start = (seed >>> 1) % ROWS;
+		PageIterator pageIterator = pageIteratorSolver.getPageIterator(SQL_COUNT, SQL_KEYS, "", start, 20);
+		if (pageIterator.getAllCount() != ROWS)
+			throw new IllegalStateException("allCount=" + pageIterator.getAllCount());
+	}
+
+	public void tearDown() throws Exception {
+		pageIteratorSolver.clearCache();
+		cacheManager.stop();
+	}
+
+	static DataSource createJdbcDataSource(final String url) throws Exception {
+		String driver = System.getProperty("bench.jdbc.driver");
+		if (driver != null && driver.length() > 0)
+			Class.forName(driver);
+		final String user = System.getProperty("bench.jdbc.user", "");
+		final String password = System.getProperty("bench.jdbc.password", "");
+		DataSource dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[] { DataSource.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("getConnection"))
+							return DriverManager.getConnection(url, user, password);
+						return defaultValue(method.getReturnType());
+					}
+				});
+		Connection c = dataSource.getConnection();
+		try {
+			Statement st = c.createStatement();
+			try {
+				st.executeQuery(SQL_COUNT).close();
+			} catch (Exception e) {
+				st.executeUpdate("create table bench_item (id integer primary key, name varchar(50))");
+			}
+			ResultSet rs = st.executeQuery(SQL_COUNT);
+			rs.next();
+			int count = rs.getInt(1);
+			rs.close();
+			st.close();
+			if (count < ROWS) {
+				PreparedStatement ps = c.prepareStatement("insert into bench_item (id, name) values (?, ?)");
+				for (int i = count; i < ROWS; i++) {
+					ps.setInt(1, i + 1);
+					ps.setString(2, "item" + (i + 1));
+					ps.executeUpdate();
+				}
+				ps.close();
+			}
+		} finally {
+			c.close();
+		}
+		return dataSource;
+	}
+
+	/**
+	 * a DataSource in memory, the count query returns ROWS, the other query
+	 * the ids 1 to ROWS.
+	 */
+	static DataSource createMemoryDataSource() {
+		final Object[] ids = new Object[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			ids[i] = Integer.valueOf(i + 1);
+		}
+		final Object[] count = new Object[] { Integer.valueOf(ROWS) };
+		final InvocationHandler connection = new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if (name.equals("prepareStatement")) {
+					String sql = (String) args[0];
+					final Object[] rows = sql.indexOf("count(") >= 0 ? count : ids;
+					return proxy(PreparedStatement.class, new InvocationHandler() {
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							if (method.getName().equals("executeQuery"))
+								return proxy(ResultSet.class, new MemoryResultSet(rows));
+							return defaultValue(method.getReturnType());
+						}
+					});
+				}
+				return defaultValue(method.getReturnType());
+			}
+		};
+		return (DataSource) proxy(DataSource.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (method.getName().equals("getConnection"))
+					return proxy(Connection.class, connection);
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	static class MemoryResultSet implements InvocationHandler {
+		private final Object[] rows;
+
+		// 1 is the first row
+		private int row;
+
+		MemoryResultSet(Object[] rows) {
+			this.rows = rows;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("next")) {
+				row++;
+				return Boolean.valueOf(row <= rows.length);
+			} else if (name.equals("first")) {
+				row = 1;
+				return Boolean.valueOf(rows.length > 0);
+			} else if (name.equals("absolute")) {
+				row = ((Integer) args[0]).intValue();
+				return Boolean.valueOf(row >= 1 && row <= rows.length);
+			} else if (name.equals("getObject")) {
+				return rows[row - 1];
+			} else if (name.equals("getInt")) {
+				return rows[row - 1];
+			}
+			return defaultValue(method.getReturnType());
+		}
+	}
+
+	static Object proxy(Class type, InvocationHandler handler) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, handler);
+	}
+
+	static Object defaultValue(Class type) {
+		if (type == boolean.class)
+			return Boolean.FALSE;
+		if (type == int.class)
+			return Integer.valueOf(0);
+		if (type == long.class)
+			return Long.valueOf(0);
+		if (type == short.class)
+			return Short.valueOf((short) 0);
+		if (type == byte.class)
+			return Byte.valueOf((byte) 0);
+		if (type == double.class)
+			return Double.valueOf(0);
+		if (type == float.class)
+			return Float.valueOf(0);
+		if (type == char.class)
+			return Character.valueOf((char) 0);
+		return null;
+	}
+
+}
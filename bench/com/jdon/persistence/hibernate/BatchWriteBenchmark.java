@@ -0,0 +1,162 @@
+/*
+ * Copyright 2007 the original author or jdon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.persistence.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.jdon.bench.Benchmark;
+import com.jdon.persistence.hibernate.util.ThreadLocalSessionProvider;
+
+/**
+ * the write of 1000 new rows by HibernateTemplate.saveOrUpdateAll without
+ * chunks, with chunks of 50, and by insertAllStateless.
+ *
+ * the database is the one of -Dbench.jdbc.url (-Dbench.jdbc.driver,
+ * -Dbench.jdbc.user, -Dbench.jdbc.password, -Dbench.jdbc.dialect if
+ * Hibernate can't find it from the connection); the table bench_row is
+ * created and dropped by the benchmark. BenchmarkRunner runs it only with
+ * the url, -Dbench.jdbc.classpath of ant bench must give the jdbc driver and
+ * the jars of the Hibernate 3.2 runtime that are not in j2eelib.
+ *
+ */
+public class BatchWriteBenchmark extends Benchmark {
+
+	private final static int ROWS = 1000;
+
+	private final static int BATCH_SIZE = 50;
+
+	public static class Row {
+		private Long id;
+
+		private String name;
+
+		private int amount;
+
+		public Long getId() {
+			return id;
+		}
+
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAmount() {
+			return amount;
+		}
+
+		public void setAmount(int amount) {
+			this.amount = amount;
+		}
+	}
+
+	static final String MAPPING = "<?xml version=\"1.0\"?>"
+			+ "<!DOCTYPE hibernate-mapping PUBLIC \"-//Hibernate/Hibernate Mapping DTD 3.0//EN\" \"http://hibernate.sourceforge.net/hibernate-mapping-3.0.dtd\">"
+			+ "<hibernate-mapping><class name=\"" + Row.class.getName() + "\" table=\"bench_row\">"
+			+ "<id name=\"id\" type=\"long\"><generator class=\"increment\"/></id>"
+			+ "<property name=\"name\" type=\"string\"/><property name=\"amount\" type=\"int\"/>"
+			+ "</class></hibernate-mapping>";
+
+	private final int batchSize;
+
+	private SessionFactory sessionFactory;
+
+	private HibernateTemplate template;
+
+	/**
+	 * @param batchSize
+	 *            0: saveOrUpdateAll without chunks, -1: insertAllStateless
+	 */
+	public BatchWriteBenchmark(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public String getName() {
+		if (batchSize < 0)
+			return "HibernateTemplate.insertAllStateless";
+		return batchSize == 0 ? "HibernateTemplate.saveOrUpdateAll" : "HibernateTemplate.saveOrUpdateAll.batch" + batchSize;
+	}
+
+	public void setUp(int threads) throws Exception {
+		sessionFactory = createSessionFactory();
+		template = new HibernateTemplate(new ThreadLocalSessionProvider(sessionFactory));
+	}
+
+	public void op(int thread) throws Exception {
+		List rows = createRows(ROWS);
+		try {
+			if (batchSize < 0)
+				template.insertAllStateless(rows);
+			else if (batchSize == 0)
+				template.saveOrUpdateAll(rows);
+			else
+				template.saveOrUpdateAll(rows, batchSize);
+		} finally {
+			template.closeSession();
+		}
+	}
+
+	// the rows stay in the table until tearDown
+	public int getMaxOps() {
+		return 100;
+	}
+
+	public void tearDown() throws Exception {
+		sessionFactory.close();
+	}
+
+	static SessionFactory createSessionFactory() {
+		Configuration cfg = new Configuration();
+		String driver = System.getProperty("bench.jdbc.driver");
+		if (driver != null && driver.length() > 0)
+			cfg.setProperty("hibernate.connection.driver_class", driver);
+		cfg.setProperty("hibernate.connection.url", System.getProperty("bench.jdbc.url"));
+		cfg.setProperty("hibernate.connection.username", System.getProperty("bench.jdbc.user", ""));
+		cfg.setProperty("hibernate.connection.password", System.getProperty("bench.jdbc.password", ""));
+		String dialect = System.getProperty("bench.jdbc.dialect");
+		if (dialect != null && dialect.length() > 0)
+			cfg.setProperty("hibernate.dialect", dialect);
+		cfg.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		cfg.setProperty("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE));
+		cfg.setProperty("hibernate.cache.use_second_level_cache", "false");
+		cfg.addXML(MAPPING);
+		return cfg.buildSessionFactory();
+	}
+
+	static List createRows(int count) {
+		List rows = new ArrayList(count);
+		for (int i = 0; i < count; i++) {
+			Row row = new Row();
+			row.setName("row" + i);
+			row.setAmount(i);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package com.jdon;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.controller.AppUtil;
+import com.jdon.controller.context.RequestWrapper;
+import com.jdon.controller.service.ServiceHandle;
+
+/**
+ * the bytes allocated by one call of a no-op service must stay in a budget,
+ * so a new allocation in the dispatch path (a debug string, a copied list)
+ * is found by the build.
+ * 
+ */
+public class DispatchAllocationTest extends TestCase {
+
+	// about 300 bytes now, the handle call with its MethodMetaArgs and the
+	// ProxyMethodInvocation
+	private final static long BUDGET = 1024;
+
+	private final static int WARMUP = 20000;
+
+	private final static int CALLS = 10000;
+
+	AppUtil appUtil;
+
+	protected void setUp() throws Exception {
+		appUtil = new AppUtil("com.jdon.jdonframework.xml");
+	}
+
+	public void testNoopServiceAllocation() throws Exception {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			return;
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threadMXBean.isThreadAllocatedMemorySupported() || !threadMXBean.isThreadAllocatedMemoryEnabled())
+			return;
+
+		ServiceHandle handle = appUtil.handle("noop", "echo", new Class[] { int.class });
+		// one session for all calls, as the requests of one user
+		RequestWrapper request = appUtil.createDemoRequest();
+		Object[] args = new Object[] { Integer.valueOf(1) };
+		for (int i = 0; i < WARMUP; i++) {
+			handle.call(args, request);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long start = threadMXBean.getThreadAllocatedBytes(threadId);
+		Object result = null;
+		for (int i = 0; i < CALLS; i++) {
+			result = handle.call(args, request);
+		}
+		long perCall = (threadMXBean.getThreadAllocatedBytes(threadId) - start) / CALLS;
+
+		Assert.assertEquals(Integer.valueOf(1), result);
+		Assert.assertTrue("allocated " + perCall + " bytes per call, the budget is " + BUDGET, perCall <= BUDGET);
+	}
+
+}
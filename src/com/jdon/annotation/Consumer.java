@@ -35,6 +35,23 @@ import java.lang.annotation.Target;
  * if there are many consumers, execution order will be
  *                  alphabetical list by Name of @Consumer class.
  *                  
+ * the consumers of one stage run in parallel, a stage waits for all
+ * consumers of the stages before it:
+ * 
+ * @Consumer(value = "mytopic", stage = 0) public class CacheUpdater ...
+ * @Consumer(value = "mytopic", stage = 0) public class SearchIndexer ...
+ * @Consumer(value = "mytopic", stage = 1) public class Notifier ...
+ * 
+ * the consumers without stage run one by one after the staged ones, in
+ * the alphabetical order above.
+ * 
+ * a partitioned consumer has N instances, each processes the events whose
+ * DomainMessage partition key hashes to it, so the events of one key are in
+ * order and the keys run in parallel; the events without key are spread by
+ * their sequence:
+ * 
+ * @Consumer(value = "mytopic", partitions = 4) public class UserUpdater ...
+ *                  
  * Domain Model producer /Consumer:
  * 
  * 1. annotate the producer class with @Model and @Introduce("message")
@@ -79,4 +96,20 @@ public @interface Consumer {
 	 */
 	String value();
 
+	/**
+	 * the stage of the consumer in the topic, the consumers of one stage run
+	 * in parallel; -1 is no stage.
+	 * 
+	 * @return the stage, 0 is the first
+	 */
+	int stage() default -1;
+
+	/**
+	 * the instances of the consumer, every instance processes the events of
+	 * its partition of the keys.
+	 * 
+	 * @return the number of partitions, 1 is not partitioned
+	 */
+	int partitions() default 1;
+
 }
@@ -66,8 +66,9 @@ public class AopClient {
 	 */
 	public Object invoke() throws Throwable {
 		TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
-		Debug.logVerbose("[JdonFramework] enter AOP invoker for:" + targetMetaRequest.getTargetMetaDef().getClassName() + " method:"
-				+ targetMetaRequest.getMethodMetaArgs().getMethodName(), module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] enter AOP invoker for:" + targetMetaRequest.getTargetMetaDef().getClassName() + " method:"
+					+ targetMetaRequest.getMethodMetaArgs().getMethodName(), module);
 
 		Object result = null;
 		MethodInvocation methodInvocation = null;
@@ -75,7 +76,8 @@ public class AopClient {
 			List<MethodInterceptor> chain = advisorChainFactory.create(targetMetaRequest.getTargetMetaDef());
 			Object[] args = targetMetaRequest.getMethodMetaArgs().getArgs();
 			Method method = methodConstructor.createMethod(targetServiceFactory);
-			methodInvocation = new ProxyMethodInvocation(chain, targetMetaRequestsHolder, targetServiceFactory, method, args);
+			methodInvocation = new ProxyMethodInvocation(chain, targetMetaRequestsHolder, targetServiceFactory,
+					methodConstructor.getMethodInvokerUtil(), method, args);
 			Debug.logVerbose("[JdonFramework] MethodInvocation will proceed ... ", module);
 			result = methodInvocation.proceed();
 		} catch (Exception ex) {
@@ -98,14 +100,16 @@ public class AopClient {
 	 */
 	public Object invoke(TargetMetaRequest targetMetaRequest, Method method, Object[] args) throws Throwable {
 		targetMetaRequestsHolder.setTargetMetaRequest(targetMetaRequest);
-		Debug.logVerbose("[JdonFramework] enter AOP invoker2 for:" + targetMetaRequest.getTargetMetaDef().getClassName() + " method:"
-				+ method.getName(), module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] enter AOP invoker2 for:" + targetMetaRequest.getTargetMetaDef().getClassName() + " method:"
+					+ method.getName(), module);
 
 		Object result = null;
 		MethodInvocation methodInvocation = null;
 		try {
 			List<MethodInterceptor> chain = advisorChainFactory.create(targetMetaRequest.getTargetMetaDef());
-			methodInvocation = new ProxyMethodInvocation(chain, targetMetaRequestsHolder, targetServiceFactory, method, args);
+			methodInvocation = new ProxyMethodInvocation(chain, targetMetaRequestsHolder, targetServiceFactory,
+					methodConstructor.getMethodInvokerUtil(), method, args);
 			Debug.logVerbose("[JdonFramework] MethodInvocation will proceed ... ", module);
 			result = methodInvocation.proceed();
 		} catch (Exception ex) {
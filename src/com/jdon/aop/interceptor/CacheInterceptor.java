@@ -21,6 +21,8 @@ import java.util.List;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsRegistry;
 import com.jdon.controller.model.ModelUtil;
 import com.jdon.domain.advsior.ModelAdvisor;
 import com.jdon.domain.model.injection.ModelProxyInjection;
@@ -54,6 +56,8 @@ public class CacheInterceptor implements MethodInterceptor {
 
 	private final List isModelCache = new ArrayList();
 
+	private final CacheStats stats = CacheStatsRegistry.getStats(CacheStatsRegistry.MODEL);
+
 	public CacheInterceptor(ModelManager modelManager, ModelProxyInjection modelProxyInjection, ModelAdvisor modelAdvisor) {
 		this.modelManager = modelManager;
 		this.modelProxyInjection = modelProxyInjection;
@@ -68,7 +72,8 @@ public class CacheInterceptor implements MethodInterceptor {
 			// module);
 			return invocation.proceed(); // 下一个interceptor
 		}
-		Debug.logVerbose("[JdonFramework] enter cacheInteceptor method:" + method.getName(), module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] enter cacheInteceptor method:" + method.getName(), module);
 		Class modelClass = method.getReturnType();
 		try {
 			String dataKey = getArguments(invocation);
@@ -77,7 +82,9 @@ public class CacheInterceptor implements MethodInterceptor {
 			ModelKey modelKey = new ModelKey(dataKey, modelClass);
 			Object model = modelManager.getCache(modelKey);
 			if (model == null) {
+				long start = System.nanoTime();
 				model = invocation.proceed(); // 下一个interceptor
+				stats.loaded(System.nanoTime() - start);
 				if (modelClass.isAssignableFrom(model.getClass())) {
 					// inject the Model's field
 					modelProxyInjection.injectProperties(model);
@@ -118,7 +125,8 @@ public class CacheInterceptor implements MethodInterceptor {
 			if (returnClass.getSuperclass() == null)
 				return condition; // 无返回值，不做缓存
 
-			Debug.logVerbose("[JdonFramework]methodMatchsModelGET: returnClassName = " + returnClass.getName(), module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework]methodMatchsModelGET: returnClassName = " + returnClass.getName(), module);
 			if (ModelUtil.isModel(returnClass)) {
 				if (mehtodName.indexOf(match_MethodName) != -1) {
 					condition = true;
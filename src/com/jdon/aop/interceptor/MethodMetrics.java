@@ -0,0 +1,129 @@
+/*
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.aop.interceptor;
+
+import com.jdon.util.LatencyHistogram;
+import com.jdon.util.StripedCounter;
+
+/**
+ * the calls of one method of a service: count, errors, the calls running now
+ * and a latency histogram. the overloaded methods of a service share one.
+ *
+ */
+public class MethodMetrics implements MethodMetricsMBean {
+
+	private final static double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final String service;
+
+	private final String method;
+
+	private final StripedCounter errors = new StripedCounter();
+
+	private final StripedCounter active = new StripedCounter();
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	public MethodMetrics(String service, String method) {
+		this.service = service;
+		this.method = method;
+	}
+
+	public void begin() {
+		active.increment();
+	}
+
+	/**
+	 * @param nanos
+	 *            the time of the call
+	 * @param error
+	 *            the call threw a exception
+	 */
+	public void end(long nanos, boolean error) {
+		active.decrement();
+		if (error)
+			errors.increment();
+		histogram.record(nanos / 1000);
+	}
+
+	public String getService() {
+		return service;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public long getCalls() {
+		return histogram.getCount();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public long getActive() {
+		return active.sum();
+	}
+
+	public double getMeanMillis() {
+		return histogram.getMean() / 1000;
+	}
+
+	public double getP50Millis() {
+		return histogram.getPercentile(50) / 1000d;
+	}
+
+	public double getP90Millis() {
+		return histogram.getPercentile(90) / 1000d;
+	}
+
+	public double getP99Millis() {
+		return histogram.getPercentile(99) / 1000d;
+	}
+
+	public double getP999Millis() {
+		return histogram.getPercentile(99.9) / 1000d;
+	}
+
+	public double getMaxMillis() {
+		return histogram.getMax() / 1000d;
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	/**
+	 * reset the counts, not the calls running now
+	 */
+	public void reset() {
+		errors.reset();
+		histogram.reset();
+	}
+
+	public String toString() {
+		long[] p = histogram.getPercentiles(PERCENTILES);
+		return service + "." + method + " calls=" + histogram.getCount() + " errors=" + errors + " active=" + active + " mean=" + millis(histogram.getMean())
+				+ "ms p50=" + millis(p[0]) + "ms p90=" + millis(p[1]) + "ms p99=" + millis(p[2]) + "ms p99.9=" + millis(p[3]) + "ms max="
+				+ millis(histogram.getMax()) + "ms";
+	}
+
+	private static String millis(double micros) {
+		return String.valueOf(Math.round(micros) / 1000d);
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.aop.interceptor;
+
+/**
+ * the JMX view of MethodMetrics, registered by MetricsInterceptor as
+ * com.jdon.aop:type=MethodMetrics,service=...,method=...
+ *
+ */
+public interface MethodMetricsMBean {
+
+	public String getService();
+
+	public String getMethod();
+
+	public long getCalls();
+
+	public long getErrors();
+
+	public long getActive();
+
+	public double getMeanMillis();
+
+	public double getP50Millis();
+
+	public double getP90Millis();
+
+	public double getP99Millis();
+
+	public double getP999Millis();
+
+	public double getMaxMillis();
+
+	public void reset();
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.aop.interceptor;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import com.jdon.bussinessproxy.TargetMetaDef;
+import com.jdon.container.access.TargetMetaRequestsHolder;
+import com.jdon.container.pico.Startable;
+import com.jdon.util.Debug;
+import com.jdon.util.MBeanUtil;
+
+/**
+ * records the calls of every method of the services: count, errors, the
+ * calls running now and a latency histogram, see MethodMetrics.
+ *
+ * it is commented out in aspect.xml; uncomment it as the first of the
+ * pojoServices interceptors, so the time of the others is measured too:
+ * <interceptor name="metricsInterceptor"
+ * class="com.jdon.aop.interceptor.MetricsInterceptor" pointcut="pojoServices" />
+ *
+ * every MethodMetrics is registered as the MBean
+ * com.jdon.aop:type=MethodMetrics,service=...,method=... ; MetricsServlet
+ * dumps them as text.
+ *
+ * a call costs two map lookups without allocation, two System.nanoTime and
+ * a few atomic adds.
+ *
+ */
+public class MetricsInterceptor implements MethodInterceptor, Startable {
+	private final static String module = MetricsInterceptor.class.getName();
+
+	private final TargetMetaRequestsHolder targetMetaRequestsHolder;
+
+	/**
+	 * service name, the metrics of its methods
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<Method, MethodMetrics>> services = new ConcurrentHashMap<String, ConcurrentMap<Method, MethodMetrics>>();
+
+	/**
+	 * service name + method name, the overloaded methods share one
+	 */
+	private final ConcurrentMap<String, MethodMetrics> metrics = new ConcurrentHashMap<String, MethodMetrics>();
+
+	public MetricsInterceptor(TargetMetaRequestsHolder targetMetaRequestsHolder) {
+		super();
+		this.targetMetaRequestsHolder = targetMetaRequestsHolder;
+	}
+
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		TargetMetaDef targetMetaDef = targetMetaRequestsHolder.getTargetMetaRequest().getTargetMetaDef();
+		MethodMetrics methodMetrics = getMetrics(targetMetaDef.getName(), invocation.getMethod());
+		boolean error = true;
+		methodMetrics.begin();
+		long start = System.nanoTime();
+		try {
+			Object result = invocation.proceed();
+			error = false;
+			return result;
+		} finally {
+			methodMetrics.end(System.nanoTime() - start, error);
+		}
+	}
+
+	public MethodMetrics getMetrics(String service, Method method) {
+		ConcurrentMap<Method, MethodMetrics> methods = services.get(service);
+		if (methods == null) {
+			methods = new ConcurrentHashMap<Method, MethodMetrics>();
+			ConcurrentMap<Method, MethodMetrics> old = services.putIfAbsent(service, methods);
+			if (old != null)
+				methods = old;
+		}
+		MethodMetrics methodMetrics = methods.get(method);
+		if (methodMetrics == null) {
+			methodMetrics = createMetrics(service, method.getName());
+			methods.put(method, methodMetrics);
+		}
+		return methodMetrics;
+	}
+
+	private MethodMetrics createMetrics(String service, String method) {
+		String key = service + "." + method;
+		MethodMetrics methodMetrics = metrics.get(key);
+		if (methodMetrics != null)
+			return methodMetrics;
+		methodMetrics = new MethodMetrics(service, method);
+		MethodMetrics old = metrics.putIfAbsent(key, methodMetrics);
+		if (old != null)
+			return old;
+		Debug.logVerbose("[JdonFramework] create the metrics of " + key, module);
+		register(methodMetrics);
+		return methodMetrics;
+	}
+
+	/**
+	 * @return the metrics of all methods, sorted by service and method
+	 */
+	public List<MethodMetrics> getAllMetrics() {
+		List<MethodMetrics> list = new ArrayList<MethodMetrics>(metrics.values());
+		Collections.sort(list, new Comparator<MethodMetrics>() {
+			public int compare(MethodMetrics m1, MethodMetrics m2) {
+				int c = m1.getService().compareTo(m2.getService());
+				return c != 0 ? c : m1.getMethod().compareTo(m2.getMethod());
+			}
+		});
+		return list;
+	}
+
+	/**
+	 * one line of every method
+	 */
+	public void dump(PrintWriter out) {
+		for (MethodMetrics methodMetrics : getAllMetrics()) {
+			out.println(methodMetrics);
+		}
+	}
+
+	public void reset() {
+		for (MethodMetrics methodMetrics : metrics.values()) {
+			methodMetrics.reset();
+		}
+	}
+
+	public void start() {
+	}
+
+	public void stop() {
+		Collection<MethodMetrics> all = metrics.values();
+		for (MethodMetrics methodMetrics : all) {
+			unregister(methodMetrics);
+		}
+		metrics.clear();
+		services.clear();
+	}
+
+	static String getObjectName(MethodMetrics methodMetrics) {
+		return "com.jdon.aop:type=MethodMetrics,service=" + MBeanUtil.quote(methodMetrics.getService()) + ",method="
+				+ MBeanUtil.quote(methodMetrics.getMethod());
+	}
+
+	private void register(MethodMetrics methodMetrics) {
+		// another container of the jvm may have the same service
+		MBeanUtil.register(methodMetrics, getObjectName(methodMetrics));
+	}
+
+	private void unregister(MethodMetrics methodMetrics) {
+		MBeanUtil.unregister(getObjectName(methodMetrics));
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.aop.interceptor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.jdon.async.disruptor.DisruptorFactory;
+import com.jdon.async.disruptor.HandlerMetrics;
+import com.jdon.async.disruptor.TopicMetrics;
+import com.jdon.async.journal.EventJournal;
+import com.jdon.async.journal.TopicJournal;
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsRegistry;
+import com.jdon.controller.WebAppUtil;
+
+/**
+ * dumps the MethodMetrics of MetricsInterceptor, the CacheStats and the
+ * TopicMetrics and journals of the domain events as text, one line each; /metrics?reset resets them after the dump.
+ *
+ * web.xml: <servlet> <servlet-name>metrics</servlet-name>
+ * <servlet-class>com.jdon.aop.interceptor.MetricsServlet</servlet-class>
+ * <init-param> <param-name>interceptor</param-name>
+ * <param-value>metricsInterceptor</param-value> </init-param> </servlet>
+ *
+ * <servlet-mapping> <servlet-name>metrics</servlet-name>
+ * <url-pattern>/metrics</url-pattern> </servlet-mapping>
+ *
+ * protect the url by a security-constraint, it shows the service names.
+ *
+ */
+public class MetricsServlet extends HttpServlet {
+
+	private static final long serialVersionUID = -3204436227165208547L;
+
+	public final static String interceptor_param = "interceptor";
+
+	public final static String default_interceptor = "metricsInterceptor";
+
+	public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String name = getInitParameter(interceptor_param);
+		if (name == null)
+			name = default_interceptor;
+		boolean reset = request.getParameter("reset") != null;
+
+		response.setContentType("text/plain;charset=UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		PrintWriter out = response.getWriter();
+		Object o = WebAppUtil.getComponentInstance(name, getServletContext());
+		if (o instanceof MetricsInterceptor) {
+			MetricsInterceptor metricsInterceptor = (MetricsInterceptor) o;
+			metricsInterceptor.dump(out);
+			if (reset)
+				metricsInterceptor.reset();
+		} else {
+			out.println("# no MetricsInterceptor named " + name + " in aspect.xml");
+		}
+		for (CacheStats cacheStats : CacheStatsRegistry.getAllStats()) {
+			out.println(cacheStats);
+			if (reset)
+				cacheStats.reset();
+		}
+		Object disruptorFactory = WebAppUtil.getComponentInstance("disruptorFactory", getServletContext());
+		if (disruptorFactory instanceof DisruptorFactory) {
+			for (TopicMetrics topicMetrics : ((DisruptorFactory) disruptorFactory).getAllTopicMetrics()) {
+				out.println(topicMetrics);
+				for (HandlerMetrics handlerMetrics : topicMetrics.getHandlers()) {
+					out.println(handlerMetrics);
+				}
+				if (reset)
+					topicMetrics.reset();
+			}
+			EventJournal eventJournal = ((DisruptorFactory) disruptorFactory).getEventJournal();
+			if (eventJournal != null) {
+				for (TopicJournal journal : eventJournal.getJournals()) {
+					out.println(journal);
+					if (reset) {
+						journal.getAppendLatency().reset();
+						journal.getFlushLatency().reset();
+					}
+				}
+			}
+		}
+		out.flush();
+	}
+
+}
@@ -15,10 +15,8 @@
  */
 package com.jdon.aop.interceptor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
@@ -28,13 +26,12 @@ import com.jdon.bussinessproxy.TargetMetaDef;
 import com.jdon.bussinessproxy.target.TargetServiceFactory;
 import com.jdon.container.ContainerWrapper;
 import com.jdon.container.access.TargetMetaRequestsHolder;
-import com.jdon.container.finder.ComponentKeys;
 import com.jdon.container.finder.ContainerCallback;
-import com.jdon.controller.cache.InstanceCache;
-import com.jdon.controller.pool.CommonsPoolFactory;
+import com.jdon.container.pico.Startable;
 import com.jdon.controller.pool.Pool;
 import com.jdon.controller.pool.PoolConfigure;
 import com.jdon.controller.pool.Poolable;
+import com.jdon.controller.pool.StripedPool;
 import com.jdon.util.Debug;
 
 /**
@@ -45,13 +42,13 @@ import com.jdon.util.Debug;
  * @author <a href="mailto:banqiao@jdon.com">banq </a>
  *  
  */
-public class PoolInterceptor implements MethodInterceptor {
+public class PoolInterceptor implements MethodInterceptor, Startable {
 	private final static String module = PoolInterceptor.class.getName();
 
 	/**
 	 * one target object, one pool
 	 */
-	private final Map poolFactorys;
+	private final ConcurrentMap<String, StripedPool> pools;
 
 	private final TargetServiceFactory targetServiceFactory;
 
@@ -59,9 +56,10 @@ public class PoolInterceptor implements MethodInterceptor {
 
 	private final PoolConfigure poolConfigure;
 
-	private final List isPoolableCache = new ArrayList();
-
-	private final List unPoolableCache = new ArrayList();
+	/**
+	 * target service name, is it Poolable
+	 */
+	private final ConcurrentMap<String, Boolean> poolableCache = new ConcurrentHashMap<String, Boolean>();
 
 	private final TargetMetaRequestsHolder targetMetaRequestsHolder;
 
@@ -75,7 +73,7 @@ public class PoolInterceptor implements MethodInterceptor {
 		this.targetMetaRequestsHolder = targetMetaRequestsHolder;
 		this.containerCallback = containerCallback;
 		this.poolConfigure = poolConfigure;
-		this.poolFactorys = new HashMap();
+		this.pools = new ConcurrentHashMap<String, StripedPool>();
 	}
 
 	/*
@@ -95,20 +93,14 @@ public class PoolInterceptor implements MethodInterceptor {
 			return invocation.proceed(); //下一个interceptor
 		}
 		Debug.logVerbose("[JdonFramework] enter PoolInterceptor", module);
-		CommonsPoolFactory commonsPoolFactory = (CommonsPoolFactory) poolFactorys.get(targetMetaDef.getCacheKey());
-		if (commonsPoolFactory == null) {
-			commonsPoolFactory = getCommonsPoolFactory(targetMetaDef);
-			poolFactorys.put(targetMetaDef.getCacheKey(), commonsPoolFactory);
-		}
-
-		Pool pool = commonsPoolFactory.getPool();
+		Pool pool = getPool(targetMetaDef);
 		Object poa = null;
 		Object result = null;
 		try {
 			poa = pool.acquirePoolable();
-			Debug.logVerbose("[JdonFramework] borrow a object:" + targetMetaDef.getClassName() + " id:" + poa.hashCode()
-					+ " from pool", module);
-			Debug.logVerbose("[JdonFramework]pool state: active=" + pool.getNumActive() + " free=" + pool.getNumIdle(), module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework] borrow a object:" + targetMetaDef.getClassName() + " id:" + poa.hashCode()
+						+ " from pool", module);
 
 			//set the object that borrowed from pool to MethodInvocation
 			//so later other Interceptors or MethodInvocation can use it!
@@ -119,58 +111,57 @@ public class PoolInterceptor implements MethodInterceptor {
 		} finally {
 			if (poa != null) {
 				pool.releasePoolable(poa);
-				Debug.logVerbose("[JdonFramework] realease a object:" + targetMetaDef.getClassName() + " to pool", module);
+				if (Debug.verboseOn())
+					Debug.logVerbose("[JdonFramework] realease a object:" + targetMetaDef.getClassName() + " to pool", module);
 			}
 		}
 		return result;
 	}
 
 	/**
-	 * every target service has its CommonsPoolFactory, we cache it in
-	 * container, next time, we can get the cached Object Pool for the target
-	 * service;
+	 * every target service has its pool, the pool is created by the first
+	 * request, if two requests create it at same time, only one is kept.
 	 * 
 	 * @param targetMetaDef
 	 * @return
 	 */
-	private CommonsPoolFactory getCommonsPoolFactory(TargetMetaDef targetMetaDef) {
-		CommonsPoolFactory commonsPoolFactory = null;
-		try {
-			ContainerWrapper containerWrapper = containerCallback.getContainerWrapper();
-			InstanceCache instanceCache = (InstanceCache) containerWrapper.lookup(ComponentKeys.INSTANCE_CACHE);
-
-			String key = targetMetaDef.getCacheKey() + " CommonsPoolFactory";
+	public StripedPool getPool(TargetMetaDef targetMetaDef) {
+		String key = targetMetaDef.getCacheKey();
+		StripedPool pool = pools.get(key);
+		if (pool == null) {
+			Debug.logVerbose("[JdonFramework] first time call pool, create it:" + key, module);
+			pool = new StripedPool(targetServiceFactory, Integer.parseInt(poolConfigure.getMaxPoolSize()));
+			StripedPool old = pools.putIfAbsent(key, pool);
+			if (old != null)
+				pool = old;
+		}
+		return pool;
+	}
 
-			commonsPoolFactory = (CommonsPoolFactory) instanceCache.get(key);
-			if (commonsPoolFactory == null) {
-				Debug.logVerbose("[JdonFramework] first time call commonsPoolFactory， create it:" + key, module);
-				commonsPoolFactory = new CommonsPoolFactory(targetServiceFactory, poolConfigure.getMaxPoolSize());
-				instanceCache.put(key, commonsPoolFactory);
-			}
+	public void start() {
+	}
 
-		} catch (Exception ex) {
-			Debug.logError(ex, module);
+	/**
+	 * destroys the pooled objects
+	 */
+	public void stop() {
+		for (StripedPool pool : pools.values()) {
+			pool.close();
 		}
-		return commonsPoolFactory;
+		pools.clear();
 	}
 
 	public boolean isPoolabe(TargetMetaDef targetMetaDef) {
-		boolean found = false;
-		if (isPoolableCache.contains(targetMetaDef.getName())) {
-			found = true;
-		} else if (!unPoolableCache.contains(targetMetaDef.getName())) {
+		Boolean found = poolableCache.get(targetMetaDef.getName());
+		if (found == null) {
 			Debug.logVerbose("[JdonFramework] check if it is a Poolable", module);
 			ContainerWrapper containerWrapper = containerCallback.getContainerWrapper();
 			Class thisCLass = containerWrapper.getComponentClass(targetMetaDef.getName());
-			if (Poolable.class.isAssignableFrom(thisCLass) ||
-				thisCLass.isAnnotationPresent(com.jdon.annotation.intercept.Poolable.class)) {
-				found = true;
-				isPoolableCache.add(targetMetaDef.getName());
-			} else {
-				unPoolableCache.add(targetMetaDef.getName());
-			}
+			found = Boolean.valueOf(Poolable.class.isAssignableFrom(thisCLass)
+					|| thisCLass.isAnnotationPresent(com.jdon.annotation.intercept.Poolable.class));
+			poolableCache.put(targetMetaDef.getName(), found);
 		}
-		return found;
+		return found.booleanValue();
 	}
 
 }
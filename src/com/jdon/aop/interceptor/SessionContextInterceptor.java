@@ -91,7 +91,8 @@ public class SessionContextInterceptor implements MethodInterceptor {
 			if (targetObject == null){
 				throw new Exception("targetObject is null, add @Poolable and try again"); 
 			}
-			Debug.logVerbose("[JdonFramework] targetObject should be SessionContextAcceptable: " + targetObject.getClass().getName(), module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework] targetObject should be SessionContextAcceptable: " + targetObject.getClass().getName(), module);
 			setSessionContext(targetObject, targetMetaRequest);
 
 			result = invocation.proceed();
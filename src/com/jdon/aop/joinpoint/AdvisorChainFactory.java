@@ -41,8 +41,8 @@ public class AdvisorChainFactory {
 
 	private final ContainerCallback containerCallback;
 
-	private List<MethodInterceptor> interceptors;
-	private List<MethodInterceptor> interceptorsForEJB;
+	private volatile List<MethodInterceptor> interceptors;
+	private volatile List<MethodInterceptor> interceptorsForEJB;
 	private Map<String, List<MethodInterceptor>> targetInterceptors;
 
 	/**
@@ -63,29 +63,28 @@ public class AdvisorChainFactory {
 	 * interceptors. you can change the orders bu replacing this class in
 	 * container.xml
 	 * 
+	 * the returned list is created once and shared by all calls, don't modify
+	 * it. the interceptors of a target are applied by ComponentAdvsior, not
+	 * here.
+	 * 
 	 */
 	public List<MethodInterceptor> create(TargetMetaDef targetMetaDef) throws Exception {
 		Debug.logVerbose("[JdonFramework] enter  create PointcutAdvisor  ", module);
 		if (targetMetaDef.isEJB()) {
 			if (interceptorsForEJB == null) {
-				interceptorsForEJB = new ArrayList();
-				createEJBAdvice(targetMetaDef);
+				synchronized (this) {
+					if (interceptorsForEJB == null)
+						interceptorsForEJB = createEJBAdvice(targetMetaDef);
+				}
 			}
 			return interceptorsForEJB;
 		}
-		List<MethodInterceptor> result = new ArrayList();
 		if (interceptors == null) {
-			interceptors = new ArrayList();
-			createPOJOAdvice(targetMetaDef);
-		}
-		result.addAll(interceptors);
-
-		List<MethodInterceptor> targets = targetInterceptors.get(targetMetaDef.getName());
-		if (targets == null) {
-			targets = createTargetPOJOAdvice(targetMetaDef.getName());
-			targetInterceptors.put(targetMetaDef.getName(), targets);
+			synchronized (this) {
+				if (interceptors == null)
+					interceptors = createPOJOAdvice(targetMetaDef);
+			}
 		}
-		result.addAll(targets);
 		return interceptors;
 	}
 
@@ -99,13 +98,14 @@ public class AdvisorChainFactory {
 		return targets;
 	}
 
-	protected void createEJBAdvice(TargetMetaDef targetMetaDef) throws Exception {
+	protected List<MethodInterceptor> createEJBAdvice(TargetMetaDef targetMetaDef) throws Exception {
+		List<MethodInterceptor> interceptorsForEJB = new ArrayList();
 		if (!targetMetaDef.isEJB())
-			return;
+			return interceptorsForEJB;
 
 		List<Advisor> ejbInterceptorNames = interceptorsChain.getAdvisors(Pointcut.EJB_TARGET_PROPS_SERVICES);
 		if (ejbInterceptorNames == null)
-			return;
+			return interceptorsForEJB;
 		List<Advisor> alladvices = interceptorsChain.getAdvisors(Pointcut.TARGET_PROPS_SERVICES);
 		if (alladvices != null)
 			ejbInterceptorNames.addAll(alladvices);
@@ -115,16 +115,17 @@ public class AdvisorChainFactory {
 			interceptorsForEJB.add(ejbInterceptor);
 			Debug.logVerbose("[JdonFramework] find ejbService's interceptos size=" + interceptorsForEJB.size(), module);
 		}
-
+		return interceptorsForEJB;
 	}
 
-	protected void createPOJOAdvice(TargetMetaDef targetMetaDef) throws Exception {
+	protected List<MethodInterceptor> createPOJOAdvice(TargetMetaDef targetMetaDef) throws Exception {
+		List<MethodInterceptor> interceptors = new ArrayList();
 		if (targetMetaDef.isEJB())
-			return;
+			return interceptors;
 		Debug.logVerbose("[JdonFramework] enter  create PointcutAdvisor  ", module);
 		List<Advisor> pojoInterceptorNames = interceptorsChain.getAdvisors(Pointcut.POJO_TARGET_PROPS_SERVICES);
 		if (pojoInterceptorNames == null)
-			return;
+			return interceptors;
 		List<Advisor> alladvices = interceptorsChain.getAdvisors(Pointcut.TARGET_PROPS_SERVICES);
 		if (alladvices != null)
 			pojoInterceptorNames.addAll(alladvices);
@@ -134,7 +135,7 @@ public class AdvisorChainFactory {
 			interceptors.add(interceptor);
 			Debug.logVerbose("[JdonFramework] find pojoService's interceptos size=" + interceptors.size(), module);
 		}
-
+		return interceptors;
 	}
 
 	protected List<MethodInterceptor> createTargetPOJOAdvice(String name) throws Exception {
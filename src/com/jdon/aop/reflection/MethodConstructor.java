@@ -88,7 +88,10 @@ public class MethodConstructor {
         TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
         TargetMetaDef targetMetaDef = targetMetaRequest.getTargetMetaDef();
         MethodMetaArgs methodMetaArgs = targetMetaRequest.getMethodMetaArgs();        
-        Debug.logVerbose("[JdonFramework] createPOJO Method :" + methodMetaArgs.getMethodName() + " for target service: " + targetMetaDef.getName(), module);        
+        if (methodMetaArgs.getMethod() != null)
+            return methodMetaArgs.getMethod();
+        if (Debug.verboseOn())
+            Debug.logVerbose("[JdonFramework] createPOJO Method :" + methodMetaArgs.getMethodName() + " for target service: " + targetMetaDef.getName(), module);        
         try {       
             Class thisCLass = containerCallback.getContainerWrapper().getComponentClass(targetMetaDef.getName());            
             if (thisCLass == null) return null;
@@ -59,7 +59,8 @@ public class MethodInvokerUtil {
             if ((method == null) || (targetObj == null))
                 Debug.logError("[JdonFramework] no method or target, please check your configure", module);
             if (p_args == null)  p_args = new Object[0];
-            Debug.logVerbose("[JdonFramework] method invoke: " + targetObj.getClass().getName() + " method=" + method.getName(), module);
+            if (Debug.verboseOn())
+                Debug.logVerbose("[JdonFramework] method invoke: " + targetObj.getClass().getName() + " method=" + method.getName(), module);
             Object result = method.invoke(targetObj, p_args);
             Debug.logVerbose("[JdonFramework] method invoke successfully ", module);
             return result;
@@ -107,7 +108,8 @@ public class MethodInvokerUtil {
             if (targetMetaDef.isEJB()) { //cache the ejb object
                 ComponentVisitor cm = targetMetaRequest.getComponentVisitor();
                 targetMetaRequest.setVisitableName(ComponentKeys.TARGETSERVICE_FACTORY);
-                Debug.logVerbose(ComponentKeys.TARGETSERVICE_FACTORY + " in action (cache)", module);
+                if (Debug.verboseOn())
+                    Debug.logVerbose(ComponentKeys.TARGETSERVICE_FACTORY + " in action (cache)", module);
                 targetObjRef = cm.visit();
             } else {
                 Debug.logVerbose("[JdonFramework] not active targer service instance cache !!!!", module);
@@ -60,11 +60,21 @@ public class ProxyMethodInvocation implements MethodInvocation, java.io.Serializ
 
 	public ProxyMethodInvocation(List<MethodInterceptor> interceptors, TargetMetaRequestsHolder targetMetaRequestsHolder,
 			TargetServiceFactory targetServiceFactory, Method method, Object[] args) {
-		Debug.logVerbose("[JdonFramework] method.getName() :" + method.getName(), module);
+		this(interceptors, targetMetaRequestsHolder, targetServiceFactory, new MethodInvokerUtil(targetMetaRequestsHolder), method, args);
+	}
+
+	/**
+	 * MethodInvokerUtil has no state, so one instance can be shared by all
+	 * invocations.
+	 */
+	public ProxyMethodInvocation(List<MethodInterceptor> interceptors, TargetMetaRequestsHolder targetMetaRequestsHolder,
+			TargetServiceFactory targetServiceFactory, MethodInvokerUtil mUtil, Method method, Object[] args) {
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] method.getName() :" + method.getName(), module);
 		this.interceptors = interceptors;
 		this.targetServiceFactory = targetServiceFactory;
 		this.targetMetaRequestsHolder = targetMetaRequestsHolder;
-		this.mUtil = new MethodInvokerUtil(targetMetaRequestsHolder);
+		this.mUtil = mUtil;
 		this.method = method;
 		this.args = args;
 	}
@@ -102,8 +112,9 @@ public class ProxyMethodInvocation implements MethodInvocation, java.io.Serializ
 			}
 
 			TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
-			Debug.logVerbose("[JdonFramework] target:" + target.getClass().getName() + " service's method:" + method.getName() + " running.. ",
-					module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework] target:" + target.getClass().getName() + " service's method:" + method.getName() + " running.. ",
+						module);
 			TargetMetaDef targetMetaDef = targetMetaRequest.getTargetMetaDef();
 			if (targetMetaDef.isEJB()) {
 				Debug.logVerbose("[JdonFramework] it is ejb target service", module);
@@ -17,7 +17,7 @@ package com.jdon.async;
 
 import com.jdon.annotation.model.Send;
 import com.jdon.async.disruptor.DisruptorFactory;
-import com.jdon.async.disruptor.EventDisruptor;
+import com.jdon.async.disruptor.EventResult;
 import com.jdon.async.future.EventMessageFuture;
 import com.jdon.async.future.FutureDirector;
 import com.jdon.async.future.FutureListener;
@@ -43,11 +43,11 @@ public class EventMessageFirer {
 
 	public void fire(DomainMessage domainMessage, Send send) {
 		String topic = send.value();
-		EventDisruptor eventDisruptor = disruptorFactory.getEventDisruptor(topic);
-		eventDisruptor.setTopic(topic);
-		eventDisruptor.setDomainMessage(domainMessage);
-		domainMessage.setEventMessage(eventDisruptor);
-		disruptorFactory.fire(topic, eventDisruptor);
+		EventResult eventResult = new EventResult();
+		domainMessage.setEventMessage(eventResult);
+		if (!disruptorFactory.publish(topic, domainMessage)) {// rejected, the lag of the topic is over
+			eventResult.setEventResult(null);
+		}
 	}
 
 }
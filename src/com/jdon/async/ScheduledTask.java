@@ -5,39 +5,61 @@ import java.util.TimerTask;
 
 import com.jdon.async.task.Task;
 
+/**
+ * schedule periodic tasks that will be executed by the EventProcessor.
+ *
+ * all ScheduledTask share one scheduler thread in ScheduledTaskService, no
+ * Timer thread is created for each instance. in a container use the
+ * ScheduledTaskService component, the container stop cancels its tasks.
+ *
+ */
 public class ScheduledTask extends TimerTask {
 
 	private Task task;
 	private Timer taskTimer;
 	private EventProcessor ep;
+	private final ScheduledTaskService service;
 
 	public ScheduledTask(EventProcessor ep) {
-		this.taskTimer = new Timer(true);
+		this(ep, ScheduledTaskService.getInstance());
+	}
+
+	public ScheduledTask(EventProcessor ep, ScheduledTaskService service) {
 		this.ep = ep;
+		this.service = service;
 	}
 
 	public ScheduledTask clone() {
-		ScheduledTask st = new ScheduledTask(ep);
+		ScheduledTask st = new ScheduledTask(ep, service);
 		return st;
 	}
 
 	/**
 	 * Schedules a task to periodically run. This is useful for tasks such as
 	 * updating search indexes, deleting old data at periodic intervals, etc.
-	 * 
+	 *
 	 * @param task
 	 *            task to be scheduled.
 	 * @param delay
 	 *            delay in milliseconds before task is to be executed.
 	 * @param period
 	 *            time in milliseconds between successive task executions.
-	 * @return a TimerTask object which can be used to track executions of the
-	 *         task and to cancel subsequent executions.
+	 * @return a ScheduledTaskHandle object which can be used to track
+	 *         executions of the task and to cancel subsequent executions.
+	 */
+	public ScheduledTaskHandle scheduleTask(Task task, long delay, long period) {
+		return scheduleTask(task, delay, period, 0);
+	}
+
+	/**
+	 * Schedules a task to periodically run with a random jitter.
+	 *
+	 * @param jitter
+	 *            max random milliseconds added to every execution time.
+	 * @see #scheduleTask(Task, long, long)
 	 */
-	public void scheduleTask(Task task, long delay, long period) {
-		ScheduledTask st = clone();
-		st.setTask(task);
-		taskTimer.scheduleAtFixedRate(st, delay, period);
+	public ScheduledTaskHandle scheduleTask(Task task, long delay, long period, long jitter) {
+		return service.schedule(ep, task, delay, period, jitter);
 	}
 
 	public void run() {
@@ -54,6 +76,11 @@ public class ScheduledTask extends TimerTask {
 		this.task = task;
 	}
 
+	/**
+	 * @deprecated tasks are scheduled by ScheduledTaskService, this timer is
+	 *             only set by setTaskTimer.
+	 */
+	@Deprecated
 	public Timer getTaskTimer() {
 		return taskTimer;
 	}
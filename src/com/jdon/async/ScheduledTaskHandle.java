@@ -0,0 +1,199 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jdon.async.task.Task;
+
+/**
+ * handle of a task scheduled by ScheduledTaskService, it can cancel the
+ * subsequent executions and hold the run-time stats of the task.
+ *
+ */
+public class ScheduledTaskHandle implements Runnable {
+
+	private final ScheduledTaskService service;
+	private final EventProcessor ep;
+	private final Task task;
+	private final long period;
+	private final long jitter;
+
+	private volatile ScheduledFuture future;
+	private volatile boolean cancelled;
+	// nanoTime of the next execution without jitter, the jitter of one
+	// execution is not carried into the next ones, avoid drift
+	private long baseTime;
+
+	private final AtomicLong scheduledCount = new AtomicLong();
+	private final AtomicLong runCount = new AtomicLong();
+	private final AtomicLong errorCount = new AtomicLong();
+	private final AtomicLong totalRunTime = new AtomicLong();
+	private final AtomicLong maxRunTime = new AtomicLong();
+	private volatile long lastRunTime;
+
+	ScheduledTaskHandle(ScheduledTaskService service, EventProcessor ep, Task task, long period, long jitter) {
+		this.service = service;
+		this.ep = ep;
+		this.task = task;
+		this.period = period;
+		this.jitter = jitter;
+	}
+
+	synchronized void start(long delay) {
+		baseTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+		scheduleNext();
+	}
+
+	private synchronized void scheduleNext() {
+		if (cancelled)
+			return;
+		long runTime = baseTime + TimeUnit.MILLISECONDS.toNanos(service.nextJitter(jitter));
+		future = service.getScheduler().schedule(this, runTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * called by the scheduler thread, only put the task into the queue to be
+	 * run as soon as possible by a worker.
+	 */
+	public void run() {
+		if (cancelled)
+			return;
+		scheduledCount.incrementAndGet();
+		ep.addTask(new StatTask());
+		synchronized (this) {
+			baseTime += TimeUnit.MILLISECONDS.toNanos(period);
+			scheduleNext();
+		}
+	}
+
+	/**
+	 * cancel the subsequent executions, a execution running now will not be
+	 * interrupted.
+	 */
+	public void cancel() {
+		ScheduledFuture f;
+		synchronized (this) {
+			cancelled = true;
+			f = future;
+		}
+		service.removeHandle(this);
+		if (f != null) {
+			f.cancel(false);
+			service.purge();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public Task getTask() {
+		return task;
+	}
+
+	public long getPeriod() {
+		return period;
+	}
+
+	public long getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * @return how many times the task has been put into EventProcessor.
+	 */
+	public long getScheduledCount() {
+		return scheduledCount.get();
+	}
+
+	/**
+	 * @return how many times the task has been executed.
+	 */
+	public long getRunCount() {
+		return runCount.get();
+	}
+
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	/**
+	 * @return total execution time in milliseconds.
+	 */
+	public long getTotalRunTime() {
+		return TimeUnit.NANOSECONDS.toMillis(totalRunTime.get());
+	}
+
+	/**
+	 * @return max execution time in milliseconds.
+	 */
+	public long getMaxRunTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxRunTime.get());
+	}
+
+	/**
+	 * @return last execution time in milliseconds.
+	 */
+	public long getLastRunTime() {
+		return TimeUnit.NANOSECONDS.toMillis(lastRunTime);
+	}
+
+	/**
+	 * @return average execution time in milliseconds.
+	 */
+	public long getAverageRunTime() {
+		long count = runCount.get();
+		return count == 0 ? 0 : getTotalRunTime() / count;
+	}
+
+	public String toString() {
+		return "task=" + task.getClass().getName() + " period=" + period + " runCount=" + getRunCount() + " errorCount="
+				+ getErrorCount() + " avg=" + getAverageRunTime() + "ms max=" + getMaxRunTime() + "ms";
+	}
+
+	private void record(long time) {
+		runCount.incrementAndGet();
+		totalRunTime.addAndGet(time);
+		lastRunTime = time;
+		long max = maxRunTime.get();
+		while (time > max && !maxRunTime.compareAndSet(max, time)) {
+			max = maxRunTime.get();
+		}
+	}
+
+	/**
+	 * execute the scheduled task in the EventProcessor worker and record the
+	 * run-time.
+	 */
+	class StatTask extends Task {
+
+		public void action() {
+			long start = System.nanoTime();
+			try {
+				task.action();
+			} catch (RuntimeException e) {
+				errorCount.incrementAndGet();
+				throw e;
+			} finally {
+				record(System.nanoTime() - start);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jdon.async.task.Task;
+import com.jdon.container.pico.Startable;
+import com.jdon.util.Debug;
+
+/**
+ * one scheduler thread shared by all ScheduledTask of a container.
+ *
+ * the scheduler thread only puts the task into the EventProcessor queue, the
+ * task itself is executed by the EventProcessor workers, so a slow task never
+ * delays others tasks.
+ *
+ * the container has its own instance, the component "scheduledTaskService" of
+ * container.xml, the container stop cancels its tasks and stops its thread
+ * only; getInstance() is the instance for the code out of a container. a
+ * stopped service starts its thread again at the next schedule.
+ *
+ * usage:
+ *
+ * <pre>
+ * ScheduledTaskHandle h = scheduledTaskService.schedule(ep, myTask, 1000, 60000, 500);
+ * ...
+ * h.cancel();
+ * </pre>
+ *
+ */
+public class ScheduledTaskService implements Startable {
+	private final static String module = ScheduledTaskService.class.getName();
+
+	private final static ScheduledTaskService instance = new ScheduledTaskService();
+
+	private ScheduledThreadPoolExecutor scheduler;
+
+	private final Set<ScheduledTaskHandle> handles = Collections.newSetFromMap(new ConcurrentHashMap<ScheduledTaskHandle, Boolean>());
+
+	private final Random random = new Random();
+
+	/**
+	 * the instance for the code out of a container.
+	 */
+	public static ScheduledTaskService getInstance() {
+		return instance;
+	}
+
+	public ScheduledTaskService() {
+	}
+
+	/**
+	 * Schedules a task to periodically run.
+	 *
+	 * @param ep
+	 *            the EventProcessor that will execute the task
+	 * @param task
+	 *            task to be scheduled.
+	 * @param delay
+	 *            delay in milliseconds before task is to be executed.
+	 * @param period
+	 *            time in milliseconds between successive task executions.
+	 * @param jitter
+	 *            max random milliseconds added to every execution time, so
+	 *            many tasks with same period will not run at same time. 0 is
+	 *            no jitter.
+	 * @return the handle to cancel the task and read its run-time stats.
+	 */
+	public ScheduledTaskHandle schedule(EventProcessor ep, Task task, long delay, long period, long jitter) {
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be > 0");
+		ScheduledTaskHandle handle = new ScheduledTaskHandle(this, ep, task, period, jitter);
+		handles.add(handle);
+		handle.start(delay);
+		Debug.logVerbose("[JdonFramework]schedule task=" + task.getClass().getName() + " period=" + period, module);
+		return handle;
+	}
+
+	long nextJitter(long jitter) {
+		if (jitter <= 0)
+			return 0;
+		synchronized (random) {
+			return (long) (random.nextDouble() * jitter);
+		}
+	}
+
+	synchronized ScheduledThreadPoolExecutor getScheduler() {
+		if (scheduler == null || scheduler.isShutdown())
+			scheduler = new ScheduledThreadPoolExecutor(1, new SchedulerThreadFactory());
+		return scheduler;
+	}
+
+	void removeHandle(ScheduledTaskHandle handle) {
+		handles.remove(handle);
+	}
+
+	synchronized void purge() {
+		if (scheduler != null)
+			scheduler.purge();
+	}
+
+	/**
+	 * @return the tasks scheduled by this service and not cancelled
+	 */
+	public List<ScheduledTaskHandle> getHandles() {
+		return new ArrayList<ScheduledTaskHandle>(handles);
+	}
+
+	public synchronized int getScheduledCount() {
+		return scheduler == null ? 0 : scheduler.getQueue().size();
+	}
+
+	/**
+	 * cancels the tasks of this service and stops its thread, the other
+	 * services are not touched.
+	 */
+	public void shutdown() {
+		for (ScheduledTaskHandle handle : getHandles()) {
+			handle.cancel();
+		}
+		synchronized (this) {
+			if (scheduler != null)
+				scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	public void start() {
+	}
+
+	public void stop() {
+		shutdown();
+	}
+
+	static class SchedulerThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jdon-scheduler-" + count.incrementAndGet());
+			t.setDaemon(true);
+			// the thread may be started by a request of a web application
+			t.setContextClassLoader(null);
+			return t;
+		}
+	}
+
+}
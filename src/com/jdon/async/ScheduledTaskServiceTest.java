@@ -0,0 +1,115 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.async.task.Task;
+
+public class ScheduledTaskServiceTest extends TestCase {
+
+	private ScheduledTaskService service;
+
+	// runs the task in the scheduler thread, at the time it is due
+	private final EventProcessor ep = new EventProcessor("1", "1") {
+		public void addTask(Task task) {
+			task.action();
+		}
+	};
+
+	static class TimedTask extends Task {
+		final List<Long> times = new CopyOnWriteArrayList<Long>();
+
+		public void action() {
+			times.add(new Long(System.nanoTime()));
+		}
+	}
+
+	protected void setUp() throws Exception {
+		service = new ScheduledTaskService();
+	}
+
+	protected void tearDown() throws Exception {
+		service.shutdown();
+	}
+
+	public void testJitterDoesNotDrift() throws Exception {
+		TimedTask task = new TimedTask();
+		long period = 40;
+		long jitter = 20;
+		long start = System.nanoTime();
+		ScheduledTaskHandle handle = service.schedule(ep, task, 0, period, jitter);
+		long deadline = System.currentTimeMillis() + 10000;
+		while (task.times.size() < 15 && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		handle.cancel();
+		Assert.assertTrue(task.times.size() >= 15);
+		// every run is in [base, base + jitter] of its own period, the
+		// jitters of the runs before it are not added up
+		for (int i = 0; i < 15; i++) {
+			long offset = TimeUnit.NANOSECONDS.toMillis(task.times.get(i).longValue() - start) - i * period;
+			Assert.assertTrue("run " + i + " is early: " + offset, offset >= 0);
+			Assert.assertTrue("run " + i + " is late: " + offset, offset <= jitter + 30);
+		}
+	}
+
+	public void testCancelStopsExecution() throws Exception {
+		TimedTask task = new TimedTask();
+		ScheduledTaskHandle handle = service.schedule(ep, task, 0, 5, 0);
+		long deadline = System.currentTimeMillis() + 10000;
+		while (task.times.size() < 3 && System.currentTimeMillis() < deadline)
+			Thread.sleep(1);
+		handle.cancel();
+		Assert.assertTrue(handle.isCancelled());
+		int count = task.times.size();
+		Thread.sleep(100);
+		Assert.assertEquals(count, task.times.size());
+		Assert.assertEquals(0, service.getHandles().size());
+	}
+
+	public void testShutdownCancelsOnlyItsOwnTasks() throws Exception {
+		ScheduledTaskService other = new ScheduledTaskService();
+		final AtomicInteger runs = new AtomicInteger();
+		try {
+			other.schedule(ep, new Task() {
+				public void action() {
+					runs.incrementAndGet();
+				}
+			}, 0, 5, 0);
+			ScheduledTaskHandle handle = service.schedule(ep, new TimedTask(), 0, 5, 0);
+			service.shutdown();
+			Assert.assertTrue(handle.isCancelled());
+			int count = runs.get();
+			Thread.sleep(100);
+			Assert.assertTrue(runs.get() > count);
+
+			// the stopped service schedules again
+			TimedTask task = new TimedTask();
+			service.schedule(ep, task, 0, 5, 0);
+			Thread.sleep(100);
+			Assert.assertTrue(task.times.size() > 0);
+		} finally {
+			other.shutdown();
+		}
+	}
+
+}
@@ -15,75 +15,396 @@
  */
 package com.jdon.async.disruptor;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.jdon.annotation.Consumer;
+import com.jdon.async.journal.EventJournal;
+import com.jdon.async.journal.EventJournalConf;
+import com.jdon.async.journal.TopicJournal;
 import com.jdon.container.ContainerWrapper;
 import com.jdon.container.finder.ContainerCallback;
+import com.jdon.container.pico.Startable;
 import com.jdon.domain.message.DomainEventHandler;
+import com.jdon.domain.message.DomainMessage;
 import com.jdon.util.Debug;
+import com.jdon.util.MBeanUtil;
 import com.lmax.disruptor.AbstractEvent;
 import com.lmax.disruptor.ClaimStrategy;
 import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventProcessor;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.WaitStrategy;
-import com.lmax.disruptor.wizard.DisruptorWizard;
-import com.lmax.disruptor.wizard.EventHandlerGroup;
 
-public class DisruptorFactory implements EventFactory {
+/**
+ * every topic has one ring, created at the first event sent to it and halted
+ * when the container stops; many threads publish to it, its consumers wait
+ * blocking, so a idle topic costs no cpu.
+ *
+ * every topic is registered as the MBean
+ * com.jdon.async:type=TopicMetrics,topic=... and every consumer as
+ * com.jdon.async:type=HandlerMetrics,topic=...,handler=...
+ *
+ * with a EventJournalConf in container.xml the events of its topics are
+ * appended to a EventJournal before they enter the ring, in the order of the
+ * ring; a last consumer acknowledges them and the events not acknowledged
+ * are published again when the topic starts after a restart.
+ *
+ */
+public class DisruptorFactory implements EventFactory, Startable {
 	public final static String module = DisruptorFactory.class.getName();
 	public final static String TOPICNAME = "TOPIC";
 
 	protected final Map<String, TreeSet<DomainEventHandler>> handlesMap;
 	private String RingBufferSize;
 
+	private final long lagLimit;
+
 	private final ContainerWrapper containerWrapper;
 
+	private final ConcurrentMap<String, Topic> topics = new ConcurrentHashMap<String, Topic>();
+
+	private ExecutorService executor;
+
+	private volatile TopicLagListener topicLagListener;
+
+	private volatile boolean listenerLoaded;
+
+	private final EventJournal eventJournal;
+
 	public DisruptorFactory(DisruptorParams disruptorParams, ContainerCallback containerCallback) {
+		this(disruptorParams, containerCallback, null);
+	}
+
+	public DisruptorFactory(DisruptorParams disruptorParams, ContainerCallback containerCallback, EventJournalConf eventJournalConf) {
 		this.RingBufferSize = disruptorParams.getRingBufferSize();
+		this.lagLimit = Long.parseLong(disruptorParams.getLagLimit());
 		this.containerWrapper = containerCallback.getContainerWrapper();
 		this.handlesMap = new ConcurrentHashMap<String, TreeSet<DomainEventHandler>>();
+		this.eventJournal = eventJournalConf == null ? null : new EventJournal(eventJournalConf);
 	}
 
-	private DisruptorWizard createDw() {
-		return new DisruptorWizard<EventDisruptor>(this, Integer.parseInt(RingBufferSize), Executors.newCachedThreadPool(),
-				ClaimStrategy.Option.SINGLE_THREADED, WaitStrategy.Option.YIELDING);
+	private RingBuffer<EventDisruptor> createRingBuffer() {
+		return new RingBuffer<EventDisruptor>(this, Integer.parseInt(RingBufferSize), ClaimStrategy.Option.MULTI_THREADED,
+				WaitStrategy.Option.BLOCKING);
+	}
+
+	/**
+	 * the consumers of one stage run in parallel, every stage waits for the
+	 * stage before it, see @Consumer stage.
+	 * 
+	 * @return the consumers, the last stage is tracked by the ring
+	 */
+	public List<TopicEventProcessor> addEventMessageHandler(RingBuffer<EventDisruptor> ringBuffer, String topic,
+			TreeSet<DomainEventHandler> handlers, List<HandlerMetrics> metrics) {
+		List<TopicEventProcessor> processors = new ArrayList<TopicEventProcessor>();
+		EventProcessor[] after = new EventProcessor[0];
+		for (List<DomainEventHandler> stage : getStages(handlers)) {
+			EventProcessor[] current = new EventProcessor[stage.size()];
+			Map<Class, Integer> partitionsOfStage = new HashMap<Class, Integer>();
+			for (int i = 0; i < current.length; i++) {
+				DomainEventHandler handler = stage.get(i);
+				int partitions = getPartitions(handler.getClass());
+				HandlerMetrics handlerMetrics;
+				TopicEventProcessor processor;
+				if (partitions > 1) {
+					// the instances of a partitioned consumer are its partitions
+					Integer partition = partitionsOfStage.get(handler.getClass());
+					partition = partition == null ? 0 : partition + 1;
+					partitionsOfStage.put(handler.getClass(), partition);
+					handlerMetrics = new HandlerMetrics(topic, handler, handler.getClass().getSimpleName() + "-" + partition);
+					processor = new TopicEventProcessor(ringBuffer, ringBuffer.newDependencyBarrier(after), handlerMetrics, partition, partitions);
+				} else {
+					handlerMetrics = new HandlerMetrics(topic, handler);
+					processor = new TopicEventProcessor(ringBuffer, ringBuffer.newDependencyBarrier(after), handlerMetrics);
+				}
+				handlerMetrics.setSequence(processor.getSequence());
+				metrics.add(handlerMetrics);
+				processors.add(processor);
+				current[i] = processor;
+			}
+			after = current;
+		}
+		if (after.length > 0)
+			ringBuffer.setTrackedProcessors(after);
+		return processors;
 	}
 
-	public DisruptorWizard addEventMessageHandler(String topic, TreeSet<DomainEventHandler> handlers) {
-		DisruptorWizard dw = createDw();
-		EventHandlerGroup eh = null;
+	/**
+	 * the staged consumers by their stage, then every consumer without stage
+	 * as a stage of its own, in the order of the handlers; the partitions of a
+	 * consumer are in one stage.
+	 */
+	protected List<List<DomainEventHandler>> getStages(TreeSet<DomainEventHandler> handlers) {
+		TreeMap<Integer, List<DomainEventHandler>> staged = new TreeMap<Integer, List<DomainEventHandler>>();
+		List<List<DomainEventHandler>> stages = new ArrayList<List<DomainEventHandler>>();
+		List<List<DomainEventHandler>> unstaged = new ArrayList<List<DomainEventHandler>>();
 		for (DomainEventHandler handler : handlers) {
-			if (eh == null) {
-				eh = dw.handleEventsWith(handler);
-			} else {
-				eh = eh.handleEventsWith(handler);
+			Consumer consumer = getConsumer(handler.getClass());
+			int stage = consumer == null ? -1 : consumer.stage();
+			if (stage < 0) {
+				List<DomainEventHandler> last = unstaged.isEmpty() ? null : unstaged.get(unstaged.size() - 1);
+				if (last != null && last.get(0).getClass() == handler.getClass() && getPartitions(handler.getClass()) > 1) {
+					last.add(handler);
+				} else {
+					List<DomainEventHandler> alone = new ArrayList<DomainEventHandler>(1);
+					alone.add(handler);
+					unstaged.add(alone);
+				}
+				continue;
 			}
+			List<DomainEventHandler> list = staged.get(stage);
+			if (list == null) {
+				list = new ArrayList<DomainEventHandler>();
+				staged.put(stage, list);
+			}
+			list.add(handler);
 		}
-		return dw;
+		stages.addAll(staged.values());
+		stages.addAll(unstaged);
+		return stages;
 	}
 
-	public EventDisruptor getEventDisruptor(String topic) {
-		TreeSet handlers = handlesMap.get(topic);
+	// the handler may be a subclass enhanced by the container
+	private Consumer getConsumer(Class handlerClass) {
+		for (Class c = handlerClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			Consumer consumer = (Consumer) c.getAnnotation(Consumer.class);
+			if (consumer != null)
+				return consumer;
+		}
+		return null;
+	}
+
+	private int getPartitions(Class handlerClass) {
+		Consumer consumer = getConsumer(handlerClass);
+		return consumer == null ? 1 : Math.max(1, consumer.partitions());
+	}
+
+	private Topic getTopic(String topic) {
+		Topic t = topics.get(topic);
+		if (t == null) {
+			boolean created = false;
+			synchronized (topics) {
+				t = topics.get(topic);
+				if (t == null) {
+					t = createTopic(topic);
+					topics.put(topic, t);
+					created = true;
+				}
+			}
+			// out of the lock, the other topics do not wait for the replay
+			if (created && t.journal != null)
+				replay(t);
+		}
+		t.awaitReplayed();
+		return t;
+	}
+
+	private Topic createTopic(String topic) {
+		TreeSet<DomainEventHandler> handlers = handlesMap.get(topic);
 		if (handlers == null)// not inited
 		{
 			handlers = loadEvenHandler(topic);
 			handlesMap.put(topic, handlers);
 		}
-		DisruptorWizard disruptorWizard = addEventMessageHandler(topic, handlers);
-		RingBuffer ringBuffer = disruptorWizard.start();
-		EventDisruptor eventDisruptor = (EventDisruptor) ringBuffer.nextEvent();
-		eventDisruptor.setRingBuffer(ringBuffer);
+		List<HandlerMetrics> metrics = new ArrayList<HandlerMetrics>();
+		RingBuffer<EventDisruptor> ringBuffer = createRingBuffer();
+		List<TopicEventProcessor> processors = addEventMessageHandler(ringBuffer, topic, handlers, metrics);
+		TopicJournal journal = null;
+		if (eventJournal != null && eventJournal.isJournaled(topic) && !processors.isEmpty())
+			journal = addJournalAckHandler(ringBuffer, topic, processors, getStages(handlers));
+		// the container may be started again after stop
+		if (executor == null || executor.isShutdown())
+			executor = Executors.newCachedThreadPool(new DisruptorThreadFactory());
+		for (TopicEventProcessor processor : processors) {
+			executor.execute(processor);
+		}
+		Topic t = new Topic(processors, ringBuffer, new TopicMetrics(topic, ringBuffer, metrics), journal);
+		register(t.topicMetrics);
+		Debug.logVerbose("[JdonFramework] start the ring of the topic " + topic + " consumers=" + metrics.size(), module);
+		return t;
+	}
+
+	// after the last stage, the ring tracks it instead of the last stage
+	private TopicJournal addJournalAckHandler(RingBuffer<EventDisruptor> ringBuffer, String topic, List<TopicEventProcessor> processors,
+			List<List<DomainEventHandler>> stages) {
+		TopicJournal journal;
+		try {
+			journal = eventJournal.getJournal(topic);
+		} catch (IOException e) {
+			Debug.logError("[JdonFramework] open the journal of the topic " + topic + " error:" + e + ", the topic is not journaled", module);
+			return null;
+		}
+		// the processors are in the order of the stages
+		int lastStage = stages.get(stages.size() - 1).size();
+		List<TopicEventProcessor> last = processors.subList(processors.size() - lastStage, processors.size());
+		TopicEventProcessor ack = new TopicEventProcessor(ringBuffer, ringBuffer.newDependencyBarrier(last.toArray(new EventProcessor[last.size()])),
+				new JournalAckHandler(journal));
+		ringBuffer.setTrackedProcessors(ack);
+		processors.add(ack);
+		return journal;
+	}
+
+	// the events after the ack, the new events of the topic wait for it
+	private void replay(final Topic t) {
+		try {
+			int count = t.journal.replay(new TopicJournal.Replayer() {
+				public void replay(long sequence, DomainMessage domainMessage) {
+					domainMessage.setEventMessage(new EventResult());
+					EventDisruptor eventDisruptor = t.ringBuffer.nextEvent();
+					eventDisruptor.setRingBuffer(t.ringBuffer);
+					eventDisruptor.setTopic(t.topicMetrics.getTopic());
+					eventDisruptor.setDomainMessage(domainMessage);
+					eventDisruptor.setJournalSequence(sequence);
+					t.ringBuffer.publish(eventDisruptor);
+				}
+			});
+			if (count > 0)
+				Debug.logInfo("[JdonFramework] replay " + count + " events of the journal of the topic " + t.topicMetrics.getTopic(), module);
+		} catch (Exception e) {
+			Debug.logError("[JdonFramework] replay the journal of the topic " + t.topicMetrics.getTopic() + " error:" + e, module);
+		} finally {
+			t.replayed.countDown();
+		}
+	}
+
+	/**
+	 * claims the next slot of the ring of the topic, it waits when the ring is
+	 * full.
+	 * 
+	 * @return null when the lag of the topic is over the limit and the event
+	 *         is rejected
+	 */
+	public EventDisruptor getEventDisruptor(String topic) {
+		Topic t = getTopic(topic);
+		if (t.topicMetrics.getHandlerCount() == 0) {
+			// nobody consumes it, the ring would never move
+			return new EventDisruptor();
+		}
+		if (lagLimit > 0 && !accept(t.topicMetrics)) {
+			t.topicMetrics.rejected();
+			return null;
+		}
+		EventDisruptor eventDisruptor = t.ringBuffer.nextEvent();
+		eventDisruptor.setRingBuffer(t.ringBuffer);
 		return eventDisruptor;
 	}
 
+	/**
+	 * publishes the event to the ring of the topic, a journaled topic appends
+	 * it to its journal first; it waits when the ring is full.
+	 * 
+	 * @return false when the lag of the topic is over the limit and the event
+	 *         is rejected
+	 */
+	public boolean publish(String topic, DomainMessage domainMessage) {
+		Topic t = getTopic(topic);
+		if (t.journal == null) {
+			EventDisruptor eventDisruptor = getEventDisruptor(topic);
+			if (eventDisruptor == null)
+				return false;
+			eventDisruptor.setTopic(topic);
+			eventDisruptor.setDomainMessage(domainMessage);
+			eventDisruptor.setJournalSequence(-1);
+			fire(topic, eventDisruptor);
+			return true;
+		}
+		if (lagLimit > 0 && !accept(t.topicMetrics)) {
+			t.topicMetrics.rejected();
+			return false;
+		}
+		long sequence;
+		EventDisruptor eventDisruptor;
+		try {
+			byte[] data = t.journal.serialize(domainMessage);
+			// the order of the journal is the order of the ring
+			synchronized (t.journal) {
+				sequence = t.journal.append(data);
+				eventDisruptor = t.ringBuffer.nextEvent();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("the event of the topic " + topic + " can not be journaled:" + e, e);
+		}
+		eventDisruptor.setRingBuffer(t.ringBuffer);
+		eventDisruptor.setTopic(topic);
+		eventDisruptor.setDomainMessage(domainMessage);
+		eventDisruptor.setJournalSequence(sequence);
+		t.ringBuffer.publish(eventDisruptor);
+		t.topicMetrics.published();
+		if (eventJournal.isSync())
+			eventJournal.sync(t.journal, sequence);
+		return true;
+	}
+
+	private boolean accept(TopicMetrics topicMetrics) {
+		long lag = topicMetrics.getMaxLag();
+		if (lag <= lagLimit)
+			return true;
+		TopicLagListener listener = getTopicLagListener();
+		if (listener != null)
+			return listener.onLag(topicMetrics, lag);
+		long rejected = topicMetrics.getRejected();
+		if (rejected % 1000 == 0)
+			Debug.logWarning("[JdonFramework] the topic " + topicMetrics.getTopic() + " lags " + lag + " events, reject the event, rejected="
+					+ rejected, module);
+		return false;
+	}
+
+	public TopicLagListener getTopicLagListener() {
+		if (!listenerLoaded) {
+			List listeners = containerWrapper.getComponentInstancesOfType(TopicLagListener.class);
+			if (listeners != null && !listeners.isEmpty() && topicLagListener == null)
+				topicLagListener = (TopicLagListener) listeners.get(0);
+			listenerLoaded = true;
+		}
+		return topicLagListener;
+	}
+
+	public void setTopicLagListener(TopicLagListener topicLagListener) {
+		this.topicLagListener = topicLagListener;
+		this.listenerLoaded = true;
+	}
+
+	/**
+	 * @return the metrics of the topic, null if no event was sent to it
+	 */
+	public TopicMetrics getTopicMetrics(String topic) {
+		Topic t = topics.get(topic);
+		return t == null ? null : t.topicMetrics;
+	}
+
+	/**
+	 * @return null without EventJournalConf
+	 */
+	public EventJournal getEventJournal() {
+		return eventJournal;
+	}
+
+	public List<TopicMetrics> getAllTopicMetrics() {
+		List<TopicMetrics> list = new ArrayList<TopicMetrics>();
+		for (Topic t : topics.values()) {
+			list.add(t.topicMetrics);
+		}
+		return list;
+	}
+
 	/**
 	 * if there are many consumers, execution order will be alphabetical list by
-	 * Name of @Consumer class.
+	 * Name of @Consumer class, the stages of @Consumer run before them.
 	 * 
 	 * @param topic
 	 * @return
@@ -112,6 +433,10 @@ public class DisruptorFactory implements EventFactory {
 			String consumerName = (String) o;
 			DomainEventHandler eh = (DomainEventHandler) containerWrapper.getComponentNewInstance(consumerName);
 			ehs.add(eh);
+			// a instance of every partition
+			for (int i = 1; i < getPartitions(eh.getClass()); i++) {
+				ehs.add((DomainEventHandler) containerWrapper.getComponentNewInstance(consumerName));
+			}
 		}
 		return ehs;
 
@@ -119,7 +444,12 @@ public class DisruptorFactory implements EventFactory {
 
 	public void fire(String topic, EventDisruptor eventDisruptor) {
 		RingBuffer ringBuffer = eventDisruptor.getRingBuffer();
+		if (ringBuffer == null)
+			return;
 		ringBuffer.publish(eventDisruptor);
+		Topic t = topics.get(topic);
+		if (t != null)
+			t.topicMetrics.published();
 	}
 
 	@Override
@@ -127,4 +457,124 @@ public class DisruptorFactory implements EventFactory {
 		return new EventDisruptor();
 
 	}
+
+	/**
+	 * starts the journaled topics found in the journal directory, when the
+	 * container is started: the @Consumer are registered after the components
+	 * of container.xml are started.
+	 */
+	public void start() {
+		if (eventJournal == null)
+			return;
+		eventJournal.start();
+		final List<String> journaled = eventJournal.getJournaledTopics();
+		if (journaled.isEmpty())
+			return;
+		synchronized (topics) {
+			if (executor == null || executor.isShutdown())
+				executor = Executors.newCachedThreadPool(new DisruptorThreadFactory());
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						while (!containerWrapper.isStart())
+							Thread.sleep(100);
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (String topic : journaled) {
+						try {
+							getTopic(topic);
+						} catch (Throwable e) {
+							Debug.logError("[JdonFramework] start the journaled topic " + topic + " error:" + e, module);
+						}
+					}
+				}
+			});
+		}
+	}
+
+	public void stop() {
+		for (Topic t : topics.values()) {
+			for (TopicEventProcessor processor : t.processors) {
+				processor.halt();
+			}
+			unregister(t.topicMetrics);
+		}
+		topics.clear();
+		synchronized (topics) {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+		if (eventJournal != null)
+			eventJournal.stop();
+	}
+
+	static String getObjectName(TopicMetrics topicMetrics) {
+		return "com.jdon.async:type=TopicMetrics,topic=" + MBeanUtil.quote(topicMetrics.getTopic());
+	}
+
+	static String getObjectName(HandlerMetrics handlerMetrics) {
+		return "com.jdon.async:type=HandlerMetrics,topic=" + MBeanUtil.quote(handlerMetrics.getTopic()) + ",handler="
+				+ MBeanUtil.quote(handlerMetrics.getName());
+	}
+
+	private void register(TopicMetrics topicMetrics) {
+		// another container of the jvm may have the same topic
+		MBeanUtil.register(topicMetrics, getObjectName(topicMetrics));
+		for (HandlerMetrics handlerMetrics : topicMetrics.getHandlers()) {
+			MBeanUtil.register(handlerMetrics, getObjectName(handlerMetrics));
+		}
+	}
+
+	private void unregister(TopicMetrics topicMetrics) {
+		MBeanUtil.unregister(getObjectName(topicMetrics));
+		for (HandlerMetrics handlerMetrics : topicMetrics.getHandlers()) {
+			MBeanUtil.unregister(getObjectName(handlerMetrics));
+		}
+	}
+
+	static class Topic {
+		final List<TopicEventProcessor> processors;
+
+		final RingBuffer<EventDisruptor> ringBuffer;
+
+		final TopicMetrics topicMetrics;
+
+		// null if the topic is not journaled
+		final TopicJournal journal;
+
+		// open once the journal is replayed
+		final CountDownLatch replayed;
+
+		Topic(List<TopicEventProcessor> processors, RingBuffer<EventDisruptor> ringBuffer, TopicMetrics topicMetrics, TopicJournal journal) {
+			this.processors = processors;
+			this.ringBuffer = ringBuffer;
+			this.topicMetrics = topicMetrics;
+			this.journal = journal;
+			this.replayed = new CountDownLatch(journal == null ? 0 : 1);
+		}
+
+		void awaitReplayed() {
+			boolean interrupted = false;
+			while (replayed.getCount() > 0) {
+				try {
+					replayed.await();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	static class DisruptorThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jdon-disruptor-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
 }
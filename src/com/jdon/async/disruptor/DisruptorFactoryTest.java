@@ -0,0 +1,309 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.annotation.Consumer;
+import com.jdon.async.journal.EventJournalConf;
+import com.jdon.async.journal.TopicJournal;
+import com.jdon.container.ContainerWrapper;
+import com.jdon.container.finder.ContainerCallback;
+import com.jdon.domain.message.DomainEventHandler;
+import com.jdon.domain.message.DomainMessage;
+
+public class DisruptorFactoryTest extends TestCase {
+
+	// the @Consumer classes of the topics, instead of the container
+	private final Map<String, List<Class>> consumers = new HashMap<String, List<Class>>();
+
+	private DisruptorFactory disruptorFactory;
+
+	static final Set<Object> stageA = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+	static final Set<Object> stageB = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+	static final AtomicInteger outOfStage = new AtomicInteger();
+
+	static volatile CountDownLatch processed;
+
+	static volatile CountDownLatch gate;
+
+	static volatile String slowKey;
+
+	static final Map<Object, List<Object>> byKey = new ConcurrentHashMap<Object, List<Object>>();
+
+	static final List<Object> journaled = Collections.synchronizedList(new ArrayList<Object>());
+
+	private File journalDirectory;
+
+	@Consumer(value = "staged", stage = 0)
+	public static class StageAHandler implements DomainEventHandler {
+		public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+			Thread.yield();
+			stageA.add(event.getDomainMessage().getEventSource());
+		}
+	}
+
+	@Consumer(value = "staged", stage = 0)
+	public static class StageBHandler implements DomainEventHandler {
+		public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+			stageB.add(event.getDomainMessage().getEventSource());
+		}
+	}
+
+	@Consumer(value = "staged", stage = 1)
+	public static class StageCHandler implements DomainEventHandler {
+		public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+			Object source = event.getDomainMessage().getEventSource();
+			if (!stageA.contains(source) || !stageB.contains(source))
+				outOfStage.incrementAndGet();
+			processed.countDown();
+		}
+	}
+
+	@Consumer(value = "partitioned", partitions = 4)
+	public static class PartitionedHandler implements DomainEventHandler {
+		public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+			DomainMessage message = event.getDomainMessage();
+			Object key = message.getPartitionKey();
+			if (key.equals(slowKey))
+				gate.await();
+			List<Object> list = byKey.get(key);
+			if (list == null) {
+				list = Collections.synchronizedList(new ArrayList<Object>());
+				byKey.put(key, list);
+			}
+			list.add(message.getEventSource());
+			processed.countDown();
+		}
+	}
+
+	@Consumer("lagging")
+	public static class BlockedHandler implements DomainEventHandler {
+		public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+			gate.await();
+		}
+	}
+
+	@Consumer("journaled")
+	public static class JournaledHandler implements DomainEventHandler {
+		public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+			gate.await();
+			journaled.add(event.getDomainMessage().getEventSource());
+		}
+	}
+
+	protected void setUp() throws Exception {
+		stageA.clear();
+		stageB.clear();
+		outOfStage.set(0);
+		byKey.clear();
+		journaled.clear();
+		gate = new CountDownLatch(1);
+		consumers.put("staged", classes(StageAHandler.class, StageBHandler.class, StageCHandler.class));
+		consumers.put("partitioned", classes(PartitionedHandler.class));
+		consumers.put("lagging", classes(BlockedHandler.class));
+		consumers.put("journaled", classes(JournaledHandler.class));
+		journalDirectory = new File(System.getProperty("java.io.tmpdir"), "jdon-disruptor-test-" + System.nanoTime());
+	}
+
+	protected void tearDown() throws Exception {
+		gate.countDown();
+		if (disruptorFactory != null)
+			disruptorFactory.stop();
+		delete(journalDirectory);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++)
+				delete(files[i]);
+		}
+		file.delete();
+	}
+
+	private List<Class> classes(Class... classes) {
+		List<Class> list = new ArrayList<Class>();
+		Collections.addAll(list, classes);
+		return list;
+	}
+
+	private DisruptorFactory createFactory(DisruptorParams disruptorParams) {
+		return createFactory(disruptorParams, null);
+	}
+
+	private DisruptorFactory createFactory(DisruptorParams disruptorParams, EventJournalConf eventJournalConf) {
+		ContainerWrapper containerWrapper = (ContainerWrapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class[] { ContainerWrapper.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						String name = method.getName();
+						if (name.equals("lookup")) {
+							String topic = ((String) args[0]).substring(DisruptorFactory.TOPICNAME.length());
+							List<String> names = new ArrayList<String>();
+							for (Class c : consumers.get(topic))
+								names.add(c.getName());
+							return names;
+						}
+						if (name.equals("getComponentNewInstance"))
+							return Class.forName((String) args[0]).newInstance();
+						if (name.equals("getComponentInstancesOfType"))
+							return new ArrayList();
+						if (method.getReturnType() == boolean.class)
+							return Boolean.TRUE;
+						return null;
+					}
+				});
+		disruptorFactory = new DisruptorFactory(disruptorParams, new ContainerCallback(containerWrapper), eventJournalConf);
+		return disruptorFactory;
+	}
+
+	public void testStagesAreOrdered() throws Exception {
+		DisruptorFactory factory = createFactory(new DisruptorParams("64"));
+		int count = 2000;
+		processed = new CountDownLatch(count);
+		for (int i = 0; i < count; i++) {
+			Assert.assertTrue(factory.publish("staged", new DomainMessage(new Integer(i))));
+		}
+		Assert.assertTrue(processed.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(0, outOfStage.get());
+		Assert.assertEquals(count, stageA.size());
+		Assert.assertEquals(count, stageB.size());
+	}
+
+	private static int partitionOf(Object key) {
+		EventDisruptor event = new EventDisruptor();
+		event.setDomainMessage(new DomainMessage(null, key));
+		return TopicEventProcessor.partition(event, 4);
+	}
+
+	public void testPartitionsKeepKeyOrderAndDoNotBlockTheRing() throws Exception {
+		DisruptorFactory factory = createFactory(new DisruptorParams("1024"));
+		slowKey = "k0";
+		List<String> keys = new ArrayList<String>();
+		for (int i = 1; keys.size() < 5; i++) {
+			if (partitionOf("k" + i) != partitionOf(slowKey))
+				keys.add("k" + i);
+		}
+		int perKey = 100;
+		processed = new CountDownLatch(keys.size() * perKey);
+		// the partition of the slow key waits at its first event
+		factory.publish("partitioned", new DomainMessage(new Integer(0), slowKey));
+		for (int i = 0; i < perKey; i++) {
+			for (String key : keys)
+				Assert.assertTrue(factory.publish("partitioned", new DomainMessage(new Integer(i), key)));
+		}
+		Assert.assertTrue("the other partitions wait for the slow one", processed.await(10, TimeUnit.SECONDS));
+		for (String key : keys) {
+			List<Object> list = byKey.get(key);
+			Assert.assertEquals(perKey, list.size());
+			for (int i = 0; i < perKey; i++)
+				Assert.assertEquals(new Integer(i), list.get(i));
+		}
+		Assert.assertNull(byKey.get(slowKey));
+
+		processed = new CountDownLatch(perKey);
+		for (int i = 1; i < perKey; i++)
+			factory.publish("partitioned", new DomainMessage(new Integer(i), slowKey));
+		gate.countDown();
+		Assert.assertTrue(processed.await(10, TimeUnit.SECONDS));
+		List<Object> list = byKey.get(slowKey);
+		for (int i = 0; i < perKey; i++)
+			Assert.assertEquals(new Integer(i), list.get(i));
+	}
+
+	public void testLagLimitRejects() throws Exception {
+		DisruptorFactory factory = createFactory(new DisruptorParams("16", "4"));
+		factory.setTopicLagListener(null);
+		Assert.assertTrue(factory.publish("lagging", new DomainMessage(new Integer(0))));
+		boolean rejected = false;
+		for (int i = 1; i < 12 && !rejected; i++) {
+			rejected = !factory.publish("lagging", new DomainMessage(new Integer(i)));
+		}
+		Assert.assertTrue(rejected);
+		TopicMetrics topicMetrics = factory.getTopicMetrics("lagging");
+		Assert.assertEquals(1, topicMetrics.getRejected());
+		Assert.assertTrue(topicMetrics.getMaxLag() > 4);
+	}
+
+	public void testReplayBeforeNewEvents() throws Exception {
+		// the events left by the last run, the first 3 are acknowledged
+		TopicJournal journal = new TopicJournal(new File(journalDirectory, "journaled"), "journaled", 1024 * 1024);
+		for (int i = 0; i < 10; i++)
+			journal.append(journal.serialize(new DomainMessage(new Integer(i))));
+		journal.ack(2);
+		journal.flush();
+
+		// the replay fills the ring and waits for the consumer
+		final DisruptorFactory factory = createFactory(new DisruptorParams("4"), new EventJournalConf(journalDirectory.getAbsolutePath(),
+				"journaled", "1", "10", "false"));
+		Thread first = new Thread() {
+			public void run() {
+				factory.publish("journaled", new DomainMessage(new Integer(100)));
+			}
+		};
+		first.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (factory.getTopicMetrics("journaled") == null && System.currentTimeMillis() < deadline)
+			Thread.sleep(1);
+		Thread second = new Thread() {
+			public void run() {
+				factory.publish("journaled", new DomainMessage(new Integer(200)));
+			}
+		};
+		second.start();
+		// the other topics do not wait for the replay
+		processed = new CountDownLatch(1);
+		Thread other = new Thread() {
+			public void run() {
+				factory.publish("staged", new DomainMessage(new Integer(0)));
+			}
+		};
+		other.setDaemon(true);
+		other.start();
+		Assert.assertTrue(processed.await(10, TimeUnit.SECONDS));
+		Assert.assertTrue(journaled.isEmpty());
+		gate.countDown();
+		first.join(10000);
+		second.join(10000);
+		deadline = System.currentTimeMillis() + 10000;
+		while (journaled.size() < 9 && System.currentTimeMillis() < deadline)
+			Thread.sleep(1);
+		Assert.assertEquals(9, journaled.size());
+		for (int i = 0; i < 7; i++)
+			Assert.assertEquals(new Integer(3 + i), journaled.get(i));
+		Assert.assertTrue(journaled.contains(new Integer(100)));
+		Assert.assertTrue(journaled.contains(new Integer(200)));
+	}
+
+}
@@ -19,11 +19,23 @@ public class DisruptorParams {
 
 	private String RingBufferSize;
 
+	/**
+	 * the events a consumer may lag behind a topic, 0 is no limit, see
+	 * TopicLagListener
+	 */
+	private String lagLimit = "0";
+
 	public DisruptorParams(String ringBufferSize) {
 		super();
 		RingBufferSize = ringBufferSize;
 	}
 
+	public DisruptorParams(String ringBufferSize, String lagLimit) {
+		super();
+		RingBufferSize = ringBufferSize;
+		this.lagLimit = lagLimit;
+	}
+
 	public String getRingBufferSize() {
 		return RingBufferSize;
 	}
@@ -32,4 +44,12 @@ public class DisruptorParams {
 		RingBufferSize = ringBufferSize;
 	}
 
+	public String getLagLimit() {
+		return lagLimit;
+	}
+
+	public void setLagLimit(String lagLimit) {
+		this.lagLimit = lagLimit;
+	}
+
 }
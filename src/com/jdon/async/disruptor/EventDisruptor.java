@@ -15,49 +15,36 @@
  */
 package com.jdon.async.disruptor;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-
 import com.jdon.async.EventMessage;
 import com.jdon.domain.message.DomainMessage;
 import com.lmax.disruptor.AbstractEvent;
 import com.lmax.disruptor.RingBuffer;
 
+/**
+ * a slot of the ring of a topic, it is reused by the later events of the
+ * topic; the result of the event is the EventResult of its DomainMessage.
+ *
+ */
 public class EventDisruptor extends AbstractEvent implements EventMessage {
 
 	protected String topic;
 
 	protected DomainMessage domainMessage;
 
-	protected boolean over;
-
-	protected Object eventResult;
-
-	protected BlockingQueue resultQueue;
-
 	protected RingBuffer ringBuffer;
 
+	// the sequence of the event in the journal of the topic, -1 if none
+	protected long journalSequence = -1;
+
 	public EventDisruptor() {
-		resultQueue = new LinkedBlockingQueue();
 	}
 
 	public Object getEventResult() {
-		if (over)
-			return eventResult;
-		try {
-			eventResult = resultQueue.take();
-			over = true;
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		return eventResult;
+		return domainMessage.getEventResult();
 	}
 
 	public void setEventResult(Object result) {
-		try {
-			resultQueue.put(result);
-		} catch (InterruptedException e) {
-		}
+		domainMessage.setEventResult(result);
 	}
 
 	public String getTopic() {
@@ -84,4 +71,12 @@ public class EventDisruptor extends AbstractEvent implements EventMessage {
 		this.ringBuffer = ringBuffer;
 	}
 
+	public long getJournalSequence() {
+		return journalSequence;
+	}
+
+	public void setJournalSequence(long journalSequence) {
+		this.journalSequence = journalSequence;
+	}
+
 }
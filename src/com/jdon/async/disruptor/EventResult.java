@@ -0,0 +1,55 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.jdon.async.EventMessage;
+
+/**
+ * the result of one event sent to a topic, the slots of the ring of a topic
+ * are reused, so the result is kept out of them in the DomainMessage.
+ *
+ * the first result set by a consumer wins, getEventResult waits for it.
+ *
+ */
+public class EventResult implements EventMessage {
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private volatile Object eventResult;
+
+	public Object getEventResult() {
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return eventResult;
+	}
+
+	public synchronized void setEventResult(Object eventResult) {
+		if (done.getCount() == 0)
+			return;
+		this.eventResult = eventResult;
+		done.countDown();
+	}
+
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+import com.jdon.domain.message.DomainEventHandler;
+import com.jdon.util.Debug;
+import com.jdon.util.LatencyHistogram;
+import com.jdon.util.StripedCounter;
+import com.lmax.disruptor.Sequence;
+
+/**
+ * wraps one @Consumer of a topic: the sequence of its TopicEventProcessor,
+ * so its lag behind the ring, a histogram of its execution time and its
+ * exceptions.
+ *
+ * a exception of the consumer is counted and logged here, the event is
+ * skipped and the consumer goes on with the next one.
+ *
+ */
+public class HandlerMetrics implements DomainEventHandler, HandlerMetricsMBean {
+	private final static String module = HandlerMetrics.class.getName();
+
+	private final static double[] PERCENTILES = { 50, 99 };
+
+	private final String topic;
+
+	private final DomainEventHandler handler;
+
+	private final String name;
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	private final StripedCounter errors = new StripedCounter();
+
+	private Sequence sequence;
+
+	private TopicMetrics topicMetrics;
+
+	public HandlerMetrics(String topic, DomainEventHandler handler) {
+		this(topic, handler, handler.getClass().getSimpleName());
+	}
+
+	public HandlerMetrics(String topic, DomainEventHandler handler, String name) {
+		this.topic = topic;
+		this.handler = handler;
+		this.name = name;
+	}
+
+	public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+		long start = System.nanoTime();
+		try {
+			handler.onEvent(event, endOfBatch);
+		} catch (Throwable e) {
+			errors.increment();
+			Debug.logError("[JdonFramework] the consumer " + name + " of the topic " + topic + " error:" + e, module);
+		} finally {
+			histogram.record((System.nanoTime() - start) / 1000);
+		}
+	}
+
+	void setSequence(Sequence sequence) {
+		this.sequence = sequence;
+	}
+
+	void setTopicMetrics(TopicMetrics topicMetrics) {
+		this.topicMetrics = topicMetrics;
+	}
+
+	public DomainEventHandler getHandler() {
+		return handler;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getSequence() {
+		return sequence == null ? -1 : sequence.get();
+	}
+
+	public long getLag() {
+		if (topicMetrics == null)
+			return 0;
+		return Math.max(0, topicMetrics.getCursor() - getSequence());
+	}
+
+	public long getEvents() {
+		return histogram.getCount();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public double getMeanMillis() {
+		return histogram.getMean() / 1000;
+	}
+
+	public double getP50Millis() {
+		return histogram.getPercentile(50) / 1000d;
+	}
+
+	public double getP99Millis() {
+		return histogram.getPercentile(99) / 1000d;
+	}
+
+	public double getMaxMillis() {
+		return histogram.getMax() / 1000d;
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	public void reset() {
+		errors.reset();
+		histogram.reset();
+	}
+
+	public String toString() {
+		long[] p = histogram.getPercentiles(PERCENTILES);
+		return topic + "/" + name + " events=" + histogram.getCount() + " errors=" + errors + " lag=" + getLag() + " mean="
+				+ millis(histogram.getMean()) + "ms p50=" + millis(p[0]) + "ms p99=" + millis(p[1]) + "ms max=" + millis(histogram.getMax()) + "ms";
+	}
+
+	private static String millis(double micros) {
+		return String.valueOf(Math.round(micros) / 1000d);
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+/**
+ * the JMX view of HandlerMetrics, registered by DisruptorFactory as
+ * com.jdon.async:type=HandlerMetrics,topic=...,handler=...
+ *
+ */
+public interface HandlerMetricsMBean {
+
+	public String getTopic();
+
+	public String getName();
+
+	public long getSequence();
+
+	public long getLag();
+
+	public long getEvents();
+
+	public long getErrors();
+
+	public double getMeanMillis();
+
+	public double getP50Millis();
+
+	public double getP99Millis();
+
+	public double getMaxMillis();
+
+	public void reset();
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+import com.jdon.async.journal.TopicJournal;
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * the last consumer of a journaled topic, after all stages: the events it
+ * sees are processed, it acknowledges them in the journal once a batch.
+ *
+ */
+public class JournalAckHandler implements EventHandler<EventDisruptor> {
+
+	private final TopicJournal journal;
+
+	private long last = -1;
+
+	public JournalAckHandler(TopicJournal journal) {
+		this.journal = journal;
+	}
+
+	public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+		if (event.getJournalSequence() >= 0)
+			last = event.getJournalSequence();
+		if (endOfBatch && last >= 0)
+			journal.ack(last);
+	}
+
+}
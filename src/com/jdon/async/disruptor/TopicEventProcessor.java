@@ -0,0 +1,125 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+import com.jdon.util.Debug;
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.DependencyBarrier;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+
+/**
+ * the consumer thread of a topic, it runs until halt().
+ *
+ * the BatchEventProcessor of disruptor 2.0.2 returns after its first batch,
+ * it serves a ring of one event only; the ring of a topic lives as long as
+ * the container, so its consumers loop here.
+ *
+ * a partition of a consumer gets only the events whose partition key hashes
+ * to it, endOfBatch is true for the last of them in the batch.
+ *
+ */
+public class TopicEventProcessor implements EventProcessor {
+	private final static String module = TopicEventProcessor.class.getName();
+
+	private final Sequence sequence = new Sequence(RingBuffer.INITIAL_CURSOR_VALUE);
+
+	private final RingBuffer<EventDisruptor> ringBuffer;
+
+	private final DependencyBarrier dependencyBarrier;
+
+	private final EventHandler<EventDisruptor> eventHandler;
+
+	private final int partition;
+
+	private final int partitions;
+
+	private volatile boolean running = true;
+
+	public TopicEventProcessor(RingBuffer<EventDisruptor> ringBuffer, DependencyBarrier dependencyBarrier, EventHandler<EventDisruptor> eventHandler) {
+		this(ringBuffer, dependencyBarrier, eventHandler, 0, 1);
+	}
+
+	public TopicEventProcessor(RingBuffer<EventDisruptor> ringBuffer, DependencyBarrier dependencyBarrier,
+			EventHandler<EventDisruptor> eventHandler, int partition, int partitions) {
+		this.ringBuffer = ringBuffer;
+		this.dependencyBarrier = dependencyBarrier;
+		this.eventHandler = eventHandler;
+		this.partition = partition;
+		this.partitions = partitions;
+	}
+
+	/**
+	 * @return the partition of the event, 0 to partitions - 1
+	 */
+	public static int partition(EventDisruptor event, int partitions) {
+		Object key = event.getDomainMessage() == null ? null : event.getDomainMessage().getPartitionKey();
+		if (key == null)
+			return (int) (event.getSequence() % partitions);
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return (h & 0x7fffffff) % partitions;
+	}
+
+	private boolean accept(EventDisruptor event) {
+		return partitions == 1 || partition(event, partitions) == partition;
+	}
+
+	public Sequence getSequence() {
+		return sequence;
+	}
+
+	public EventHandler<EventDisruptor> getEventHandler() {
+		return eventHandler;
+	}
+
+	public void halt() {
+		running = false;
+		dependencyBarrier.alert();
+	}
+
+	public void run() {
+		long next = sequence.get() + 1;
+		while (running) {
+			try {
+				long available = dependencyBarrier.waitFor(next);
+				long last = available;
+				while (last >= next && !accept(ringBuffer.getEvent(last)))
+					last--;
+				while (next <= last) {
+					EventDisruptor event = ringBuffer.getEvent(next);
+					if (accept(event))
+						eventHandler.onEvent(event, next == last);
+					next++;
+				}
+				next = available + 1;
+				sequence.set(available);
+			} catch (AlertException e) {
+				// halt
+			} catch (InterruptedException e) {
+				break;
+			} catch (Exception e) {
+				// skip the event, the consumers after this one go on
+				Debug.logError("[JdonFramework] the consumer " + eventHandler + " error:" + e, module);
+				sequence.set(next);
+				next++;
+			}
+		}
+	}
+
+}
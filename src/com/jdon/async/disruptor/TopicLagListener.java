@@ -0,0 +1,39 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+/**
+ * called when a event is sent to a topic whose slowest consumer lags more
+ * than the lag limit of DisruptorParams.
+ *
+ * a component of this type in the container is found by DisruptorFactory;
+ * without it the events over the limit are rejected.
+ *
+ */
+public interface TopicLagListener {
+
+	/**
+	 * @param topicMetrics
+	 *            the metrics of the topic
+	 * @param lag
+	 *            the lag of the slowest consumer
+	 * @return true publishes the event, it waits for a free slot when the
+	 *         ring is full; false rejects it, the result of the DomainMessage
+	 *         is null.
+	 */
+	boolean onLag(TopicMetrics topicMetrics, long lag);
+
+}
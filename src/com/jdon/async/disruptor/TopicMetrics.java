@@ -0,0 +1,145 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.disruptor;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.jdon.util.StripedCounter;
+import com.lmax.disruptor.RingBuffer;
+
+/**
+ * the ring of a topic: the events published and rejected, the publish rate,
+ * the capacity left and the lag of the slowest consumer, the consumers have
+ * their own HandlerMetrics.
+ *
+ */
+public class TopicMetrics implements TopicMetricsMBean {
+
+	// the publish rate is measured over one second at least
+	private final static long RATE_INTERVAL = 1000000000L;
+
+	private final String topic;
+
+	private final RingBuffer ringBuffer;
+
+	private final List<HandlerMetrics> handlers;
+
+	private final StripedCounter published = new StripedCounter();
+
+	private final StripedCounter rejected = new StripedCounter();
+
+	private long rateTime = System.nanoTime();
+
+	private long rateCount;
+
+	private double rate;
+
+	public TopicMetrics(String topic, RingBuffer ringBuffer, List<HandlerMetrics> handlers) {
+		this.topic = topic;
+		this.ringBuffer = ringBuffer;
+		this.handlers = Collections.unmodifiableList(handlers);
+		for (HandlerMetrics handlerMetrics : handlers) {
+			handlerMetrics.setTopicMetrics(this);
+		}
+	}
+
+	public void published() {
+		published.increment();
+	}
+
+	public void rejected() {
+		rejected.increment();
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public List<HandlerMetrics> getHandlers() {
+		return handlers;
+	}
+
+	public long getPublished() {
+		return published.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * @return the events published a second since the last call, the first
+	 *         call measures from the start of the topic
+	 */
+	public synchronized double getPublishRate() {
+		long now = System.nanoTime();
+		if (now - rateTime >= RATE_INTERVAL) {
+			long count = published.sum();
+			rate = (count - rateCount) * 1000000000d / (now - rateTime);
+			rateCount = count;
+			rateTime = now;
+		}
+		return rate;
+	}
+
+	public int getCapacity() {
+		return ringBuffer.getCapacity();
+	}
+
+	public long getCursor() {
+		return ringBuffer.getCursor();
+	}
+
+	public long getRemainingCapacity() {
+		return Math.max(0, getCapacity() - getMaxLag());
+	}
+
+	/**
+	 * @return the lag of the slowest consumer, the events published but not
+	 *         yet processed by it
+	 */
+	public long getMaxLag() {
+		if (handlers.isEmpty())
+			return 0;
+		long cursor = ringBuffer.getCursor();
+		long min = cursor;
+		for (HandlerMetrics handlerMetrics : handlers) {
+			min = Math.min(min, handlerMetrics.getSequence());
+		}
+		return cursor - min;
+	}
+
+	public int getHandlerCount() {
+		return handlers.size();
+	}
+
+	public synchronized void reset() {
+		published.reset();
+		rejected.reset();
+		rateCount = 0;
+		rateTime = System.nanoTime();
+		for (HandlerMetrics handlerMetrics : handlers) {
+			handlerMetrics.reset();
+		}
+	}
+
+	public String toString() {
+		return topic + " published=" + published + " rejected=" + rejected + " capacity=" + getCapacity() + " remaining="
+				+ getRemainingCapacity() + " maxLag=" + getMaxLag();
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.journal;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.jdon.util.Debug;
+
+/**
+ * the TopicJournals of the journaled topics, a directory of every topic in
+ * the directory of EventJournalConf.
+ *
+ * the flusher thread forces the events written in the last flushMillis to
+ * the disk together (group commit), so a event costs the copy into the
+ * mapped segment, not a fsync; when sync is true the sender waits for the
+ * flush of its event, it is the next flush, not a fsync of its own.
+ *
+ */
+public class EventJournal {
+	private final static String module = EventJournal.class.getName();
+
+	private final EventJournalConf conf;
+
+	private final ConcurrentMap<String, TopicJournal> journals = new ConcurrentHashMap<String, TopicJournal>();
+
+	private final Object flushSignal = new Object();
+
+	private boolean flushRequested;
+
+	private volatile Thread flusher;
+
+	public EventJournal(EventJournalConf conf) {
+		this.conf = conf;
+	}
+
+	public boolean isJournaled(String topic) {
+		return conf.isJournaled(topic);
+	}
+
+	public boolean isSync() {
+		return conf.isSync();
+	}
+
+	/**
+	 * opens the journal of the topic at the first call
+	 */
+	public TopicJournal getJournal(String topic) throws IOException {
+		TopicJournal journal = journals.get(topic);
+		if (journal != null)
+			return journal;
+		synchronized (journals) {
+			journal = journals.get(topic);
+			if (journal == null) {
+				File directory = new File(conf.getDirectory(), URLEncoder.encode(topic, "UTF-8"));
+				journal = new TopicJournal(directory, topic, conf.getSegmentSize());
+				journals.put(topic, journal);
+				Debug.logVerbose("[JdonFramework] open the journal of the topic " + topic + " in " + directory + " ack=" + journal.getAckSequence()
+						+ " written=" + journal.getWrittenSequence(), module);
+			}
+		}
+		return journal;
+	}
+
+	/**
+	 * @return the journaled topics found in the directory
+	 */
+	public List<String> getJournaledTopics() {
+		List<String> topics = new ArrayList<String>();
+		File[] files = conf.getDirectory().listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.isDirectory();
+			}
+		});
+		if (files == null)
+			return topics;
+		for (int i = 0; i < files.length; i++) {
+			try {
+				String topic = URLDecoder.decode(files[i].getName(), "UTF-8");
+				if (conf.isJournaled(topic))
+					topics.add(topic);
+			} catch (IOException e) {
+				Debug.logWarning("[JdonFramework] the journal directory " + files[i] + " is not a topic", module);
+			}
+		}
+		return topics;
+	}
+
+	public List<TopicJournal> getJournals() {
+		return new ArrayList<TopicJournal>(journals.values());
+	}
+
+	/**
+	 * waits for the flush of the event
+	 */
+	public void sync(TopicJournal journal, long sequence) {
+		if (journal.getFlushedSequence() >= sequence)
+			return;
+		synchronized (flushSignal) {
+			flushRequested = true;
+			flushSignal.notifyAll();
+		}
+		try {
+			journal.awaitFlushed(sequence);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void flush() {
+		for (TopicJournal journal : journals.values()) {
+			try {
+				journal.flush();
+			} catch (Throwable e) {
+				Debug.logError("[JdonFramework] flush the journal of the topic " + journal.getTopic() + " error:" + e, module);
+			}
+		}
+	}
+
+	public synchronized void start() {
+		if (flusher != null)
+			return;
+		flusher = new Thread(new Runnable() {
+			public void run() {
+				Thread self = Thread.currentThread();
+				while (flusher == self) {
+					synchronized (flushSignal) {
+						if (!flushRequested) {
+							try {
+								flushSignal.wait(conf.getFlushMillis());
+							} catch (InterruptedException e) {
+								break;
+							}
+						}
+						flushRequested = false;
+					}
+					flush();
+				}
+			}
+		}, "jdon-journal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * stops the flusher and flushes the journals the last time
+	 */
+	public synchronized void stop() {
+		Thread t = flusher;
+		flusher = null;
+		if (t != null) {
+			t.interrupt();
+			try {
+				t.join(conf.getFlushMillis() + 1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		flush();
+		journals.clear();
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.journal;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * the journal of the domain events (a EventJournal), defined in
+ * container.xml:
+ *
+ * <pre>
+ * &lt;component name=&quot;eventJournalConf&quot; class=&quot;com.jdon.async.journal.EventJournalConf&quot;&gt;
+ *   &lt;constructor value=&quot;jdon-journal&quot;/&gt; &lt;!-- the directory, relative to java.io.tmpdir --&gt;
+ *   &lt;constructor value=&quot;*&quot;/&gt; &lt;!-- the topics, separated by comma, * is all --&gt;
+ *   &lt;constructor value=&quot;64&quot;/&gt; &lt;!-- megabytes of a segment file --&gt;
+ *   &lt;constructor value=&quot;10&quot;/&gt; &lt;!-- milliseconds between two fsync --&gt;
+ *   &lt;constructor value=&quot;false&quot;/&gt; &lt;!-- true: the sender waits for the fsync of its event --&gt;
+ * &lt;/component&gt;
+ * </pre>
+ *
+ * without it the events live in the ring only.
+ *
+ * @see EventJournal
+ */
+public class EventJournalConf {
+
+	private final File directory;
+
+	private final Set<String> topics = new HashSet<String>();
+
+	private final boolean allTopics;
+
+	private final int segmentSize;
+
+	private final long flushMillis;
+
+	private final boolean sync;
+
+	public EventJournalConf(String directory, String topics, String segmentMegabytes, String flushMillis, String sync) {
+		File f = new File(directory);
+		this.directory = f.isAbsolute() ? f : new File(System.getProperty("java.io.tmpdir"), directory);
+		String[] names = topics.split(",");
+		boolean all = false;
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i].trim();
+			if (name.equals("*"))
+				all = true;
+			else if (name.length() > 0)
+				this.topics.add(name);
+		}
+		this.allTopics = all;
+		this.segmentSize = Integer.parseInt(segmentMegabytes) * 1024 * 1024;
+		this.flushMillis = Math.max(1, Long.parseLong(flushMillis));
+		this.sync = Boolean.valueOf(sync).booleanValue();
+	}
+
+	public boolean isJournaled(String topic) {
+		return allTopics || topics.contains(topic);
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public long getFlushMillis() {
+		return flushMillis;
+	}
+
+	public boolean isSync() {
+		return sync;
+	}
+
+}
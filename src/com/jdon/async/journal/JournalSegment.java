@@ -0,0 +1,209 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * a memory mapped segment file of a TopicJournal, named by the sequence of
+ * its first entry.
+ *
+ * a entry is the int length of the data, the long sequence, the int crc32 of
+ * the data and the data; a length of 0 ends the segment. the length is
+ * written last, a entry cut by a crash or with a wrong crc ends the segment
+ * when it is opened again.
+ *
+ * close() unmaps the file before it is deleted: a mapped file can not be
+ * deleted on Windows, and the mapping would live until the buffer is
+ * collected. the access to a unmapped buffer crashes the jvm, so read and
+ * force check under the lock of the segment that it is not closed.
+ *
+ */
+class JournalSegment {
+
+	final static int HEADER_SIZE = 4 + 8 + 4;
+
+	private final File file;
+
+	private final long firstSequence;
+
+	private final MappedByteBuffer buffer;
+
+	private final CRC32 crc = new CRC32();
+
+	private int position;
+
+	private long lastSequence;
+
+	private boolean closed;
+
+	JournalSegment(File file, long firstSequence, int size) throws IOException {
+		this.file = file;
+		this.firstSequence = firstSequence;
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			// the mapping stays valid after the file is closed
+			this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, raf.length()));
+		} finally {
+			raf.close();
+		}
+		recover();
+	}
+
+	static File getFile(File directory, long firstSequence) {
+		return new File(directory, String.format("%020d.seg", firstSequence));
+	}
+
+	// the position after the last good entry
+	private void recover() {
+		position = 0;
+		lastSequence = firstSequence - 1;
+		ByteBuffer b = buffer.duplicate();
+		while (position + HEADER_SIZE <= b.capacity()) {
+			int length = b.getInt(position);
+			if (length <= 0 || position + HEADER_SIZE + length > b.capacity())
+				break;
+			long sequence = b.getLong(position + 4);
+			byte[] data = new byte[length];
+			b.position(position + HEADER_SIZE);
+			b.get(data);
+			crc.reset();
+			crc.update(data, 0, length);
+			if ((int) crc.getValue() != b.getInt(position + 12))
+				break;
+			lastSequence = sequence;
+			position += HEADER_SIZE + length;
+		}
+	}
+
+	/**
+	 * @return false when the entry does not fit, the segment is full
+	 */
+	boolean append(long sequence, byte[] data) {
+		if (position + HEADER_SIZE + data.length > buffer.capacity())
+			return false;
+		crc.reset();
+		crc.update(data, 0, data.length);
+		buffer.position(position + HEADER_SIZE);
+		buffer.put(data);
+		buffer.putLong(position + 4, sequence);
+		buffer.putInt(position + 12, (int) crc.getValue());
+		buffer.putInt(position, data.length);
+		position += HEADER_SIZE + data.length;
+		lastSequence = sequence;
+		return true;
+	}
+
+	/**
+	 * reads the entries after the sequence
+	 */
+	void read(long after, TopicJournal.EntryReader reader) throws Exception {
+		List<Long> sequences = new ArrayList<Long>();
+		List<byte[]> datas = new ArrayList<byte[]>();
+		// copied under the lock, the reader is called without it
+		synchronized (this) {
+			if (closed)
+				return;
+			ByteBuffer b = buffer.duplicate();
+			int p = 0;
+			while (p < position) {
+				int length = b.getInt(p);
+				long sequence = b.getLong(p + 4);
+				if (sequence > after) {
+					byte[] data = new byte[length];
+					b.position(p + HEADER_SIZE);
+					b.get(data);
+					sequences.add(new Long(sequence));
+					datas.add(data);
+				}
+				p += HEADER_SIZE + length;
+			}
+		}
+		for (int i = 0; i < sequences.size(); i++) {
+			reader.read(sequences.get(i).longValue(), datas.get(i));
+		}
+	}
+
+	synchronized void force() {
+		if (!closed)
+			buffer.force();
+	}
+
+	/**
+	 * unmaps the file, the segment can not be used any more
+	 */
+	synchronized void close() {
+		if (closed)
+			return;
+		closed = true;
+		unmap(buffer);
+	}
+
+	synchronized boolean isClosed() {
+		return closed;
+	}
+
+	// there is no api to unmap a buffer: the Cleaner of the buffer, by
+	// Unsafe.invokeCleaner since java 9. if both fail the gc unmaps it
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			Class unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", new Class[] { ByteBuffer.class });
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), new Object[] { buffer });
+			return;
+		} catch (Throwable e) {
+			// before java 9
+		}
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner", new Class[0]);
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer, new Object[0]);
+			if (cleaner != null)
+				cleaner.getClass().getMethod("clean", new Class[0]).invoke(cleaner, new Object[0]);
+		} catch (Throwable e) {
+			// not a sun jvm
+		}
+	}
+
+	boolean isEmpty() {
+		return position == 0;
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	long getFirstSequence() {
+		return firstSequence;
+	}
+
+	long getLastSequence() {
+		return lastSequence;
+	}
+
+}
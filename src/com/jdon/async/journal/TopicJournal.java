@@ -0,0 +1,290 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.jdon.domain.message.DomainMessage;
+import com.jdon.util.ContextObjectInputStream;
+import com.jdon.util.Debug;
+import com.jdon.util.LatencyHistogram;
+
+/**
+ * the append-only journal of one topic: a directory of JournalSegments and
+ * the file ack, the sequence of the last event processed by all consumers.
+ *
+ * append() writes into the mapped segment, it does not wait for the disk;
+ * flush() forces the segments written since the last flush, once for all
+ * their events, and deletes the segments whose events are all acknowledged.
+ * the events after the ack are replayed when the topic starts again.
+ *
+ * the entry of a event is its source and partition key, serialized. the
+ * latencies of append and of the fsync of flush are kept in microseconds.
+ *
+ */
+public class TopicJournal {
+	private final static String module = TopicJournal.class.getName();
+
+	private final File directory;
+
+	private final String topic;
+
+	private final int segmentSize;
+
+	private final List<JournalSegment> segments = new ArrayList<JournalSegment>();
+
+	// the segments full since the last flush
+	private final List<JournalSegment> unforced = new ArrayList<JournalSegment>();
+
+	private final MappedByteBuffer ackBuffer;
+
+	private JournalSegment current;
+
+	private volatile long writtenSequence;
+
+	private volatile long flushedSequence;
+
+	private volatile long ackSequence;
+
+	private long forcedAckSequence;
+
+	private final Object flushLock = new Object();
+
+	private final LatencyHistogram appendLatency = new LatencyHistogram();
+
+	private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+	public TopicJournal(File directory, String topic, int segmentSize) throws IOException {
+		this.directory = directory;
+		this.topic = topic;
+		this.segmentSize = segmentSize;
+		directory.mkdirs();
+		RandomAccessFile raf = new RandomAccessFile(new File(directory, "ack"), "rw");
+		try {
+			ackBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+		} finally {
+			raf.close();
+		}
+		// the count of the acknowledged events, a new file is 0
+		ackSequence = ackBuffer.getLong(0) - 1;
+		forcedAckSequence = ackSequence;
+		File[] files = directory.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.getName().endsWith(".seg");
+			}
+		});
+		Arrays.sort(files);
+		for (int i = 0; i < files.length; i++) {
+			String name = files[i].getName();
+			long first = Long.parseLong(name.substring(0, name.length() - 4));
+			segments.add(new JournalSegment(files[i], first, segmentSize));
+		}
+		if (segments.isEmpty())
+			segments.add(new JournalSegment(JournalSegment.getFile(directory, ackSequence + 1), ackSequence + 1, segmentSize));
+		current = segments.get(segments.size() - 1);
+		writtenSequence = current.getLastSequence();
+		flushedSequence = writtenSequence;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public byte[] serialize(DomainMessage domainMessage) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(domainMessage.getEventSource());
+		out.writeObject(domainMessage.getPartitionKey());
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	// replayed by the thread starting the container, with the class loader
+	// of the web application
+	private DomainMessage deserialize(byte[] data, ClassLoader classLoader) throws Exception {
+		ObjectInputStream in = new ContextObjectInputStream(new ByteArrayInputStream(data), classLoader);
+		try {
+			Object eventSource = in.readObject();
+			Object partitionKey = in.readObject();
+			return new DomainMessage(eventSource, partitionKey);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return the sequence of the entry
+	 */
+	public synchronized long append(byte[] data) throws IOException {
+		long start = System.nanoTime();
+		long sequence = writtenSequence + 1;
+		if (!current.append(sequence, data)) {
+			if (current.isEmpty())
+				throw new IOException("the event of " + data.length + " bytes is bigger than a segment of the journal " + directory);
+			unforced.add(current);
+			current = new JournalSegment(JournalSegment.getFile(directory, sequence), sequence, segmentSize);
+			segments.add(current);
+			current.append(sequence, data);
+		}
+		writtenSequence = sequence;
+		appendLatency.record((System.nanoTime() - start) / 1000);
+		return sequence;
+	}
+
+	/**
+	 * all consumers processed the events up to the sequence
+	 */
+	public void ack(long sequence) {
+		if (sequence <= ackSequence)
+			return;
+		ackSequence = sequence;
+		ackBuffer.putLong(0, sequence + 1);
+	}
+
+	/**
+	 * forces the events written and the ack to the disk and deletes the
+	 * acknowledged segments.
+	 */
+	public void flush() {
+		long written;
+		List<JournalSegment> force;
+		synchronized (this) {
+			written = writtenSequence;
+			force = new ArrayList<JournalSegment>(unforced);
+			unforced.clear();
+			if (written > flushedSequence)
+				force.add(current);
+		}
+		if (!force.isEmpty()) {
+			long start = System.nanoTime();
+			for (JournalSegment segment : force) {
+				segment.force();
+			}
+			flushLatency.record((System.nanoTime() - start) / 1000);
+		}
+		if (written > flushedSequence) {
+			synchronized (flushLock) {
+				flushedSequence = written;
+				flushLock.notifyAll();
+			}
+		}
+		long ack = ackSequence;
+		if (ack > forcedAckSequence) {
+			ackBuffer.force();
+			forcedAckSequence = ack;
+			compact(ack);
+		}
+	}
+
+	// the segments before the current one whose events are all acknowledged
+	private synchronized void compact(long ack) {
+		while (segments.size() > 1 && segments.get(1).getFirstSequence() <= ack + 1 && segments.get(0) != current) {
+			JournalSegment segment = segments.remove(0);
+			unforced.remove(segment);
+			// a mapped file can not be deleted on Windows
+			segment.close();
+			if (!segment.getFile().delete())
+				Debug.logWarning("[JdonFramework] can not delete the journal segment " + segment.getFile(), module);
+		}
+	}
+
+	/**
+	 * waits for the flush of the sequence
+	 */
+	public void awaitFlushed(long sequence) throws InterruptedException {
+		synchronized (flushLock) {
+			while (flushedSequence < sequence) {
+				flushLock.wait();
+			}
+		}
+	}
+
+	/**
+	 * reads the events after the ack, in their order.
+	 *
+	 * @return the count of the events
+	 */
+	public int replay(final Replayer replayer) throws Exception {
+		final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		final int[] count = new int[1];
+		List<JournalSegment> list;
+		synchronized (this) {
+			list = new ArrayList<JournalSegment>(segments);
+		}
+		for (JournalSegment segment : list) {
+			if (segment.getLastSequence() <= ackSequence)
+				continue;
+			segment.read(ackSequence, new EntryReader() {
+				public void read(long sequence, byte[] data) throws Exception {
+					replayer.replay(sequence, deserialize(data, classLoader));
+					count[0]++;
+				}
+			});
+		}
+		return count[0];
+	}
+
+	public long getWrittenSequence() {
+		return writtenSequence;
+	}
+
+	public long getFlushedSequence() {
+		return flushedSequence;
+	}
+
+	public long getAckSequence() {
+		return ackSequence;
+	}
+
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	public LatencyHistogram getAppendLatency() {
+		return appendLatency;
+	}
+
+	public LatencyHistogram getFlushLatency() {
+		return flushLatency;
+	}
+
+	public String toString() {
+		return "journal " + topic + " written=" + writtenSequence + " flushed=" + flushedSequence + " ack=" + ackSequence + " segments="
+				+ getSegmentCount() + " append p50=" + appendLatency.getPercentile(50) + "us p99=" + appendLatency.getPercentile(99)
+				+ "us fsync p50=" + flushLatency.getPercentile(50) + "us p99=" + flushLatency.getPercentile(99) + "us";
+	}
+
+	public interface Replayer {
+		void replay(long sequence, DomainMessage domainMessage) throws Exception;
+	}
+
+	interface EntryReader {
+		void read(long sequence, byte[] data) throws Exception;
+	}
+
+}
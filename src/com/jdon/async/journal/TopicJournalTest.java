@@ -0,0 +1,146 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.async.journal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.domain.message.DomainMessage;
+
+public class TopicJournalTest extends TestCase {
+
+	private File directory;
+
+	protected void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "jdon-journal-test-" + System.nanoTime());
+	}
+
+	protected void tearDown() throws Exception {
+		delete(directory);
+	}
+
+	static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++)
+				delete(files[i]);
+		}
+		file.delete();
+	}
+
+	private List<Long> replay(TopicJournal journal, final List<Object> sources) throws Exception {
+		final List<Long> sequences = new ArrayList<Long>();
+		int count = journal.replay(new TopicJournal.Replayer() {
+			public void replay(long sequence, DomainMessage domainMessage) {
+				sequences.add(new Long(sequence));
+				sources.add(domainMessage.getEventSource());
+			}
+		});
+		Assert.assertEquals(sequences.size(), count);
+		return sequences;
+	}
+
+	private void append(TopicJournal journal, int from, int to) throws Exception {
+		for (int i = from; i < to; i++) {
+			Assert.assertEquals(i, journal.append(journal.serialize(new DomainMessage("event" + i, "key"))));
+		}
+	}
+
+	public void testReopenReplaysAfterAck() throws Exception {
+		// a few events a segment
+		TopicJournal journal = new TopicJournal(directory, "topic", 512);
+		append(journal, 0, 20);
+		journal.ack(12);
+		journal.flush();
+		Assert.assertTrue(journal.getSegmentCount() > 1);
+
+		TopicJournal reopened = new TopicJournal(directory, "topic", 512);
+		Assert.assertEquals(12, reopened.getAckSequence());
+		Assert.assertEquals(19, reopened.getWrittenSequence());
+		List<Object> sources = new ArrayList<Object>();
+		List<Long> sequences = replay(reopened, sources);
+		Assert.assertEquals(7, sequences.size());
+		for (int i = 0; i < sequences.size(); i++) {
+			Assert.assertEquals(13 + i, sequences.get(i).longValue());
+			Assert.assertEquals("event" + (13 + i), sources.get(i));
+		}
+
+		// the next event continues the sequence
+		append(reopened, 20, 21);
+		reopened.ack(20);
+		reopened.flush();
+		Assert.assertEquals(0, replay(new TopicJournal(directory, "topic", 512), new ArrayList<Object>()).size());
+	}
+
+	public void testCompactedSegmentsAreUnmapped() throws Exception {
+		TopicJournal journal = new TopicJournal(directory, "topic", 512);
+		append(journal, 0, 60);
+		journal.flush();
+		Assert.assertTrue(journal.getSegmentCount() > 2);
+		journal.ack(59);
+		journal.flush();
+		Assert.assertEquals(1, journal.getSegmentCount());
+		// the ack and the current segment
+		Assert.assertEquals(2, directory.list().length);
+		// the deleted segments are not mapped any more
+		File maps = new File("/proc/self/maps");
+		if (!maps.exists())
+			return;
+		BufferedReader in = new BufferedReader(new FileReader(maps));
+		try {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				Assert.assertFalse(line, line.indexOf(directory.getName()) >= 0 && line.indexOf("(deleted)") >= 0);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	public void testClosedSegmentIsNotRead() throws Exception {
+		directory.mkdirs();
+		JournalSegment segment = new JournalSegment(JournalSegment.getFile(directory, 0), 0, 512);
+		Assert.assertTrue(segment.append(0, new byte[] { 1, 2, 3 }));
+		segment.close();
+		Assert.assertTrue(segment.isClosed());
+		segment.force();
+		final int[] read = new int[1];
+		segment.read(-1, new TopicJournal.EntryReader() {
+			public void read(long sequence, byte[] data) {
+				read[0]++;
+			}
+		});
+		Assert.assertEquals(0, read[0]);
+		Assert.assertTrue(segment.getFile().delete());
+	}
+
+	public void testNewJournalReplaysNothing() throws Exception {
+		TopicJournal journal = new TopicJournal(directory, "topic", 512);
+		Assert.assertEquals(-1, journal.getAckSequence());
+		Assert.assertEquals(0, replay(journal, new ArrayList<Object>()).size());
+		append(journal, 0, 3);
+		journal.flush();
+		List<Object> sources = new ArrayList<Object>();
+		Assert.assertEquals(3, replay(new TopicJournal(directory, "topic", 512), sources).size());
+		Assert.assertEquals("event0", sources.get(0));
+	}
+
+}
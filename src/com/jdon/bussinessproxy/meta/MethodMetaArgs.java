@@ -15,6 +15,8 @@
 
 package com.jdon.bussinessproxy.meta;
 
+import java.lang.reflect.Method;
+
 public class MethodMetaArgs implements java.io.Serializable {
 
 	/**
@@ -24,11 +26,23 @@ public class MethodMetaArgs implements java.io.Serializable {
 	private final String methodName;
 	private final Class[] paramTypes;
 	private final Object[] args;
+	// resolved method of the target service, null if not yet resolved
+	private final transient Method method;
 
 	public MethodMetaArgs(String methodName, Class[] paramTypes, Object[] args) {
+		this(methodName, paramTypes, args, null);
+	}
+
+	/**
+	 * @param method
+	 *            the method of the target service class, so it need not be
+	 *            looked up again by reflection.
+	 */
+	public MethodMetaArgs(String methodName, Class[] paramTypes, Object[] args, Method method) {
 		this.methodName = methodName;
 		this.paramTypes = paramTypes;
 		this.args = args;
+		this.method = method;
 	}
 
 	public String getMethodName() {
@@ -45,6 +59,10 @@ public class MethodMetaArgs implements java.io.Serializable {
 		return args;
 	}
 
+	public Method getMethod() {
+		return method;
+	}
+
 	public String toString() {
 		StringBuffer sb = new StringBuffer();
 		sb.append(methodName);
@@ -10,6 +10,8 @@ import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -24,6 +26,7 @@ import com.caucho.services.server.AbstractSkeleton;
 import com.jdon.bussinessproxy.remote.hessian.exception.ServiceInvokationException;
 import com.jdon.bussinessproxy.remote.hessian.io.JdonSerializerFactory;
 import com.jdon.controller.WebAppUtil;
+import com.jdon.controller.service.ServiceHandle;
 
 public class HessianToJdonRequestProcessor {
 
@@ -37,7 +40,12 @@ public class HessianToJdonRequestProcessor {
 	 */
 	private final Map<Class<?>, Map<String, Method>> methodsByComponentType = Collections
 			.synchronizedMap(new HashMap<Class<?>, Map<String, Method>>());
-	
+
+	/*
+	 * the resolved service methods by bean name and mangled method name
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, ServiceHandle>> handlesByBean = new ConcurrentHashMap<String, ConcurrentMap<String, ServiceHandle>>();
+
 
 	/**
 	 * Process servlet requests and writes bean's method result to output
@@ -113,35 +121,67 @@ public class HessianToJdonRequestProcessor {
 			HttpServletRequest request) throws IOException,
 			ServiceInvokationException {
 		Object result = null;
-		Object bean = WebAppUtil.getService(beanName, request);
+		String mangledMethodName = in.readMethod();
+		if ("_hessian_getAttribute".equals(mangledMethodName)) {
+			Object bean = WebAppUtil.getService(beanName, request);
+			if (bean == null)
+				throw new ServiceInvokationException(MessageFormat.format(
+						"Could not find bean: {0}", beanName));
+			return bean.getClass();
+		}
+		try {
+			ServiceHandle handle = getServiceHandle(beanName,
+					mangledMethodName, request);
+			Class<?>[] argsTypes = handle.getMethod().getParameterTypes();
+			Object[] args = new Object[argsTypes.length];
 
-		if (bean == null) {
-			throw new ServiceInvokationException(MessageFormat.format(
-					"Could not find bean: {0}", beanName));
-		} else {
-			try {
-				String mangledMethodName = in.readMethod();
-				Method method = getMethod(bean.getClass(), mangledMethodName);
-				if ("_hessian_getAttribute".equals(mangledMethodName))
-					result = bean.getClass();
-				else {
-
-					Class<?>[] argsTypes = method.getParameterTypes();
-					Object[] args = new Object[argsTypes.length];
-
-					for (int i = 0; i < argsTypes.length; i++) {
-						args[i] = in.readObject(argsTypes[i]);
-					}
-
-					result = WebAppUtil.callService(beanName,
-							mangledMethodName, args, request);
-				}
-			} catch (Exception e) {
-				e.printStackTrace();
+			for (int i = 0; i < argsTypes.length; i++) {
+				args[i] = in.readObject(argsTypes[i]);
 			}
 
-			return result;
+			result = WebAppUtil.callService(handle, args, request);
+		} catch (ServiceInvokationException e) {
+			throw e;
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		return result;
+	}
+
+	/*
+	 * the bean proxy and its method are looked up only at the first call of a
+	 * mangled method name, the next calls use the cached handle.
+	 */
+	private ServiceHandle getServiceHandle(String beanName,
+			String mangledMethodName, HttpServletRequest request)
+			throws Exception {
+		ConcurrentMap<String, ServiceHandle> handles = handlesByBean
+				.get(beanName);
+		if (handles == null) {
+			handles = new ConcurrentHashMap<String, ServiceHandle>();
+			ConcurrentMap<String, ServiceHandle> old = handlesByBean
+					.putIfAbsent(beanName, handles);
+			if (old != null)
+				handles = old;
+		}
+		ServiceHandle handle = handles.get(mangledMethodName);
+		if (handle == null) {
+			Object bean = WebAppUtil.getService(beanName, request);
+			if (bean == null)
+				throw new ServiceInvokationException(MessageFormat.format(
+						"Could not find bean: {0}", beanName));
+			Method method = getMethod(bean.getClass(), mangledMethodName);
+			if (method == null)
+				throw new ServiceInvokationException(MessageFormat.format(
+						"Could not find method: {0} in bean: {1}",
+						mangledMethodName, beanName));
+			handle = WebAppUtil.handle(beanName, method.getName(),
+					method.getParameterTypes(), request.getSession()
+							.getServletContext());
+			handles.put(mangledMethodName, handle);
 		}
+		return handle;
 	}
 
 	/*
@@ -211,6 +251,7 @@ public class HessianToJdonRequestProcessor {
 	
 	public void clear(){
 		this.methodsByComponentType.clear();
+		this.handlesByBean.clear();
 	}
 
 }
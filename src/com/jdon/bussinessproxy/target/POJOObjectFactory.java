@@ -40,10 +40,12 @@ public class POJOObjectFactory implements TargetObjectFactory {
 	public Object create(ContainerCallback containerCallback) throws Exception {
 		Object o = null;
 		try {
-			Debug.logVerbose("[JdonFramework] create new pojo Object for " + pOJOTargetMetaDef.getName(), module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework] create new pojo Object for " + pOJOTargetMetaDef.getName(), module);
 			ContainerWrapper containerWrapper = containerCallback.getContainerWrapper();
 			o = containerWrapper.getComponentNewInstance(pOJOTargetMetaDef.getName());
-			Debug.logVerbose("[JdonFramework] create new pojo Object id " + o.hashCode(), module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework] create new pojo Object id " + o.hashCode(), module);
 		} catch (Exception ex) {
 			Debug.logError("[JdonFramework]create error: " + ex + " name=" + pOJOTargetMetaDef.getName(), module);
 			throw new Exception(ex);
@@ -23,6 +23,14 @@ public class CacheLine {
 
     private boolean useSoftReference = false;
 
+    // the estimated bytes, see Weigher
+    private long weight;
+
+    // the absolute time to live of put(key, value, ttl), 0 for the expireTime of the cache
+    private long expireAt = 0;
+
+    private volatile TimerWheel.Timeout expiry;
+
     public CacheLine(Object value, boolean useSoftReference) {
     	this.useSoftReference = useSoftReference;
         if (this.useSoftReference)
@@ -55,6 +63,37 @@ public class CacheLine {
 		this.loadTime = loadTime;
 	}
 
+	public long getExpireAt() {
+		return expireAt;
+	}
+
+	public void setExpireAt(long expireAt) {
+		this.expireAt = expireAt;
+	}
+
+	public void setExpiry(TimerWheel.Timeout expiry) {
+		this.expiry = expiry;
+	}
+
+	/**
+	 * the line is removed, drop its timeout from the TimerWheel
+	 */
+	public void cancelExpiry() {
+		TimerWheel.Timeout timeout = expiry;
+		if (timeout != null) {
+			expiry = null;
+			timeout.cancel();
+		}
+	}
+
+	public long getWeight() {
+		return weight;
+	}
+
+	public void setWeight(long weight) {
+		this.weight = weight;
+	}
+
 	public boolean isUseSoftReference() {
 		return useSoftReference;
 	}
@@ -0,0 +1,564 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jdon.controller.cache.Cache;
+import com.jdon.controller.cache.SnapshotLoader;
+import com.jdon.controller.cache.TtlCache;
+import com.jdon.util.ContextObjectInputStream;
+import com.jdon.util.Debug;
+
+/**
+ * the warm start of CacheManager: save() writes the most recently used keys
+ * of the cache (and their values if they are serializable) into a memory
+ * mapped file when the container stops, restore() reloads them when it
+ * starts again, so the database is not hit by all the misses of a empty
+ * cache after a deploy.
+ *
+ * the values are deserialized by a few background threads, a request does
+ * not wait for them; the threads are created when there are entries to
+ * reload and stop when there are none left. the keys saved without a value
+ * are replayed through the SnapshotLoader when it is registered by
+ * CacheManager.setSnapshotLoader. all the work stops when the time budget is
+ * over, the keys left are skipped.
+ *
+ * a restored value is not newer than the snapshot, it is only put if the key
+ * is not cached yet. a entry of a UtilCache keeps the rest of its time to
+ * live: it is put with it into a TtlCache, and skipped if it expired while
+ * the container was stopped. the restored keys are remembered, so a manager that
+ * tracks its keys (BlockCacheManager) can remove them by removeRestored.
+ *
+ * file format: magic, version, created millis, entry count, then every entry
+ * as key, dataKey and value, each a int length (-1 for null) and the bytes,
+ * and the expire millis (0 for unknown, since version 2).
+ *
+ * @see CacheSnapshotConf
+ */
+public class CacheSnapshot {
+	public final static String module = CacheSnapshot.class.getName();
+
+	private final static int MAGIC = 0x4A444353; // JDCS
+
+	private final static int VERSION = 2;
+
+	private final static int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+	private final CacheSnapshotConf conf;
+
+	// the keys put by the restore, the value is the key
+	private final Map<String, String> restoredKeys = new ConcurrentHashMap<String, String>();
+
+	// the entries without a value, wait for the loader
+	private List<Entry> pending = new ArrayList<Entry>();
+
+	private volatile SnapshotLoader loader;
+
+	private volatile ThreadPoolExecutor executor;
+
+	private volatile Cache cache;
+
+	private volatile ClassLoader classLoader;
+
+	private volatile long startTime;
+
+	private volatile long deadline;
+
+	private volatile long elapsed;
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicLong saved = new AtomicLong();
+
+	private final AtomicLong restored = new AtomicLong();
+
+	private final AtomicLong loaded = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private final AtomicLong skipped = new AtomicLong();
+
+	public CacheSnapshot(CacheSnapshotConf conf) {
+		this.conf = conf;
+	}
+
+	/**
+	 * write the most recently used entries of the cache into the file.
+	 *
+	 * @return the count of the saved entries
+	 */
+	public int save(Cache cache) {
+		stopRestore();
+		long start = System.currentTimeMillis();
+		List<Entry> entries = new ArrayList<Entry>();
+		long size = HEADER_SIZE;
+		try {
+			for (Iterator it = hotKeys(cache).iterator(); it.hasNext() && entries.size() < conf.getMaxEntries();) {
+				Object key = it.next();
+				if (!(key instanceof String))
+					continue;
+				Object o = cache.get(key);
+				if (!(o instanceof CacheableWrapper))
+					continue;
+				long expireAt = expireAt(cache, key);
+				if (expireAt > 0 && expireAt <= start)
+					continue;
+				CacheableWrapper cw = (CacheableWrapper) o;
+				Entry entry = new Entry(bytes((String) key), bytes(cw.getCachedValueKey()), conf.isSaveValues() ? serialize(cw
+						.getCachedValue()) : null, expireAt);
+				entries.add(entry);
+				size += entry.size();
+			}
+			write(entries, size);
+			saved.set(entries.size());
+			Debug.logInfo("[JdonFramework]cache snapshot saved " + entries.size() + " entries, " + size + " bytes in "
+					+ (System.currentTimeMillis() - start) + "ms to " + conf.getFile(), module);
+			return entries.size();
+		} catch (Exception e) {
+			Debug.logError("[JdonFramework]save cache snapshot error:" + e, module);
+			return 0;
+		}
+	}
+
+	// the most recently used first if the LRU list of UtilCache is kept
+	private Collection hotKeys(Cache cache) {
+		UtilCache utilCache = utilCache(cache);
+		if (utilCache != null && utilCache.keyLRUList.size() > 0)
+			return Arrays.asList(utilCache.keyLRUList.toArray());
+		return cache.keySet();
+	}
+
+	// the time to live is known only for a UtilCache
+	private long expireAt(Cache cache, Object key) {
+		UtilCache utilCache = utilCache(cache);
+		return utilCache == null ? 0 : utilCache.getExpireAt(key);
+	}
+
+	private UtilCache utilCache(Cache cache) {
+		Cache c = cache;
+		if (c instanceof NearCache)
+			c = ((NearCache) c).getL2();
+		if (c instanceof LRUCache)
+			return ((LRUCache) c).getUtilCache();
+		return null;
+	}
+
+	private void write(List<Entry> entries, long size) throws IOException {
+		File file = conf.getFile();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(size);
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putLong(System.currentTimeMillis());
+			buffer.putInt(entries.size());
+			for (Entry entry : entries) {
+				put(buffer, entry.key);
+				put(buffer, entry.dataKey);
+				put(buffer, entry.value);
+				buffer.putLong(entry.expireAt);
+			}
+			buffer.force();
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * read the file, and reload the entries into the cache in background.
+	 *
+	 * @return the count of the entries in the file
+	 */
+	public int restore(Cache cache) {
+		File file = conf.getFile();
+		if (!file.exists() || file.length() < HEADER_SIZE)
+			return 0;
+		this.cache = cache;
+		this.classLoader = Thread.currentThread().getContextClassLoader();
+		this.startTime = System.currentTimeMillis();
+		this.deadline = conf.getTimeBudget() > 0 ? startTime + conf.getTimeBudget() : Long.MAX_VALUE;
+		List<Entry> entries;
+		try {
+			entries = read(file);
+		} catch (Exception e) {
+			Debug.logError("[JdonFramework]read cache snapshot error:" + e, module);
+			return 0;
+		}
+		List<Entry> values = new ArrayList<Entry>();
+		synchronized (this) {
+			for (Entry entry : entries) {
+				if (entry.value != null)
+					values.add(entry);
+				else
+					pending.add(entry);
+			}
+		}
+		submit(values);
+		if (loader != null)
+			replay();
+		else
+			Debug.logInfo("[JdonFramework]cache snapshot: " + pending.size() + " keys wait for the SnapshotLoader", module);
+		return entries.size();
+	}
+
+	private List<Entry> read(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int magic = buffer.getInt();
+			int version = buffer.getInt();
+			if (magic != MAGIC || version < 1 || version > VERSION)
+				throw new IOException("not a cache snapshot of this version: " + file);
+			long created = buffer.getLong();
+			int count = buffer.getInt();
+			List<Entry> entries = new ArrayList<Entry>(Math.min(count, conf.getMaxEntries()));
+			for (int i = 0; i < count && entries.size() < conf.getMaxEntries(); i++) {
+				entries.add(new Entry(get(buffer), get(buffer), get(buffer), version > 1 ? buffer.getLong() : 0));
+			}
+			Debug.logInfo("[JdonFramework]cache snapshot of " + new java.util.Date(created) + " has " + entries.size() + " entries", module);
+			return entries;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * the keys without a value are loaded by it; if the restore is running,
+	 * they are replayed at once.
+	 */
+	public void setLoader(SnapshotLoader loader) {
+		this.loader = loader;
+		if (cache != null)
+			replay();
+	}
+
+	public SnapshotLoader getLoader() {
+		return loader;
+	}
+
+	private void replay() {
+		List<Entry> entries;
+		synchronized (this) {
+			entries = pending;
+			pending = new ArrayList<Entry>();
+		}
+		submit(entries);
+	}
+
+	// the executor is created here and shut down by the last done(), both
+	// under the lock, so no entry is submitted to a executor shut down
+	private synchronized void submit(List<Entry> entries) {
+		if (entries.isEmpty())
+			return;
+		if (cache == null) {
+			// stopped
+			skipped.addAndGet(entries.size());
+			return;
+		}
+		if (executor == null)
+			executor = createExecutor();
+		for (final Entry entry : entries) {
+			running.incrementAndGet();
+			try {
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							reload(entry);
+						} finally {
+							done();
+						}
+					}
+				});
+			} catch (Exception e) {
+				running.decrementAndGet();
+				skipped.incrementAndGet();
+			}
+		}
+	}
+
+	private ThreadPoolExecutor createExecutor() {
+		return new ThreadPoolExecutor(conf.getThreads(), conf.getThreads(), 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "jdon-cache-snapshot-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+	}
+
+	private void reload(Entry entry) {
+		Cache cache = this.cache;
+		if (cache == null || System.currentTimeMillis() > deadline) {
+			skipped.incrementAndGet();
+			return;
+		}
+		try {
+			String key = string(entry.key);
+			if (entry.expireAt > 0 && entry.expireAt <= System.currentTimeMillis()) {
+				skipped.incrementAndGet();
+				return;
+			}
+			if (cache.contain(key)) {
+				skipped.incrementAndGet();
+				return;
+			}
+			String dataKey = string(entry.dataKey);
+			Object value;
+			if (entry.value != null) {
+				value = deserialize(entry.value);
+			} else {
+				value = loader.load(key, dataKey);
+				if (value == null) {
+					skipped.incrementAndGet();
+					return;
+				}
+			}
+			// the rest of the ttl is taken after the deserialization or the load
+			long ttl = entry.expireAt > 0 ? entry.expireAt - System.currentTimeMillis() : 0;
+			if (entry.expireAt > 0 && ttl <= 0) {
+				skipped.incrementAndGet();
+				return;
+			}
+			if (ttl > 0 && cache instanceof TtlCache)
+				((TtlCache) cache).put(key, new CacheableWrapper(dataKey, value), ttl);
+			else
+				cache.put(key, new CacheableWrapper(dataKey, value));
+			restoredKeys.put(key, key);
+			if (entry.value != null)
+				restored.incrementAndGet();
+			else
+				loaded.incrementAndGet();
+		} catch (Throwable e) {
+			failed.incrementAndGet();
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework]cache snapshot reload error:" + e, module);
+		}
+	}
+
+	private void done() {
+		elapsed = System.currentTimeMillis() - startTime;
+		synchronized (this) {
+			if (running.decrementAndGet() > 0)
+				return;
+			// nothing to reload now, the threads do not wait for the loader,
+			// setLoader creates them again
+			if (executor != null) {
+				executor.shutdown();
+				executor = null;
+			}
+		}
+		Debug.logInfo("[JdonFramework]" + this, module);
+	}
+
+	private void stopRestore() {
+		ThreadPoolExecutor executor;
+		synchronized (this) {
+			executor = this.executor;
+			this.executor = null;
+			this.cache = null;
+			skipped.addAndGet(pending.size());
+			pending = new ArrayList<Entry>();
+		}
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	/**
+	 * @return true if the threads of the restore are running
+	 */
+	public synchronized boolean isRunning() {
+		return executor != null;
+	}
+
+	/**
+	 * remove the restored keys that start with the cacheType from the cache
+	 */
+	public void removeRestored(Cache cache, String cacheType) {
+		if (restoredKeys.isEmpty())
+			return;
+		for (Iterator<String> it = restoredKeys.keySet().iterator(); it.hasNext();) {
+			String key = it.next();
+			if (key.startsWith(cacheType)) {
+				it.remove();
+				cache.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * forget the restored keys, called when the cache is cleared
+	 */
+	public void clear() {
+		restoredKeys.clear();
+	}
+
+	private static byte[] serialize(Object o) {
+		if (!(o instanceof Serializable))
+			return null;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(o);
+			out.close();
+			return bytes.toByteArray();
+		} catch (Exception e) {
+			// saved as a key only, the loader can replay it
+			return null;
+		}
+	}
+
+	// the threads of the executor do not have the class loader of the web
+	// application
+	private Object deserialize(byte[] bytes) throws Exception {
+		ObjectInputStream in = new ContextObjectInputStream(new ByteArrayInputStream(bytes), classLoader);
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] bytes(String s) throws IOException {
+		return s == null ? null : s.getBytes("UTF-8");
+	}
+
+	private static String string(byte[] bytes) throws IOException {
+		return bytes == null ? null : new String(bytes, "UTF-8");
+	}
+
+	private static void put(ByteBuffer buffer, byte[] bytes) {
+		if (bytes == null) {
+			buffer.putInt(-1);
+			return;
+		}
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private static byte[] get(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static class Entry {
+		final byte[] key;
+
+		final byte[] dataKey;
+
+		final byte[] value;
+
+		// the absolute expire time, 0 for unknown
+		final long expireAt;
+
+		Entry(byte[] key, byte[] dataKey, byte[] value, long expireAt) {
+			this.key = key;
+			this.dataKey = dataKey;
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+
+		long size() {
+			return 12 + 8 + key.length + (dataKey == null ? 0 : dataKey.length) + (value == null ? 0 : value.length);
+		}
+	}
+
+	public long getSaved() {
+		return saved.get();
+	}
+
+	/**
+	 * @return the values deserialized from the file
+	 */
+	public long getRestored() {
+		return restored.get();
+	}
+
+	/**
+	 * @return the values loaded by the SnapshotLoader
+	 */
+	public long getLoaded() {
+		return loaded.get();
+	}
+
+	public long getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * @return the keys not reloaded: out of the time budget, or unknown to the
+	 *         loader
+	 */
+	public long getSkipped() {
+		return skipped.get();
+	}
+
+	/**
+	 * @return the entries not reloaded yet
+	 */
+	public int getRemaining() {
+		synchronized (this) {
+			return running.get() + pending.size();
+		}
+	}
+
+	/**
+	 * @return milliseconds from the start of the restore to the last reloaded
+	 *         entry
+	 */
+	public long getElapsed() {
+		return elapsed;
+	}
+
+	public String toString() {
+		return "CacheSnapshot restored=" + restored + " loaded=" + loaded + " failed=" + failed + " skipped=" + skipped + " remaining="
+				+ getRemaining() + " elapsed=" + elapsed + "ms";
+	}
+
+}
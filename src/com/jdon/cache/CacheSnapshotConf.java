@@ -0,0 +1,78 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.io.File;
+
+/**
+ * the warm start of CacheManager (a CacheSnapshot), defined in container.xml:
+ *
+ * <pre>
+ * &lt;component name=&quot;cacheSnapshotConf&quot; class=&quot;com.jdon.cache.CacheSnapshotConf&quot;&gt;
+ *   &lt;constructor value=&quot;jdon-cache.snapshot&quot;/&gt; &lt;!-- the file, relative to java.io.tmpdir --&gt;
+ *   &lt;constructor value=&quot;10000&quot;/&gt; &lt;!-- max entries saved, the most recently used first --&gt;
+ *   &lt;constructor value=&quot;true&quot;/&gt; &lt;!-- save the serializable values too, false saves keys only --&gt;
+ *   &lt;constructor value=&quot;60000&quot;/&gt; &lt;!-- max milliseconds of the reload, 0 is no limit --&gt;
+ *   &lt;constructor value=&quot;2&quot;/&gt; &lt;!-- threads of the reload --&gt;
+ * &lt;/component&gt;
+ * </pre>
+ *
+ * without it CacheManager starts with a empty cache.
+ *
+ * @see CacheSnapshot
+ */
+public class CacheSnapshotConf {
+
+	private final File file;
+
+	private final int maxEntries;
+
+	private final boolean saveValues;
+
+	private final long timeBudget;
+
+	private final int threads;
+
+	public CacheSnapshotConf(String file, String maxEntries, String saveValues, String timeBudget, String threads) {
+		File f = new File(file);
+		this.file = f.isAbsolute() ? f : new File(System.getProperty("java.io.tmpdir"), file);
+		this.maxEntries = Integer.parseInt(maxEntries);
+		this.saveValues = Boolean.valueOf(saveValues).booleanValue();
+		this.timeBudget = Long.parseLong(timeBudget);
+		this.threads = Math.max(1, Integer.parseInt(threads));
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public boolean isSaveValues() {
+		return saveValues;
+	}
+
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+}
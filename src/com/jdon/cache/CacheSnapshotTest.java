@@ -0,0 +1,88 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import java.io.File;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.controller.cache.SnapshotLoader;
+
+public class CacheSnapshotTest extends TestCase {
+
+	private File file;
+
+	protected void setUp() throws Exception {
+		file = File.createTempFile("jdon-cache", ".snapshot");
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	private CacheSnapshot snapshot(boolean saveValues) {
+		return new CacheSnapshot(new CacheSnapshotConf(file.getAbsolutePath(), "100", String.valueOf(saveValues), "10000", "2"));
+	}
+
+	private void await(CacheSnapshot snapshot) throws Exception {
+		for (int i = 0; i < 500 && (snapshot.getRemaining() > 0 || snapshot.isRunning()); i++)
+			Thread.sleep(10);
+	}
+
+	public void testRemainingTtlIsRestored() throws Exception {
+		LRUCache cache = new LRUCache("cache.xml");
+		cache.put("a", new CacheableWrapper("1", "value a"), 60000);
+		cache.put("b", new CacheableWrapper("2", "value b"), 50);
+		long saved = cache.getUtilCache().getExpireAt("a");
+		Assert.assertEquals(2, snapshot(true).save(cache));
+		Thread.sleep(100);
+
+		LRUCache restored = new LRUCache("cache.xml");
+		CacheSnapshot snapshot = snapshot(true);
+		snapshot.restore(restored);
+		await(snapshot);
+		Assert.assertEquals(1, snapshot.getRestored());
+		Assert.assertEquals("value a", ((CacheableWrapper) restored.get("a")).getCachedValue());
+		// not a fresh hour of the cache.xml expireTime
+		Assert.assertTrue(Math.abs(restored.getUtilCache().getExpireAt("a") - saved) < 20);
+		// it expired while the container was stopped
+		Assert.assertFalse(restored.contain("b"));
+	}
+
+	public void testThreadsDoNotWaitForTheLoader() throws Exception {
+		LRUCache cache = new LRUCache("cache.xml");
+		cache.put("a", new CacheableWrapper("1", "value a"));
+		snapshot(false).save(cache);
+
+		LRUCache restored = new LRUCache("cache.xml");
+		CacheSnapshot snapshot = snapshot(false);
+		Assert.assertEquals(1, snapshot.restore(restored));
+		Assert.assertFalse(snapshot.isRunning());
+		Assert.assertEquals(1, snapshot.getRemaining());
+
+		snapshot.setLoader(new SnapshotLoader() {
+			public Object load(String key, String dataKey) throws Exception {
+				return "loaded " + dataKey;
+			}
+		});
+		await(snapshot);
+		Assert.assertFalse(snapshot.isRunning());
+		Assert.assertEquals(1, snapshot.getLoaded());
+		Assert.assertEquals("loaded 1", ((CacheableWrapper) restored.get("a")).getCachedValue());
+	}
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import com.jdon.controller.cache.Cache;
+import com.jdon.util.StripedCounter;
+
+/**
+ * the statistics of a cache role (model, block, count, session or the whole
+ * cache of CacheManager), get it by CacheStatsRegistry.getStats(role).
+ *
+ * the counters are StripedCounters, the threads of the requests update them
+ * without contention.
+ *
+ * the size is the size of the cache set by setCache, the roles of
+ * CacheManager share its cache, so they have the same size. without a cache
+ * it is the sum of sizeChanged.
+ *
+ */
+public class CacheStats implements CacheStatsMBean {
+
+	private final String role;
+
+	private final StripedCounter hits = new StripedCounter();
+
+	private final StripedCounter misses = new StripedCounter();
+
+	private final StripedCounter loads = new StripedCounter();
+
+	private final StripedCounter loadNanos = new StripedCounter();
+
+	private final StripedCounter evictions = new StripedCounter();
+
+	private final StripedCounter invalidations = new StripedCounter();
+
+	private final StripedCounter size = new StripedCounter();
+
+	private volatile Cache cache;
+
+	public CacheStats(String role) {
+		this.role = role;
+	}
+
+	public void hit() {
+		hits.increment();
+	}
+
+	public void miss() {
+		misses.increment();
+	}
+
+	/**
+	 * a value is loaded from the database after a miss
+	 *
+	 * @param nanos
+	 *            the measured load time
+	 */
+	public void loaded(long nanos) {
+		loads.increment();
+		loadNanos.add(nanos);
+	}
+
+	/**
+	 * removed by the cache: size limit or expiry
+	 */
+	public void evicted() {
+		evictions.increment();
+	}
+
+	/**
+	 * removed by the application: the data was changed
+	 */
+	public void invalidated() {
+		invalidations.increment();
+	}
+
+	public void sizeChanged(long delta) {
+		size.add(delta);
+	}
+
+	public void setCache(Cache cache) {
+		this.cache = cache;
+	}
+
+	public String getRole() {
+		return role;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public double getHitRate() {
+		long hit = hits.sum();
+		long total = hit + misses.sum();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	public long getLoads() {
+		return loads.sum();
+	}
+
+	public long getLoadMillis() {
+		return loadNanos.sum() / 1000000;
+	}
+
+	public double getAverageLoadMillis() {
+		long count = loads.sum();
+		return count == 0 ? 0 : (double) loadNanos.sum() / count / 1000000;
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	public long getSize() {
+		Cache c = cache;
+		return c != null ? c.size() : size.sum();
+	}
+
+	/**
+	 * reset the counters, not the size
+	 */
+	public void reset() {
+		hits.reset();
+		misses.reset();
+		loads.reset();
+		loadNanos.reset();
+		evictions.reset();
+		invalidations.reset();
+	}
+
+	public String toString() {
+		return "CacheStats role=" + role + " hitRate=" + getHitRate() + " hits=" + hits + " misses=" + misses + " loads=" + loads
+				+ " avgLoadMillis=" + getAverageLoadMillis() + " evictions=" + evictions + " invalidations=" + invalidations + " size="
+				+ getSize();
+	}
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+/**
+ * the JMX view of CacheStats, registered by CacheStatsRegistry as
+ * com.jdon.cache:type=CacheStats,context=...,role=...
+ *
+ */
+public interface CacheStatsMBean {
+
+	public String getRole();
+
+	public long getHits();
+
+	public long getMisses();
+
+	public double getHitRate();
+
+	public long getLoads();
+
+	public long getLoadMillis();
+
+	public double getAverageLoadMillis();
+
+	public long getEvictions();
+
+	public long getInvalidations();
+
+	public long getSize();
+
+	public void reset();
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jdon.container.pico.Startable;
+import com.jdon.util.Debug;
+import com.jdon.util.MBeanUtil;
+
+/**
+ * the CacheStats of the framework caches, one per role. the stats are
+ * registered as MBeans com.jdon.cache:type=CacheStats,context=...,role=...
+ * when the container starts this component, and unregistered when it stops.
+ * the context is the id of the class loader of jdon, see
+ * MBeanUtil.getContext(), so the web applications of a jvm do not share
+ * the names.
+ *
+ * container.xml: &lt;component name=&quot;cacheStatsRegistry&quot;
+ * class=&quot;com.jdon.cache.CacheStatsRegistry&quot; /&gt;
+ *
+ */
+public class CacheStatsRegistry implements Startable {
+	public final static String module = CacheStatsRegistry.class.getName();
+
+	/** the models of ModelCacheManager */
+	public final static String MODEL = "model";
+
+	/** the query blocks of BlockCacheManager */
+	public final static String BLOCK = "block";
+
+	/** the query counts of BlockCacheManager */
+	public final static String COUNT = "count";
+
+	/** the components cached in the http sessions */
+	public final static String SESSION = "session";
+
+	/** the whole cache of CacheManager */
+	public final static String CACHE = "cache";
+
+	private final static ConcurrentHashMap<String, CacheStats> stats = new ConcurrentHashMap<String, CacheStats>();
+
+	private static volatile boolean registered;
+
+	/**
+	 * @return the stats of the role, created at the first call
+	 */
+	public static CacheStats getStats(String role) {
+		CacheStats s = stats.get(role);
+		if (s != null)
+			return s;
+		s = new CacheStats(role);
+		CacheStats old = stats.putIfAbsent(role, s);
+		if (old != null)
+			return old;
+		if (registered)
+			register(s);
+		return s;
+	}
+
+	public static Collection<CacheStats> getAllStats() {
+		return stats.values();
+	}
+
+	public void start() {
+		registered = true;
+		for (Iterator<CacheStats> it = stats.values().iterator(); it.hasNext();) {
+			register(it.next());
+		}
+	}
+
+	public void stop() {
+		registered = false;
+		for (Iterator<CacheStats> it = stats.values().iterator(); it.hasNext();) {
+			CacheStats s = it.next();
+			Debug.logInfo("[JdonFramework]" + s, module);
+			unregister(s);
+		}
+	}
+
+	static String getObjectName(CacheStats s) {
+		return "com.jdon.cache:type=CacheStats,context=" + MBeanUtil.getContext() + ",role=" + MBeanUtil.quote(s.getRole());
+	}
+
+	private static void register(CacheStats s) {
+		// another container of the class loader may have registered it
+		MBeanUtil.register(s, getObjectName(s));
+	}
+
+	private static void unregister(CacheStats s) {
+		MBeanUtil.unregister(getObjectName(s));
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.util.MBeanUtil;
+
+public class CacheStatsRegistryTest extends TestCase {
+
+	public void testNameHasTheContext() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		CacheStatsRegistry registry = new CacheStatsRegistry();
+		CacheStats stats = CacheStatsRegistry.getStats(CacheStatsRegistry.MODEL);
+		ObjectName name = new ObjectName(CacheStatsRegistry.getObjectName(stats));
+		Assert.assertEquals(MBeanUtil.getContext(), name.getKeyProperty("context"));
+		Assert.assertEquals(CacheStatsRegistry.MODEL, name.getKeyProperty("role"));
+
+		registry.start();
+		try {
+			Assert.assertTrue(server.isRegistered(name));
+			// a role created after the start is registered too
+			CacheStats late = CacheStatsRegistry.getStats("late role, quoted");
+			Assert.assertTrue(server.isRegistered(new ObjectName(CacheStatsRegistry.getObjectName(late))));
+		} finally {
+			registry.stop();
+		}
+		Assert.assertFalse(server.isRegistered(name));
+	}
+
+}
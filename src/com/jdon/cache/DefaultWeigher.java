@@ -0,0 +1,206 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jdon.controller.cache.Sizeable;
+import com.jdon.util.ObjectSizeEstimator;
+
+/**
+ * estimate the heap bytes of a cache entry:
+ * <ul>
+ * <li>a Sizeable tells its own size
+ * <li>String, boxed numbers and primitive arrays are measured
+ * <li>Object[], and the Collection and Map classes of the jdk count their
+ * elements, a big one is estimated by its first SAMPLE elements
+ * <li>other objects (models) count their fields, the referenced objects are
+ * followed to MAX_DEPTH
+ * <li>the other classes of the jdk, other collections (a lazy Hibernate
+ * collection loads itself when it is iterated) and proxies only count their
+ * shallow size
+ * </ul>
+ * it is an estimate for sizing caches, the objects shared by many entries
+ * are counted in every entry. an object that can not be measured counts its
+ * shallow size.
+ *
+ */
+public class DefaultWeigher implements Weigher {
+
+	// ConcurrentHashMap node: header + hash + key/value/next
+	public final static int ENTRY_OVERHEAD = 32;
+
+	public final static int MAX_DEPTH = 3;
+
+	public final static int SAMPLE = 32;
+
+	private final static Field[] NO_FIELDS = new Field[0];
+
+	// the reference fields of every class, found once by reflection
+	private final Map<Class, Field[]> referenceFields = new ConcurrentHashMap<Class, Field[]>();
+
+	public long weigh(Object key, Object value) {
+		return ENTRY_OVERHEAD + sizeOf(key, 1) + sizeOf(value, MAX_DEPTH);
+	}
+
+	public long sizeOf(Object o) {
+		return sizeOf(o, MAX_DEPTH);
+	}
+
+	protected long sizeOf(Object o, int depth) {
+		if (o == null)
+			return 0;
+		try {
+			return measure(o, depth);
+		} catch (RuntimeException e) {
+			return ObjectSizeEstimator.shallowSizeOf(o);
+		}
+	}
+
+	private long measure(Object o, int depth) {
+		if (o instanceof Sizeable)
+			return ((Sizeable) o).sizeOf();
+		if (o instanceof String)
+			return ObjectSizeEstimator.sizeOf((String) o);
+		if (o instanceof Number || o instanceof Boolean || o instanceof Character)
+			return ObjectSizeEstimator.shallowSizeOf(o);
+		if (o instanceof CacheableWrapper) {
+			// the wrapper does not count as a level
+			CacheableWrapper cw = (CacheableWrapper) o;
+			return ObjectSizeEstimator.shallowSizeOf(o) + ObjectSizeEstimator.sizeOf(cw.getCachedValueKey()) + sizeOf(cw.getCachedValue(), depth);
+		}
+		Class c = o.getClass();
+		if (c.isArray()) {
+			long size = ObjectSizeEstimator.shallowSizeOf(o);
+			if (!c.getComponentType().isPrimitive() && depth > 0) {
+				Object[] array = (Object[]) o;
+				size += sampled(array.length, elementsSize(array, depth - 1), Math.min(array.length, SAMPLE));
+			}
+			return size;
+		}
+		if (isProxyClass(c))
+			return ObjectSizeEstimator.shallowSizeOf(o);
+		if (o instanceof Collection) {
+			if (!isJdkClass(c))
+				return ObjectSizeEstimator.shallowSizeOf(o);
+			Collection collection = (Collection) o;
+			int n = collection.size();
+			// the backing array or the nodes
+			long size = ObjectSizeEstimator.shallowSizeOf(o) + ObjectSizeEstimator.align(ObjectSizeEstimator.ARRAY_HEADER + (long) n * ObjectSizeEstimator.REFERENCE);
+			if (depth > 0)
+				size += sampled(n, elementsSize(collection, depth - 1), Math.min(n, SAMPLE));
+			return size;
+		}
+		if (o instanceof Map) {
+			if (!isJdkClass(c))
+				return ObjectSizeEstimator.shallowSizeOf(o);
+			Map map = (Map) o;
+			int n = map.size();
+			long size = ObjectSizeEstimator.shallowSizeOf(o) + (long) n * ENTRY_OVERHEAD;
+			if (depth > 0) {
+				long sample = 0;
+				int count = 0;
+				for (Iterator it = map.entrySet().iterator(); it.hasNext() && count < SAMPLE; count++) {
+					Map.Entry e = (Map.Entry) it.next();
+					sample += sizeOf(e.getKey(), depth - 1) + sizeOf(e.getValue(), depth - 1);
+				}
+				size += sampled(n, sample, count);
+			}
+			return size;
+		}
+		long size = ObjectSizeEstimator.shallowSizeOf(o);
+		if (depth > 0 && !isJdkClass(c)) {
+			Field[] fields = getReferenceFields(c);
+			for (int i = 0; i < fields.length; i++) {
+				try {
+					size += sizeOf(fields[i].get(o), depth - 1);
+				} catch (IllegalAccessException e) {
+				}
+			}
+		}
+		return size;
+	}
+
+	private long elementsSize(Object[] array, int depth) {
+		long size = 0;
+		int n = Math.min(array.length, SAMPLE);
+		for (int i = 0; i < n; i++) {
+			size += sizeOf(array[i], depth);
+		}
+		return size;
+	}
+
+	private long elementsSize(Collection collection, int depth) {
+		long size = 0;
+		int count = 0;
+		for (Iterator it = collection.iterator(); it.hasNext() && count < SAMPLE; count++) {
+			size += sizeOf(it.next(), depth);
+		}
+		return size;
+	}
+
+	// their fields may be inaccessible (jdk 9 modules), or lazily computed
+	protected boolean isJdkClass(Class c) {
+		String name = c.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.") || name.startsWith("com.sun.");
+	}
+
+	// a jdk, cglib or javassist proxy loads its target when it is touched
+	protected boolean isProxyClass(Class c) {
+		return Proxy.isProxyClass(c) || c.getName().indexOf("$$") >= 0;
+	}
+
+	// extrapolate the sample to all elements
+	private long sampled(int total, long sampleSize, int sampleCount) {
+		if (sampleCount == 0 || sampleCount >= total)
+			return sampleSize;
+		return sampleSize * total / sampleCount;
+	}
+
+	private Field[] getReferenceFields(Class c) {
+		Field[] fields = referenceFields.get(c);
+		if (fields == null) {
+			List<Field> list = new ArrayList<Field>();
+			for (Class k = c; k != null && k != Object.class; k = k.getSuperclass()) {
+				Field[] declared = k.getDeclaredFields();
+				for (int i = 0; i < declared.length; i++) {
+					if (!Modifier.isStatic(declared[i].getModifiers()) && !declared[i].getType().isPrimitive())
+						list.add(declared[i]);
+				}
+			}
+			fields = list.toArray(NO_FIELDS);
+			try {
+				AccessibleObject.setAccessible(fields, true);
+			} catch (RuntimeException e) {
+				// SecurityException, or InaccessibleObjectException of jdk 9:
+				// only the shallow size
+				fields = NO_FIELDS;
+			}
+			referenceFields.put(c, fields);
+		}
+		return fields;
+	}
+
+}
@@ -17,7 +17,7 @@ package com.jdon.cache;
 
 import java.util.Collection;
 
-import com.jdon.controller.cache.Cache;
+import com.jdon.controller.cache.TtlCache;
 import com.jdon.util.PropsUtil;
 
 /**
@@ -28,7 +28,7 @@ import com.jdon.util.PropsUtil;
  * be defined in container.xml too.
  * <p>@author <a href="mailto:banqiao@jdon.com">banq</a></p>
  */
-public class LRUCache implements Cache {
+public class LRUCache implements TtlCache, CacheStatsAware {
 
 	private final UtilCache cache;
 
@@ -50,6 +50,10 @@ public class LRUCache implements Cache {
 		cache.put(key, value);
 	}
 
+	public void put(Object key, Object value, long ttl) {
+		cache.put(key, value, ttl);
+	}
+
 	public void remove(Object key) {
 		cache.remove(key);
 	}
@@ -70,4 +74,27 @@ public class LRUCache implements Cache {
 		return cache.keySet();
 	}
 
+	/**
+	 * @return the estimated bytes of the cached objects
+	 */
+	public long getWeight() {
+		return cache.getWeight();
+	}
+
+	public long getMaxWeight() {
+		return cache.getMaxWeight();
+	}
+
+	public UtilCache getUtilCache() {
+		return cache;
+	}
+
+	public void setCacheStats(CacheStats cacheStats) {
+		cache.setCacheStats(cacheStats);
+	}
+
+	public String toString() {
+		return "LRUCache size=" + cache.size() + "/" + cache.getMaxSize() + " weight=" + cache.getWeight() + "/" + cache.getMaxWeight();
+	}
+
 }
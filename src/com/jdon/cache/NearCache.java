@@ -0,0 +1,205 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.jdon.controller.cache.Cache;
+import com.jdon.controller.cache.TtlCache;
+
+/**
+ * a small in-process L1 cache in front of another Cache (the L2, such as
+ * EncacheProvider or LRUCache).
+ *
+ * a L1 hit is a lock-free ConcurrentHashMap read, it does not touch the
+ * L2. the L1 is bounded by maxSize: when it is full, some entries are
+ * evicted by one thread, the others do not wait for it.
+ *
+ * puts and removes are written through to the L2 and invalidate the L1
+ * entry, the next get loads the value from the L2 into the L1. a L1 entry
+ * lives at most ttl milliseconds, so changes not made through this cache
+ * (expiry or eviction of the L2, other jvms of a cluster) are seen after
+ * ttl.
+ *
+ * size() and keySet() are the L2's, contain() is true for a live L1 entry
+ * or a L2 entry.
+ *
+ */
+public class NearCache implements TtlCache, CacheStatsAware {
+
+	private final Cache l2;
+
+	private final ConcurrentHashMap<Object, Entry> l1;
+
+	private final int maxSize;
+
+	private final long ttl;
+
+	// a power of two
+	static final int STRIPES = 64;
+
+	// incremented by every invalidation of a key of the stripe, see get(),
+	// so the invalidation of a key does not drop the loads of other keys
+	private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	/**
+	 * @param l2
+	 *            the cache behind
+	 * @param maxSize
+	 *            the max entries of the L1
+	 * @param ttl
+	 *            the max milliseconds of a L1 entry, 0 is no limit
+	 */
+	public NearCache(Cache l2, int maxSize, long ttl) {
+		this.l2 = l2;
+		this.maxSize = maxSize;
+		this.ttl = ttl;
+		this.l1 = new ConcurrentHashMap<Object, Entry>(maxSize * 4 / 3 + 1);
+	}
+
+	public Object get(Object key) {
+		Entry e = l1.get(key);
+		if (e != null) {
+			if (ttl <= 0 || System.currentTimeMillis() < e.expires)
+				return e.value;
+			l1.remove(key, e);
+		}
+		int stripe = stripe(key);
+		long stamp = invalidations.get(stripe);
+		Object value = l2.get(key);
+		if (value != null) {
+			Entry loaded = new Entry(value, ttl > 0 ? System.currentTimeMillis() + ttl : 0);
+			l1.put(key, loaded);
+			// a put or remove ran while the L2 was read, the value may be old
+			if (invalidations.get(stripe) != stamp)
+				l1.remove(key, loaded);
+			else if (l1.size() > maxSize)
+				evict();
+		}
+		return value;
+	}
+
+	static int stripe(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return h & (STRIPES - 1);
+	}
+
+	// the order of the map is random, so is the eviction
+	private void evict() {
+		if (!evicting.compareAndSet(false, true))
+			return;
+		try {
+			int target = maxSize - maxSize / 4;
+			Iterator<Entry> iter = l1.values().iterator();
+			while (l1.size() > target && iter.hasNext()) {
+				iter.next();
+				iter.remove();
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	public void put(Object key, Object value) {
+		l2.put(key, value);
+		invalidate(key);
+	}
+
+	/**
+	 * the L1 does not know the ttl, its entry may live until the ttl of the L1
+	 * after the L2 entry expired. a L2 that is not a TtlCache uses its own
+	 * time to live.
+	 */
+	public void put(Object key, Object value, long ttl) {
+		if (l2 instanceof TtlCache)
+			((TtlCache) l2).put(key, value, ttl);
+		else
+			l2.put(key, value);
+		invalidate(key);
+	}
+
+	public void remove(Object key) {
+		l2.remove(key);
+		invalidate(key);
+	}
+
+	private void invalidate(Object key) {
+		// increment before the entry is removed, see get()
+		invalidations.incrementAndGet(stripe(key));
+		l1.remove(key);
+	}
+
+	public void clear() {
+		l2.clear();
+		for (int i = 0; i < STRIPES; i++)
+			invalidations.incrementAndGet(i);
+		l1.clear();
+	}
+
+	public long size() {
+		return l2.size();
+	}
+
+	public boolean contain(Object key) {
+		Entry e = l1.get(key);
+		if (e != null && (ttl <= 0 || System.currentTimeMillis() < e.expires))
+			return true;
+		return l2.contain(key);
+	}
+
+	public Collection keySet() {
+		return l2.keySet();
+	}
+
+	public Cache getL2() {
+		return l2;
+	}
+
+	/**
+	 * the evictions of the L1 are not counted, the L2 still has the values
+	 */
+	public void setCacheStats(CacheStats cacheStats) {
+		if (l2 instanceof CacheStatsAware)
+			((CacheStatsAware) l2).setCacheStats(cacheStats);
+	}
+
+	public int getL1Size() {
+		return l1.size();
+	}
+
+	public String toString() {
+		return "NearCache l1=" + l1.size() + "/" + maxSize + " ttl=" + ttl + " l2=" + l2;
+	}
+
+	static class Entry {
+		final Object value;
+
+		final long expires;
+
+		Entry(Object value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+/**
+ * the L1 of CacheManager (a NearCache), it is commented out in container.xml:
+ *
+ * <pre>
+ * &lt;component name=&quot;nearCacheConf&quot; class=&quot;com.jdon.cache.NearCacheConf&quot;&gt;
+ *   &lt;constructor value=&quot;1024&quot;/&gt; &lt;!-- max entries of the L1 --&gt;
+ *   &lt;constructor value=&quot;30000&quot;/&gt; &lt;!-- max milliseconds of a L1 entry --&gt;
+ * &lt;/component&gt;
+ * </pre>
+ *
+ * without it CacheManager uses the cache component directly.
+ *
+ * @see NearCache
+ */
+public class NearCacheConf {
+
+	private final int size;
+
+	private final long ttl;
+
+	public NearCacheConf(String size, String ttl) {
+		this.size = Integer.parseInt(size);
+		this.ttl = Long.parseLong(ttl);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.controller.cache.Cache;
+
+public class NearCacheTest extends TestCase {
+
+	static class MapCache implements Cache {
+		final Map map = new HashMap();
+		int gets;
+		// runs once inside the next get, after the value is read
+		Runnable duringGet;
+
+		public synchronized Object get(Object key) {
+			gets++;
+			Object value = map.get(key);
+			Runnable r = duringGet;
+			duringGet = null;
+			if (r != null)
+				r.run();
+			return value;
+		}
+
+		public synchronized void put(Object key, Object value) {
+			map.put(key, value);
+		}
+
+		public synchronized void remove(Object key) {
+			map.remove(key);
+		}
+
+		public synchronized long size() {
+			return map.size();
+		}
+
+		public synchronized void clear() {
+			map.clear();
+		}
+
+		public synchronized boolean contain(Object key) {
+			return map.containsKey(key);
+		}
+
+		public synchronized Collection keySet() {
+			return map.keySet();
+		}
+	}
+
+	public void testHitDoesNotReadL2() {
+		MapCache l2 = new MapCache();
+		l2.put("a", "1");
+		NearCache cache = new NearCache(l2, 16, 0);
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertEquals(1, l2.gets);
+		Assert.assertEquals(1, cache.getL1Size());
+	}
+
+	public void testPutAndRemoveInvalidate() {
+		MapCache l2 = new MapCache();
+		NearCache cache = new NearCache(l2, 16, 0);
+		cache.put("a", "1");
+		Assert.assertEquals("1", cache.get("a"));
+		cache.put("a", "2");
+		Assert.assertEquals(0, cache.getL1Size());
+		Assert.assertEquals("2", cache.get("a"));
+		cache.remove("a");
+		Assert.assertNull(cache.get("a"));
+		Assert.assertNull(l2.get("a"));
+	}
+
+	public void testPutDuringLoadIsNotHidden() {
+		MapCache l2 = new MapCache();
+		l2.put("a", "old");
+		final NearCache cache = new NearCache(l2, 16, 0);
+		// the L2 returns "old" after the put of "new" has been written through
+		l2.duringGet = new Runnable() {
+			public void run() {
+				cache.put("a", "new");
+			}
+		};
+		Assert.assertEquals("old", cache.get("a"));
+		// the stamp changed during the load, "old" is not kept in the L1
+		Assert.assertEquals(0, cache.getL1Size());
+		Assert.assertEquals("new", cache.get("a"));
+	}
+
+	public void testRemoveDuringLoadIsNotHidden() {
+		MapCache l2 = new MapCache();
+		l2.put("a", "old");
+		final NearCache cache = new NearCache(l2, 16, 0);
+		l2.duringGet = new Runnable() {
+			public void run() {
+				cache.remove("a");
+			}
+		};
+		cache.get("a");
+		Assert.assertNull(cache.get("a"));
+	}
+
+	public void testUnrelatedRemoveDuringLoadKeepsL1Entry() {
+		MapCache l2 = new MapCache();
+		l2.put("a", "1");
+		final NearCache cache = new NearCache(l2, 16, 0);
+		Assert.assertTrue(NearCache.stripe("a") != NearCache.stripe("b"));
+		l2.duringGet = new Runnable() {
+			public void run() {
+				cache.remove("b");
+			}
+		};
+		Assert.assertEquals("1", cache.get("a"));
+		// "b" does not share the stripe of "a", the load is kept
+		Assert.assertEquals(1, cache.getL1Size());
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertEquals(1, l2.gets);
+	}
+
+	public void testContainSkipsExpiredL1Entry() throws Exception {
+		MapCache l2 = new MapCache();
+		l2.put("a", "1");
+		NearCache cache = new NearCache(l2, 16, 20);
+		cache.get("a");
+		Assert.assertTrue(cache.contain("a"));
+		// removed from the L2 not through the NearCache
+		l2.remove("a");
+		Thread.sleep(50);
+		Assert.assertFalse(cache.contain("a"));
+	}
+
+	public void testTtlExpiresL1Entry() throws Exception {
+		MapCache l2 = new MapCache();
+		l2.put("a", "1");
+		NearCache cache = new NearCache(l2, 16, 20);
+		Assert.assertEquals("1", cache.get("a"));
+		// a change not made through the NearCache
+		l2.put("a", "2");
+		Assert.assertEquals("1", cache.get("a"));
+		Thread.sleep(50);
+		Assert.assertEquals("2", cache.get("a"));
+	}
+
+	public void testL1IsBounded() {
+		MapCache l2 = new MapCache();
+		for (int i = 0; i < 100; i++)
+			l2.put(new Integer(i), "v" + i);
+		NearCache cache = new NearCache(l2, 8, 0);
+		for (int i = 0; i < 100; i++)
+			Assert.assertEquals("v" + i, cache.get(new Integer(i)));
+		Assert.assertTrue(cache.getL1Size() <= 8);
+		Assert.assertEquals(100, cache.size());
+	}
+
+	public void testClear() {
+		MapCache l2 = new MapCache();
+		NearCache cache = new NearCache(l2, 16, 0);
+		cache.put("a", "1");
+		cache.get("a");
+		cache.clear();
+		Assert.assertEquals(0, cache.getL1Size());
+		Assert.assertNull(cache.get("a"));
+	}
+
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * the keys known to have no data (a missing model, a empty query block), so
+ * the lookups of ids that do not exist do not hit the database every time.
+ *
+ * a tombstone lives at most ttl milliseconds, and is removed when the data of
+ * its key is cached or removed. the tombstones are bounded by maxSize, when
+ * it is full some are evicted by one thread, the others do not wait for it.
+ *
+ * a lookup takes stamp(dataKey) before it reads the database and passes it
+ * to put: if the data was changed meanwhile, the tombstone is not put. the
+ * stamps are striped by the hash of the dataKey, so the removal of a key
+ * does not drop the tombstones of unrelated keys.
+ *
+ */
+public class NegativeCache {
+
+	private final ConcurrentHashMap<String, Tombstone> tombstones;
+
+	private final int maxSize;
+
+	private final long ttl;
+
+	// a power of two
+	static final int STRIPES = 64;
+
+	// incremented by every removal of a dataKey of the stripe, see put()
+	private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong puts = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maxSize
+	 *            the max tombstones
+	 * @param ttl
+	 *            the max milliseconds of a tombstone
+	 */
+	public NegativeCache(int maxSize, long ttl) {
+		this.maxSize = maxSize;
+		this.ttl = ttl;
+		this.tombstones = new ConcurrentHashMap<String, Tombstone>(maxSize * 4 / 3 + 1);
+	}
+
+	public NegativeCache(NegativeCacheConf negativeCacheConf) {
+		this(negativeCacheConf.getSize(), negativeCacheConf.getTtl());
+	}
+
+	/**
+	 * @return true if the key has a live tombstone
+	 */
+	public boolean contains(String key) {
+		Tombstone t = tombstones.get(key);
+		if (t == null)
+			return false;
+		if (System.currentTimeMillis() >= t.expires) {
+			tombstones.remove(key, t);
+			return false;
+		}
+		hits.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * @param dataKey
+	 *            the dataKey of the lookup
+	 */
+	public long stamp(String dataKey) {
+		return invalidations.get(stripe(dataKey));
+	}
+
+	static int stripe(String dataKey) {
+		int h = dataKey.hashCode();
+		h ^= (h >>> 16);
+		return h & (STRIPES - 1);
+	}
+
+	/**
+	 * @param stamp
+	 *            the stamp(dataKey) before the data was looked up
+	 */
+	public void put(String key, String dataKey, long stamp) {
+		Tombstone t = new Tombstone(dataKey, System.currentTimeMillis() + ttl);
+		tombstones.put(key, t);
+		// a removal ran while the data was looked up, the data may exist now
+		if (invalidations.get(stripe(dataKey)) != stamp) {
+			tombstones.remove(key, t);
+			return;
+		}
+		puts.incrementAndGet();
+		if (tombstones.size() > maxSize)
+			evict();
+	}
+
+	// the order of the map is random, so is the eviction
+	private void evict() {
+		if (!evicting.compareAndSet(false, true))
+			return;
+		try {
+			long now = System.currentTimeMillis();
+			int target = maxSize - maxSize / 4;
+			Iterator<Tombstone> iter = tombstones.values().iterator();
+			while (tombstones.size() > target && iter.hasNext()) {
+				Tombstone t = iter.next();
+				if (t.expires <= now || tombstones.size() > maxSize) {
+					iter.remove();
+					evictions.incrementAndGet();
+				}
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	public void remove(String key, String dataKey) {
+		// increment before the tombstone is removed, see put()
+		invalidations.incrementAndGet(stripe(dataKey));
+		tombstones.remove(key);
+	}
+
+	/**
+	 * remove the tombstones of the dataKey of all types
+	 */
+	public void removeDataKey(String dataKey) {
+		invalidations.incrementAndGet(stripe(dataKey));
+		if (tombstones.isEmpty())
+			return;
+		for (Iterator<Map.Entry<String, Tombstone>> iter = tombstones.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<String, Tombstone> e = iter.next();
+			if (dataKey.equals(e.getValue().dataKey))
+				iter.remove();
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < STRIPES; i++)
+			invalidations.incrementAndGet(i);
+		tombstones.clear();
+	}
+
+	public int size() {
+		return tombstones.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	/**
+	 * @return the lookups answered by a tombstone
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getPuts() {
+		return puts.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public String toString() {
+		return "NegativeCache size=" + tombstones.size() + "/" + maxSize + " ttl=" + ttl + " hits=" + hits + " puts=" + puts + " evictions="
+				+ evictions;
+	}
+
+	static class Tombstone {
+		final String dataKey;
+
+		final long expires;
+
+		Tombstone(String dataKey, long expires) {
+			this.dataKey = dataKey;
+			this.expires = expires;
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+/**
+ * the tombstones of the missing models of ModelCacheManager (a
+ * NegativeCache), defined in container.xml:
+ *
+ * <pre>
+ * &lt;component name=&quot;negativeCacheConf&quot; class=&quot;com.jdon.cache.NegativeCacheConf&quot;&gt;
+ *   &lt;constructor value=&quot;10000&quot;/&gt; &lt;!-- max tombstones --&gt;
+ *   &lt;constructor value=&quot;5000&quot;/&gt; &lt;!-- max milliseconds of a tombstone --&gt;
+ * &lt;/component&gt;
+ * </pre>
+ *
+ * without it a missing model is looked up every time.
+ *
+ * @see NegativeCache
+ */
+public class NegativeCacheConf {
+
+	private final int size;
+
+	private final long ttl;
+
+	public NegativeCacheConf(String size, String ttl) {
+		this.size = Integer.parseInt(size);
+		this.ttl = Long.parseLong(ttl);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+}
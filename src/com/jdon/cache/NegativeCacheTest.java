@@ -0,0 +1,158 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class NegativeCacheTest extends TestCase {
+
+	public void testTombstone() throws Exception {
+		NegativeCache cache = new NegativeCache(16, 30);
+		cache.put("Account1", "1", cache.stamp("1"));
+		Assert.assertTrue(cache.contains("Account1"));
+		Thread.sleep(60);
+		Assert.assertFalse(cache.contains("Account1"));
+	}
+
+	public void testRemoveDuringLookupDropsTombstone() {
+		NegativeCache cache = new NegativeCache(16, 5000);
+		long stamp = cache.stamp("1");
+		// the model is saved while the lookup reads the database
+		cache.remove("Account1", "1");
+		cache.put("Account1", "1", stamp);
+		Assert.assertFalse(cache.contains("Account1"));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	public void testRemoveDataKeyDuringLookupDropsTombstone() {
+		NegativeCache cache = new NegativeCache(16, 5000);
+		long stamp = cache.stamp("1");
+		cache.removeDataKey("1");
+		cache.put("Account1", "1", stamp);
+		Assert.assertFalse(cache.contains("Account1"));
+	}
+
+	public void testRemoveDataKey() {
+		NegativeCache cache = new NegativeCache(16, 5000);
+		cache.put("Account1", "1", cache.stamp("1"));
+		cache.put("Order1", "1", cache.stamp("1"));
+		cache.put("Account2", "2", cache.stamp("2"));
+		cache.removeDataKey("1");
+		Assert.assertFalse(cache.contains("Account1"));
+		Assert.assertFalse(cache.contains("Order1"));
+		Assert.assertTrue(cache.contains("Account2"));
+	}
+
+	public void testTombstoneSurvivesUnrelatedRemove() {
+		NegativeCache cache = new NegativeCache(16, 5000);
+		Assert.assertTrue(NegativeCache.stripe("1") != NegativeCache.stripe("2"));
+		long stamp = cache.stamp("1");
+		// another model is loaded and saved while the lookup reads the database
+		cache.remove("Account2", "2");
+		cache.removeDataKey("2");
+		cache.put("Account1", "1", stamp);
+		Assert.assertTrue(cache.contains("Account1"));
+	}
+
+	/**
+	 * the lookups of missing models run while other models are loaded: the
+	 * removes of the loaded keys do not drop the tombstones.
+	 */
+	public void testTombstonesSurviveConcurrentUnrelatedRemoves() throws Exception {
+		final NegativeCache cache = new NegativeCache(4096, 60000);
+		final int rounds = 2000;
+		final AtomicBoolean done = new AtomicBoolean();
+		Thread loads = new Thread() {
+			public void run() {
+				int i = 0;
+				while (!done.get()) {
+					// a key that is never missing, in the stripe of none of them
+					cache.remove("Order" + i, "loaded");
+					i++;
+				}
+			}
+		};
+		loads.setDaemon(true);
+		loads.start();
+		int kept = 0;
+		try {
+			for (int i = 0; i < rounds; i++) {
+				String dataKey = String.valueOf(i);
+				if (NegativeCache.stripe(dataKey) == NegativeCache.stripe("loaded"))
+					continue;
+				long stamp = cache.stamp(dataKey);
+				Thread.yield();
+				cache.put("Account" + i, dataKey, stamp);
+				Assert.assertTrue(cache.contains("Account" + i));
+				kept++;
+			}
+		} finally {
+			done.set(true);
+			loads.join();
+		}
+		Assert.assertTrue(kept > 0);
+	}
+
+	/**
+	 * a lookup that did not find the model races with a save of it: once the
+	 * save removed the key, no tombstone of the lookup may stay.
+	 */
+	public void testNoTombstoneAfterConcurrentRemove() throws Exception {
+		final NegativeCache cache = new NegativeCache(1024, 60000);
+		final int rounds = 20000;
+		final CyclicBarrier barrier = new CyclicBarrier(2);
+		final AtomicInteger stale = new AtomicInteger();
+		final boolean[] database = new boolean[rounds];
+		Thread lookup = new Thread() {
+			public void run() {
+				try {
+					for (int i = 0; i < rounds; i++) {
+						barrier.await();
+						String key = "Account" + i;
+						long stamp = cache.stamp(String.valueOf(i));
+						boolean found;
+						synchronized (database) {
+							found = database[i];
+						}
+						if (!found)
+							cache.put(key, String.valueOf(i), stamp);
+						barrier.await();
+					}
+				} catch (Exception e) {
+				}
+			}
+		};
+		lookup.start();
+		for (int i = 0; i < rounds; i++) {
+			barrier.await();
+			synchronized (database) {
+				database[i] = true;
+			}
+			cache.remove("Account" + i, String.valueOf(i));
+			barrier.await();
+			if (cache.contains("Account" + i))
+				stale.incrementAndGet();
+		}
+		lookup.join();
+		Assert.assertEquals(0, stale.get());
+	}
+
+}
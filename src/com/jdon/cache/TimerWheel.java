@@ -0,0 +1,194 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.jdon.util.Debug;
+
+/**
+ * a hashed timer wheel that expires cache entries in the background.
+ *
+ * the wheel has a ring of buckets, every bucket is tickMillis long; a
+ * timeout is added to the bucket of its deadline in O(1), with the rounds
+ * of the ring to wait. one daemon thread visits a bucket every tick and
+ * expires its due timeouts, so a entry is removed at most one tick after
+ * its deadline without scanning the cache. a cancelled timeout is dropped
+ * when its bucket is visited, until then it should not hold its entry, see
+ * Timeout.cancel().
+ *
+ * the default instance is shared by all caches of the classloader, its
+ * thread is started by the first schedule() and stopped by stop(), the
+ * CacheManager stops it with the container. a schedule() after stop()
+ * starts it again, the timeouts left in the buckets are kept.
+ *
+ */
+public class TimerWheel {
+	public final static String module = TimerWheel.class.getName();
+
+	public final static long DEFAULT_TICK_MILLIS = 1000;
+
+	public final static int DEFAULT_BUCKETS = 512;
+
+	private final static TimerWheel instance = new TimerWheel(DEFAULT_TICK_MILLIS, DEFAULT_BUCKETS);
+
+	private final long tickMillis;
+
+	private final ConcurrentLinkedQueue<Timeout>[] buckets;
+
+	private final long startTime;
+
+	private volatile Thread worker;
+
+	// the tick the worker visits or visited last, it is set before the visit
+	private volatile long currentTick = -1;
+
+	public static TimerWheel getInstance() {
+		return instance;
+	}
+
+	public TimerWheel(long tickMillis, int buckets) {
+		this.tickMillis = tickMillis;
+		this.buckets = new ConcurrentLinkedQueue[buckets];
+		for (int i = 0; i < buckets; i++) {
+			this.buckets[i] = new ConcurrentLinkedQueue<Timeout>();
+		}
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * a expiring task, expire() is called by the wheel thread after the
+	 * deadline unless it is cancelled before. expire() must be short.
+	 */
+	public static abstract class Timeout {
+		volatile boolean cancelled;
+
+		long deadline;
+
+		long rounds;
+
+		public abstract void expire();
+
+		/**
+		 * the timeout stays in its bucket until the bucket is visited, a
+		 * subclass should release here the references to its entry.
+		 */
+		public void cancel() {
+			cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	/**
+	 * @param deadline
+	 *            the absolute time in milliseconds
+	 */
+	public void schedule(Timeout timeout, long deadline) {
+		if (worker == null)
+			startWorker();
+		long tick = Math.max(currentTick + 1, (deadline - startTime + tickMillis - 1) / tickMillis);
+		timeout.deadline = deadline;
+		// the rounds are counted from tick 0, see expireBucket
+		timeout.rounds = tick / buckets.length;
+		ConcurrentLinkedQueue<Timeout> bucket = buckets[(int) (tick % buckets.length)];
+		bucket.add(timeout);
+		// the worker began to visit the bucket before the add, it may not
+		// have seen the timeout: move it to a later tick, unless the worker
+		// took it already
+		if (currentTick >= tick && bucket.remove(timeout))
+			schedule(timeout, deadline);
+	}
+
+	private synchronized void startWorker() {
+		if (worker != null)
+			return;
+		// the worker begins with the first tick a schedule() can use
+		final long firstTick = (System.currentTimeMillis() - startTime) / tickMillis;
+		currentTick = firstTick - 1;
+		Thread thread = new Thread("jdon-cache-expiry") {
+			public void run() {
+				runWheel(firstTick);
+			}
+		};
+		thread.setDaemon(true);
+		// the thread does not keep the classloader of a web application
+		thread.setContextClassLoader(null);
+		worker = thread;
+		thread.start();
+	}
+
+	/**
+	 * stop the thread of the wheel, the timeouts are not expired until the
+	 * next schedule() starts it again.
+	 */
+	public synchronized void stop() {
+		Thread thread = worker;
+		if (thread == null)
+			return;
+		worker = null;
+		thread.interrupt();
+	}
+
+	public boolean isRunning() {
+		return worker != null;
+	}
+
+	private void runWheel(long tick) {
+		while (worker == Thread.currentThread()) {
+			try {
+				long next = startTime + (tick + 1) * tickMillis;
+				long wait = next - System.currentTimeMillis();
+				if (wait > 0)
+					Thread.sleep(wait);
+				long now = System.currentTimeMillis();
+				// catch up the ticks missed by a long gc pause
+				long current = (now - startTime) / tickMillis;
+				for (; tick <= current; tick++) {
+					currentTick = tick;
+					expireBucket(tick, now);
+				}
+			} catch (InterruptedException e) {
+				// stopped, or a stray interrupt if it is still the worker
+				continue;
+			} catch (Throwable e) {
+				Debug.logError("[JdonFramework] cache expiry error: " + e, module);
+			}
+		}
+	}
+
+	private void expireBucket(long tick, long now) {
+		long round = tick / buckets.length;
+		Iterator<Timeout> iter = buckets[(int) (tick % buckets.length)].iterator();
+		while (iter.hasNext()) {
+			Timeout timeout = iter.next();
+			if (timeout.cancelled) {
+				iter.remove();
+			} else if (timeout.rounds <= round && timeout.deadline <= now) {
+				iter.remove();
+				timeout.expire();
+			}
+		}
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TimerWheelTest extends TestCase {
+
+	static class CountingTimeout extends TimerWheel.Timeout {
+		final CountDownLatch latch;
+		volatile long expiredAt;
+
+		CountingTimeout(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		public void expire() {
+			expiredAt = System.currentTimeMillis();
+			latch.countDown();
+		}
+	}
+
+	public void testExpiresAfterDeadline() throws Exception {
+		TimerWheel wheel = new TimerWheel(10, 64);
+		CountDownLatch latch = new CountDownLatch(1);
+		CountingTimeout timeout = new CountingTimeout(latch);
+		long deadline = System.currentTimeMillis() + 50;
+		wheel.schedule(timeout, deadline);
+		Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+		Assert.assertTrue(timeout.expiredAt >= deadline);
+	}
+
+	public void testCancelledIsNotExpired() throws Exception {
+		TimerWheel wheel = new TimerWheel(10, 64);
+		CountDownLatch latch = new CountDownLatch(1);
+		CountingTimeout timeout = new CountingTimeout(latch);
+		wheel.schedule(timeout, System.currentTimeMillis() + 30);
+		timeout.cancel();
+		Assert.assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+	}
+
+	public void testStopAndRestart() throws Exception {
+		TimerWheel wheel = new TimerWheel(10, 64);
+		CountDownLatch first = new CountDownLatch(1);
+		wheel.schedule(new CountingTimeout(first), System.currentTimeMillis() + 500);
+		Assert.assertTrue(wheel.isRunning());
+		wheel.stop();
+		Assert.assertFalse(wheel.isRunning());
+		Assert.assertFalse(first.await(700, TimeUnit.MILLISECONDS));
+		// a schedule starts it again, the timeout left in the wheel expires too
+		CountDownLatch second = new CountDownLatch(1);
+		wheel.schedule(new CountingTimeout(second), System.currentTimeMillis() + 30);
+		Assert.assertTrue(second.await(2, TimeUnit.SECONDS));
+		Assert.assertTrue(first.await(2, TimeUnit.SECONDS));
+		wheel.stop();
+	}
+
+	public void testWorkerHasNoContextClassLoader() throws Exception {
+		TimerWheel wheel = new TimerWheel(10, 64);
+		final ClassLoader[] loader = new ClassLoader[] { getClass().getClassLoader() };
+		final CountDownLatch latch = new CountDownLatch(1);
+		wheel.schedule(new TimerWheel.Timeout() {
+			public void expire() {
+				loader[0] = Thread.currentThread().getContextClassLoader();
+				latch.countDown();
+			}
+		}, System.currentTimeMillis() + 20);
+		Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+		Assert.assertNull(loader[0]);
+		wheel.stop();
+	}
+
+	/**
+	 * timeouts due now are scheduled while the worker visits the buckets, a
+	 * timeout added to the bucket being visited must not wait a whole
+	 * revolution of the wheel (here 5 seconds).
+	 */
+	public void testScheduleDuringVisitIsNotLate() throws Exception {
+		final TimerWheel wheel = new TimerWheel(1, 5000);
+		final int count = 200000;
+		final CountDownLatch latch = new CountDownLatch(count);
+		final AtomicInteger scheduled = new AtomicInteger();
+		Thread[] threads = new Thread[2];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					while (scheduled.incrementAndGet() <= count) {
+						wheel.schedule(new CountingTimeout(latch), System.currentTimeMillis());
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join();
+		Assert.assertTrue("late timeouts: " + latch.getCount(), latch.await(1, TimeUnit.SECONDS));
+	}
+
+}
@@ -29,10 +29,12 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.jdon.util.ConcurrentLinkedList;
 import com.jdon.util.Debug;
 import com.jdon.util.PropsUtil;
+import com.jdon.util.StripedCounter;
 import com.jdon.util.UtilValidate;
 
 /**
@@ -43,8 +45,12 @@ import com.jdon.util.UtilValidate;
  * <li>If limited, removes elements with the LRU (Least Recently Used)
  * algorithm
  * <li>Keeps track of when each element was loaded into the cache
- * <li>Using the expireTime can report whether a given element has expired
- * <li>Counts misses and hits
+ * <li>Using the expireTime can report whether a given element has expired,
+ * the expired elements are removed in the background by the TimerWheel
+ * <li>A element can have its own time to live, see put(key, value, ttl)
+ * <li>Counts misses, hits and evictions without contention, see StripedCounter
+ * <li>If maxWeight is set, removes LRU elements when the total estimated bytes
+ * of the elements exceeds it, see Weigher
  * </ul>
  * 
  */
@@ -61,10 +67,16 @@ public class UtilCache {
 	public final Map cacheLineTable = new ConcurrentHashMap();
 
 	/** A count of the number of cache hits */
-	protected volatile long hitCount = 0;
+	protected final StripedCounter hitCount = new StripedCounter();
 
 	/** A count of the number of cache misses */
-	protected volatile long missCount = 0;
+	protected final StripedCounter missCount = new StripedCounter();
+
+	/** A count of the elements removed by maxSize, maxWeight or expiry */
+	protected final StripedCounter evictionCount = new StripedCounter();
+
+	/** the evictions are reported to it too */
+	protected volatile CacheStats cacheStats;
 
 	/**
 	 * The maximum number of elements in the cache. If set to 0, there will be
@@ -72,6 +84,21 @@ public class UtilCache {
 	 */
 	protected volatile long maxSize = 0;
 
+	/**
+	 * The maximum estimated bytes of the elements in the cache. If set to 0,
+	 * there will be no limit on the weight.
+	 */
+	protected volatile long maxWeight = 0;
+
+	/** estimates the bytes of every element */
+	protected volatile Weigher weigher = new DefaultWeigher();
+
+	/** The estimated bytes of all elements */
+	protected final AtomicLong weight = new AtomicLong();
+
+	/** removes the expired elements in the background */
+	protected volatile TimerWheel timerWheel = TimerWheel.getInstance();
+
 	/**
 	 * Specifies the amount of time since initial loading before an element will
 	 * be reported as expired. If set to 0, elements will never expire.
@@ -117,6 +144,23 @@ public class UtilCache {
 		} catch (Exception e) {
 		}
 
+		try {
+			String value = propsUtil.getProperty("cache." + cacheName + ".maxWeight");
+			if (UtilValidate.isNotEmpty(value)) {
+				maxWeight = Long.parseLong(value.trim());
+			}
+		} catch (Exception e) {
+		}
+
+		try {
+			String value = propsUtil.getProperty("cache." + cacheName + ".weigher");
+			if (UtilValidate.isNotEmpty(value)) {
+				weigher = (Weigher) Class.forName(value.trim()).newInstance();
+			}
+		} catch (Exception e) {
+			Debug.logError("[JdonFramework] can not create the weigher of cache." + cacheName + ": " + e, module);
+		}
+
 		try {
 			String value = propsUtil.getProperty("cache." + cacheName + ".expireTime");
 			if (UtilValidate.isNotEmpty(value)) {
@@ -147,11 +191,22 @@ public class UtilCache {
 	 *            The value of the element
 	 */
 	public void put(Object key, Object value) {
+		put(key, value, 0);
+	}
+
+	/**
+	 * Puts the element with its own time to live
+	 * 
+	 * @param ttl
+	 *            the milliseconds the element lives, 0 for the expireTime of
+	 *            the cache
+	 */
+	public void put(Object key, Object value, long ttl) {
 		if ((key == null) || (value == null))
 			return;
 
 		try {
-			if (maxSize > 0) {
+			if (maxSize > 0 || maxWeight > 0) {
 				// when maxSize is changed, the setter will take care of filling
 				// the
 				// LRU list
@@ -162,21 +217,131 @@ public class UtilCache {
 				}
 			}
 
-			if (expireTime > 0) {
-				cacheLineTable.put(key, new CacheLine(value, useSoftReference, System.currentTimeMillis()));
+			CacheLine line;
+			long deadline = 0;
+			if (ttl > 0) {
+				line = new CacheLine(value, useSoftReference);
+				deadline = System.currentTimeMillis() + ttl;
+				line.setExpireAt(deadline);
+			} else if (expireTime > 0) {
+				line = new CacheLine(value, useSoftReference, System.currentTimeMillis());
+				deadline = line.getLoadTime() + expireTime;
 			} else {
-				cacheLineTable.put(key, new CacheLine(value, useSoftReference));
+				line = new CacheLine(value, useSoftReference);
+			}
+			if (maxWeight > 0) {
+				line.setWeight(weigh(key, value));
+				weight.addAndGet(line.getWeight());
 			}
+			CacheLine old = (CacheLine) cacheLineTable.put(key, line);
+			if (old != null) {
+				weight.addAndGet(-old.getWeight());
+				old.cancelExpiry();
+			}
+			if (deadline > 0)
+				scheduleExpiry(key, line, deadline);
 			if (maxSize > 0 && cacheLineTable.size() > maxSize) {
 				Object lastKey = keyLRUList.getLast();
-				removeObject(lastKey);
+				evict(lastKey);
 			}
+			if (maxWeight > 0)
+				evictByWeight();
 		} catch (Exception e) {
 			Debug.logError(e);
 		} finally {
 		}
-		Debug.logVerbose("[JdonFramework]cache now size = " + keyLRUList.size() + " maxSize =" + maxSize + " this Cache id:"
-				+ this.hashCode(), module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]cache now size = " + keyLRUList.size() + " maxSize =" + maxSize + " this Cache id:"
+					+ this.hashCode(), module);
+	}
+
+	private void scheduleExpiry(Object key, CacheLine line, long deadline) {
+		LineExpiry expiry = new LineExpiry(this, key, line);
+		line.setExpiry(expiry);
+		timerWheel.schedule(expiry, deadline);
+	}
+
+	/**
+	 * called by the TimerWheel, the line is removed only if it is still the
+	 * element of the key.
+	 */
+	void expire(Object key, CacheLine line) {
+		if (cacheLineTable.get(key) != line)
+			return;
+		if (hasExpired(line)) {
+			if (((ConcurrentHashMap) cacheLineTable).remove(key, line)) {
+				weight.addAndGet(-line.getWeight());
+				if (maxSize > 0 || maxWeight > 0)
+					keyLRUList.remove(key);
+				evicted();
+			}
+		} else if (line.getExpireAt() <= 0 && expireTime > 0) {
+			// the expireTime was made longer
+			scheduleExpiry(key, line, line.getLoadTime() + expireTime);
+		}
+	}
+
+	static class LineExpiry extends TimerWheel.Timeout {
+		// null when cancelled, the timeout may stay in the wheel for a
+		// revolution and must not keep the element
+		private volatile UtilCache cache;
+
+		private volatile Object key;
+
+		private volatile CacheLine line;
+
+		LineExpiry(UtilCache cache, Object key, CacheLine line) {
+			this.cache = cache;
+			this.key = key;
+			this.line = line;
+		}
+
+		public void expire() {
+			UtilCache cache = this.cache;
+			Object key = this.key;
+			CacheLine line = this.line;
+			if (cache != null && key != null && line != null)
+				cache.expire(key, line);
+		}
+
+		public void cancel() {
+			super.cancel();
+			cache = null;
+			key = null;
+			line = null;
+		}
+	}
+
+	// a weigher that fails does not keep the element out of the cache
+	private long weigh(Object key, Object value) {
+		try {
+			return weigher.weigh(key, value);
+		} catch (RuntimeException e) {
+			Debug.logWarning("[JdonFramework] can not weigh the cache element " + key + ": " + e, module);
+			return 0;
+		}
+	}
+
+	// the newest element is kept even if it is heavier than maxWeight
+	private void evictByWeight() {
+		while (weight.get() > maxWeight && cacheLineTable.size() > 1) {
+			Object lastKey = keyLRUList.getLast();
+			if (lastKey == null)
+				break;
+			evict(lastKey);
+		}
+	}
+
+	private void evict(Object key) {
+		if (removeObject(key))
+			evicted();
+	}
+
+	private void evicted() {
+		evictionCount.increment();
+		CacheStats stats = cacheStats;
+		if (stats != null)
+			stats.evicted();
 	}
 
 	/**
@@ -192,26 +357,24 @@ public class UtilCache {
 	public Object get(final Object key) {
 		if (key == null)
 			return null;
-		if (!cacheLineTable.containsKey(key))
-			return null;
 		CacheLine line = (CacheLine) cacheLineTable.get(key);
 
 		if (hasExpired(line)) {
-			removeObject(key);
+			evict(key);
 			line = null;
 		}
 
 		if (line == null) {
-			missCount++;
+			missCount.increment();
 			return null;
 		}
 
-		hitCount++;
+		hitCount.increment();
 		// double hitPercent = 100*(double)hitCount/(hitCount + missCount);
 		// Debug.logVerbose("[JdonFramework]cache hit percent: " +
 		// percentFormat.format(hitPercent)+"%", module);
 
-		if (maxSize > 0) {
+		if (maxSize > 0 || maxWeight > 0) {
 			keyLRUList.moveFirst(key);
 		}
 
@@ -230,17 +393,17 @@ public class UtilCache {
 		removeObject(key);
 	}
 
-	private void removeObject(Object key) {
-		if (key == null) {
-			missCount++;
-		}
+	private boolean removeObject(Object key) {
+		if (key == null)
+			return false;
 		CacheLine line = (CacheLine) cacheLineTable.remove(key);
-		if (line != null) {
-			if (maxSize > 0)
-				keyLRUList.remove(key);
-		} else {
-			missCount++;
-		}
+		if (line == null)
+			return false;
+		line.cancelExpiry();
+		weight.addAndGet(-line.getWeight());
+		if (maxSize > 0 || maxWeight > 0)
+			keyLRUList.remove(key);
+		return true;
 	}
 
 	public Set keySet() {
@@ -253,8 +416,13 @@ public class UtilCache {
 
 	/** Removes all elements from this cache */
 	public void clear() {
+		Iterator lines = cacheLineTable.values().iterator();
+		while (lines.hasNext()) {
+			((CacheLine) lines.next()).cancelExpiry();
+		}
 		cacheLineTable.clear();
 		keyLRUList.clear();
+		weight.set(0);
 		clearCounters();
 	}
 
@@ -269,7 +437,7 @@ public class UtilCache {
 	 * @return The number of successful cache hits
 	 */
 	public long getHitCount() {
-		return hitCount;
+		return hitCount.sum();
 	}
 
 	/**
@@ -278,15 +446,31 @@ public class UtilCache {
 	 * @return The number of cache misses
 	 */
 	public long getMissCount() {
-		return missCount;
+		return missCount.sum();
+	}
+
+	/**
+	 * Returns the number of elements removed by maxSize, maxWeight or expiry
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
 	}
 
 	/**
-	 * Clears the hit and miss counters
+	 * Clears the hit, miss and eviction counters
 	 */
 	public void clearCounters() {
-		hitCount = 0;
-		missCount = 0;
+		hitCount.reset();
+		missCount.reset();
+		evictionCount.reset();
+	}
+
+	public CacheStats getCacheStats() {
+		return cacheStats;
+	}
+
+	public void setCacheStats(CacheStats cacheStats) {
+		this.cacheStats = cacheStats;
 	}
 
 	/**
@@ -297,10 +481,11 @@ public class UtilCache {
 	 *            The maximum number of elements in the cache
 	 */
 	public void setMaxSize(long maxSize) {
-		// if the new maxSize is <= 0, clear keyLRUList
+		// if the new maxSize is <= 0, clear keyLRUList unless maxWeight uses it
 		if (maxSize <= 0) {
-			keyLRUList.clear();
-		} else if (maxSize > 0 && this.maxSize <= 0) {
+			if (maxWeight <= 0)
+				keyLRUList.clear();
+		} else if (maxSize > 0 && this.maxSize <= 0 && maxWeight <= 0) {
 			// if the new maxSize > 0 and the old is <= 0, fill in LRU list -
 			// order will be meaningless for now
 			Iterator keys = cacheLineTable.keySet().iterator();
@@ -316,7 +501,7 @@ public class UtilCache {
 			while (cacheLineTable.size() > maxSize) {
 				Object lastKey = keyLRUList.getLast();
 
-				removeObject(lastKey);
+				evict(lastKey);
 			}
 		}
 
@@ -332,6 +517,59 @@ public class UtilCache {
 		return maxSize;
 	}
 
+	/**
+	 * Sets the maximum estimated bytes of the elements in the cache. If 0,
+	 * there is no maximum, and the elements are not weighed.
+	 */
+	public void setMaxWeight(long maxWeight) {
+		if (maxWeight > 0 && this.maxSize <= 0 && this.maxWeight <= 0) {
+			// fill in LRU list, order will be meaningless for now
+			Iterator keys = cacheLineTable.keySet().iterator();
+			while (keys.hasNext()) {
+				keyLRUList.add(keys.next());
+			}
+		}
+		if (maxWeight > 0 && this.maxWeight <= 0) {
+			// the elements put without a maxWeight weigh nothing yet
+			Iterator entries = cacheLineTable.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry e = (Map.Entry) entries.next();
+				CacheLine line = (CacheLine) e.getValue();
+				Object value = line.getValue();
+				if (line.getWeight() == 0 && value != null) {
+					line.setWeight(weigh(e.getKey(), value));
+					weight.addAndGet(line.getWeight());
+				}
+			}
+		}
+		this.maxWeight = maxWeight;
+		if (maxWeight > 0)
+			evictByWeight();
+	}
+
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Returns the estimated bytes of the elements in the cache
+	 */
+	public long getWeight() {
+		return weight.get();
+	}
+
+	public Weigher getWeigher() {
+		return weigher;
+	}
+
+	/**
+	 * Sets the weigher of the new elements, the weight of the elements in
+	 * the cache is not changed.
+	 */
+	public void setWeigher(Weigher weigher) {
+		this.weigher = weigher;
+	}
+
 	/**
 	 * Sets the expire time for the cache elements. If 0, elements never expire.
 	 * 
@@ -403,7 +641,7 @@ public class UtilCache {
 		CacheLine line = (CacheLine) cacheLineTable.get(key);
 
 		if (hasExpired(line)) {
-			removeObject(key);
+			evict(key);
 			line = null;
 		}
 		if (line != null) {
@@ -447,6 +685,9 @@ public class UtilCache {
 			return true;
 		}
 
+		if (line.getExpireAt() > 0)
+			return line.getExpireAt() < System.currentTimeMillis();
+
 		if (expireTime <= 0)
 			return false;
 
@@ -459,9 +700,35 @@ public class UtilCache {
 		}
 	}
 
+	/**
+	 * @return the absolute time the element of the key expires, 0 if it is
+	 *         not cached or does not expire
+	 */
+	public long getExpireAt(Object key) {
+		if (key == null)
+			return 0;
+		CacheLine line = (CacheLine) cacheLineTable.get(key);
+		if (line == null)
+			return 0;
+		if (line.getExpireAt() > 0)
+			return line.getExpireAt();
+		if (expireTime > 0 && line.getLoadTime() > 0)
+			return line.getLoadTime() + expireTime;
+		return 0;
+	}
+
+	public TimerWheel getTimerWheel() {
+		return timerWheel;
+	}
+
+	public void setTimerWheel(TimerWheel timerWheel) {
+		this.timerWheel = timerWheel;
+	}
+
 	/**
 	 * Clears all expired cache entries; also clear any cache entries where the
-	 * SoftReference in the CacheLine object has been cleared by the gc
+	 * SoftReference in the CacheLine object has been cleared by the gc.
+	 * the TimerWheel removes the expired entries without it.
 	 */
 	public void clearExpired() {
 		Iterator keys = cacheLineTable.keySet().iterator();
@@ -470,7 +737,7 @@ public class UtilCache {
 			Object key = keys.next();
 
 			if (hasExpired(key)) {
-				removeObject(key);
+				evict(key);
 			}
 		}
 	}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractCollection;
+import java.util.Date;
+import java.util.Iterator;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.util.ObjectSizeEstimator;
+
+public class UtilCacheTest extends TestCase {
+
+	// a lazy collection of a persistence framework
+	static class LazyCollection extends AbstractCollection {
+		boolean touched;
+
+		public int size() {
+			touched = true;
+			throw new IllegalStateException("not loaded");
+		}
+
+		public Iterator iterator() {
+			touched = true;
+			throw new IllegalStateException("not loaded");
+		}
+	}
+
+	static class Article {
+		String title = "title";
+		Date created = new Date();
+		LazyCollection comments = new LazyCollection();
+	}
+
+	static class CountingWeigher implements Weigher {
+		int calls;
+
+		public long weigh(Object key, Object value) {
+			calls++;
+			return 100;
+		}
+	}
+
+	public void testNotWeighedWithoutMaxWeight() {
+		UtilCache cache = new UtilCache(0, 0, false);
+		CountingWeigher weigher = new CountingWeigher();
+		cache.setWeigher(weigher);
+		cache.put("a", new Article());
+		Assert.assertNotNull(cache.get("a"));
+		Assert.assertEquals(0, weigher.calls);
+		Assert.assertEquals(0, cache.getWeight());
+	}
+
+	public void testModelWithDateIsCached() {
+		UtilCache cache = new UtilCache(0, 0, false);
+		cache.setMaxWeight(1024 * 1024);
+		Article article = new Article();
+		cache.put("a", article);
+		Assert.assertSame(article, cache.get("a"));
+		Assert.assertTrue(cache.getWeight() > 0);
+		Assert.assertFalse(article.comments.touched);
+	}
+
+	public void testJdkClassesAreShallow() {
+		DefaultWeigher weigher = new DefaultWeigher();
+		Date date = new Date();
+		Assert.assertEquals(ObjectSizeEstimator.shallowSizeOf(date), weigher.sizeOf(date));
+		LazyCollection comments = new LazyCollection();
+		Assert.assertEquals(ObjectSizeEstimator.shallowSizeOf(comments), weigher.sizeOf(comments));
+		Assert.assertFalse(comments.touched);
+	}
+
+	public void testFailingWeigherKeepsElement() {
+		UtilCache cache = new UtilCache(0, 0, false);
+		cache.setMaxWeight(1024);
+		cache.setWeigher(new Weigher() {
+			public long weigh(Object key, Object value) {
+				throw new IllegalStateException();
+			}
+		});
+		cache.put("a", "value");
+		Assert.assertEquals("value", cache.get("a"));
+	}
+
+	public void testRemovedValueIsCollectable() throws Exception {
+		UtilCache cache = new UtilCache(0, 0, false);
+		TimerWheel wheel = new TimerWheel(1000, 64);
+		cache.setTimerWheel(wheel);
+		Object value = new Article();
+		// its timeout stays in the wheel for a minute
+		cache.put("a", value, 60000);
+		cache.remove("a");
+		WeakReference ref = new WeakReference(value);
+		value = null;
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull("the cancelled timeout still holds the value", ref.get());
+		wheel.stop();
+	}
+
+	public void testMaxWeightWeighsExistingElements() {
+		UtilCache cache = new UtilCache(0, 0, false);
+		CountingWeigher weigher = new CountingWeigher();
+		cache.setWeigher(weigher);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		cache.setMaxWeight(250);
+		Assert.assertEquals(3, weigher.calls);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(200, cache.getWeight());
+	}
+
+}
@@ -21,19 +21,30 @@ import java.util.Collection;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListener;
 
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsAware;
 import com.jdon.container.pico.Startable;
 import com.jdon.util.Debug;
 import com.jdon.util.FileLocator;
 
-public class EncacheProvider implements com.jdon.controller.cache.Cache, Startable {
+public class EncacheProvider implements com.jdon.controller.cache.TtlCache, CacheStatsAware, Startable {
 	private final static String module = EncacheProvider.class.getName();
 
 	private CacheManager manager;
 
+	// resolved in start()
+	private volatile Cache cache;
+
 	private final EhcacheConf ehcacheConf;
 
+	private volatile CacheStats cacheStats;
+
+	private final StatsListener statsListener = new StatsListener();
+
 	/**
 	 * configFileName must be defined in container.xml
 	 * 
@@ -52,22 +63,23 @@ public class EncacheProvider implements com.jdon.controller.cache.Cache, Startab
 				this.manager = new CacheManager(pathCongfgName);
 			}
 		}
-
+		this.cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
+		cache.getCacheEventNotificationService().registerListener(statsListener);
 	}
 
 	public void stop() {
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
+		cache.getCacheEventNotificationService().unregisterListener(statsListener);
 		cache.removeAll();
 		manager.removeCache(ehcacheConf.getPredefinedCacheName());
 		manager.removalAll();
 		manager.clearAll();
 		manager.shutdown();
 		manager = null;
+		cache = null;
 	}
 
 	public Object get(Object key) {
 		Debug.logVerbose("encache get key", module);
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
 		Element e = (Element) cache.get(key);
 		if (e == null)
 			return null;
@@ -77,36 +89,80 @@ public class EncacheProvider implements com.jdon.controller.cache.Cache, Startab
 	public void put(Object key, Object value) {
 		Debug.logVerbose("encache put key value", module);
 		Element element = new Element(key, value);
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
+		cache.put(element);
+	}
+
+	/**
+	 * the ttl is rounded up to seconds, the precision of EhCache.
+	 */
+	public void put(Object key, Object value, long ttl) {
+		if (ttl <= 0) {
+			put(key, value);
+			return;
+		}
+		Element element = new Element(key, value);
+		element.setTimeToLive((int) Math.min(Integer.MAX_VALUE, (ttl + 999) / 1000));
 		cache.put(element);
 	}
 
 	public void remove(Object key) {
 		Debug.logVerbose("encache remove", module);
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
 		cache.remove(key);
 	}
 
 	public long size() {
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
 		return cache.getMemoryStoreSize();
 	}
 
 	public void clear() {
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
 		cache.removeAll();
 	}
 
 	public boolean contain(Object key) {
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
 		return cache.isKeyInCache(key);
 	}
 
 	public Collection keySet() {
-		Cache cache = manager.getCache(ehcacheConf.getPredefinedCacheName());
 		return cache.getKeys();
 	}
 
+	public void setCacheStats(CacheStats cacheStats) {
+		this.cacheStats = cacheStats;
+	}
+
+	// EhCache evicts and expires the elements by itself
+	private class StatsListener implements CacheEventListener {
+
+		public void notifyElementEvicted(Ehcache ehcache, Element element) {
+			CacheStats stats = cacheStats;
+			if (stats != null)
+				stats.evicted();
+		}
+
+		public void notifyElementExpired(Ehcache ehcache, Element element) {
+			notifyElementEvicted(ehcache, element);
+		}
+
+		public void notifyElementPut(Ehcache ehcache, Element element) {
+		}
+
+		public void notifyElementUpdated(Ehcache ehcache, Element element) {
+		}
+
+		public void notifyElementRemoved(Ehcache ehcache, Element element) {
+		}
+
+		public void notifyRemoveAll(Ehcache ehcache) {
+		}
+
+		public void dispose() {
+		}
+
+		public Object clone() throws CloneNotSupportedException {
+			return super.clone();
+		}
+	}
+
 	public static void main(String[] args) throws Exception {
 		EhcacheConf ehcacheConf = new EhcacheConf("jdon_ehcache.xml", "jdonCache");
 		EncacheProvider encacheProvider = new EncacheProvider(ehcacheConf);
@@ -20,6 +20,7 @@ import junit.framework.TestCase;
 import com.jdon.container.builder.ContainerRegistryBuilder;
 import com.jdon.container.builder.ContainerDirector;
 import com.jdon.container.builder.StartupException;
+import com.jdon.container.builder.StartupProfile;
 import com.jdon.container.factory.ContainerBuilderFactory;
 
 /**
@@ -58,4 +59,20 @@ public class ContainerDirectorTest extends TestCase {
 
     }
 
+    public void testStartupProfile() throws Exception {
+        containerDirector.prepareAppRoot("");
+        containerDirector.startup();
+
+        StartupProfile profile = containerDirector.getStartupProfile();
+        assertNotNull(profile);
+        assertTrue(profile.getPhases().containsKey("registerComponents"));
+        assertTrue(profile.getPhases().containsKey("startApp"));
+        assertTrue(profile.getLoaders().containsKey("ComponentLoader"));
+        assertTrue(profile.getComponents().size() > 0);
+        for (StartupProfile.ComponentTime componentTime : profile.getComponents()) {
+            assertTrue(componentTime.getName(), componentTime.getSelfNanos() >= 0);
+            assertTrue(componentTime.getName(), componentTime.getSelfNanos() <= componentTime.getNanos());
+        }
+    }
+
 }
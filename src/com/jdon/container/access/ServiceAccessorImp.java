@@ -44,7 +44,8 @@ public class ServiceAccessorImp implements ServiceAccessor {
 	 * 
 	 */
 	public Object getService() {
-		Debug.logVerbose("[JdonFramework] enter getService: " + ComponentKeys.PROXYINSTANCE_FACTORY + " in action", module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] enter getService: " + ComponentKeys.PROXYINSTANCE_FACTORY + " in action", module);
 		TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
 
 		targetMetaRequest.setVisitableName(ComponentKeys.PROXYINSTANCE_FACTORY);
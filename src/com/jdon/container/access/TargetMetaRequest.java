@@ -39,9 +39,9 @@ public class TargetMetaRequest implements Serializable {
 	 */
 	private static final long serialVersionUID = 9137088748339607292L;
 
-	private final TargetMetaDef targetMetaDef;
+	private volatile TargetMetaDef targetMetaDef;
     
-    private final ComponentVisitor componentVisitor;
+    private volatile ComponentVisitor componentVisitor;
     
     private volatile MethodMetaArgs methodMetaArgs;
 
@@ -60,6 +60,18 @@ public class TargetMetaRequest implements Serializable {
         this.componentVisitor = componentVisitor;
     }
 
+    /**
+     * recycle this instance for a new call, only used by
+     * TargetMetaRequestsHolder.
+     */
+    void reset(TargetMetaDef targetMetaDef, ComponentVisitor componentVisitor) {
+        this.targetMetaDef = targetMetaDef;
+        this.componentVisitor = componentVisitor;
+        this.methodMetaArgs = null;
+        this.visitableName = null;
+        this.sessionContext = null;
+    }
+
     /**
      * @return Returns the targetMetaDef.
      */
@@ -1,15 +1,83 @@
 package com.jdon.container.access;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jdon.bussinessproxy.TargetMetaDef;
+import com.jdon.container.visitor.ComponentVisitor;
+
+/**
+ * hold the TargetMetaRequest of the current thread.
+ * 
+ * a service call by Service.execute uses a TargetMetaRequest of the thread
+ * that is recycled for every call, one for each level of nested calls, so
+ * there is no allocation for it; after the call the TargetMetaRequest of the
+ * outer call is the current again.
+ * 
+ */
 public class TargetMetaRequestsHolder {
 
-	private final static ThreadLocal targetMetaRequests = new ThreadLocal();
+	private final static ThreadLocal<Frames> targetMetaRequests = new ThreadLocal<Frames>() {
+		protected Frames initialValue() {
+			return new Frames();
+		}
+	};
 
 	public TargetMetaRequest getTargetMetaRequest() {
-		return (TargetMetaRequest) targetMetaRequests.get();
+		return targetMetaRequests.get().current;
 	}
 
 	public void setTargetMetaRequest(TargetMetaRequest targetMetaRequest) {
-		targetMetaRequests.set(targetMetaRequest);
+		targetMetaRequests.get().current = targetMetaRequest;
+	}
+
+	/**
+	 * set a recycled TargetMetaRequest as the current one. it must be
+	 * followed by releaseTargetMetaRequest() in a finally block, and it can
+	 * not be kept after that, so don't use it for a proxy instance that lives
+	 * longer than the call.
+	 */
+	public TargetMetaRequest acquireTargetMetaRequest(TargetMetaDef targetMetaDef, ComponentVisitor componentVisitor) {
+		return targetMetaRequests.get().push(targetMetaDef, componentVisitor);
+	}
+
+	/**
+	 * clear the TargetMetaRequest got by acquireTargetMetaRequest, and
+	 * restore the current one before it.
+	 */
+	public void releaseTargetMetaRequest() {
+		targetMetaRequests.get().pop();
+	}
+
+	static class Frames {
+		TargetMetaRequest current;
+		// the current TargetMetaRequest of the outer calls
+		private final List<TargetMetaRequest> outers = new ArrayList<TargetMetaRequest>();
+		private final List<TargetMetaRequest> recycled = new ArrayList<TargetMetaRequest>();
+
+		TargetMetaRequest push(TargetMetaDef targetMetaDef, ComponentVisitor componentVisitor) {
+			int depth = outers.size();
+			outers.add(current);
+			TargetMetaRequest targetMetaRequest;
+			if (depth < recycled.size()) {
+				targetMetaRequest = recycled.get(depth);
+				targetMetaRequest.reset(targetMetaDef, componentVisitor);
+			} else {
+				targetMetaRequest = new TargetMetaRequest(targetMetaDef, componentVisitor);
+				recycled.add(targetMetaRequest);
+			}
+			current = targetMetaRequest;
+			return targetMetaRequest;
+		}
+
+		void pop() {
+			int depth = outers.size() - 1;
+			if (depth < 0)
+				return;
+			// release the references to session objects
+			recycled.get(depth).reset(null, null);
+			current = outers.remove(depth);
+		}
 	}
 
 }
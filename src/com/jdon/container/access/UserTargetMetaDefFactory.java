@@ -34,6 +34,9 @@ public class UserTargetMetaDefFactory {
 	private final ContainerFinderImp servletContainerFinder = new ContainerFinderImp();
 	public final TargetMetaRequestsHolder targetMetaRequestsHolder;
 
+	// this factory lives in the container, so the container is always the same
+	private volatile VisitorFactory visitorFactory;
+
 	public UserTargetMetaDefFactory(TargetMetaRequestsHolder targetMetaRequestsHolder) {
 		this.targetMetaRequestsHolder = targetMetaRequestsHolder;
 	}
@@ -57,13 +60,36 @@ public class UserTargetMetaDefFactory {
 	 * @return
 	 */
 	public void createTargetMetaRequest(TargetMetaDef targetMetaDef, ContextHolder holder) {
-		ContainerWrapper containerWrapper = servletContainerFinder.findContainer(holder.getAppContextHolder());
-		// get HttpSessionVisitorFactoryImp
-		VisitorFactory visitorFactory = (VisitorFactory) containerWrapper.lookup(ComponentKeys.VISITOR_FACTORY);
 		// ComponentVisitor is HttpSessionComponentVisitor
-		ComponentVisitor cm = visitorFactory.createtVisitor(holder.getSessionHolder(), targetMetaDef);
+		ComponentVisitor cm = getVisitorFactory(holder).createtVisitor(holder.getSessionHolder(), targetMetaDef);
 		TargetMetaRequest targetMetaRequest = new TargetMetaRequest(targetMetaDef, cm);
 		targetMetaRequestsHolder.setTargetMetaRequest(targetMetaRequest);
 	}
 
+	/**
+	 * same as createTargetMetaRequest, but the targetMetaRequest is recycled
+	 * by the thread, it is only for a service call that does not return a
+	 * proxy instance, and must be followed by releaseTargetMetaRequest().
+	 * 
+	 */
+	public TargetMetaRequest acquireTargetMetaRequest(TargetMetaDef targetMetaDef, ContextHolder holder) {
+		ComponentVisitor cm = getVisitorFactory(holder).createtVisitor(holder.getSessionHolder(), targetMetaDef);
+		return targetMetaRequestsHolder.acquireTargetMetaRequest(targetMetaDef, cm);
+	}
+
+	public void releaseTargetMetaRequest() {
+		targetMetaRequestsHolder.releaseTargetMetaRequest();
+	}
+
+	private VisitorFactory getVisitorFactory(ContextHolder holder) {
+		VisitorFactory vf = visitorFactory;
+		if (vf == null) {
+			ContainerWrapper containerWrapper = servletContainerFinder.findContainer(holder.getAppContextHolder());
+			// get HttpSessionVisitorFactoryImp
+			vf = (VisitorFactory) containerWrapper.lookup(ComponentKeys.VISITOR_FACTORY);
+			visitorFactory = vf;
+		}
+		return vf;
+	}
+
 }
@@ -7,6 +7,7 @@ import com.jdon.container.annotation.type.ConsumerLoader;
 import com.jdon.container.annotation.type.InroduceLoader;
 import com.jdon.container.annotation.type.InterceptorLoader;
 import com.jdon.container.annotation.type.ServiceLoader;
+import com.jdon.container.builder.StartupProfile;
 import com.jdon.container.interceptor.IntroduceInfoHolder;
 import com.jdon.container.pico.ConfigInfo;
 import com.jdon.controller.context.AppContextWrapper;
@@ -45,26 +46,44 @@ public class ContainerLoaderAnnotation {
 		Debug.logVerbose("[JdonFramework] load all Annotation components ", module);
 		annotationHolder = new AnnotationHolder();
 
+		StartupProfile profile = StartupProfile.current();
+		if (profile != null)
+			profile.loader("AnnotationScaner", annotationScaner.getScanNanos());
+		long t = System.nanoTime();
 		ServiceLoader serviceLoader = new ServiceLoader(annotationScaner);
 		serviceLoader.loadAnnotationServices(annotationHolder, context);
+		t = loaded(profile, "ServiceLoader", t);
 
 		ComponentLoader componentLoader = new ComponentLoader(annotationScaner);
 		componentLoader.loadAnnotationComponents(annotationHolder, context);
+		t = loaded(profile, "ComponentLoader", t);
 
 		InroduceLoader inroduceLoader = new InroduceLoader(annotationScaner, this.configInfo.getIntroduceInfoHolder());
 		inroduceLoader.loadAnnotationIntroduceInfos(annotationHolder, context, containerWrapper);
+		t = loaded(profile, "InroduceLoader", t);
 
 		InterceptorLoader interceptorLoader = new InterceptorLoader(annotationScaner, configInfo.getIntroduceInfoHolder());
 		interceptorLoader.loadAnnotationInterceptors(annotationHolder, context);
+		t = loaded(profile, "InterceptorLoader", t);
 
 		ConsumerLoader consumerLoader = new ConsumerLoader(annotationScaner);
 		consumerLoader.loadAnnotationConsumers(annotationHolder, context, containerWrapper);
+		loaded(profile, "ConsumerLoader", t);
 
 		containerWrapper.register(AnnotationHolder.NAME, annotationHolder);
 		containerWrapper.register(IntroduceInfoHolder.NAME, configInfo.getIntroduceInfoHolder());
 		return annotationHolder;
 	}
 
+	// the time of a loader into the StartupProfile, returns the start of the
+	// next one
+	private long loaded(StartupProfile profile, String name, long start) {
+		long now = System.nanoTime();
+		if (profile != null)
+			profile.loader(name, now - start);
+		return now;
+	}
+
 	public ConfigInfo getConfigInfo() {
 		return configInfo;
 	}
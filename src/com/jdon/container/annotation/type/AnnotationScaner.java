@@ -32,6 +32,8 @@ public class AnnotationScaner {
 
 	private FutureTask<ScanAnnotationDB> ft;
 
+	private volatile long scanNanos;
+
 	public Map<String, Set<String>> getScannedAnnotations(AppContextWrapper context) {
 		if (db != null)
 			return db.getAnnotationIndex();
@@ -46,6 +48,13 @@ public class AnnotationScaner {
 		return db.getAnnotationIndex();
 	}
 
+	/**
+	 * @return the time of the scan of the classpath
+	 */
+	public long getScanNanos() {
+		return scanNanos;
+	}
+
 	public void startScan(final AppContextWrapper context) {
 
 		this.ft = new FutureTask(new Callable<ScanAnnotationDB>() {
@@ -60,7 +69,9 @@ public class AnnotationScaner {
 				return db;
 			}
 		});
+		long t = System.nanoTime();
 		ft.run();
+		scanNanos = System.nanoTime() - t;
 
 	}
 
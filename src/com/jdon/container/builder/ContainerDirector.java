@@ -33,6 +33,8 @@ public class ContainerDirector {
 
 	private final static Object initLock = new Object();
 
+	private StartupProfile startupProfile;
+
 	public ContainerDirector(ContainerRegistryBuilder cb) {
 		this.cb = cb;
 	}
@@ -42,37 +44,64 @@ public class ContainerDirector {
 		if (!cb.isKernelStartup())
 			synchronized (initLock) {
 				if (!cb.isKernelStartup()) {
+					StartupProfile profile = new StartupProfile();
+					profile.activate();
 					try {
 						Debug.logVerbose("[JdonFramework] <------ register the basic components in container.xml ------> ", module);
+						long t = System.nanoTime();
 						cb.registerComponents();
+						profile.phase("registerComponents", t);
 
 						ContainerWrapper cw = cb.getContainerWrapper();
+						t = System.nanoTime();
 						cw.start();// start core
+						profile.phase("start", t);
 						cb.setKernelStartup(true);
 
 						Debug.logVerbose("[JdonFramework] <------ started micro container ------> ", module);
 
 						Debug.logVerbose("[JdonFramework] <------ register the pojo services in application's xml ------> ", module);
+						t = System.nanoTime();
 						cb.registerUserService();
+						profile.phase("registerUserService", t);
 
 						Debug.logVerbose("[JdonFramework] <------ register the aspect components in container.xml ------> ", module);
+						t = System.nanoTime();
 						cb.registerAspectComponents();
+						profile.phase("registerAspectComponents", t);
 
 						cw.setStart(true);
 						Debug.logInfo(" <========  Jdon Framework started successfully! =========>", module);
 
+						t = System.nanoTime();
 						cb.setupAfterStarted();
+						profile.phase("setupAfterStarted", t);
 
+						t = System.nanoTime();
 						cb.startApp();
+						profile.phase("startApp", t);
 					} catch (Exception ex) {
 						Debug.logError("[JdonFramework] startup container error: " + ex, module);
 						throw new StartupException();
+					} finally {
+						profile.deactivate();
+						profile.finish();
+						profile.report();
+						startupProfile = profile;
 					}
 				}
 			}
 
 	}
 
+	/**
+	 * @return the times of the startup by this director, null if the
+	 *         container was started before
+	 */
+	public StartupProfile getStartupProfile() {
+		return startupProfile;
+	}
+
 	/**
 	 * prepare the applicaition configure files
 	 * 
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jdon.container.builder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jdon.util.Debug;
+
+/**
+ * the times of a container startup: the phases of ContainerDirector, the
+ * annotation loaders and the construction of every component by
+ * JdonPicoContainer.
+ *
+ * the time of a component includes the construction of the components it
+ * depends on, its self time does not; the slowest components are the ones
+ * with the biggest self time.
+ *
+ * the startup thread finds the profile by current(), so the loaders and the
+ * container record into it without a reference. after the startup it is
+ * logged at INFO level; it is written as json only if a file is set by
+ * -Djdon.startup.profile=jdon-startup.json (relative to java.io.tmpdir).
+ * -Djdon.startup.slowest=10 is the number of components in the log.
+ *
+ */
+public class StartupProfile {
+	public final static String module = StartupProfile.class.getName();
+
+	public final static String FILE_PROPERTY = "jdon.startup.profile";
+
+	public final static String SLOWEST_PROPERTY = "jdon.startup.slowest";
+
+	private final static ThreadLocal<StartupProfile> current = new ThreadLocal<StartupProfile>();
+
+	private final long begin = System.nanoTime();
+
+	private long total;
+
+	private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+	private final Map<String, Long> loaders = new LinkedHashMap<String, Long>();
+
+	private final Map<String, ComponentTime> components = new LinkedHashMap<String, ComponentTime>();
+
+	// the time of the dependencies of the components in construction, the
+	// last is the innermost
+	private final List<long[]> constructing = new ArrayList<long[]>();
+
+	/**
+	 * @return the profile of the startup running in this thread, or null
+	 */
+	public static StartupProfile current() {
+		return current.get();
+	}
+
+	public void activate() {
+		current.set(this);
+	}
+
+	public void deactivate() {
+		current.remove();
+	}
+
+	/**
+	 * @param start
+	 *            the System.nanoTime() of the begin of the phase
+	 */
+	public void phase(String name, long start) {
+		add(phases, name, System.nanoTime() - start);
+	}
+
+	public void loader(String name, long nanos) {
+		add(loaders, name, nanos);
+	}
+
+	private static void add(Map<String, Long> times, String name, long nanos) {
+		Long old = times.get(name);
+		times.put(name, Long.valueOf(old == null ? nanos : old.longValue() + nanos));
+	}
+
+	/**
+	 * called before the construction of a component, must be followed by
+	 * componentEnd() in a finally block.
+	 *
+	 * @return the start time
+	 */
+	public long componentBegin() {
+		constructing.add(new long[1]);
+		return System.nanoTime();
+	}
+
+	public void componentEnd(Object componentKey, Class componentClass, long start) {
+		long nanos = System.nanoTime() - start;
+		long[] dependencies = constructing.remove(constructing.size() - 1);
+		if (!constructing.isEmpty())
+			constructing.get(constructing.size() - 1)[0] += nanos;
+		String name = componentKey instanceof Class ? ((Class) componentKey).getName() : String.valueOf(componentKey);
+		ComponentTime componentTime = components.get(name);
+		if (componentTime == null) {
+			componentTime = new ComponentTime(name, componentClass == null ? "" : componentClass.getName());
+			components.put(name, componentTime);
+		}
+		componentTime.nanos += nanos;
+		componentTime.selfNanos += nanos - dependencies[0];
+	}
+
+	public void finish() {
+		total = System.nanoTime() - begin;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public Map<String, Long> getPhases() {
+		return phases;
+	}
+
+	public Map<String, Long> getLoaders() {
+		return loaders;
+	}
+
+	public List<ComponentTime> getComponents() {
+		return new ArrayList<ComponentTime>(components.values());
+	}
+
+	/**
+	 * @return the n components with the biggest self time
+	 */
+	public List<ComponentTime> getSlowest(int n) {
+		List<ComponentTime> list = getComponents();
+		Collections.sort(list, new Comparator<ComponentTime>() {
+			public int compare(ComponentTime c1, ComponentTime c2) {
+				return c1.selfNanos < c2.selfNanos ? 1 : (c1.selfNanos == c2.selfNanos ? 0 : -1);
+			}
+		});
+		return list.size() > n ? list.subList(0, n) : list;
+	}
+
+	/**
+	 * log the profile at INFO level, and write the json file if it is set
+	 */
+	public void report() {
+		int slowest = 10;
+		try {
+			slowest = Integer.parseInt(System.getProperty(SLOWEST_PROPERTY, "10"));
+		} catch (NumberFormatException e) {
+		}
+		Debug.logInfo("[JdonFramework] startup in " + millis(total) + "ms, phases: " + format(phases), module);
+		Debug.logInfo("[JdonFramework] startup annotation loaders: " + format(loaders), module);
+		StringBuilder sb = new StringBuilder();
+		for (ComponentTime componentTime : getSlowest(slowest)) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(componentTime.name).append('=').append(millis(componentTime.selfNanos)).append("ms");
+		}
+		Debug.logInfo("[JdonFramework] startup constructed " + components.size() + " components, the slowest: " + sb, module);
+
+		File file = getFile();
+		if (file == null)
+			return;
+		try {
+			write(file);
+			Debug.logInfo("[JdonFramework] startup profile: " + file.getAbsolutePath(), module);
+		} catch (Exception e) {
+			Debug.logWarning("[JdonFramework] write the startup profile " + file + " error:" + e, module);
+		}
+	}
+
+	static File getFile() {
+		String name = System.getProperty(FILE_PROPERTY);
+		if (name == null || name.trim().length() == 0)
+			return null;
+		File f = new File(name);
+		return f.isAbsolute() ? f : new File(System.getProperty("java.io.tmpdir"), name);
+	}
+
+	public void write(File file) throws Exception {
+		PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			pw.print(toJson());
+		} finally {
+			pw.close();
+		}
+	}
+
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n  \"totalMillis\": ").append(millis(total)).append(",\n");
+		sb.append("  \"phases\": ").append(json(phases)).append(",\n");
+		sb.append("  \"loaders\": ").append(json(loaders)).append(",\n");
+		sb.append("  \"components\": [");
+		List<ComponentTime> list = getSlowest(components.size());
+		for (int i = 0; i < list.size(); i++) {
+			ComponentTime componentTime = list.get(i);
+			sb.append(i == 0 ? "\n" : ",\n");
+			sb.append("    {\"name\": \"").append(escape(componentTime.name)).append("\", \"class\": \"").append(componentTime.className);
+			sb.append("\", \"millis\": ").append(millis(componentTime.nanos)).append(", \"selfMillis\": ").append(millis(componentTime.selfNanos))
+					.append("}");
+		}
+		sb.append("\n  ]\n}\n");
+		return sb.toString();
+	}
+
+	private static String json(Map<String, Long> times) {
+		StringBuilder sb = new StringBuilder("{");
+		for (Map.Entry<String, Long> entry : times.entrySet()) {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append('"').append(escape(entry.getKey())).append("\": ").append(millis(entry.getValue().longValue()));
+		}
+		return sb.append('}').toString();
+	}
+
+	private static String format(Map<String, Long> times) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Long> entry : times.entrySet()) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(entry.getKey()).append('=').append(millis(entry.getValue().longValue())).append("ms");
+		}
+		return sb.toString();
+	}
+
+	private static String escape(String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static double millis(long nanos) {
+		return Math.round(nanos / 10000d) / 100d;
+	}
+
+	public String toString() {
+		return "startup " + millis(total) + "ms " + format(phases);
+	}
+
+	public static class ComponentTime {
+		private final String name;
+
+		private final String className;
+
+		private long nanos;
+
+		private long selfNanos;
+
+		ComponentTime(String name, String className) {
+			this.name = name;
+			this.className = className;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		/**
+		 * @return the time with the construction of the dependencies
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+
+		public long getSelfNanos() {
+			return selfNanos;
+		}
+	}
+
+}
@@ -92,13 +92,14 @@ public class BeforeAfterMethodTarget {
 	private Method getAdviceBeforeTargetMethod(Object target, IntroduceInfo iinfo, Method invokedmethod) {
 		Method m = iinfo.getBefores().get(invokedmethod.getName());
 		if (m != null)
-			return m;
+			return m == IntroduceInfo.NO_ADVICE ? null : m;
 		for (Method method : target.getClass().getMethods()) {
 			if (method.isAnnotationPresent(Before.class)) {
 				m = method;
-				iinfo.getBefores().put(invokedmethod.getName(), method);
 			}
 		}
+		// no advice is cached too, so the method is not searched again
+		iinfo.getBefores().put(invokedmethod.getName(), m == null ? IntroduceInfo.NO_ADVICE : m);
 		return m;
 
 	}
@@ -106,13 +107,13 @@ public class BeforeAfterMethodTarget {
 	private Method getAdviceAfterTargetMethod(Object target, IntroduceInfo iinfo, Method invokedmethod) {
 		Method m = iinfo.getAfters().get(invokedmethod.getName());
 		if (m != null)
-			return m;
+			return m == IntroduceInfo.NO_ADVICE ? null : m;
 		for (Method method : target.getClass().getMethods()) {
 			if (method.isAnnotationPresent(After.class)) {
 				m = method;
-				iinfo.getAfters().put(invokedmethod.getName(), method);
 			}
 		}
+		iinfo.getAfters().put(invokedmethod.getName(), m == null ? IntroduceInfo.NO_ADVICE : m);
 		return m;
 
 	}
@@ -130,7 +131,8 @@ public class BeforeAfterMethodTarget {
 						break;
 					}
 				}
-				iinfo.getMethods().put(adviceBeforeTargetMethod, interceptorMethod);
+				if (interceptorMethod != null)
+					iinfo.getMethods().put(adviceBeforeTargetMethod, interceptorMethod);
 			}
 			returning = executeBeforeAdvice(adviceBeforeTargetMethod, targetParameters, interceptorMethod, interceptor, iinfo);
 		} catch (Exception e) {
@@ -169,7 +171,7 @@ public class BeforeAfterMethodTarget {
 		}
 
 		try {
-			Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+			Annotation[][] parameterAnnotations = iinfo.getParameterAnnotations(method);
 			Class[] parameterTypes = method.getParameterTypes();
 
 			int i = 0;
@@ -205,7 +207,7 @@ public class BeforeAfterMethodTarget {
 			return;
 		}
 		try {
-			Annotation[][] parameterAnnotations = adviceBeforeTargetMethod.getParameterAnnotations();
+			Annotation[][] parameterAnnotations = iinfo.getParameterAnnotations(adviceBeforeTargetMethod);
 			int i = 0;
 			for (Annotation[] annotations : parameterAnnotations) {
 				for (Annotation annotation : annotations) {
@@ -228,7 +230,7 @@ public class BeforeAfterMethodTarget {
 		Object resultReturning = null;
 		try {
 			After after = adviceAfterTargetMethod.getAnnotation(After.class);
-			Method interceptorMethod = iinfo.getMethods().get(adviceAfterTargetMethod.getName());
+			Method interceptorMethod = iinfo.getMethods().get(adviceAfterTargetMethod);
 			if (interceptorMethod == null) {
 				for (Method interceptorMethod2 : interceptor.getClass().getMethods()) {
 					String mName = interceptorMethod2.getName();
@@ -237,7 +239,8 @@ public class BeforeAfterMethodTarget {
 						break;
 					}
 				}
-				iinfo.getMethods().put(adviceAfterTargetMethod, interceptorMethod);
+				if (interceptorMethod != null)
+					iinfo.getMethods().put(adviceAfterTargetMethod, interceptorMethod);
 			}
 			resultReturning = execAfterAdvice(result, interceptorMethod, interceptor, iinfo);
 
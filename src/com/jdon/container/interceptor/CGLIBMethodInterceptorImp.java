@@ -45,8 +45,9 @@ public class CGLIBMethodInterceptorImp implements MethodInterceptor {
 
 		Object result = null;
 		try {
-			Debug.logVerbose("[JdonFramework]<----> executing MethodInterceptor for method=" + invokedmethod.getDeclaringClass().getName() + "."
-					+ invokedmethod.getName() + " successfully!", module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework]<----> executing MethodInterceptor for method=" + invokedmethod.getDeclaringClass().getName() + "."
+						+ invokedmethod.getName() + " successfully!", module);
 
 			MethodInvocation methodInvocation = new MethodInvocationImp(target, beforeAfterMethodTarget, methodInterceptors, invokedmethod, objects,
 					methodProxy);
@@ -15,12 +15,35 @@
  */
 package com.jdon.container.interceptor;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * the advices of one introducer class, shared by all threads: the maps are
+ * filled by the first calls.
+ *
+ */
 public class IntroduceInfo {
 
+	/**
+	 * the value of befores and afters for a method without advice, a
+	 * ConcurrentHashMap can not hold null
+	 */
+	public final static Method NO_ADVICE;
+
+	static {
+		try {
+			NO_ADVICE = IntroduceInfo.class.getDeclaredMethod("noAdvice", new Class[0]);
+		} catch (NoSuchMethodException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static void noAdvice() {
+	}
+
 	private String adviceName;
 	// key method Name
 	private Map<String, Method> befores;
@@ -30,6 +53,7 @@ public class IntroduceInfo {
 	private Map<String, Integer> introducedParametersPositions;
 
 	private Map<Method, Method> methods;
+	private Map<Method, Annotation[][]> parameterAnnotations;
 	private Class target;
 	private String targetName;
 
@@ -37,12 +61,26 @@ public class IntroduceInfo {
 		super();
 		this.adviceName = adviceName;
 		this.target = target;
-		this.methods = new HashMap();
-		this.afters = new HashMap();
-		this.befores = new HashMap();
-		this.inputParametersPositions = new HashMap();
-		this.returnParametersPositions = new HashMap();
-		this.introducedParametersPositions = new HashMap();
+		this.methods = new ConcurrentHashMap<Method, Method>();
+		this.afters = new ConcurrentHashMap<String, Method>();
+		this.befores = new ConcurrentHashMap<String, Method>();
+		this.inputParametersPositions = new ConcurrentHashMap<String, Integer>();
+		this.returnParametersPositions = new ConcurrentHashMap<String, Integer>();
+		this.introducedParametersPositions = new ConcurrentHashMap<String, Integer>();
+		this.parameterAnnotations = new ConcurrentHashMap<Method, Annotation[][]>();
+	}
+
+	/**
+	 * Method.getParameterAnnotations() copies the annotations every time, so
+	 * they are cached here.
+	 */
+	public Annotation[][] getParameterAnnotations(Method method) {
+		Annotation[][] annotations = parameterAnnotations.get(method);
+		if (annotations == null) {
+			annotations = method.getParameterAnnotations();
+			parameterAnnotations.put(method, annotations);
+		}
+		return annotations;
 	}
 
 	public String getAdviceName() {
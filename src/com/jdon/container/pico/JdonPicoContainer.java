@@ -45,6 +45,8 @@ import org.picocontainer.defaults.InstanceComponentAdapter;
 import org.picocontainer.defaults.LifecycleVisitor;
 import org.picocontainer.defaults.VerifyingVisitor;
 
+import com.jdon.container.builder.StartupProfile;
+
 /**
  * modify the method getComponentInstance of DefaultPicoContainer of
  * picocontainer
@@ -358,7 +360,18 @@ public class JdonPicoContainer implements MutablePicoContainer, Serializable {
 		final boolean isLocal = componentAdapters.contains(componentAdapter);
 
 		if (isLocal) {
-			Object instance = componentAdapter.getComponentInstance(this);
+			Object instance;
+			StartupProfile profile = StartupProfile.current();
+			if (profile == null) {
+				instance = componentAdapter.getComponentInstance(this);
+			} else {
+				long start = profile.componentBegin();
+				try {
+					instance = componentAdapter.getComponentInstance(this);
+				} finally {
+					profile.componentEnd(componentAdapter.getComponentKey(), componentAdapter.getComponentImplementation(), start);
+				}
+			}
 
 			addOrderedComponentAdapter(componentAdapter);
 
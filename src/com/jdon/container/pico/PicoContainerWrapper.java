@@ -213,7 +213,8 @@ public class PicoContainerWrapper implements ContainerWrapper {
 			return null;
 		}
 
-		Debug.logVerbose("[JdonFramework]getComponentNewInstance: name=" + name, module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]getComponentNewInstance: name=" + name, module);
 		ComponentAdapter componentAdapter = container.getComponentAdapter(name);
 		if (componentAdapter == null)
 			Debug.logVerbose("[JdonFramework]Not find the component in container :" + name, module);
@@ -226,7 +227,8 @@ public class PicoContainerWrapper implements ContainerWrapper {
 			return null;
 		}
 
-		Debug.logVerbose("[JdonFramework]getComponentClass: name=" + name, module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]getComponentClass: name=" + name, module);
 		ComponentAdapter componentAdapter = container.getComponentAdapter(name);
 		if (componentAdapter == null)
 			Debug.logVerbose("[JdonFramework]Not find the component in container :" + name, module);
@@ -57,7 +57,8 @@ public class ComponentOriginalVisitor implements ComponentVisitor {
 		try {
 			ContainerWrapper containerWrapper = containerCallback.getContainerWrapper();
 			TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
-			Debug.logVerbose("[JdonFramework] ComponentOriginalVisitor active:" + targetMetaRequest.getVisitableName(), module);
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework] ComponentOriginalVisitor active:" + targetMetaRequest.getVisitableName(), module);
 			//targetMetaRequest.setVisitableName change the value
 			Visitable vo = (Visitable) containerWrapper.lookup(targetMetaRequest.getVisitableName());
 			o = vo.accept();
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.container.visitor;
+
+import java.io.Serializable;
+
+/**
+ * key of ComponentsboxsInSession: TargetMetaDef cacheKey + visitable name.
+ *
+ * replace the string concatenation of the two names, the hashCode is
+ * computed once from the cached hashCode of the two strings.
+ *
+ */
+public final class ComponentsboxKey implements Serializable {
+
+	private static final long serialVersionUID = -3346170913937530451L;
+
+	private final String targetKey;
+
+	private final String visitableName;
+
+	private final int hashCode;
+
+	public ComponentsboxKey(String targetKey, String visitableName) {
+		this.targetKey = targetKey;
+		this.visitableName = visitableName;
+		this.hashCode = 31 * targetKey.hashCode() + (visitableName == null ? 0 : visitableName.hashCode());
+	}
+
+	public String getTargetKey() {
+		return targetKey;
+	}
+
+	public String getVisitableName() {
+		return visitableName;
+	}
+
+	public int hashCode() {
+		return hashCode;
+	}
+
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof ComponentsboxKey))
+			return false;
+		ComponentsboxKey other = (ComponentsboxKey) o;
+		return hashCode == other.hashCode && targetKey.equals(other.targetKey)
+				&& (visitableName == null ? other.visitableName == null : visitableName.equals(other.visitableName));
+	}
+
+	public String toString() {
+		return targetKey + visitableName;
+	}
+
+}
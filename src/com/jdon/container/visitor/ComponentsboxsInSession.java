@@ -1,35 +1,152 @@
 package com.jdon.container.visitor;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.jdon.container.visitor.data.SessionContext;
 import com.jdon.container.visitor.http.HttpSessionVisitorFactorySetup;
 
+/**
+ * the cached components of one session.
+ *
+ * it is a LRU: when the size reaches maxSize, only the least recently used
+ * entry of this session is evicted. with a global budget the entries of all
+ * sessions are in one more LRU of SessionCacheStats, the eldest entry of any
+ * session is evicted when the budget is exceeded, so idle sessions give
+ * back their entries first.
+ * the SessionContext is hold out of the LRU, it is never evicted.
+ *
+ * a hit takes no lock: it stamps the entry with the access tick of the
+ * session, add() evicts the entry of the oldest tick.
+ *
+ */
 public class ComponentsboxsInSession {
-	private final Map componentsboxs = new ConcurrentHashMap();
+
+	private final ConcurrentMap<ComponentsboxKey, Component> componentsboxs = new ConcurrentHashMap<ComponentsboxKey, Component>();
 	public final int maxSize;
+	private final SessionCacheStats sessionCacheStats;
+
+	private final AtomicLong accessTick = new AtomicLong();
+
+	private volatile SessionContext sessionContext;
 
 	public ComponentsboxsInSession(HttpSessionVisitorFactorySetup httpSessionVisitorFactorySetup) {
 		super();
 		this.maxSize = httpSessionVisitorFactorySetup.getComponentsboxsMaxSize();
+		this.sessionCacheStats = httpSessionVisitorFactorySetup.getSessionCacheStats();
+	}
+
+	/**
+	 * the key shared by all sessions of the container, no key is created for
+	 * a hit.
+	 */
+	public ComponentsboxKey getKey(String targetKey, String visitableName) {
+		return sessionCacheStats.getKey(targetKey, visitableName);
+	}
+
+	public void add(ComponentsboxKey key, Object o) {
+		if (o == null)
+			return;
+		// weighed out of the lock
+		Component component = new Component(this, key, o, sessionCacheStats.weigh(key, o));
+		component.accessed = accessTick.incrementAndGet();
+		synchronized (this) {
+			Component old = componentsboxs.put(key, component);
+			if (old != null)
+				removed(old);
+			sessionCacheStats.added(component);
+			while (componentsboxs.size() > maxSize) {
+				Component eldest = eldest();
+				componentsboxs.remove(eldest.key);
+				removed(eldest);
+				sessionCacheStats.evicted();
+			}
+		}
+		// out of the lock of this session, it locks the evicted sessions
+		sessionCacheStats.evictOverBudget();
+	}
+
+	// the entry of the oldest access tick, a session holds a few entries
+	private Component eldest() {
+		Component eldest = null;
+		for (Component component : componentsboxs.values()) {
+			if (eldest == null || component.accessed < eldest.accessed)
+				eldest = component;
+		}
+		return eldest;
+	}
+
+	private void removed(Component component) {
+		sessionCacheStats.removed(component);
+	}
+
+	/**
+	 * evicted by the global budget
+	 */
+	synchronized void evict(Component component) {
+		if (!componentsboxs.remove(component.key, component))
+			return;
+		removed(component);
+		sessionCacheStats.evicted();
+	}
+
+	public Object get(ComponentsboxKey key) {
+		Component component = componentsboxs.get(key);
+		if (component == null) {
+			sessionCacheStats.miss();
+			return null;
+		}
+		component.accessed = accessTick.incrementAndGet();
+		sessionCacheStats.hit(component);
+		return component.value;
 	}
 
-	public void add(String key, Object o) {
-		if (componentsboxs.size() >= maxSize)
-			componentsboxs.clear();
-		componentsboxs.put(key, o);
+	public SessionContext getSessionContext() {
+		return sessionContext;
 	}
 
-	public Object get(String key) {
-		return componentsboxs.get(key);
+	public void setSessionContext(SessionContext sessionContext) {
+		this.sessionContext = sessionContext;
 	}
 
-	public void clear() {
+	public synchronized void clear() {
+		for (Component component : componentsboxs.values()) {
+			removed(component);
+		}
 		componentsboxs.clear();
+		sessionContext = null;
 	}
 
 	public int size() {
 		return componentsboxs.size();
 	}
 
+	/**
+	 * a entry, and a node of the global LRU of SessionCacheStats
+	 */
+	static class Component {
+		final ComponentsboxsInSession owner;
+		final ComponentsboxKey key;
+		final Object value;
+		// estimated bytes
+		final long weight;
+
+		// the access tick of the session
+		volatile long accessed;
+
+		// guarded by SessionCacheStats, null if not linked
+		Component prev;
+		Component next;
+		// the link count of SessionCacheStats when it was linked
+		volatile long linkedAt;
+
+		Component(ComponentsboxsInSession owner, ComponentsboxKey key, Object value, long weight) {
+			this.owner = owner;
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
 }
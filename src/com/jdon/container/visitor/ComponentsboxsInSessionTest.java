@@ -0,0 +1,103 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.container.visitor;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.container.visitor.http.HttpSessionVisitorFactorySetup;
+
+public class ComponentsboxsInSessionTest extends TestCase {
+
+	private static ComponentsboxKey key(int i) {
+		return new ComponentsboxKey("service" + i, "proxyInstanceFactoryVisitable");
+	}
+
+	public void testSessionMaxSize() {
+		ComponentsboxsInSession box = new ComponentsboxsInSession(new HttpSessionVisitorFactorySetup("2", "true", "0"));
+		box.add(key(1), "1");
+		box.add(key(2), "2");
+		box.get(key(1));
+		box.add(key(3), "3");
+		Assert.assertEquals(2, box.size());
+		Assert.assertNull(box.get(key(2)));
+		Assert.assertEquals("1", box.get(key(1)));
+	}
+
+	public void testTotalBytes() {
+		HttpSessionVisitorFactorySetup setup = new HttpSessionVisitorFactorySetup("2", "true", "0");
+		SessionCacheStats stats = setup.getSessionCacheStats();
+		ComponentsboxsInSession box = new ComponentsboxsInSession(setup);
+		box.add(key(1), "1");
+		long one = stats.getTotalBytes();
+		Assert.assertTrue(one > 0);
+		box.add(key(2), "a value bigger than the first one");
+		long two = stats.getTotalBytes();
+		Assert.assertTrue(two > 2 * one - 1);
+		// evicts key(1)
+		box.add(key(3), "3");
+		Assert.assertEquals(two, stats.getTotalBytes());
+		box.clear();
+		Assert.assertEquals(0, stats.getTotalBytes());
+	}
+
+	public void testKeysAreShared() {
+		HttpSessionVisitorFactorySetup setup = new HttpSessionVisitorFactorySetup("2", "true", "0");
+		ComponentsboxsInSession a = new ComponentsboxsInSession(setup);
+		ComponentsboxsInSession b = new ComponentsboxsInSession(setup);
+		ComponentsboxKey key = a.getKey("service", "proxyInstanceFactoryVisitable");
+		Assert.assertSame(key, b.getKey("service", "proxyInstanceFactoryVisitable"));
+		Assert.assertEquals(key(0).getClass(), key.getClass());
+		Assert.assertSame(a.getKey("service", null), b.getKey("service", null));
+		Assert.assertNotSame(key, a.getKey("service", null));
+	}
+
+	public void testGlobalBudgetEvictsTheIdleSession() {
+		HttpSessionVisitorFactorySetup setup = new HttpSessionVisitorFactorySetup("40", "true", "3");
+		ComponentsboxsInSession idle = new ComponentsboxsInSession(setup);
+		ComponentsboxsInSession active = new ComponentsboxsInSession(setup);
+		idle.add(key(1), "1");
+		idle.add(key(2), "2");
+		active.add(key(1), "1");
+		active.add(key(2), "2");
+		active.add(key(3), "3");
+		Assert.assertEquals(0, idle.size());
+		Assert.assertEquals(3, active.size());
+		Assert.assertEquals(3, setup.getSessionCacheStats().getTotalEntries());
+		Assert.assertEquals(2, setup.getSessionCacheStats().getEvictionCount());
+	}
+
+	public void testGlobalBudgetFollowsAccessOrder() {
+		HttpSessionVisitorFactorySetup setup = new HttpSessionVisitorFactorySetup("40", "true", "2");
+		ComponentsboxsInSession a = new ComponentsboxsInSession(setup);
+		ComponentsboxsInSession b = new ComponentsboxsInSession(setup);
+		a.add(key(1), "a1");
+		b.add(key(1), "b1");
+		// a1 is used again, b1 is the eldest now
+		Assert.assertEquals("a1", a.get(key(1)));
+		b.add(key(2), "b2");
+		Assert.assertEquals("a1", a.get(key(1)));
+		Assert.assertNull(b.get(key(1)));
+		Assert.assertEquals("b2", b.get(key(2)));
+
+		// a cleared session leaves the global list
+		a.clear();
+		b.add(key(3), "b3");
+		Assert.assertEquals(2, b.size());
+		Assert.assertEquals(2, setup.getSessionCacheStats().getTotalEntries());
+	}
+
+}
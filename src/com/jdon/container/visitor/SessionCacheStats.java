@@ -0,0 +1,229 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.container.visitor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsRegistry;
+import com.jdon.cache.DefaultWeigher;
+import com.jdon.cache.Weigher;
+import com.jdon.util.StripedCounter;
+
+/**
+ * statistics of all ComponentsboxsInSession in one container, and the
+ * optional global budget of cached entries across all sessions.
+ * 
+ * the counts are reported to the CacheStats of the session role too.
+ *
+ * with a global budget the entries of all sessions are linked in access
+ * order; a hit moves its entry under one lock only when it is in the older
+ * half of the list, a entry linked recently stays where it is. without
+ * budget there is no global list.
+ *
+ * the total bytes are estimated by DefaultWeigher when a entry is added, a
+ * proxy counts its shallow size only.
+ *
+ */
+public class SessionCacheStats {
+
+	private final StripedCounter hitCount = new StripedCounter();
+	private final StripedCounter missCount = new StripedCounter();
+	private final StripedCounter evictionCount = new StripedCounter();
+
+	private final AtomicLong totalEntries = new AtomicLong();
+
+	private final AtomicLong totalBytes = new AtomicLong();
+
+	private final Weigher weigher = new DefaultWeigher();
+
+	// the keys of all sessions, by target key and visitable name
+	private final ConcurrentMap<String, ConcurrentMap<String, ComponentsboxKey>> keys = new ConcurrentHashMap<String, ConcurrentMap<String, ComponentsboxKey>>();
+
+	// count of the entries linked into the global LRU, guarded by lruLock
+	private volatile long linkCount;
+
+	// sentinel of the global LRU, head.next is the eldest
+	private final ComponentsboxsInSession.Component head = new ComponentsboxsInSession.Component(null, null, null, 0);
+
+	private final Object lruLock = new Object();
+
+	// 0 is no global budget
+	private final long globalMaxSize;
+
+	private final CacheStats cacheStats = CacheStatsRegistry.getStats(CacheStatsRegistry.SESSION);
+
+	public SessionCacheStats(long globalMaxSize) {
+		this.globalMaxSize = globalMaxSize;
+		head.prev = head;
+		head.next = head;
+	}
+
+	ComponentsboxKey getKey(String targetKey, String visitableName) {
+		ConcurrentMap<String, ComponentsboxKey> byName = keys.get(targetKey);
+		if (byName == null) {
+			byName = new ConcurrentHashMap<String, ComponentsboxKey>();
+			ConcurrentMap<String, ComponentsboxKey> old = keys.putIfAbsent(targetKey, byName);
+			if (old != null)
+				byName = old;
+		}
+		// ConcurrentHashMap has no null key
+		String name = visitableName == null ? "" : visitableName;
+		ComponentsboxKey key = byName.get(name);
+		if (key == null) {
+			key = new ComponentsboxKey(targetKey, visitableName);
+			ComponentsboxKey old = byName.putIfAbsent(name, key);
+			if (old != null)
+				key = old;
+		}
+		return key;
+	}
+
+	long weigh(ComponentsboxKey key, Object value) {
+		return weigher.weigh(key, value);
+	}
+
+	void hit(ComponentsboxsInSession.Component component) {
+		hitCount.increment();
+		cacheStats.hit();
+		// less entries than the half of the budget were linked after it
+		if (globalMaxSize > 0 && linkCount - component.linkedAt >= Math.max(1, globalMaxSize / 2)) {
+			synchronized (lruLock) {
+				if (component.prev != null) {
+					unlink(component);
+					link(component);
+				}
+			}
+		}
+	}
+
+	void miss() {
+		missCount.increment();
+		cacheStats.miss();
+	}
+
+	void evicted() {
+		evictionCount.increment();
+		cacheStats.evicted();
+	}
+
+	void added(ComponentsboxsInSession.Component component) {
+		totalEntries.incrementAndGet();
+		totalBytes.addAndGet(component.weight);
+		cacheStats.sizeChanged(1);
+		if (globalMaxSize > 0) {
+			synchronized (lruLock) {
+				link(component);
+			}
+		}
+	}
+
+	void removed(ComponentsboxsInSession.Component component) {
+		totalEntries.decrementAndGet();
+		totalBytes.addAndGet(-component.weight);
+		cacheStats.sizeChanged(-1);
+		if (globalMaxSize > 0) {
+			synchronized (lruLock) {
+				if (component.prev != null)
+					unlink(component);
+			}
+		}
+	}
+
+	/**
+	 * evicts the eldest entries of all sessions until the global budget is
+	 * kept; the caller holds no lock of a session.
+	 */
+	void evictOverBudget() {
+		while (isOverBudget()) {
+			ComponentsboxsInSession.Component eldest;
+			synchronized (lruLock) {
+				eldest = head.next;
+				if (eldest == head)
+					return;
+				unlink(eldest);
+			}
+			eldest.owner.evict(eldest);
+		}
+	}
+
+	// the newest at the tail
+	private void link(ComponentsboxsInSession.Component component) {
+		component.prev = head.prev;
+		component.next = head;
+		head.prev.next = component;
+		head.prev = component;
+		component.linkedAt = ++linkCount;
+	}
+
+	private void unlink(ComponentsboxsInSession.Component component) {
+		component.prev.next = component.next;
+		component.next.prev = component.prev;
+		component.prev = null;
+		component.next = null;
+	}
+
+	/**
+	 * @return true if the entries of all sessions exceed the global budget.
+	 */
+	boolean isOverBudget() {
+		return globalMaxSize > 0 && totalEntries.get() > globalMaxSize;
+	}
+
+	public long getGlobalMaxSize() {
+		return globalMaxSize;
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public double getHitRate() {
+		long hits = hitCount.sum();
+		long total = hits + missCount.sum();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * @return count of cached entries in all sessions.
+	 */
+	public long getTotalEntries() {
+		return totalEntries.get();
+	}
+
+	/**
+	 * @return estimated bytes of the cached entries in all sessions.
+	 */
+	public long getTotalBytes() {
+		return totalBytes.get();
+	}
+
+	public String toString() {
+		return "hitRate=" + getHitRate() + " hit=" + getHitCount() + " miss=" + getMissCount() + " evicted=" + getEvictionCount()
+				+ " entries=" + getTotalEntries() + " bytes=" + getTotalBytes();
+	}
+
+}
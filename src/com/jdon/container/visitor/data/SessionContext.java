@@ -16,8 +16,9 @@
 package com.jdon.container.visitor.data;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * this class inlude those datas that read from the web container or others.
@@ -52,16 +53,15 @@ public class SessionContext implements Serializable{
     private final int maxSize;
     
     public SessionContext(int maxSize){
-    	arrtibutes = new  ConcurrentHashMap();
+    	arrtibutes = Collections.synchronizedMap(new LRUMap(maxSize));
     	this.maxSize = maxSize;
     }
     
+    /**
+     * if the size exceed maxSize, the least recently used arrtibute is removed,
+     * setup contain.xml sessionContextFactoryVisitable.
+     */
     public void setArrtibute(String key, Object object){
-    	if (arrtibutes.size() > maxSize){
-    		System.err.print("sessionContext exceed maxSize =" + maxSize);
-    		System.err.print("setup contain.xml sessionContextFactoryVisitable" );
-    		arrtibutes.clear();
-    	}
         arrtibutes.put(key, object);
     }
     
@@ -77,6 +77,21 @@ public class SessionContext implements Serializable{
         arrtibutes.clear();
     }
     
+    static class LRUMap extends LinkedHashMap {
+    	private static final long serialVersionUID = -6398420915716934556L;
+
+    	private final int maxSize;
+    	
+    	LRUMap(int maxSize){
+    		super(16, 0.75f, true);
+    		this.maxSize = maxSize;
+    	}
+    	
+    	protected boolean removeEldestEntry(Map.Entry eldest) {
+    		return size() > maxSize;
+    	}
+    }
+    
     
     
 }
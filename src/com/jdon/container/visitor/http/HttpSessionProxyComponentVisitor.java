@@ -22,6 +22,7 @@ import com.jdon.container.access.TargetMetaRequest;
 import com.jdon.container.access.TargetMetaRequestsHolder;
 import com.jdon.container.access.UserTargetMetaDefFactory;
 import com.jdon.container.visitor.ComponentVisitor;
+import com.jdon.container.visitor.ComponentsboxKey;
 import com.jdon.container.visitor.ComponentsboxsInSession;
 import com.jdon.container.visitor.data.SessionContext;
 import com.jdon.util.Debug;
@@ -119,16 +120,14 @@ public class HttpSessionProxyComponentVisitor implements ComponentVisitor, HttpS
 		Object o = null;
 		try {
 			TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
-			StringBuffer sb = new StringBuffer(targetMetaRequest.getTargetMetaDef().getCacheKey());
-			sb.append(targetMetaRequest.getVisitableName());
-			Debug.logVerbose("[JdonFramework] get the optimized instance for the key " + sb.toString(), module);
-			o = componentsboxsInSession.get(sb.toString());
+			ComponentsboxKey key = componentsboxsInSession.getKey(targetMetaRequest.getTargetMetaDef().getCacheKey(), targetMetaRequest.getVisitableName());
+			o = componentsboxsInSession.get(key);
 			if (o == null) {
 				Debug.logVerbose("[JdonFramework] first time visit: " + targetMetaRequest.getTargetMetaDef().getClassName(), module);
 				// com.jdon.container.visitor.ComponentOriginalVisitor#visit
 				o = componentVisitor.visit();
 				if (dynamiceProxyisCached)
-					componentsboxsInSession.add(sb.toString(), o);
+					componentsboxsInSession.add(key, o);
 			}
 		} catch (Exception e) {
 			Debug.logError("[JdonFramework]visit error: " + e);
@@ -137,15 +136,15 @@ public class HttpSessionProxyComponentVisitor implements ComponentVisitor, HttpS
 	}
 
 	public SessionContext createSessionContext() {
-		SessionContext sessionContext = (SessionContext) componentsboxsInSession.get(SessionContext.NAME);
+		SessionContext sessionContext = componentsboxsInSession.getSessionContext();
 		if (sessionContext == null) {
 			TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
 			Debug.logVerbose("[JdonFramework] first time visit sessionContext: " + targetMetaRequest.getVisitableName(), module);
 			// com.jdon.container.visitor.ComponentOriginalVisitor#createSessionContext
 			sessionContext = componentVisitor.createSessionContext();
-			componentsboxsInSession.add(SessionContext.NAME, sessionContext);
+			componentsboxsInSession.setSessionContext(sessionContext);
 		}
-		return (SessionContext) sessionContext;
+		return sessionContext;
 	}
 
 	/**
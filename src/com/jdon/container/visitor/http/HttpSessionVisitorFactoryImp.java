@@ -30,6 +30,8 @@ public class HttpSessionVisitorFactoryImp implements VisitorFactory {
 	private final ComponentVisitor componentVisitor;
 	private final HttpSessionVisitorFactorySetup httpSessionVisitorFactorySetup;
 	private final TargetMetaRequestsHolder targetMetaRequestsHolder;
+	// it has no state of a session
+	private final ComponentVisitor noSessionVisitor;
 
 	/**
 	 * @param componentVisitor
@@ -39,6 +41,7 @@ public class HttpSessionVisitorFactoryImp implements VisitorFactory {
 		this.componentVisitor = componentVisitor;
 		this.httpSessionVisitorFactorySetup = httpSessionVisitorFactorySetup;
 		this.targetMetaRequestsHolder = targetMetaRequestsHolder;
+		this.noSessionVisitor = new NoSessionProxyComponentVisitor(componentVisitor, targetMetaRequestsHolder);
 	}
 
 	/**
@@ -53,7 +56,7 @@ public class HttpSessionVisitorFactoryImp implements VisitorFactory {
 		if (session != null)
 			return createtSessionVisitor(session, targetMetaDef);
 		else
-			return new NoSessionProxyComponentVisitor(componentVisitor, targetMetaRequestsHolder);
+			return noSessionVisitor;
 
 	}
 
@@ -1,17 +1,33 @@
 package com.jdon.container.visitor.http;
 
+import com.jdon.container.visitor.SessionCacheStats;
+
 public class HttpSessionVisitorFactorySetup {
-	
+
 	private final int ComponentsboxsMaxSize;
 	private final boolean dynamiceProxyisCached;
-	
+	private final SessionCacheStats sessionCacheStats;
+
 	public HttpSessionVisitorFactorySetup(String maxSize, String dynamiceProxyisCached) {
+		this(maxSize, dynamiceProxyisCached, "0");
+	}
+
+	/**
+	 * @param maxSize
+	 *            max count of the cached instances in one session
+	 * @param dynamiceProxyisCached
+	 * @param globalMaxSize
+	 *            max count of the cached instances in all sessions, 0 is no
+	 *            limit.
+	 */
+	public HttpSessionVisitorFactorySetup(String maxSize, String dynamiceProxyisCached, String globalMaxSize) {
 		super();
 		this.ComponentsboxsMaxSize = Integer.parseInt(maxSize);
 		if (dynamiceProxyisCached.equalsIgnoreCase("true"))
 			this.dynamiceProxyisCached = true;
 		else
 			this.dynamiceProxyisCached = false;
+		this.sessionCacheStats = new SessionCacheStats(Long.parseLong(globalMaxSize));
 	}
 
 	public int getComponentsboxsMaxSize() {
@@ -22,6 +38,8 @@ public class HttpSessionVisitorFactorySetup {
 		return dynamiceProxyisCached;
 	}
 
-	
-	
+	public SessionCacheStats getSessionCacheStats() {
+		return sessionCacheStats;
+	}
+
 }
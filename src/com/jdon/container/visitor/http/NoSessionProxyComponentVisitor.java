@@ -15,7 +15,6 @@
  */
 package com.jdon.container.visitor.http;
 
-import com.jdon.container.access.TargetMetaRequest;
 import com.jdon.container.access.TargetMetaRequestsHolder;
 import com.jdon.container.visitor.ComponentVisitor;
 import com.jdon.container.visitor.data.SessionContext;
@@ -42,10 +41,6 @@ public class NoSessionProxyComponentVisitor implements ComponentVisitor {
 	public Object visit() {
 		Object o = null;
 		try {
-			TargetMetaRequest targetMetaRequest = targetMetaRequestsHolder.getTargetMetaRequest();
-			StringBuffer sb = new StringBuffer(targetMetaRequest.getTargetMetaDef().getCacheKey());
-			sb.append(targetMetaRequest.getVisitableName());
-			Debug.logVerbose("[JdonFramework] get the optimized instance for the key " + sb.toString(), module);
 			o = componentVisitor.visit();
 		} catch (Exception e) {
 			Debug.logError("[JdonFramework]visit error: " + e);
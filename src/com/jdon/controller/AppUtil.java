@@ -12,6 +12,7 @@ import com.jdon.controller.context.application.DemoSessionWrapper;
 import com.jdon.controller.context.application.MockRequest;
 import com.jdon.controller.service.Service;
 import com.jdon.controller.service.ServiceFacade;
+import com.jdon.controller.service.ServiceHandle;
 import com.jdon.model.handler.HandlerMethodMetaArgsFactory;
 import com.jdon.util.Debug;
 
@@ -20,6 +21,8 @@ public class AppUtil extends Application {
 
 	private final ContainerSetupScript css = new ContainerSetupScript();
 	private final static ContainerFinderImp scf = new ContainerFinderImp();
+	private final static ServiceFacade serviceFacade = new ServiceFacade();
+	private final static HandlerMethodMetaArgsFactory maFactory = new HandlerMethodMetaArgsFactory();
 
 	public AppUtil(String fileName) {
 		css.prepare(fileName, this);
@@ -35,12 +38,10 @@ public class AppUtil extends Application {
 	}
 
 	public Object getService(String name) {
-		ServiceFacade serviceFacade = new ServiceFacade();
 		return serviceFacade.getServiceFactory(this).getService(name, createDemoRequest());
 	}
 
 	public Object getService(TargetMetaDef targetMetaDef) {
-		ServiceFacade serviceFacade = new ServiceFacade();
 		return serviceFacade.getServiceFactory(this).getService(targetMetaDef, createDemoRequest());
 	}
 
@@ -57,10 +58,8 @@ public class AppUtil extends Application {
 		Debug.logVerbose("[JdonFramework] call the method: " + methodName + " for the service: " + serviceName, module);
 		Object result = null;
 		try {
-			HandlerMethodMetaArgsFactory maFactory = new HandlerMethodMetaArgsFactory();
 			MethodMetaArgs methodMetaArgs = maFactory.createDirectMethod(methodName, methodParams);
 
-			ServiceFacade serviceFacade = new ServiceFacade();
 			Service service = serviceFacade.getService(this);
 			result = service.execute(serviceName, methodMetaArgs, createDemoRequest());
 		} catch (Exception ex) {
@@ -70,6 +69,17 @@ public class AppUtil extends Application {
 		return result;
 	}
 
+	/**
+	 * @see WebAppUtil#handle(String, String, Class[], javax.servlet.ServletContext)
+	 */
+	public ServiceHandle handle(String serviceName, String methodName, Class[] paramTypes) throws Exception {
+		return serviceFacade.getServiceHandle(this, serviceName, methodName, paramTypes);
+	}
+
+	public Object callService(ServiceHandle handle, Object[] methodParams) throws Exception {
+		return handle.call(methodParams, createDemoRequest());
+	}
+
 	public String getContainerKey() {
 		return ContainerRegistryBuilder.APPLICATION_CONTEXT_ATTRIBUTE_NAME;
 	}
@@ -31,6 +31,7 @@ import com.jdon.controller.context.web.ServletContextWrapper;
 import com.jdon.controller.service.Service;
 import com.jdon.controller.service.ServiceFacade;
 import com.jdon.controller.service.ServiceFactory;
+import com.jdon.controller.service.ServiceHandle;
 import com.jdon.model.handler.HandlerMethodMetaArgsFactory;
 import com.jdon.util.Debug;
 
@@ -48,6 +49,10 @@ public class WebAppUtil {
 
 	private final static ContainerFinderImp scf = new ContainerFinderImp();
 
+	private final static ServiceFacade serviceFacade = new ServiceFacade();
+
+	private final static HandlerMethodMetaArgsFactory maFactory = new HandlerMethodMetaArgsFactory();
+
 	/**
 	 * get a service from jdonframework.xml's service configure. the service
 	 * maybe is a pojo service or a ejb service.
@@ -76,7 +81,6 @@ public class WebAppUtil {
 	 * @throws Exception
 	 */
 	public static Object getService(String name, HttpServletRequest request) {
-		ServiceFacade serviceFacade = new ServiceFacade();
 		ServletContext sc = request.getSession().getServletContext();
 		ServiceFactory serviceFactory = serviceFacade.getServiceFactory(new ServletContextWrapper(sc));
 		RequestWrapper requestW = new HttpServletRequestWrapper(request);
@@ -95,14 +99,12 @@ public class WebAppUtil {
 	 * @return
 	 */
 	public static Object getService(String name, ServletContext sc) {
-		ServiceFacade serviceFacade = new ServiceFacade();
 		AppContextWrapper acw = new ServletContextWrapper(sc);
 		ServiceFactory serviceFactory = serviceFacade.getServiceFactory(acw);
 		return serviceFactory.getService(name, acw);
 	}
 
 	public static Object getService(TargetMetaDef targetMetaDef, HttpServletRequest request) {
-		ServiceFacade serviceFacade = new ServiceFacade();
 		ServletContext sc = request.getSession().getServletContext();
 		ServiceFactory serviceFactory = serviceFacade.getServiceFactory(new ServletContextWrapper(sc));
 		RequestWrapper requestW = new HttpServletRequestWrapper(request);
@@ -182,10 +184,8 @@ public class WebAppUtil {
 		Debug.logVerbose("[JdonFramework] call the method: " + methodName + " for the service: " + serviceName, module);
 		Object result = null;
 		try {
-			HandlerMethodMetaArgsFactory maFactory = new HandlerMethodMetaArgsFactory();
 			MethodMetaArgs methodMetaArgs = maFactory.createDirectMethod(methodName, methodParams);
 
-			ServiceFacade serviceFacade = new ServiceFacade();
 			ServletContext sc = request.getSession().getServletContext();
 			Service service = serviceFacade.getService(new ServletContextWrapper(sc));
 			RequestWrapper requestW = new HttpServletRequestWrapper(request);
@@ -197,6 +197,43 @@ public class WebAppUtil {
 		return result;
 	}
 
+	/**
+	 * find a service method once, and return a handle to call it many times,
+	 * the container, the service meta and the method will not be looked up
+	 * again in every call. only pojo service is supported.
+	 * 
+	 * usage:
+	 * 
+	 * <pre>
+	 * ServiceHandle h = WebAppUtil.handle(&quot;forumService&quot;, &quot;getForum&quot;, new Class[] { Long.class }, sc);
+	 * Forum forum = (Forum) WebAppUtil.callService(h, new Object[] { forumId }, request);
+	 * </pre>
+	 * 
+	 * @param serviceName
+	 *            the service name in jdonframework.xml or @Service
+	 * @param methodName
+	 *            the method name
+	 * @param paramTypes
+	 *            the parameter types of the method
+	 * @param sc
+	 * @return the thread-safe ServiceHandle
+	 * @throws Exception
+	 *             the service or the method not found
+	 */
+	public static ServiceHandle handle(String serviceName, String methodName, Class[] paramTypes, ServletContext sc) throws Exception {
+		return serviceFacade.getServiceHandle(new ServletContextWrapper(sc), serviceName, methodName, paramTypes);
+	}
+
+	/**
+	 * call the service method of the handle.
+	 * 
+	 * @see #handle(String, String, Class[], ServletContext)
+	 */
+	public static Object callService(ServiceHandle handle, Object[] methodParams, HttpServletRequest request) throws Exception {
+		RequestWrapper requestW = new HttpServletRequestWrapper(request, handle.getAppContextWrapper());
+		return handle.call(methodParams, requestW);
+	}
+
 	/**
 	 * get the key for the application container user can directly get his
 	 * container from servletcontext by the key.
@@ -15,7 +15,15 @@
 
 package com.jdon.controller.cache;
 
+import com.jdon.cache.CacheSnapshot;
+import com.jdon.cache.CacheSnapshotConf;
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsAware;
+import com.jdon.cache.CacheStatsRegistry;
 import com.jdon.cache.CacheableWrapper;
+import com.jdon.cache.NearCache;
+import com.jdon.cache.NearCacheConf;
+import com.jdon.cache.TimerWheel;
 import com.jdon.container.pico.Startable;
 import com.jdon.util.Debug;
 
@@ -37,23 +45,85 @@ public class CacheManager implements Startable {
 
 	private Cache cache;
 
+	private CacheSnapshot snapshot;
+
+	private final CacheStats stats = CacheStatsRegistry.getStats(CacheStatsRegistry.CACHE);
+
 	public CacheManager(Cache cache) {
 		this.cache = cache;
 	}
 
+	/**
+	 * put a NearCache in front of the cache component
+	 */
+	public CacheManager(Cache cache, NearCacheConf nearCacheConf) {
+		this.cache = new NearCache(cache, nearCacheConf.getSize(), nearCacheConf.getTtl());
+	}
+
+	/**
+	 * save the cache into a snapshot when stopping, and reload it when
+	 * starting again
+	 */
+	public CacheManager(Cache cache, CacheSnapshotConf cacheSnapshotConf) {
+		this(cache);
+		this.snapshot = new CacheSnapshot(cacheSnapshotConf);
+	}
+
+	public CacheManager(Cache cache, NearCacheConf nearCacheConf, CacheSnapshotConf cacheSnapshotConf) {
+		this(cache, nearCacheConf);
+		this.snapshot = new CacheSnapshot(cacheSnapshotConf);
+	}
+
 	public void start() {
 		Debug.logVerbose("[JdonFramework]CacheFactory start .....", module);
+		stats.setCache(cache);
+		if (cache instanceof CacheStatsAware)
+			((CacheStatsAware) cache).setCacheStats(stats);
 		clear();
+		if (snapshot != null)
+			snapshot.restore(cache);
 	}
 
 	public void stop() {
+		if (snapshot != null && cache != null)
+			snapshot.save(cache);
 		clear();
+		stats.setCache(null);
 		cache = null;
+		// the expiry thread must not keep the web application
+		TimerWheel.getInstance().stop();
 	}
 
 	public void clear() {
 		if (cache != null)
 			cache.clear();
+		if (snapshot != null)
+			snapshot.clear();
+	}
+
+	/**
+	 * the loader of the keys saved without values by the snapshot, they are
+	 * replayed when it is set.
+	 */
+	public void setSnapshotLoader(SnapshotLoader loader) {
+		if (snapshot != null)
+			snapshot.setLoader(loader);
+	}
+
+	/**
+	 * remove the values of the cacheType reloaded by the snapshot, for the
+	 * managers that only remove the keys they saved.
+	 */
+	public void removeRestored(String cacheType) {
+		if (snapshot != null && cache != null)
+			snapshot.removeRestored(cache, cacheType);
+	}
+
+	/**
+	 * @return null if there is no cacheSnapshotConf
+	 */
+	public CacheSnapshot getSnapshot() {
+		return snapshot;
 	}
 
 	/**
@@ -63,18 +133,24 @@ public class CacheManager implements Startable {
 	 * @return
 	 */
 	public Object fetchObject(StringKey skey) {
-		Debug.logVerbose("[JdonFramework]<-cache->try to get cache: " + skey, module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->try to get cache: " + skey, module);
 		return fetchObject(skey.getKey());
 	}
 
 	public Object fetchObject(String skey) {
-		Debug.logVerbose("[JdonFramework]<-cache->try to get cache: " + skey, module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->try to get cache: " + skey, module);
 		CacheableWrapper cw = (CacheableWrapper) cache.get(skey);
 		if (cw != null) {
-			Debug.logVerbose("[JdonFramework]<-cache->got it, hashcode=" + cw.hashCode(), module);
+			stats.hit();
+			if (Debug.verboseOn())
+				Debug.logVerbose("[JdonFramework]<-cache->got it, hashcode=" + cw.hashCode(), module);
 			return cw.getCachedValue();
-		} else
+		} else {
+			stats.miss();
 			return null;
+		}
 	}
 
 	/**
@@ -87,14 +163,35 @@ public class CacheManager implements Startable {
 		if (ckey == null)
 			return;
 		cache.put(ckey.getKey(), new CacheableWrapper(ckey.getDataKey(), value));
-		Debug.logVerbose("[JdonFramework]<-cache->save cache: " + ckey.getKey() + ", cache size:" + cache.size(), module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->save cache: " + ckey.getKey() + ", cache size:" + cache.size(), module);
+	}
+
+	/**
+	 * save with its own time to live, if the cache component is a TtlCache;
+	 * otherwise the time to live of the cache is used.
+	 * 
+	 * @param ttl
+	 *            milliseconds, 0 for the default time to live of the cache
+	 */
+	public void putObect(CacheKey ckey, Object value, long ttl) {
+		if (ckey == null)
+			return;
+		CacheableWrapper cw = new CacheableWrapper(ckey.getDataKey(), value);
+		if (cache instanceof TtlCache)
+			((TtlCache) cache).put(ckey.getKey(), cw, ttl);
+		else
+			cache.put(ckey.getKey(), cw);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->save cache: " + ckey.getKey() + " ttl=" + ttl + ", cache size:" + cache.size(), module);
 	}
 
 	public void putObect(String skey, Object value) {
 		if (skey == null)
 			return;
 		cache.put(skey, new CacheableWrapper(skey, value));
-		Debug.logVerbose("[JdonFramework]<-cache->save cache: " + skey + ", cache size:" + cache.size(), module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->save cache: " + skey + ", cache size:" + cache.size(), module);
 	}
 
 	/**
@@ -106,14 +203,18 @@ public class CacheManager implements Startable {
 		if (skey == null)
 			return;
 		cache.remove(skey.getKey());
-		Debug.logVerbose("[JdonFramework]<-cache->remove the object of " + skey + " from cache", module);
+		stats.invalidated();
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->remove the object of " + skey + " from cache", module);
 	}
 
 	public void removeObect(String skey) {
 		if (skey == null)
 			return;
 		cache.remove(skey);
-		Debug.logVerbose("[JdonFramework]<-cache->remove the object of " + skey + " from cache", module);
+		stats.invalidated();
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]<-cache->remove the object of " + skey + " from cache", module);
 	}
 
 	/**
@@ -146,4 +247,12 @@ public class CacheManager implements Startable {
 		return cache;
 	}
 
+	/**
+	 * @return the stats of the whole cache, the roles are counted by the
+	 *         managers that use it
+	 */
+	public CacheStats getStats() {
+		return stats;
+	}
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.controller.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class CacheManagerTest extends TestCase {
+
+	static class MapCache implements Cache {
+		final Map map = new HashMap();
+
+		public synchronized Object get(Object key) {
+			return map.get(key);
+		}
+
+		public synchronized void put(Object key, Object value) {
+			map.put(key, value);
+		}
+
+		public synchronized void remove(Object key) {
+			map.remove(key);
+		}
+
+		public synchronized long size() {
+			return map.size();
+		}
+
+		public synchronized void clear() {
+			map.clear();
+		}
+
+		public synchronized boolean contain(Object key) {
+			return map.containsKey(key);
+		}
+
+		public synchronized Collection keySet() {
+			return map.keySet();
+		}
+	}
+
+	static class MapTtlCache extends MapCache implements TtlCache {
+		final Map ttls = new HashMap();
+
+		public synchronized void put(Object key, Object value, long ttl) {
+			put(key, value);
+			ttls.put(key, new Long(ttl));
+		}
+	}
+
+	public void testTtlIsPassedToTtlCache() {
+		MapTtlCache cache = new MapTtlCache();
+		CacheManager cacheManager = new CacheManager(cache);
+		CacheKey key = new CacheKey("Model", "1", "Account");
+		cacheManager.putObect(key, "account", 5000);
+		Assert.assertEquals("account", cacheManager.fetchObject(key));
+		Assert.assertEquals(new Long(5000), cache.ttls.get(key.getKey()));
+	}
+
+	public void testTtlIsIgnoredByPlainCache() {
+		MapCache cache = new MapCache();
+		CacheManager cacheManager = new CacheManager(cache);
+		CacheKey key = new CacheKey("Model", "1", "Account");
+		cacheManager.putObect(key, "account", 5000);
+		Assert.assertEquals("account", cacheManager.fetchObject(key));
+	}
+
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.controller.cache;
+
+/**
+ * a cached object (a ModelIF for example) can implement it to tell the
+ * cache its heap bytes, instead of the estimate of com.jdon.cache.DefaultWeigher.
+ *
+ */
+public interface Sizeable {
+
+	/**
+	 * @return the estimated heap bytes of this object and the objects only
+	 *         referenced by it.
+	 */
+	public long sizeOf();
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.controller.cache;
+
+/**
+ * loads the values of the keys that the cache snapshot saved without a value
+ * (not serializable, or the snapshot saves keys only), registered by
+ * CacheManager.setSnapshotLoader.
+ *
+ * it is called by the threads of the warm start, not by a request.
+ *
+ * @see com.jdon.model.cache.ModelCacheKeyFactory#getModelClassName
+ */
+public interface SnapshotLoader {
+
+	/**
+	 * @param key
+	 *            the cache key: cacheType + dataTypeName + dataKey, see
+	 *            CacheKey
+	 * @param dataKey
+	 *            the id of the data
+	 * @return the value to be cached, null if the key is not known
+	 */
+	public Object load(String key, String dataKey) throws Exception;
+
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.controller.cache;
+
+/**
+ * a Cache whose elements can have their own time to live, CacheManager
+ * uses it when the cache component implements it.
+ *
+ * @see CacheManager#putObect(CacheKey, Object, long)
+ */
+public interface TtlCache extends Cache {
+
+	/**
+	 * put the value with its own time to live
+	 * 
+	 * @param ttl
+	 *            milliseconds, 0 for the default time to live of the cache
+	 */
+	public void put(Object key, Object value, long ttl);
+
+}
@@ -15,9 +15,17 @@ public class HttpServletRequestWrapper implements RequestWrapper {
 	private ContextHolder contextHolder;
 	
 	public HttpServletRequestWrapper(HttpServletRequest request) {
+		this(request, new ServletContextWrapper(request.getSession().getServletContext()));
+	}
+
+	/**
+	 * @param acw
+	 *            the ServletContextWrapper of this web application, it can be
+	 *            shared by all requests.
+	 */
+	public HttpServletRequestWrapper(HttpServletRequest request, AppContextWrapper acw) {
 		super();
 		this.request = request;
-		AppContextWrapper acw = new ServletContextWrapper(request.getSession().getServletContext());
 		SessionWrapper sw = new HttpSessionWrapper(request.getSession());
 		this.contextHolder = new ContextHolder(acw, sw);
 	}
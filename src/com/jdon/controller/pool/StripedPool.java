@@ -0,0 +1,373 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jdon.controller.pool;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.jdon.bussinessproxy.target.TargetServiceFactory;
+import com.jdon.util.Debug;
+import com.jdon.util.StripedCounter;
+
+/**
+ * lock-free object pool for Poolable services.
+ *
+ * every pooled object lives in a slot, a slot is borrowed by a CAS on its
+ * state, no lock is held in acquirePoolable/releasePoolable:
+ * <ul>
+ * <li>thread-affine: a thread first tries the slot it used last time, in
+ * most case this is a hit without touching any shared data. the thread keeps
+ * the index of the slot only, not the object, so a released object is not
+ * pinned to the threads of the container.</li>
+ * <li>striped: otherwise the thread scans the slots from a start index
+ * derived from its thread id, so threads don't fight for the same slot.</li>
+ * <li>if no object is idle, a new one is created until maxPoolSize, after
+ * that the thread waits (spin then park) for a released object.</li>
+ * </ul>
+ *
+ * objects are destroyed only by close(), so the pool holds as many objects
+ * as the peak concurrency of the service. a slot whose object could not be
+ * created is empty, the next create() fills it again.
+ *
+ * <p>@author <a href="mailto:banqiao@jdon.com">banq</a></p>
+ */
+public class StripedPool implements Pool {
+	private final static String module = StripedPool.class.getName();
+
+	private final static int FREE = 0;
+	private final static int IN_USE = 1;
+	// slot of a object that failed to be created, create() reuses it
+	private final static int EMPTY = 2;
+	// the object is destroyed by close()
+	private final static int CLOSED = 3;
+
+	private final static long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final TargetServiceFactory targetServiceFactory;
+
+	private final AtomicReferenceArray<PoolEntry> slots;
+
+	// count of slots that has been claimed by created objects
+	private final AtomicInteger size = new AtomicInteger();
+
+	// the index of the slot used last by the thread, -1 is none
+	private final ThreadLocal<int[]> lastSlot = new ThreadLocal<int[]>() {
+		protected int[] initialValue() {
+			return new int[] { -1 };
+		}
+	};
+
+	private volatile int maxPoolSize;
+
+	// -1 is waiting forever
+	private volatile long maxWait = -1;
+
+	private volatile boolean closed;
+
+	private final StripedCounter borrowCount = new StripedCounter();
+	private final StripedCounter hitCount = new StripedCounter();
+	private final StripedCounter affinityHitCount = new StripedCounter();
+	private final StripedCounter waitCount = new StripedCounter();
+	private final StripedCounter waitTime = new StripedCounter();
+
+	public StripedPool(TargetServiceFactory targetServiceFactory, int maxPoolSize) {
+		if (maxPoolSize <= 0)
+			throw new IllegalArgumentException("maxPoolSize must be > 0");
+		this.targetServiceFactory = targetServiceFactory;
+		this.maxPoolSize = maxPoolSize;
+		this.slots = new AtomicReferenceArray<PoolEntry>(maxPoolSize);
+	}
+
+	/**
+	 * the capacity of slots is fixed by constructor, the max pool size can
+	 * only be changed below it.
+	 */
+	public void setMaxPoolSize(int maxPoolSize) {
+		if (maxPoolSize > slots.length()) {
+			Debug.logError("[JdonFramework] max pool size " + maxPoolSize + " is bigger than pool capacity " + slots.length(), module);
+			maxPoolSize = slots.length();
+		}
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	/**
+	 * @param maxWait
+	 *            max milliseconds to wait for a idle object when the pool is
+	 *            exhausted, -1 is waiting forever.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	public Object acquirePoolable() throws Exception {
+		if (closed)
+			throw new Exception("[JdonFramework] Pool is closed");
+		borrowCount.increment();
+		int[] last = lastSlot.get();
+		PoolEntry entry = last[0] < 0 ? null : slots.get(last[0]);
+		if (entry != null && entry.object != null && entry.tryAcquire()) {
+			affinityHitCount.increment();
+			hitCount.increment();
+			return entry.object;
+		}
+		entry = scan();
+		if (entry != null) {
+			hitCount.increment();
+		} else {
+			entry = create();
+			if (entry == null)
+				entry = await();
+		}
+		last[0] = entry.index;
+		return entry.object;
+	}
+
+	public void releasePoolable(Object target) throws Exception {
+		int[] last = lastSlot.get();
+		PoolEntry entry = last[0] < 0 ? null : slots.get(last[0]);
+		if (entry == null || entry.object != target) {
+			entry = find(target);
+		}
+		if (entry == null) {
+			Debug.logError("[JdonFramework] the released object is not from this pool:" + target.getClass().getName(), module);
+			return;
+		}
+		if (closed) {
+			destroy(entry);
+			return;
+		}
+		entry.release();
+	}
+
+	private PoolEntry scan() {
+		int n = size.get();
+		if (n == 0)
+			return null;
+		long id = Thread.currentThread().getId();
+		int start = (int) (id % n);
+		for (int i = 0; i < n; i++) {
+			PoolEntry entry = slots.get((start + i) % n);
+			// entry is null when its object is being created
+			if (entry != null && entry.tryAcquire())
+				return entry;
+		}
+		return null;
+	}
+
+	private PoolEntry create() throws Exception {
+		int index = claimEmpty();
+		if (index < 0) {
+			do {
+				index = size.get();
+				if (index >= maxPoolSize)
+					return null;
+			} while (!size.compareAndSet(index, index + 1));
+		}
+
+		Object o = null;
+		try {
+			o = targetServiceFactory.create();
+		} catch (Exception ex) {
+			Debug.logError("[JdonFramework] Pool can not make object, error: " + ex, module);
+		}
+		if (o == null) {
+			// give back the slot only if no one claimed a slot after us,
+			// otherwise it is empty until the next create()
+			if (!size.compareAndSet(index + 1, index))
+				slots.set(index, new PoolEntry(null, EMPTY, index));
+			throw new Exception("[JdonFramework] Pool can not make object");
+		}
+		PoolEntry entry = new PoolEntry(o, IN_USE, index);
+		slots.set(index, entry);
+		return entry;
+	}
+
+	// a slot left by a failed create(), -1 if none
+	private int claimEmpty() {
+		int n = Math.min(size.get(), maxPoolSize);
+		for (int i = 0; i < n; i++) {
+			PoolEntry entry = slots.get(i);
+			if (entry != null && entry.object == null && entry.state.compareAndSet(EMPTY, IN_USE))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * destroys the idle objects, the objects in use are destroyed when they
+	 * are released; acquirePoolable fails after close.
+	 */
+	public void close() {
+		closed = true;
+		int n = size.get();
+		for (int i = 0; i < n; i++) {
+			PoolEntry entry = slots.get(i);
+			if (entry != null && entry.object != null && entry.state.compareAndSet(FREE, CLOSED))
+				destroy(entry);
+		}
+	}
+
+	private void destroy(PoolEntry entry) {
+		entry.state.set(CLOSED);
+		try {
+			targetServiceFactory.destroy();
+		} catch (Exception ex) {
+			Debug.logError("[JdonFramework] Pool can not destroy object, error: " + ex, module);
+		}
+	}
+
+	private PoolEntry await() throws Exception {
+		waitCount.increment();
+		long start = System.nanoTime();
+		long deadline = maxWait < 0 ? Long.MAX_VALUE : start + TimeUnit.MILLISECONDS.toNanos(maxWait);
+		long park = 1000;
+		try {
+			while (true) {
+				PoolEntry entry = scan();
+				if (entry == null)
+					entry = create();
+				if (entry != null)
+					return entry;
+				if (System.nanoTime() >= deadline)
+					throw new NoSuchElementException("[JdonFramework] Timeout waiting for idle object, maxPoolSize=" + maxPoolSize);
+				LockSupport.parkNanos(park);
+				if (park < MAX_PARK_NANOS)
+					park <<= 1;
+				if (Thread.interrupted())
+					throw new InterruptedException();
+			}
+		} finally {
+			waitTime.add(System.nanoTime() - start);
+		}
+	}
+
+	private PoolEntry find(Object target) {
+		int n = size.get();
+		for (int i = 0; i < n; i++) {
+			PoolEntry entry = slots.get(i);
+			if (entry != null && entry.object == target)
+				return entry;
+		}
+		return null;
+	}
+
+	private int count(int state) {
+		int count = 0;
+		int n = size.get();
+		for (int i = 0; i < n; i++) {
+			PoolEntry entry = slots.get(i);
+			if (entry != null && entry.object != null && entry.state.get() == state)
+				count++;
+		}
+		return count;
+	}
+
+	public int getNumActive() {
+		return count(IN_USE);
+	}
+
+	public int getNumIdle() {
+		return count(FREE);
+	}
+
+	/**
+	 * @return how many objects has been created and not destroyed.
+	 */
+	public int getNumCreated() {
+		return count(FREE) + count(IN_USE);
+	}
+
+	public long getBorrowCount() {
+		return borrowCount.sum();
+	}
+
+	/**
+	 * @return how many borrows got a idle object without creating or waiting.
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * @return how many borrows got the object that this thread used last time.
+	 */
+	public long getAffinityHitCount() {
+		return affinityHitCount.sum();
+	}
+
+	public double getHitRate() {
+		long borrows = borrowCount.sum();
+		return borrows == 0 ? 0 : (double) hitCount.sum() / borrows;
+	}
+
+	/**
+	 * @return how many borrows waited because the pool is exhausted.
+	 */
+	public long getWaitCount() {
+		return waitCount.sum();
+	}
+
+	/**
+	 * @return total borrow-wait time in milliseconds.
+	 */
+	public long getWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(waitTime.sum());
+	}
+
+	/**
+	 * @return active objects / max pool size.
+	 */
+	public double getUtilization() {
+		return (double) getNumActive() / maxPoolSize;
+	}
+
+	public String toString() {
+		return "maxPoolSize=" + maxPoolSize + " created=" + getNumCreated() + " active=" + getNumActive() + " borrow=" + getBorrowCount()
+				+ " hitRate=" + getHitRate() + " wait=" + getWaitCount() + " waitTime=" + getWaitTime() + "ms";
+	}
+
+	static class PoolEntry {
+		final Object object;
+		final AtomicInteger state;
+		final int index;
+
+		PoolEntry(Object object, int state, int index) {
+			this.object = object;
+			this.state = new AtomicInteger(state);
+			this.index = index;
+		}
+
+		boolean tryAcquire() {
+			return state.get() == FREE && state.compareAndSet(FREE, IN_USE);
+		}
+
+		void release() {
+			state.set(FREE);
+		}
+	}
+
+}
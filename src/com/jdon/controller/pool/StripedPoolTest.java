@@ -0,0 +1,177 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.controller.pool;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.bussinessproxy.target.TargetServiceFactory;
+
+public class StripedPoolTest extends TestCase {
+
+	static class CountingFactory implements TargetServiceFactory {
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger destroyed = new AtomicInteger();
+		volatile int failures;
+		// the failing create waits for it
+		volatile CountDownLatch failLatch;
+
+		public Object create() {
+			synchronized (this) {
+				if (failures > 0) {
+					failures--;
+				} else {
+					created.incrementAndGet();
+					return new Object();
+				}
+			}
+			try {
+				if (failLatch != null)
+					failLatch.await();
+			} catch (InterruptedException e) {
+			}
+			return null;
+		}
+
+		public Object destroy() {
+			destroyed.incrementAndGet();
+			return null;
+		}
+	}
+
+	public void testFailedCreateIsRetried() throws Exception {
+		CountingFactory factory = new CountingFactory();
+		StripedPool pool = new StripedPool(factory, 2);
+		factory.failures = 1;
+		try {
+			pool.acquirePoolable();
+			fail("the factory failed");
+		} catch (Exception e) {
+		}
+		Object a = pool.acquirePoolable();
+		Object b = pool.acquirePoolable();
+		Assert.assertNotSame(a, b);
+		Assert.assertEquals(2, pool.getNumActive());
+	}
+
+	public void testReleasedObjectIsNotPinnedToTheThread() throws Exception {
+		StripedPool pool = new StripedPool(new CountingFactory(), 2);
+		Object o = pool.acquirePoolable();
+		pool.releasePoolable(o);
+		// the thread gets its slot again
+		Assert.assertSame(o, pool.acquirePoolable());
+		Assert.assertEquals(1, pool.getAffinityHitCount());
+		pool.releasePoolable(o);
+		WeakReference ref = new WeakReference(o);
+		o = null;
+		pool = null;
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull("the thread still holds the pooled object", ref.get());
+	}
+
+	public void testEmptySlotIsFilledAgain() throws Exception {
+		final CountingFactory factory = new CountingFactory();
+		final StripedPool pool = new StripedPool(factory, 2);
+		pool.setMaxWait(1000);
+		factory.failures = 1;
+		factory.failLatch = new CountDownLatch(1);
+		final CountDownLatch failed = new CountDownLatch(1);
+		// claims the first slot and fails after the second slot is claimed
+		new Thread() {
+			public void run() {
+				try {
+					pool.acquirePoolable();
+				} catch (Exception e) {
+					failed.countDown();
+				}
+			}
+		}.start();
+		while (factory.failures > 0)
+			Thread.sleep(1);
+		Object a = pool.acquirePoolable();
+		factory.failLatch.countDown();
+		failed.await();
+		Assert.assertEquals(1, pool.getNumCreated());
+
+		// the empty slot is the capacity of one object
+		Object b = pool.acquirePoolable();
+		Assert.assertNotSame(a, b);
+		Assert.assertEquals(2, pool.getNumActive());
+		Assert.assertEquals(2, factory.created.get());
+	}
+
+	public void testCloseDestroysObjects() throws Exception {
+		CountingFactory factory = new CountingFactory();
+		StripedPool pool = new StripedPool(factory, 4);
+		Object a = pool.acquirePoolable();
+		Object b = pool.acquirePoolable();
+		pool.releasePoolable(a);
+		pool.close();
+		Assert.assertEquals(1, factory.destroyed.get());
+		// the object in use is destroyed when it comes back
+		pool.releasePoolable(b);
+		Assert.assertEquals(2, factory.destroyed.get());
+		Assert.assertEquals(0, pool.getNumCreated());
+		try {
+			pool.acquirePoolable();
+			fail("the pool is closed");
+		} catch (Exception e) {
+		}
+	}
+
+	public void testConcurrentBorrowsStayInMaxPoolSize() throws Exception {
+		final CountingFactory factory = new CountingFactory();
+		final StripedPool pool = new StripedPool(factory, 4);
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		final AtomicInteger errors = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(8);
+		for (int t = 0; t < 8; t++) {
+			new Thread() {
+				public void run() {
+					try {
+						for (int i = 0; i < 2000; i++) {
+							Object o = pool.acquirePoolable();
+							int n = active.incrementAndGet();
+							if (n > maxActive.get())
+								maxActive.set(n);
+							active.decrementAndGet();
+							pool.releasePoolable(o);
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		done.await();
+		Assert.assertEquals(0, errors.get());
+		Assert.assertTrue(maxActive.get() <= 4);
+		Assert.assertTrue(factory.created.get() <= 4);
+		Assert.assertEquals(0, pool.getNumActive());
+		Assert.assertEquals(16000, pool.getBorrowCount());
+	}
+
+}
@@ -15,7 +15,11 @@
  */
 package com.jdon.controller.service;
 
+import java.lang.reflect.Method;
+
+import com.jdon.bussinessproxy.TargetMetaDef;
 import com.jdon.container.ContainerWrapper;
+import com.jdon.container.access.TargetMetaDefHolder;
 import com.jdon.container.finder.ComponentKeys;
 import com.jdon.container.finder.ContainerFinder;
 import com.jdon.container.finder.ContainerFinderImp;
@@ -59,4 +63,30 @@ public class ServiceFacade {
         ServiceFactory serviceFactory = (ServiceFactory)containerWrapper.lookup(ComponentKeys.WEBSERVICE_FACTORY);        
         return serviceFactory;
     }
+    
+    /**
+     * find the service and its method once, the returned handle can be kept 
+     * and called many times.
+     * 
+     * @param name the service name
+     * @param methodName the method of the service
+     * @param paramTypes the parameter types of the method
+     * @return the ServiceHandle
+     * @throws Exception if the service or the method is not found
+     */
+    public ServiceHandle getServiceHandle(AppContextWrapper sc, String name, String methodName, Class[] paramTypes) throws Exception {
+        ContainerWrapper containerWrapper = containerFinder.findContainer(sc);
+        if (containerWrapper == null || !containerWrapper.isStart())
+            throw new Exception("[JdonFramework] JdonFramework not yet started, please try later");
+        Service service = (Service)containerWrapper.lookup(ComponentKeys.WEBSERVICE);
+        TargetMetaDefHolder targetMetaDefHolder = (TargetMetaDefHolder) containerWrapper.lookup(ComponentKeys.SERVICE_METAHOLDER_NAME);
+        TargetMetaDef targetMetaDef = targetMetaDefHolder.getTargetMetaDef(name);
+        if (targetMetaDef == null)
+            throw new Exception("[JdonFramework] not found the service for name:" + name);
+        Class serviceClass = containerWrapper.getComponentClass(name);
+        if (serviceClass == null)
+            throw new Exception("[JdonFramework] not found the service class for name:" + name);
+        Method method = serviceClass.getMethod(methodName, paramTypes);
+        return new ServiceHandle(service, targetMetaDef, serviceClass, method, sc);
+    }
 }
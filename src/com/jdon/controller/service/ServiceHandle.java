@@ -0,0 +1,104 @@
+/*
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.controller.service;
+
+import java.lang.reflect.Method;
+
+import com.jdon.bussinessproxy.TargetMetaDef;
+import com.jdon.bussinessproxy.meta.MethodMetaArgs;
+import com.jdon.controller.context.AppContextWrapper;
+import com.jdon.controller.context.RequestWrapper;
+
+/**
+ * a pre-resolved service method.
+ *
+ * the container, the TargetMetaDef and the method of the service are found
+ * once when the handle is created, every call only creates the arguments.
+ * the handle is immutable and thread-safe, create it once and keep it:
+ *
+ * <pre>
+ * private final static ServiceHandle h = WebAppUtil.handle(&quot;forumService&quot;, &quot;getForum&quot;, new Class[] { Long.class }, sc);
+ * ...
+ * Forum forum = (Forum) WebAppUtil.callService(h, new Object[] { forumId }, request);
+ * </pre>
+ *
+ * @see com.jdon.controller.WebAppUtil#handle(String, String, Class[],
+ *      javax.servlet.ServletContext)
+ */
+public class ServiceHandle {
+
+	private final Service service;
+
+	private final TargetMetaDef targetMetaDef;
+
+	private final Class serviceClass;
+
+	private final Method method;
+
+	private final Class[] paramTypes;
+
+	private final AppContextWrapper appContextWrapper;
+
+	/**
+	 * @param service
+	 *            the webService component in container
+	 * @param targetMetaDef
+	 * @param serviceClass
+	 *            the class of the service component
+	 * @param method
+	 *            the method of serviceClass
+	 * @param appContextWrapper
+	 *            the application context where the container is found
+	 */
+	public ServiceHandle(Service service, TargetMetaDef targetMetaDef, Class serviceClass, Method method, AppContextWrapper appContextWrapper) {
+		this.service = service;
+		this.targetMetaDef = targetMetaDef;
+		this.serviceClass = serviceClass;
+		this.method = method;
+		this.paramTypes = method.getParameterTypes();
+		this.appContextWrapper = appContextWrapper;
+	}
+
+	/**
+	 * call the service method, all interceptors are active as
+	 * Service.execute.
+	 */
+	public Object call(Object[] args, RequestWrapper request) throws Exception {
+		MethodMetaArgs methodMetaArgs = new MethodMetaArgs(method.getName(), paramTypes, args, method);
+		return service.execute(targetMetaDef, methodMetaArgs, request);
+	}
+
+	public TargetMetaDef getTargetMetaDef() {
+		return targetMetaDef;
+	}
+
+	public Class getServiceClass() {
+		return serviceClass;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public AppContextWrapper getAppContextWrapper() {
+		return appContextWrapper;
+	}
+
+	public String toString() {
+		return targetMetaDef.getName() + "." + method.getName();
+	}
+
+}
@@ -47,7 +47,8 @@ public class WebServiceFactory implements ServiceFactory {
 
 	public Object getService(String name, RequestWrapper request) {
 		Debug.logVerbose("<==============================>start: JdonFramework core entrance", module);
-		Debug.logVerbose("<===============>Looking up new service='" + name + "'", module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("<===============>Looking up new service='" + name + "'", module);
 		ContainerWrapper cw = containerCallback.getContainerWrapper();
 		if (!cw.isStart()) {
 			Debug.logError("JdonFramework not yet started, please try later ", module);
@@ -56,9 +57,11 @@ public class WebServiceFactory implements ServiceFactory {
 		TargetMetaDef targetMetaDef = userTargetMetaDefFactory.getTargetMetaDef(name, cw);
 		if (targetMetaDef == null)
 			return null;
-		Debug.logVerbose("[JdonFramework] service=" + name + "  found, and now return the service instance", module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] service=" + name + "  found, and now return the service instance", module);
 		Object result = getService(targetMetaDef, request);
-		Debug.logVerbose("<===============>found service='" + name + "'  instance and return  it successfully!", module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("<===============>found service='" + name + "'  instance and return  it successfully!", module);
 		Debug.logVerbose("<==============================>over", module);
 		return result;
 	}
@@ -87,7 +90,8 @@ public class WebServiceFactory implements ServiceFactory {
 		TargetMetaDef targetMetaDef = userTargetMetaDefFactory.getTargetMetaDef(name, cw);
 		if (targetMetaDef == null)
 			return null;
-		Debug.logVerbose("[JdonFramework] service=" + name + "  found, and now return the service instance", module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] service=" + name + "  found, and now return the service instance", module);
 		Object result = getService(targetMetaDef, acw);
 		return result;
 	}
@@ -53,26 +53,34 @@ public class WebServiceImp implements Service{
             Debug.logWarning(" methodMetaArgs is null. cann't invoke service.execute");
         }
         Debug.logVerbose("++++++++++++++++++++++++++++++<begin: invoking from jdonframework.xml", module);
-        Debug.logVerbose("+++++++++++++++execute new service='"+ name + "' method='" + methodMetaArgs.getMethodName() +"'", module);
+        if (Debug.verboseOn())
+            Debug.logVerbose("+++++++++++++++execute new service='"+ name + "' method='" + methodMetaArgs.getMethodName() +"'", module);
         ContainerWrapper cw = containerCallback.getContainerWrapper();
         TargetMetaDef targetMetaDef = userTargetMetaDefFactory.getTargetMetaDef(name, cw);
         if (targetMetaDef == null) return null;        
         Object result = execute(targetMetaDef, methodMetaArgs, request);        
-        Debug.logVerbose("+++++++++++++++execute service='"+ name + "' method='" + methodMetaArgs.getMethodName() + "' successfully!", module);
+        if (Debug.verboseOn())
+            Debug.logVerbose("+++++++++++++++execute service='"+ name + "' method='" + methodMetaArgs.getMethodName() + "' successfully!", module);
         Debug.logVerbose("++++++++++++++++++++++++++++++<end:", module);
         return result;
     }
 
     /**
      * running the service, and return the result
+     * 
+     * the TargetMetaRequest is recycled by the thread and released after the
+     * call, the TargetMetaRequest of a outer call is restored.
      */
     public Object execute( TargetMetaDef targetMetaDef,
                           MethodMetaArgs methodMetaArgs,
                           RequestWrapper request)  throws Exception{
         Debug.logVerbose("[JdonFramework]enter service execution core ", module);
-        userTargetMetaDefFactory.createTargetMetaRequest(targetMetaDef, request.getContextHolder());
-        TargetMetaRequest targetMetaRequest = userTargetMetaDefFactory.targetMetaRequestsHolder.getTargetMetaRequest();
-        targetMetaRequest.setMethodMetaArgs(methodMetaArgs);
-        return webServiceAccessor.execute(request);        
+        TargetMetaRequest targetMetaRequest = userTargetMetaDefFactory.acquireTargetMetaRequest(targetMetaDef, request.getContextHolder());
+        try {
+            targetMetaRequest.setMethodMetaArgs(methodMetaArgs);
+            return webServiceAccessor.execute(request);
+        } finally {
+            userTargetMetaDefFactory.releaseTargetMetaRequest();
+        }
     }
 }
@@ -88,10 +88,19 @@ public class DomainCacheInterceptor implements MethodInterceptor {
 			if (o != null) {
 				return o;
 			}
+			String modelClassName = modelKey.getModelClass() != null ? modelKey.getModelClass().getName() : null;
+			if (modelClassName != null && modelCacheManager.isMissing(modelKey.getDataKey(), modelClassName))
+				return null;
 
+			long stamp = modelCacheManager.missingStamp(modelKey.getDataKey());
+			long start = System.nanoTime();
 			o = invocation.proceed();
-			if (o == null)
+			modelCacheManager.getStats().loaded(System.nanoTime() - start);
+			if (o == null) {
+				if (modelClassName != null)
+					modelCacheManager.saveMissing(modelKey.getDataKey(), modelClassName, stamp);
 				return o;
+			}
 			Debug.logVerbose(" get model from database, cacheKey=" + modelKey.toString(), module);
 		} catch (Exception e) {
 			Debug.logError("invoke:" + e, module);
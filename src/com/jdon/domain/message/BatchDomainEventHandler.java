@@ -0,0 +1,140 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.domain.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.jdon.async.EventMessage;
+import com.jdon.async.disruptor.EventDisruptor;
+import com.jdon.async.disruptor.EventResult;
+
+/**
+ * a consumer that processes the events in batches, e.g. one insert batch and
+ * one commit instead of one of each for every event.
+ *
+ * the DomainMessages are collected until the end of the batch of the ring,
+ * maxBatchSize messages or maxBatchMillis since the first one, then onBatch
+ * is called once; the time is checked at every event, a ring without more
+ * events ends its batch anyway.
+ *
+ * after onBatch, also when it throws, complete() is called for every
+ * message. if completeResults is set, it sets the results onBatch did not
+ * set to null, so no producer waits forever; set it only when this handler
+ * is the last consumer of the topic, the first result set wins and a later
+ * consumer could not set its own.
+ *
+ * @Consumer("mytopic")
+ * public class OrderWriter extends BatchDomainEventHandler {
+ *     protected void onBatch(List<DomainMessage> messages) throws Exception {
+ *         ...
+ *     }
+ * }
+ *
+ */
+public abstract class BatchDomainEventHandler implements DomainEventHandler {
+
+	public final static int DEFAULT_MAX_BATCH_SIZE = 100;
+
+	public final static long DEFAULT_MAX_BATCH_MILLIS = 10;
+
+	private final int maxBatchSize;
+
+	private final long maxBatchNanos;
+
+	private final boolean completeResults;
+
+	private List<DomainMessage> batch;
+
+	private long batchStart;
+
+	public BatchDomainEventHandler() {
+		this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_MILLIS);
+	}
+
+	public BatchDomainEventHandler(int maxBatchSize, long maxBatchMillis) {
+		this(maxBatchSize, maxBatchMillis, false);
+	}
+
+	/**
+	 * @param completeResults
+	 *            set the results onBatch did not set to null, only for the
+	 *            last consumer of the topic
+	 */
+	public BatchDomainEventHandler(int maxBatchSize, long maxBatchMillis, boolean completeResults) {
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxBatchNanos = maxBatchMillis * 1000000L;
+		this.completeResults = completeResults;
+		this.batch = new ArrayList<DomainMessage>(this.maxBatchSize);
+	}
+
+	public void onEvent(EventDisruptor event, boolean endOfBatch) throws Exception {
+		if (batch.isEmpty())
+			batchStart = System.nanoTime();
+		batch.add(event.getDomainMessage());
+		if (endOfBatch || batch.size() >= maxBatchSize || System.nanoTime() - batchStart >= maxBatchNanos)
+			flush();
+	}
+
+	/**
+	 * calls onBatch with the messages collected
+	 */
+	public void flush() throws Exception {
+		if (batch.isEmpty())
+			return;
+		List<DomainMessage> messages = batch;
+		batch = new ArrayList<DomainMessage>(maxBatchSize);
+		try {
+			onBatch(Collections.unmodifiableList(messages));
+		} finally {
+			for (DomainMessage message : messages) {
+				complete(message);
+			}
+		}
+	}
+
+	/**
+	 * @param messages
+	 *            the messages of the batch, in the order of the ring
+	 */
+	protected abstract void onBatch(List<DomainMessage> messages) throws Exception;
+
+	/**
+	 * called for every message after onBatch; with completeResults the
+	 * result is set to null, the result set first is kept.
+	 */
+	protected void complete(DomainMessage message) {
+		if (!completeResults)
+			return;
+		EventMessage eventMessage = message.getEventMessage();
+		if (eventMessage instanceof EventResult)
+			eventMessage.setEventResult(null);
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public long getMaxBatchMillis() {
+		return maxBatchNanos / 1000000L;
+	}
+
+	public boolean isCompleteResults() {
+		return completeResults;
+	}
+
+}
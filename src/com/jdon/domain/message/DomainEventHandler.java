@@ -39,6 +39,9 @@ import com.jdon.async.disruptor.EventDisruptor;
  * 5. the consumer class must implements
  * com.jdon.domain.message.DomainEventHandler
  * 
+ * a consumer that writes the events in batches extends
+ * BatchDomainEventHandler.
+ * 
  * @author banq
  * 
  * @param <EventDisruptor>
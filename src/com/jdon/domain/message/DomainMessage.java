@@ -22,11 +22,23 @@ public class DomainMessage {
 	protected Object eventSource;
 	protected EventMessage eventMessage;
 
+	/**
+	 * the events of one key go to the same partition of a partitioned
+	 * consumer, in order; see @Consumer partitions
+	 */
+	protected Object partitionKey;
+
 	public DomainMessage(Object eventSource) {
 		super();
 		this.eventSource = eventSource;
 	}
 
+	public DomainMessage(Object eventSource, Object partitionKey) {
+		super();
+		this.eventSource = eventSource;
+		this.partitionKey = partitionKey;
+	}
+
 	public EventMessage getEventMessage() {
 		return eventMessage;
 	}
@@ -43,6 +55,14 @@ public class DomainMessage {
 		this.eventSource = eventSource;
 	}
 
+	public Object getPartitionKey() {
+		return partitionKey;
+	}
+
+	public void setPartitionKey(Object partitionKey) {
+		this.partitionKey = partitionKey;
+	}
+
 	public Object getEventResult() {
 		if (eventMessage == null)
 			System.err.print("eventMessage is null " + eventSource.getClass());
@@ -28,4 +28,19 @@ public class ModelCacheKeyFactory extends CacheKeyFactory {
 		return new CacheKey(CACHE_TYPE_MODEL, dataKey, modelClassName);
 	}
 
+	/**
+	 * the model class name of a key created by this factory, for a
+	 * SnapshotLoader.
+	 *
+	 * @return null if it is not the key of a model
+	 */
+	public static String getModelClassName(String key, String dataKey) {
+		if (key == null || !key.startsWith(CACHE_TYPE_MODEL))
+			return null;
+		int end = dataKey == null ? key.length() : key.length() - dataKey.length();
+		if (end <= CACHE_TYPE_MODEL.length() || (dataKey != null && !key.endsWith(dataKey)))
+			return null;
+		return key.substring(CACHE_TYPE_MODEL.length(), end);
+	}
+
 }
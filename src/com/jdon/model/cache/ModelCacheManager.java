@@ -14,6 +14,10 @@
 
 package com.jdon.model.cache;
 
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsRegistry;
+import com.jdon.cache.NegativeCache;
+import com.jdon.cache.NegativeCacheConf;
 import com.jdon.container.pico.Startable;
 import com.jdon.controller.cache.CacheKey;
 import com.jdon.controller.cache.CacheKeyFactory;
@@ -28,17 +32,30 @@ public class ModelCacheManager implements Startable {
 
 	private final CacheKeyFactory cacheKeyFactory;
 
+	private NegativeCache negativeCache;
+
+	private final CacheStats stats = CacheStatsRegistry.getStats(CacheStatsRegistry.MODEL);
+
 	public ModelCacheManager(CacheManager cacheManager) {
 		this.cacheManager = cacheManager;
 		this.cacheKeyFactory = new ModelCacheKeyFactory();
 	}
 
+	/**
+	 * remember the missing models in a NegativeCache
+	 */
+	public ModelCacheManager(CacheManager cacheManager, NegativeCacheConf negativeCacheConf) {
+		this(cacheManager);
+		this.negativeCache = new NegativeCache(negativeCacheConf);
+	}
+
 	public void start() {
 		Debug.logVerbose("[JdonFramework]ModelCacheManager start ...", module);
+		stats.setCache(cacheManager.getCache());
 	}
 
 	public void stop() {
-		cacheManager.clear();
+		// CacheManager clears the cache after it saves the snapshot
 		cacheManager = null;
 	}
 
@@ -63,6 +80,8 @@ public class ModelCacheManager implements Startable {
 	 */
 	public void saveCache(Object dataKey, String modelClassName, Object model) {
 		CacheKey cachKey = cacheKeyFactory.createCacheKey(dataKey.toString(), modelClassName);
+		if (negativeCache != null)
+			negativeCache.remove(cachKey.getKey(), cachKey.getDataKey());
 		saveToCache(cachKey, model);
 	}
 
@@ -75,10 +94,50 @@ public class ModelCacheManager implements Startable {
 
 	public void saveCacheForce(Object dataKey, String modelClassName, Object model) {
 		CacheKey cachKey = cacheKeyFactory.createCacheKey(dataKey.toString(), modelClassName);
-		Debug.logVerbose("[JdonFramework]save cache force: " + cachKey + " hashCode:" + model.hashCode(), module);
+		if (negativeCache != null)
+			negativeCache.remove(cachKey.getKey(), cachKey.getDataKey());
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]save cache force: " + cachKey + " hashCode:" + model.hashCode(), module);
 		cacheManager.putObect(cachKey, model);
 	}
 
+	/**
+	 * @return the stamp of the NegativeCache to be passed to saveMissing, 0 if
+	 *         there is no NegativeCache
+	 */
+	public long missingStamp(Object dataKey) {
+		if (negativeCache == null || dataKey == null)
+			return 0;
+		return negativeCache.stamp(dataKey.toString());
+	}
+
+	/**
+	 * remember that the model does not exist, the next isMissing of it
+	 * returns true until the model is saved or removed, or the tombstone
+	 * expires. it does nothing if there is no NegativeCache.
+	 * 
+	 * @param stamp
+	 *            missingStamp(dataKey) before the model was looked up
+	 */
+	public void saveMissing(Object dataKey, String modelClassName, long stamp) {
+		if (negativeCache == null || dataKey == null)
+			return;
+		CacheKey cachKey = cacheKeyFactory.createCacheKey(dataKey.toString(), modelClassName);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework]save missing: " + cachKey, module);
+		negativeCache.put(cachKey.getKey(), cachKey.getDataKey(), stamp);
+	}
+
+	/**
+	 * @return true if the model is known not to exist
+	 */
+	public boolean isMissing(Object dataKey, String modelClassName) {
+		if (negativeCache == null || dataKey == null)
+			return false;
+		CacheKey cachKey = cacheKeyFactory.createCacheKey(dataKey.toString(), modelClassName);
+		return negativeCache.contains(cachKey.getKey());
+	}
+
 	private Object getModelFromCache(CacheKey cachKey) {
 		Object model = cacheManager.fetchObject(cachKey);
 		if (model != null) {
@@ -89,6 +148,10 @@ public class ModelCacheManager implements Startable {
 				model = null;
 			}
 		}
+		if (model != null)
+			stats.hit();
+		else
+			stats.miss();
 		return model;
 	}
 
@@ -111,6 +174,9 @@ public class ModelCacheManager implements Startable {
 	 * @param formName
 	 */
 	public void removeCache(Object dataKey) {
+		if (negativeCache != null && dataKey != null)
+			negativeCache.removeDataKey(dataKey.toString());
+		stats.invalidated();
 		cacheManager.removeCache(dataKey);
 	}
 
@@ -123,13 +189,33 @@ public class ModelCacheManager implements Startable {
 	 */
 	public void removeCache2(Object dataKey, String modelClassName) {
 		CacheKey cachKey = cacheKeyFactory.createCacheKey(dataKey.toString(), modelClassName);
+		if (negativeCache != null)
+			negativeCache.remove(cachKey.getKey(), cachKey.getDataKey());
+		stats.invalidated();
 		cacheManager.removeObect(cachKey);
 	}
 
 	public void clearCache() {
+		if (negativeCache != null)
+			negativeCache.clear();
 		cacheManager.clear();
 	}
 
+	/**
+	 * the loads of the models that are not saved by saveCache must be
+	 * counted by the caller
+	 */
+	public CacheStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * @return null if there is no negativeCacheConf
+	 */
+	public NegativeCache getNegativeCache() {
+		return negativeCache;
+	}
+
 	public CacheManager getCacheManager() {
 		return cacheManager;
 	}
@@ -22,6 +22,7 @@ import java.util.List;
 import javax.sql.DataSource;
 
 import com.jdon.cache.LRUCache;
+import com.jdon.cache.NegativeCache;
 import com.jdon.controller.cache.CacheManager;
 import com.jdon.controller.model.PageIterator;
 import com.jdon.model.query.block.Block;
@@ -302,7 +303,9 @@ public class PageIteratorSolver {
 		try {
 			Integer allCount = (Integer) blockCacheManager.getAllCountsFromCache(qcdk);
 			if ((allCount == null) || (!cacheEnable)) {
+				long start = System.nanoTime();
 				allCountInt = blockQueryJDBC.fetchDataAllCount(qcdk);
+				blockCacheManager.getCountStats().loaded(System.nanoTime() - start);
 				if ((cacheEnable) && (allCountInt != 0)) {
 					blockCacheManager.saveAllCounts(qcdk, new Integer(allCountInt));
 				}
@@ -356,4 +359,19 @@ public class PageIteratorSolver {
 		this.cacheEnable = cacheEnable;
 	}
 
+	/**
+	 * keep the empty query blocks as short tombstones, so the queries without
+	 * result do not hit the database every time.
+	 * 
+	 * @param negativeCache
+	 *            null caches the empty blocks as the others
+	 */
+	public void setNegativeCache(NegativeCache negativeCache) {
+		blockCacheManager.setNegativeCache(negativeCache);
+	}
+
+	public NegativeCache getNegativeCache() {
+		return blockCacheManager.getNegativeCache();
+	}
+
 }
@@ -226,7 +226,9 @@ public class BlockStrategy {
 	private List getBlockKeys(QueryConditonDatakey qcdk) {
 		List keys = blockCacheManager.getBlockKeysFromCache(qcdk);
 		if ((keys == null)) {
+			long start = System.nanoTime();
 			keys = blockQueryJDBC.fetchDatas(qcdk);
+			blockCacheManager.getBlockStats().loaded(System.nanoTime() - start);
 			blockCacheManager.saveBlockKeys(qcdk, keys);
 		}
 		Debug.logVerbose("[JdonFramework] getBlockKeys, size=" + keys.size(), module);
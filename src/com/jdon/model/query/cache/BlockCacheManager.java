@@ -15,12 +15,16 @@
  */
 package com.jdon.model.query.cache;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
 
+import com.jdon.cache.CacheStats;
+import com.jdon.cache.CacheStatsRegistry;
+import com.jdon.cache.NegativeCache;
 import com.jdon.controller.cache.CacheKey;
 import com.jdon.controller.cache.CacheManager;
 import com.jdon.model.cache.BlockCacheKeyFactory;
@@ -33,6 +37,9 @@ import com.jdon.model.cache.BlockCacheKeyFactory;
  * 
  * the block is made of the primary keys of all models.
  * 
+ * with a NegativeCache, a empty block is kept as a short tombstone, not in
+ * the cache.
+ * 
  * @author <a href="mailto:banqiao@jdon.com">banq</a>
  * 
  */
@@ -49,6 +56,12 @@ public class BlockCacheManager {
 
 	private final BlockCacheKeyFactory blockCacheKeyFactory;
 
+	private volatile NegativeCache negativeCache;
+
+	private final CacheStats blockStats = CacheStatsRegistry.getStats(CacheStatsRegistry.BLOCK);
+
+	private final CacheStats countStats = CacheStatsRegistry.getStats(CacheStatsRegistry.COUNT);
+
 	public BlockCacheManager(CacheManager cacheManager) {
 
 		this.cacheKeys = new CopyOnWriteArrayList<CacheKey>();
@@ -61,7 +74,14 @@ public class BlockCacheManager {
 		lock.readLock().lock();
 		try {
 			CacheKey cacheKey = blockCacheKeyFactory.createCacheKey(qckey.getBlockDataKey(), qckey.getSQlKey());
-			return (List) cacheManager.fetchObject(cacheKey);
+			List keys = (List) cacheManager.fetchObject(cacheKey);
+			if (keys == null && negativeCache != null && negativeCache.contains(cacheKey.getKey()))
+				keys = Collections.EMPTY_LIST;
+			if (keys != null)
+				blockStats.hit();
+			else
+				blockStats.miss();
+			return keys;
 		} finally {
 			lock.readLock().unlock();
 		}
@@ -72,6 +92,12 @@ public class BlockCacheManager {
 		lock.writeLock().lock();
 		try {
 			CacheKey cacheKey = blockCacheKeyFactory.createCacheKey(qckey.getBlockDataKey(), qckey.getSQlKey());
+			if (negativeCache != null && keys.isEmpty()) {
+				// as a cached block, it may be fetched before a clearCache and
+				// saved after it, but it lives only the ttl
+				negativeCache.put(cacheKey.getKey(), cacheKey.getDataKey(), negativeCache.stamp(cacheKey.getDataKey()));
+				return;
+			}
 			cacheManager.putObect(cacheKey, keys);
 			cacheKeys.add(cacheKey);
 		} finally {
@@ -83,7 +109,12 @@ public class BlockCacheManager {
 		lock.readLock().lock();
 		try {
 			CacheKey cacheKey = blockCacheKeyFactory.createCacheKey(qckey.getBlockDataKey(), qckey.getSQlKey());
-			return (Integer) cacheManager.fetchObject(cacheKey);
+			Integer count = (Integer) cacheManager.fetchObject(cacheKey);
+			if (count != null)
+				countStats.hit();
+			else
+				countStats.miss();
+			return count;
 		} finally {
 			lock.readLock().unlock();
 		}
@@ -113,14 +144,41 @@ public class BlockCacheManager {
 					try {
 						CacheKey cacheKey = (CacheKey) keys[i];
 						cacheManager.removeObect(cacheKey);
+						blockStats.invalidated();
 					} catch (Exception e) {
 						logger.error(e);
 					}
 				}
 			}
+			// the blocks of the snapshot are not in cacheKeys
+			cacheManager.removeRestored(CACHE_TYPE_BLOCK);
+			if (negativeCache != null)
+				negativeCache.clear();
 		} finally {
 			lock.writeLock().unlock();
 		}
 
 	}
+
+	/**
+	 * the stats of the blocks, the counts are in getCountStats
+	 */
+	public CacheStats getBlockStats() {
+		return blockStats;
+	}
+
+	public CacheStats getCountStats() {
+		return countStats;
+	}
+
+	/**
+	 * @return null if the empty blocks are cached as the others
+	 */
+	public NegativeCache getNegativeCache() {
+		return negativeCache;
+	}
+
+	public void setNegativeCache(NegativeCache negativeCache) {
+		this.negativeCache = negativeCache;
+	}
 }
@@ -17,6 +17,9 @@
 package com.jdon.persistence.hibernate;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringTokenizer;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -24,20 +27,46 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 
 import org.apache.log4j.Logger;
 
 import com.jdon.persistence.hibernate.util.SessionFactoryHolder;
+import com.jdon.persistence.hibernate.util.SessionStats;
 
+/**
+ * close the thread-local Hibernate session after the request.
+ *
+ * the init-param "readOnlyMethods" (for example "GET,HEAD") makes the
+ * sessions of these http methods read-only: they never flush and have no
+ * transaction unless a write happens.
+ *
+ */
 public class CloseSessionInViewFilter  implements Filter {
 	private final static Logger log = Logger.getLogger(CloseSessionInViewFilter.class);
 
+	private final Set readOnlyMethods = new HashSet();
 
 	public void init(FilterConfig config) throws ServletException {
+		String methods = config.getInitParameter("readOnlyMethods");
+		if (methods != null) {
+			StringTokenizer st = new StringTokenizer(methods, ", ");
+			while (st.hasMoreTokens()) {
+				readOnlyMethods.add(st.nextToken().toUpperCase());
+			}
+		}
 	}
 
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+		boolean readOnly = request instanceof HttpServletRequest
+				&& readOnlyMethods.contains(((HttpServletRequest) request).getMethod());
+		// an included or forwarded request keeps the stats of the outer one
+		boolean stats = SessionFactoryHolder.getRequestStats() == null;
 		try {
+			if (stats)
+				SessionFactoryHolder.beginRequestStats();
+			if (readOnly)
+				SessionFactoryHolder.setReadOnly(true);
 			chain.doFilter(request, response);
 		}
 
@@ -47,6 +76,15 @@ public class CloseSessionInViewFilter  implements Filter {
 				log.debug("Close a session!");
 				SessionFactoryHolder.closeSession();
 			}
+			if (readOnly)
+				SessionFactoryHolder.setReadOnly(false);
+			if (stats) {
+				SessionStats requestStats = SessionFactoryHolder.endRequestStats();
+				if (log.isDebugEnabled() && requestStats.getSessions() > 0) {
+					String uri = request instanceof HttpServletRequest ? ((HttpServletRequest) request).getRequestURI() : "";
+					log.debug(uri + " " + requestStats);
+				}
+			}
 		}
 	}
 
@@ -17,6 +17,7 @@
 package com.jdon.persistence.hibernate;
 
 import java.io.Serializable;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -27,12 +28,17 @@ import org.hibernate.HibernateException;
 import org.hibernate.LockMode;
 import org.hibernate.Query;
 import org.hibernate.ReplicationMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Example;
 
 import com.jdon.persistence.hibernate.util.HibernateCallback;
+import com.jdon.persistence.hibernate.util.ScrollCallback;
 import com.jdon.persistence.hibernate.util.SessionFactoryHolder;
+import com.jdon.persistence.hibernate.util.StatelessSessionCallback;
 
 public class HibernateTemplate {
 	private final static Logger logger = Logger.getLogger(HibernateTemplate.class);
@@ -46,6 +52,10 @@ public class HibernateTemplate {
 	private int firstResult = 0;
 
 	private int maxResults = 0;
+
+	private int batchSize = 0;
+
+	private boolean readSessions = false;
 	
 	private SessionProvider sessionProvider;
 
@@ -68,8 +78,30 @@ public class HibernateTemplate {
 	 * @throws org.springframework.dao.Exception in case of Hibernate errors
 	 */
 	public Object doHibernate(HibernateCallback action) throws Exception {
+		return doHibernate(action, sessionProvider.getSession());
+	}
+
+	/**
+	 * Execute a read action. If the reads are enabled by setReadSessions(true)
+	 * or the thread is read-only, and the SessionProvider is a
+	 * ReadSessionProvider, the Session of this thread is used without
+	 * beginning a transaction, so no JDBC connection is hold between the
+	 * statements; a later write begins the transaction on the same Session.
+	 * Otherwise it is doHibernate(action).
+	 * @see ReadSessionProvider#getReadSession()
+	 */
+	public Object doHibernateRead(HibernateCallback action) throws Exception {
+		if (sessionProvider instanceof ReadSessionProvider && (readSessions || SessionFactoryHolder.isReadOnly()))
+			return doHibernate(action, ((ReadSessionProvider) sessionProvider).getReadSession());
+		return doHibernate(action);
+	}
+
+	// a locking read needs the transaction
+	private Object doHibernateRead(HibernateCallback action, LockMode lockMode) throws Exception {
+		return lockMode != null ? doHibernate(action) : doHibernateRead(action);
+	}
 
-		Session session = sessionProvider.getSession();
+	private Object doHibernate(HibernateCallback action, Session session) throws Exception {
 		try {
 			Object result = action.execute(session);
 			return result;
@@ -93,6 +125,44 @@ public class HibernateTemplate {
 
 
 
+	/**
+	 * Execute the action within a StatelessSession opened on the JDBC
+	 * connection of the current Session, the statements of the action are
+	 * committed or rolled back with the current transaction.
+	 * the pending changes of the current Session are flushed before.
+	 * the connection is got by Session.connection(), deprecated in
+	 * Hibernate 3.2: the Hibernate jar of jdon has no Session.doWork() to
+	 * replace it, port this method to doWork() when the jar is upgraded.
+	 * the StatelessSession does not see the first-level cache of the
+	 * Session: the entities loaded there are not updated by the action.
+	 */
+	public Object doStateless(final StatelessSessionCallback action) throws Exception {
+		return doHibernate(new HibernateCallback() {
+			public Object execute(Session session) throws HibernateException, SQLException {
+				session.flush();
+				StatelessSession statelessSession = session.getSessionFactory().openStatelessSession(session.connection());
+				try {
+					return action.execute(statelessSession);
+				} finally {
+					// the connection is not closed, it belongs to the Session
+					statelessSession.close();
+				}
+			}
+		});
+	}
+
+	/**
+	 * flush and clear the session every batchSize entities, the statements
+	 * of a chunk are sent in JDBC batches if hibernate.jdbc.batch_size is set.
+	 */
+	private void flushChunk(Session session, int count, int batchSize) {
+		if (batchSize > 0 && count % batchSize == 0) {
+			session.flush();
+			session.clear();
+		}
+	}
+
+
 	//-------------------------------------------------------------------------
 	// Convenience methods for loading individual objects
 	//-------------------------------------------------------------------------
@@ -104,7 +174,7 @@ public class HibernateTemplate {
 	public Object get(final Class entityClass, final Serializable id, final LockMode lockMode)
 			throws Exception {
 
-		return doHibernate(new HibernateCallback() {
+		return doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				if (lockMode != null) {
 					return session.get(entityClass, id, lockMode);
@@ -113,7 +183,7 @@ public class HibernateTemplate {
 					return session.get(entityClass, id);
 				}
 			}
-		});
+		}, lockMode);
 	}
 
 	public Object get(String entityName, Serializable id) throws Exception {
@@ -123,7 +193,7 @@ public class HibernateTemplate {
 	public Object get(final String entityName, final Serializable id, final LockMode lockMode)
 			throws Exception {
 
-		return doHibernate(new HibernateCallback() {
+		return doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				if (lockMode != null) {
 					return session.get(entityName, id, lockMode);
@@ -132,7 +202,7 @@ public class HibernateTemplate {
 					return session.get(entityName, id);
 				}
 			}
-		});
+		}, lockMode);
 	}
 
 	public Object load(Class entityClass, Serializable id) throws Exception {
@@ -142,7 +212,7 @@ public class HibernateTemplate {
 	public Object load(final Class entityClass, final Serializable id, final LockMode lockMode)
 			throws Exception {
 
-		return doHibernate(new HibernateCallback() {
+		return doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				if (lockMode != null) {
 					return session.load(entityClass, id, lockMode);
@@ -151,7 +221,7 @@ public class HibernateTemplate {
 					return session.load(entityClass, id);
 				}
 			}
-		});
+		}, lockMode);
 	}
 
 	public Object load(String entityName, Serializable id) throws Exception {
@@ -161,7 +231,7 @@ public class HibernateTemplate {
 	public Object load(final String entityName, final Serializable id, final LockMode lockMode)
 			throws Exception {
 
-		return doHibernate(new HibernateCallback() {
+		return doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				if (lockMode != null) {
 					return session.load(entityName, id, lockMode);
@@ -170,11 +240,11 @@ public class HibernateTemplate {
 					return session.load(entityName, id);
 				}
 			}
-		});
+		}, lockMode);
 	}
 
 	public List loadAll(final Class entityClass) throws Exception {
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Criteria criteria = session.createCriteria(entityClass);
 				prepareCriteria(criteria);
@@ -184,7 +254,7 @@ public class HibernateTemplate {
 	}
 
 	public void load(final Object entity, final Serializable id) throws Exception {
-		doHibernate(new HibernateCallback() {
+		doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				session.load(entity, id);
 				return null;
@@ -197,7 +267,7 @@ public class HibernateTemplate {
 	}
 
 	public void refresh(final Object entity, final LockMode lockMode) throws Exception {
-		doHibernate(new HibernateCallback() {
+		doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				if (lockMode != null) {
 					session.refresh(entity, lockMode);
@@ -207,11 +277,11 @@ public class HibernateTemplate {
 				}
 				return null;
 			}
-		});
+		}, lockMode);
 	}
 
 	public boolean contains(final Object entity) throws Exception {
-		Boolean result = (Boolean) doHibernate(new HibernateCallback() {
+		Boolean result = (Boolean) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) {
 				return (session.contains(entity) ? Boolean.TRUE : Boolean.FALSE);
 			}
@@ -322,10 +392,58 @@ public class HibernateTemplate {
 	}
 
 	public void saveOrUpdateAll(final Collection entities) throws Exception {
+		saveOrUpdateAll(entities, getBatchSize());
+	}
+
+	/**
+	 * saveOrUpdate the entities in chunks: the session is flushed and
+	 * cleared every batchSize entities, so the first-level cache does not
+	 * grow with the collection.
+	 * the Session is cleared with Session.clear(), so every entity of the
+	 * Session is detached, not only the saved ones: the entities the caller
+	 * loaded before in the same Session are no longer managed after the
+	 * first chunk, their later changes are not flushed and their lazy
+	 * associations can not be loaded, reload or merge them if needed.
+	 * @param batchSize the chunk size, 0 for no chunk
+	 */
+	public void saveOrUpdateAll(final Collection entities, final int batchSize) throws Exception {
 		doHibernate(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
+				int count = 0;
 				for (Iterator it = entities.iterator(); it.hasNext();) {
 					session.saveOrUpdate(it.next());
+					flushChunk(session, ++count, batchSize);
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * insert the new entities by a StatelessSession: no first-level cache,
+	 * no cascade and no interceptors, the inserts are sent in JDBC batches
+	 * if hibernate.jdbc.batch_size is set.
+	 */
+	public void insertAllStateless(final Collection entities) throws Exception {
+		doStateless(new StatelessSessionCallback() {
+			public Object execute(StatelessSession session) throws HibernateException {
+				for (Iterator it = entities.iterator(); it.hasNext();) {
+					session.insert(it.next());
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * update the detached entities by a StatelessSession.
+	 * @see #insertAllStateless(Collection)
+	 */
+	public void updateAllStateless(final Collection entities) throws Exception {
+		doStateless(new StatelessSessionCallback() {
+			public Object execute(StatelessSession session) throws HibernateException {
+				for (Iterator it = entities.iterator(); it.hasNext();) {
+					session.update(it.next());
 				}
 				return null;
 			}
@@ -405,8 +523,37 @@ public class HibernateTemplate {
 	}
 
 	public void deleteAll(final Collection entities) throws Exception {
+		deleteAll(entities, getBatchSize());
+	}
+
+	/**
+	 * delete the entities in chunks of batchSize.
+	 * the Session is cleared every batchSize entities, so every entity the
+	 * caller has in the same Session is detached too, reload or merge them
+	 * if they are used after this call.
+	 * @param batchSize the chunk size, 0 for no chunk
+	 * @see #saveOrUpdateAll(Collection, int)
+	 */
+	public void deleteAll(final Collection entities, final int batchSize) throws Exception {
 		doHibernate(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
+				int count = 0;
+				for (Iterator it = entities.iterator(); it.hasNext();) {
+					session.delete(it.next());
+					flushChunk(session, ++count, batchSize);
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * delete the entities by a StatelessSession, no cascade.
+	 * @see #insertAllStateless(Collection)
+	 */
+	public void deleteAllStateless(final Collection entities) throws Exception {
+		doStateless(new StatelessSessionCallback() {
+			public Object execute(StatelessSession session) throws HibernateException {
 				for (Iterator it = entities.iterator(); it.hasNext();) {
 					session.delete(it.next());
 				}
@@ -447,7 +594,7 @@ public class HibernateTemplate {
 	}
 
 	public List find(final String queryString, final Object[] values) throws Exception {
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Query queryObject = session.createQuery(queryString);
 				prepareQuery(queryObject);
@@ -473,7 +620,7 @@ public class HibernateTemplate {
 		if (paramNames.length != values.length) {
 			throw new IllegalArgumentException("Length of paramNames array must match length of values array");
 		}
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Query queryObject = session.createQuery(queryString);
 				prepareQuery(queryObject);
@@ -490,7 +637,7 @@ public class HibernateTemplate {
 	public List findByValueBean(final String queryString, final Object valueBean)
 			throws Exception {
 
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Query queryObject = session.createQuery(queryString);
 				prepareQuery(queryObject);
@@ -514,7 +661,7 @@ public class HibernateTemplate {
 	}
 
 	public List findByNamedQuery(final String queryName, final Object[] values) throws Exception {
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Query queryObject = session.getNamedQuery(queryName);
 				prepareQuery(queryObject);
@@ -541,7 +688,7 @@ public class HibernateTemplate {
 		if (paramNames != null && values != null && paramNames.length != values.length) {
 			throw new IllegalArgumentException("Length of paramNames array must match length of values array");
 		}
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Query queryObject = session.getNamedQuery(queryName);
 				prepareQuery(queryObject);
@@ -558,7 +705,7 @@ public class HibernateTemplate {
 	public List findByNamedQueryAndValueBean(final String queryName, final Object valueBean)
 			throws Exception {
 
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Query queryObject = session.getNamedQuery(queryName);
 				prepareQuery(queryObject);
@@ -580,7 +727,7 @@ public class HibernateTemplate {
 	public List findByCriteria(final DetachedCriteria criteria, final int firstResult, final int maxResults)
 			throws Exception {
 
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Criteria executableCriteria = criteria.getExecutableCriteria(session);
 				prepareCriteria(executableCriteria);
@@ -602,7 +749,7 @@ public class HibernateTemplate {
 	public List findByExample(final Object exampleEntity, final int firstResult, final int maxResults)
 			throws Exception {
 
-		return (List) doHibernate(new HibernateCallback() {
+		return (List) doHibernateRead(new HibernateCallback() {
 			public Object execute(Session session) throws HibernateException {
 				Criteria executableCriteria = session.createCriteria(exampleEntity.getClass());
 				executableCriteria.add(Example.create(exampleEntity));
@@ -647,6 +794,115 @@ public class HibernateTemplate {
 	}
 
 
+	/**
+	 * stream the result of the query to the callback by a FORWARD_ONLY
+	 * ScrollableResults, every entity of a row is evicted from the Session
+	 * after the callback, so the memory does not grow with the result.
+	 * @param fetchSize the jdbc fetch size, 0 for the fetchSize of this
+	 * template
+	 * @return the number of rows processed
+	 */
+	public int scroll(final String queryString, final Object[] values, final int fetchSize, final ScrollCallback callback)
+			throws Exception {
+
+		Integer count = (Integer) doHibernate(new HibernateCallback() {
+			public Object execute(Session session) throws HibernateException {
+				Query queryObject = session.createQuery(queryString);
+				prepareQuery(queryObject);
+				if (fetchSize > 0) {
+					queryObject.setFetchSize(fetchSize);
+				}
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				return new Integer(scroll(queryObject.scroll(ScrollMode.FORWARD_ONLY), session, callback));
+			}
+		});
+		return count.intValue();
+	}
+
+	/**
+	 * stream the result of the criteria to the callback.
+	 * @see #scroll(String, Object[], int, ScrollCallback)
+	 */
+	public int scroll(final DetachedCriteria criteria, final int fetchSize, final ScrollCallback callback)
+			throws Exception {
+
+		Integer count = (Integer) doHibernate(new HibernateCallback() {
+			public Object execute(Session session) throws HibernateException {
+				Criteria executableCriteria = criteria.getExecutableCriteria(session);
+				prepareCriteria(executableCriteria);
+				if (fetchSize > 0) {
+					executableCriteria.setFetchSize(fetchSize);
+				}
+				return new Integer(scroll(executableCriteria.scroll(ScrollMode.FORWARD_ONLY), session, callback));
+			}
+		});
+		return count.intValue();
+	}
+
+	/**
+	 * stream the result of the query to the callback by a StatelessSession,
+	 * the entities are never in a first-level cache, read only: their
+	 * changes are not saved and lazy associations can not be loaded.
+	 * there is no DetachedCriteria variant: DetachedCriteria can only be
+	 * bound to a Session, not to a StatelessSession, in Hibernate 3.2.
+	 * @see #scroll(String, Object[], int, ScrollCallback)
+	 */
+	public int scrollStateless(final String queryString, final Object[] values, final int fetchSize, final ScrollCallback callback)
+			throws Exception {
+
+		Integer count = (Integer) doStateless(new StatelessSessionCallback() {
+			public Object execute(StatelessSession session) throws HibernateException {
+				Query queryObject = session.createQuery(queryString);
+				prepareQuery(queryObject);
+				if (fetchSize > 0) {
+					queryObject.setFetchSize(fetchSize);
+				}
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				return new Integer(scroll(queryObject.scroll(ScrollMode.FORWARD_ONLY), null, callback));
+			}
+		});
+		return count.intValue();
+	}
+
+	private int scroll(ScrollableResults results, Session session, ScrollCallback callback) throws HibernateException {
+		int count = 0;
+		try {
+			while (results.next()) {
+				Object[] row = results.get();
+				count++;
+				boolean next;
+				try {
+					next = callback.process(row.length == 1 ? row[0] : row);
+				} catch (HibernateException ex) {
+					throw ex;
+				} catch (Exception ex) {
+					throw new HibernateException("exception in scroll callback", ex);
+				}
+				if (session != null) {
+					for (int i = 0; i < row.length; i++) {
+						if (row[i] != null && session.contains(row[i])) {
+							session.evict(row[i]);
+						}
+					}
+				}
+				if (!next)
+					break;
+			}
+		} finally {
+			results.close();
+		}
+		return count;
+	}
+
+
 	public int bulkUpdate(String queryString) throws Exception {
 		return bulkUpdate(queryString, (Object[]) null);
 	}
@@ -829,6 +1085,37 @@ public class HibernateTemplate {
 		return maxResults;
 	}
 
+	/**
+	 * Set the chunk size of saveOrUpdateAll and deleteAll: the session is
+	 * flushed and cleared every batchSize entities. set it to the same value
+	 * as hibernate.jdbc.batch_size.
+	 * <p>Default is 0, all entities are kept in the session until commit.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the chunk size of saveOrUpdateAll and deleteAll.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set whether get/load/find* read without beginning a transaction, the
+	 * SessionProvider must be a ReadSessionProvider.
+	 * <p>Default is false, every read begins the transaction as a write.
+	 * @see #doHibernateRead
+	 */
+	public void setReadSessions(boolean readSessions) {
+		this.readSessions = readSessions;
+	}
+
+	public boolean isReadSessions() {
+		return readSessions;
+	}
+
 	public int getFirstResult() {
 		return firstResult;
 	}
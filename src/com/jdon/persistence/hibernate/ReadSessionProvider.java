@@ -0,0 +1,37 @@
+/*
+ * Copyright 2007 the original author or jdon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.persistence.hibernate;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+
+/**
+ * a SessionProvider that can open the session without a transaction, the
+ * reads of HibernateTemplate use it when setReadSessions(true) is set or the
+ * thread is read-only.
+ *
+ * @see HibernateTemplate#setReadSessions(boolean)
+ */
+public interface ReadSessionProvider extends SessionProvider {
+
+	/**
+	 * the session for reads, a transaction is not begun for it, so it holds
+	 * no connection between the statements.
+	 */
+	public abstract Session getReadSession() throws HibernateException;
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2007 the original author or jdon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.persistence.hibernate.util;
+
+public interface ScrollCallback {
+	/**
+	 * Gets called by <code>HibernateTemplate.scroll</code> for every row of
+	 * the result, in order. the row is the entity if the query selects one
+	 * entity, or a Object[] as Query.list. the entity is evicted from the
+	 * Session after this method, do not keep it attached.
+	 *
+	 * @return false to stop the scroll
+	 */
+	boolean process(Object row) throws Exception;
+
+}
@@ -28,6 +28,18 @@ public class SessionFactoryHolder {
 
 	private static final ThreadLocal sessionIsActive = new ThreadLocal();
 
+	private static final ThreadLocal readOnly = new ThreadLocal();
+
+	// the open time of the session and the begin time of the transaction
+	private static final ThreadLocal sessionOpened = new ThreadLocal();
+
+	private static final ThreadLocal transactionBegun = new ThreadLocal();
+
+	// the stats of the current request, and the totals of the ended requests
+	private static final ThreadLocal requestStats = new ThreadLocal();
+
+	private static final SessionStats stats = new SessionStats();
+
 	public static boolean isSessionIsActive() {
 		Boolean result = (Boolean) sessionIsActive.get();
 		return ((result != null) && result);
@@ -40,8 +52,18 @@ public class SessionFactoryHolder {
 	public static void setSession(Session session) {
 		if (session == null) {
 			sessionIsActive.set(null);
-		} else
+			Long opened = (Long) sessionOpened.get();
+			if (opened != null) {
+				currentStats().sessionClosed(System.currentTimeMillis() - opened.longValue());
+				sessionOpened.set(null);
+			}
+		} else {
 			sessionIsActive.set(new Boolean(true));
+			if (sessionOpened.get() == null) {
+				sessionOpened.set(new Long(System.currentTimeMillis()));
+				currentStats().sessionOpened(isReadOnly());
+			}
+		}
 		_session.set(session);
 	}
 
@@ -50,12 +72,92 @@ public class SessionFactoryHolder {
 	}
 
 	public static void setTransaction(Transaction trans) {
+		if (trans == null) {
+			Long begun = (Long) transactionBegun.get();
+			if (begun != null) {
+				currentStats().transactionEnded(System.currentTimeMillis() - begun.longValue());
+				transactionBegun.set(null);
+			}
+		} else if (transactionBegun.get() == null) {
+			transactionBegun.set(new Long(System.currentTimeMillis()));
+			currentStats().transactionBegun();
+		}
 		_transaction.set(trans);
 	}
 
+	/**
+	 * a read-only session of this thread has FlushMode.MANUAL and no
+	 * transaction until a write happens, it must be set before the session
+	 * is opened, CloseSessionInViewFilter sets it for the configured http
+	 * methods.
+	 */
+	public static boolean isReadOnly() {
+		Boolean result = (Boolean) readOnly.get();
+		return ((result != null) && result);
+	}
+
+	public static void setReadOnly(boolean value) {
+		readOnly.set(value ? Boolean.TRUE : null);
+	}
+
+	/**
+	 * @return the totals of the ended requests, and of the sessions out of a
+	 *         request.
+	 */
+	public static SessionStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * begin the stats of the request of this thread, CloseSessionInViewFilter
+	 * calls it.
+	 */
+	public static void beginRequestStats() {
+		requestStats.set(new SessionStats());
+	}
+
+	/**
+	 * @return the stats of the request of this thread, null if none began.
+	 */
+	public static SessionStats getRequestStats() {
+		return (SessionStats) requestStats.get();
+	}
+
+	/**
+	 * end the stats of the request, they are added to the totals.
+	 *
+	 * @return the stats of the request, null if none began.
+	 */
+	public static SessionStats endRequestStats() {
+		SessionStats result = (SessionStats) requestStats.get();
+		if (result != null) {
+			requestStats.set(null);
+			stats.add(result);
+		}
+		return result;
+	}
+
+	private static SessionStats currentStats() {
+		SessionStats result = (SessionStats) requestStats.get();
+		return result != null ? result : stats;
+	}
+
+	/**
+	 * the reads of a session out of a transaction do not flush, begin a
+	 * transaction at the end if entities were changed, unless the session is
+	 * read-only.
+	 */
+	static void beginTransactionIfDirty() {
+		Session session = getSession();
+		if (session != null && getTransaction() == null && !isReadOnly() && session.isDirty()) {
+			setTransaction(session.beginTransaction());
+		}
+	}
+
 	public static void closeSession() throws HibernateException {
-		Transaction tr = (Transaction) getTransaction();
 		try {
+			beginTransactionIfDirty();
+			Transaction tr = (Transaction) getTransaction();
 			if (tr != null && !tr.wasCommitted() && !tr.wasRolledBack()) {
 				getSession().flush();//flush cache to db;
 				getSession().clear();//clear cache;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2007 the original author or jdon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.persistence.hibernate.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * how long the thread-local sessions and transactions are hold, for one
+ * request (SessionFactoryHolder.getRequestStats()) or the totals
+ * (SessionFactoryHolder.getStats()).
+ *
+ * a JDBC connection is only hold for the whole transaction, out of a
+ * transaction it is released after every statement, so the transaction
+ * time is the connection hold time of a request.
+ *
+ */
+public class SessionStats {
+
+	private final AtomicLong sessions = new AtomicLong();
+
+	private final AtomicLong readOnlySessions = new AtomicLong();
+
+	private final AtomicLong sessionMillis = new AtomicLong();
+
+	private final AtomicLong transactions = new AtomicLong();
+
+	private final AtomicLong transactionMillis = new AtomicLong();
+
+	private final AtomicLong maxTransactionMillis = new AtomicLong();
+
+	void sessionOpened(boolean readOnly) {
+		sessions.incrementAndGet();
+		if (readOnly)
+			readOnlySessions.incrementAndGet();
+	}
+
+	void sessionClosed(long millis) {
+		sessionMillis.addAndGet(millis);
+	}
+
+	void transactionBegun() {
+		transactions.incrementAndGet();
+	}
+
+	void transactionEnded(long millis) {
+		transactionMillis.addAndGet(millis);
+		updateMaxTransactionMillis(millis);
+	}
+
+	private void updateMaxTransactionMillis(long millis) {
+		long max;
+		while (millis > (max = maxTransactionMillis.get())) {
+			if (maxTransactionMillis.compareAndSet(max, millis))
+				break;
+		}
+	}
+
+	void add(SessionStats other) {
+		sessions.addAndGet(other.getSessions());
+		readOnlySessions.addAndGet(other.getReadOnlySessions());
+		sessionMillis.addAndGet(other.getSessionMillis());
+		transactions.addAndGet(other.getTransactions());
+		transactionMillis.addAndGet(other.getTransactionMillis());
+		updateMaxTransactionMillis(other.getMaxTransactionMillis());
+	}
+
+	public long getSessions() {
+		return sessions.get();
+	}
+
+	public long getReadOnlySessions() {
+		return readOnlySessions.get();
+	}
+
+	/**
+	 * @return the sessions without a transaction, they held no connection
+	 *         between the statements.
+	 */
+	public long getSessionsWithoutTransaction() {
+		return Math.max(0, sessions.get() - transactions.get());
+	}
+
+	public long getSessionMillis() {
+		return sessionMillis.get();
+	}
+
+	public long getTransactions() {
+		return transactions.get();
+	}
+
+	public long getTransactionMillis() {
+		return transactionMillis.get();
+	}
+
+	public long getMaxTransactionMillis() {
+		return maxTransactionMillis.get();
+	}
+
+	/**
+	 * @return the average connection hold time of a session (a request)
+	 */
+	public long getAverageTransactionMillis() {
+		long count = sessions.get();
+		return count == 0 ? 0 : transactionMillis.get() / count;
+	}
+
+	public void reset() {
+		sessions.set(0);
+		readOnlySessions.set(0);
+		sessionMillis.set(0);
+		transactions.set(0);
+		transactionMillis.set(0);
+		maxTransactionMillis.set(0);
+	}
+
+	public String toString() {
+		return "SessionStats sessions=" + sessions + " readOnly=" + readOnlySessions + " sessionMillis=" + sessionMillis + " transactions="
+				+ transactions + " transactionMillis=" + transactionMillis + " maxTransactionMillis=" + maxTransactionMillis;
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2007 the original author or jdon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.persistence.hibernate.util;
+
+import java.sql.SQLException;
+
+import org.hibernate.HibernateException;
+import org.hibernate.StatelessSession;
+
+public interface StatelessSessionCallback {
+	/**
+	 * Gets called by <code>HibernateTemplate.doStateless</code> with a
+	 * StatelessSession on the connection of the current Session, so its
+	 * statements are in the current transaction. Does not need to care
+	 * about closing the StatelessSession.
+	 *
+	 */
+	Object execute(StatelessSession session) throws HibernateException, SQLException;
+
+}
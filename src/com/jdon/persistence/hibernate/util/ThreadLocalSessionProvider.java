@@ -16,15 +16,16 @@
  */
 package com.jdon.persistence.hibernate.util;
 
+import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
 
-import com.jdon.persistence.hibernate.SessionProvider;
+import com.jdon.persistence.hibernate.ReadSessionProvider;
 
-public class ThreadLocalSessionProvider implements SessionProvider {
+public class ThreadLocalSessionProvider implements ReadSessionProvider {
 
 	protected SessionFactory _factory;
 	
@@ -51,12 +52,31 @@ public class ThreadLocalSessionProvider implements SessionProvider {
 	 * @see com.jdon.model.crud.hibernate.SessionProvider#getSession()
 	 */
 	public Session getSession() throws HibernateException {
+		Session sess = getReadSession();
+		if (SessionFactoryHolder.getTransaction() == null) {
+			// the first write of a read-only session
+			if (sess.getFlushMode() == FlushMode.MANUAL)
+				sess.setFlushMode(FlushMode.AUTO);
+			Transaction tr = sess.beginTransaction();
+			SessionFactoryHolder.setTransaction(tr);
+		}
+		return sess;
+	}
+
+	/**
+	 * open the session without a transaction, the connection is got by the
+	 * first statement and released after it. a session of a read-only thread
+	 * never flushes.
+	 *
+	 * @see SessionFactoryHolder#setReadOnly(boolean)
+	 */
+	public Session getReadSession() throws HibernateException {
 		Session sess = (Session)SessionFactoryHolder.getSession();
 		if (sess == null) {
 			sess = getFactory().openSession();
-			Transaction tr = sess.beginTransaction();
+			if (SessionFactoryHolder.isReadOnly())
+				sess.setFlushMode(FlushMode.MANUAL);
 			SessionFactoryHolder.setSession(sess);
-			SessionFactoryHolder.setTransaction(tr);
 		}
 		return sess;
 	}
@@ -95,8 +115,9 @@ public class ThreadLocalSessionProvider implements SessionProvider {
 	 * @see com.jdon.model.crud.hibernate.SessionProvider#closeSession()
 	 */
 	public void closeSession() throws HibernateException {
-		Transaction tr = (Transaction) SessionFactoryHolder.getTransaction();
 		try {
+			SessionFactoryHolder.beginTransactionIfDirty();
+			Transaction tr = (Transaction) SessionFactoryHolder.getTransaction();
 			if (tr != null && !tr.wasCommitted() && !tr.wasRolledBack()) {
 				tr.commit();
 			}
@@ -0,0 +1,15 @@
+package com.jdon.sample.test.component;
+
+import com.jdon.annotation.Service;
+
+/**
+ * a service that does nothing, used for measuring the cost of the framework
+ * itself.
+ */
+@Service("noop")
+public class Noop implements NoopInterface {
+
+	public int echo(int i) {
+		return i;
+	}
+}
@@ -0,0 +1,5 @@
+package com.jdon.sample.test.component;
+
+public interface NoopInterface {
+	int echo(int i);
+}
@@ -49,7 +49,8 @@ public class HttpRequestUserSetup implements SessionContextSetup {
 		String username = principal.getName();
 		saveSessionContext(PRINCIPAL_NAME, username, sessionContext);
 
-		Debug.logVerbose("[JdonFramework] set principal name:" + username, module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] set principal name:" + username, module);
 	}
 
 	public String getPrincipalName(SessionContext sessionContext) {
@@ -58,7 +59,8 @@ public class HttpRequestUserSetup implements SessionContextSetup {
 
 	public void saveSessionContext(String arrtibuteName, String arrtibuteValue, SessionContext sessionContext) {
 		sessionContext.setArrtibute(arrtibuteName, arrtibuteValue);
-		Debug.logVerbose("[JdonFramework] setArrtibute:" + arrtibuteName + "=" + arrtibuteValue, module);
+		if (Debug.verboseOn())
+			Debug.logVerbose("[JdonFramework] setArrtibute:" + arrtibuteName + "=" + arrtibuteValue, module);
 	}
 
 	public Object getArrtibute(String arrtibuteName, SessionContext sessionContext) {
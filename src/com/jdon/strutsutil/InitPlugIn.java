@@ -31,6 +31,7 @@ import org.apache.struts.config.PlugInConfig;
 import com.jdon.container.access.xml.AppConfigureCollection;
 import com.jdon.container.startup.ContainerSetupScript;
 import com.jdon.controller.context.web.ServletContextWrapper;
+import com.jdon.strutsutil.file.filter.ImageByteCache;
 import com.jdon.util.Debug;
 import com.jdon.util.FileLocator;
 import com.jdon.util.StringUtil;
@@ -99,6 +100,7 @@ public class InitPlugIn implements PlugIn {
 
 	public void destroy() {
 		css.destroyed(new ServletContextWrapper(servlet.getServletContext()));
+		ImageByteCache.destroy(servlet.getServletContext());
 		servlet = null;
 	}
 
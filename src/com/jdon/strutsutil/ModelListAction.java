@@ -18,10 +18,14 @@ package com.jdon.strutsutil;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.struts.Globals;
 import org.apache.struts.action.ActionForm;
 import org.apache.struts.action.ActionForward;
 import org.apache.struts.action.ActionMapping;
@@ -40,6 +44,9 @@ public abstract class ModelListAction extends ModelBaseAction {
 
 	private final static String module = ModelListAction.class.getName();
 
+	// the class of the models of every action path
+	private final ConcurrentMap<String, Class> modelClasses = new ConcurrentHashMap<String, Class>();
+
 	public ActionForward execute(ActionMapping actionMapping, ActionForm actionForm, HttpServletRequest request, HttpServletResponse response)
 			throws Exception {
 
@@ -144,6 +151,9 @@ public abstract class ModelListAction extends ModelBaseAction {
 	/**
 	 * 根据PageIterator中ID集合，获得相应的Model集合
 	 * 
+	 * the models not in the cache are fetched together by findModelsByKeys,
+	 * if it is not implemented one by one by findModelIFByKey.
+	 * 
 	 * @param request
 	 * @param pageIterator
 	 * @return Model集合
@@ -151,33 +161,70 @@ public abstract class ModelListAction extends ModelBaseAction {
 	 */
 	protected List getModelList(HttpServletRequest request, PageIterator pageIterator) throws Exception {
 		Debug.logVerbose("[JdonFramework] getModelList  page size=" + pageIterator.getSize(), module);
-		List list = new ArrayList(pageIterator.getSize());
-		Object model = null;
-		Class modelClass = null;
+		List keys = new ArrayList(pageIterator.getSize());
 		while (pageIterator.hasNext()) {
 			Object dataKey = pageIterator.next();
-			if ((modelClass == null) || (!isEnableCache())) {
-				Debug.logVerbose("[JdonFramework] getCache from db. ", module);
-				model = fetchModel(request, dataKey);
-				if (model != null)
-					modelClass = model.getClass();
-				else
+			if (dataKey != null)
+				keys.add(dataKey);
+		}
+		Object[] models = new Object[keys.size()];
+		List missed = new ArrayList();
+		// the class of the models of the path is known after its first page
+		String path = getMappingPath(request);
+		Class modelClass = isEnableCache() && path != null ? modelClasses.get(path) : null;
+		for (int i = 0; i < models.length; i++) {
+			if (modelClass != null)
+				models[i] = modelManager.getCache(new ModelKey(keys.get(i), modelClass));
+			if (models[i] == null)
+				missed.add(keys.get(i));
+		}
+		if (!missed.isEmpty()) {
+			Debug.logVerbose("[JdonFramework] getCache from db, missed=" + missed.size(), module);
+			Map found = fetchModels(request, missed);
+			for (int i = 0; i < models.length; i++) {
+				if (models[i] != null)
 					continue;
-			} else {
-				// 首先从缓存中获取
-				ModelKey modelKey = new ModelKey(dataKey, modelClass);
-				model = modelManager.getCache(modelKey);
+				Object dataKey = keys.get(i);
+				Object model = found != null ? found.get(dataKey) : fetchModel(request, dataKey);
 				if (model == null) {
-					model = fetchModel(request, dataKey);
-					modelManager.addCache(modelKey, model);
+					if (found != null)
+						Debug.logWarning("[JdonFramework] findModelsByKeys found no model for the primary key=" + dataKey, module);
+					continue;
+				}
+				models[i] = model;
+				if (isEnableCache()) {
+					if (modelClass == null)
+						modelClass = model.getClass();
+					modelManager.addCache(new ModelKey(dataKey, modelClass), model);
 				}
 			}
-			if (model != null)
-				list.add(model);
+			if (modelClass != null && path != null)
+				modelClasses.put(path, modelClass);
+		}
+		List list = new ArrayList(models.length);
+		for (int i = 0; i < models.length; i++) {
+			if (models[i] != null)
+				list.add(models[i]);
 		}
 		return list;
 	}
 
+	// one action instance serves all the mappings of its type
+	private String getMappingPath(HttpServletRequest request) {
+		ActionMapping actionMapping = (ActionMapping) request.getAttribute(Globals.MAPPING_KEY);
+		return actionMapping == null ? null : actionMapping.getPath();
+	}
+
+	// null if findModelsByKeys is not implemented or fails, fetchModel then
+	private Map fetchModels(HttpServletRequest request, List keys) {
+		try {
+			return findModelsByKeys(request, keys);
+		} catch (Exception ex) {
+			Debug.logError("[JdonFramework] findModelsByKeys error: " + ex + ", find the models one by one", module);
+			return null;
+		}
+	}
+
 	/**
 	 * 定制ModelListForm
 	 * 
@@ -259,6 +306,23 @@ public abstract class ModelListAction extends ModelBaseAction {
 		return findModelByKey(request, key);
 	}
 
+	/**
+	 * obtain the Models of all keys by one call of the service layer, such as
+	 * one query "where id in (...)"; getModelList calls it for the keys of the
+	 * page not in the cache.
+	 * 
+	 * @param request
+	 *            HttpServletRequest
+	 * @param keys
+	 *            Collection the primary keys of the Models
+	 * @return Map the primary key, its Model; a key without Model is deleted.
+	 *         null (the default) means not implemented, findModelIFByKey is
+	 *         called for every key
+	 */
+	public Map findModelsByKeys(HttpServletRequest request, Collection keys) throws Exception {
+		return null;
+	}
+
 	/**
 	 * for old version
 	 */
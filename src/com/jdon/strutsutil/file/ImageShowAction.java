@@ -19,6 +19,7 @@ import org.apache.struts.action.*;
 import javax.servlet.http.*;
 
 import java.io.*;
+import java.util.StringTokenizer;
 import com.jdon.util.Debug;
 
 import com.jdon.strutsutil.file.UploadFile;
@@ -48,6 +49,10 @@ public abstract class ImageShowAction extends Action {
       -1, -1, 0, 0, 0, 33, -7, 4, 1, 0, 0, 2, 0, 44, 0, 0, 0, 0, 1, 0, 1, 0,
       0, 2, 2, 76, 1, 0, 59};
 
+  private static final String BLANK_TYPE = "image/gif";
+
+  private static final String DEFAULT_TYPE = "image/jpeg";
+
   public ActionForward execute(ActionMapping actionMapping,
                                ActionForm actionForm,
                                HttpServletRequest request,
@@ -65,17 +70,25 @@ public abstract class ImageShowAction extends Action {
     else
       throw new Exception("parameter id  and tempId all is null");
 
-    UploadFile uploadFile = null;
     try {
-
-      ImageFilter imageCacheFilter = new ImageCacheFilter(getImageFilter());
-      ImageFilter imageFilter = new ImageSessionFilter(imageCacheFilter);
-
-      uploadFile = imageFilter.getUploadFile(request, imageId);
-      if (uploadFile != null)
-        outImage(response, uploadFile.getData());
+      // the images uploaded in this session are not saved yet, not cached
+      UploadFile uploadFile = new ImageSessionFilter().getUploadFileFromSession(request, imageId);
+      if (uploadFile == null && !UtilValidate.isEmpty(tempId))
+        uploadFile = getImageFilter().getUploadFile(request, imageId);
+      if (uploadFile != null || !UtilValidate.isEmpty(tempId)) {
+        if (uploadFile != null && uploadFile.hasData())
+          outImage(response, uploadFile);
+        else
+          outImage(response, BLANK_TYPE, BLANK);
+        return null;
+      }
+
+      ImageCacheFilter imageCacheFilter = new ImageCacheFilter(getImageFilter(), getImageByteCache());
+      CachedImage image = imageCacheFilter.getCachedImage(request, imageId);
+      if (image != null)
+        outImage(request, response, image);
       else
-        outImage(response, BLANK);
+        outImage(response, BLANK_TYPE, BLANK);
     } catch (Exception ex) {
       Debug.logError("[JdonFramework]get the image error:" + ex, module);
 
@@ -83,9 +96,9 @@ public abstract class ImageShowAction extends Action {
     return null;
   }
 
-  private void outImage(HttpServletResponse response, byte[] data) throws
+  private void outImage(HttpServletResponse response, String contentType, byte[] data) throws
       Exception {
-    response.setContentType("images/jpeg");
+    response.setContentType(contentType != null ? contentType : DEFAULT_TYPE);
     OutputStream toClient = response.getOutputStream();
     try {
 
@@ -99,6 +112,73 @@ public abstract class ImageShowAction extends Action {
 
   }
 
+  /**
+   * stream the upload file, a spooled temp file is not loaded into the heap.
+   */
+  private void outImage(HttpServletResponse response, UploadFile uploadFile) throws
+      Exception {
+    response.setContentType(uploadFile.getContentType() != null ? uploadFile.getContentType() : DEFAULT_TYPE);
+    OutputStream toClient = response.getOutputStream();
+    try {
+      uploadFile.transferTo(toClient);
+    } catch (Exception ex) {
+      Debug.logError("[JdonFramework]get the image error:" + ex, module);
+    } finally {
+      toClient.close();
+    }
+  }
+
+  /**
+   * send the cached image with its ETag, or 304 if the browser has it
+   * already.
+   */
+  private void outImage(HttpServletRequest request, HttpServletResponse response,
+                        CachedImage image) throws Exception {
+    response.setHeader("ETag", image.getETag());
+    if (isNotModified(request, image)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+    response.setContentType(image.getContentType() != null ? image.getContentType() : DEFAULT_TYPE);
+    response.setContentLength(image.getSize());
+    OutputStream toClient = response.getOutputStream();
+    try {
+      image.writeTo(toClient);
+    } catch (Exception ex) {
+      Debug.logError("[JdonFramework]get the image error:" + ex, module);
+    } finally {
+      toClient.close();
+    }
+  }
+
+  /**
+   * If-None-Match with the ETag of the bytes; If-Modified-Since is not
+   * answered, the time the image entered the cache is not its time.
+   */
+  protected boolean isNotModified(HttpServletRequest request, CachedImage image) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch == null)
+      return false;
+    if (ifNoneMatch.trim().equals("*"))
+      return true;
+    StringTokenizer st = new StringTokenizer(ifNoneMatch, ",");
+    while (st.hasMoreTokens()) {
+      String etag = st.nextToken().trim();
+      if (etag.startsWith("W/"))
+        etag = etag.substring(2);
+      if (etag.equals(image.getETag()))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * the cache of the images, the default is the one of the web application.
+   */
+  protected ImageByteCache getImageByteCache() {
+    return ImageByteCache.getInstance(getServlet().getServletContext());
+  }
+
   /**
    * 从持久层获得图片数据。
    * @param request
@@ -71,27 +71,11 @@ public class MultiUploadAction extends Action {
       Exception {
     UploadFile uploadFile = new UploadFile();
     try {
-      //retrieve the file data
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      InputStream stream = file.getInputStream();
-
-      byte[] buffer = new byte[8192];
-      int bytesRead = 0;
-      while ( (bytesRead = stream.read(buffer, 0, 8192)) != -1) {
-        baos.write(buffer, 0, bytesRead);
-      }
-
-      byte[] data = baos.toByteArray();
-      baos.close();
-      //close the stream
-      stream.close();
-
-      if (data != null) {
-        uploadFile.setData(data);
-        uploadFile.setContentType(file.getContentType());
-        uploadFile.setSize(file.getFileSize());
-
-      }
+      // small files in memory, bigger ones in a temp file
+      SpooledData spooledData = SpooledData.spool(file.getInputStream(), file.getFileSize(), getSpoolThreshold());
+      uploadFile.setSpooledData(spooledData);
+      uploadFile.setContentType(file.getContentType());
+      uploadFile.setSize((int) spooledData.getSize());
     } catch (Exception ex) {
       throw new Exception(ex);
     } finally {
@@ -102,4 +86,12 @@ public class MultiUploadAction extends Action {
     return uploadFile;
   }
 
+  /**
+   * the max bytes of a upload file kept in memory, a bigger file is spooled
+   * into a temp file.
+   */
+  protected int getSpoolThreshold() {
+    return SpooledData.DEFAULT_THRESHOLD;
+  }
+
 }
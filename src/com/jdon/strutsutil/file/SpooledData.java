@@ -0,0 +1,240 @@
+/**
+ * Copyright 2003-2006 the original author or authors. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.jdon.strutsutil.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * the bytes of a upload file: a small file is hold in memory, a bigger one is
+ * spooled into a temp file, so the HttpSession only holds the file name.
+ *
+ * the temp file is deleted by delete(); ImageSessionFilter calls it when
+ * the upload is removed from the session, at the next loadAllUploadFile
+ * after the one that gave it out, or when the session ends.
+ *
+ */
+public class SpooledData implements Serializable {
+
+	private static final long serialVersionUID = 2592651520930376474L;
+
+	/** files not bigger than it are kept in memory */
+	public final static int DEFAULT_THRESHOLD = 64 * 1024;
+
+	private final byte[] bytes;
+
+	private final File file;
+
+	private final long size;
+
+	private SpooledData(byte[] bytes, File file, long size) {
+		this.bytes = bytes;
+		this.file = file;
+		this.size = size;
+	}
+
+	public static SpooledData wrap(byte[] bytes) {
+		return new SpooledData(bytes, null, bytes.length);
+	}
+
+	/**
+	 * read the stream, and close it.
+	 *
+	 * @param in
+	 *            the upload stream
+	 * @param size
+	 *            the size of the stream, -1 if unknown
+	 * @param threshold
+	 *            the max bytes kept in memory
+	 */
+	public static SpooledData spool(InputStream in, long size, int threshold) throws IOException {
+		try {
+			if (size >= 0 && size <= threshold) {
+				byte[] data = new byte[(int) size];
+				int read = 0;
+				while (read < data.length) {
+					int n = in.read(data, read, data.length - read);
+					if (n == -1)
+						break;
+					read += n;
+				}
+				if (read < data.length) {
+					byte[] result = new byte[read];
+					System.arraycopy(data, 0, result, 0, read);
+					return wrap(result);
+				}
+				int next = in.read();
+				if (next == -1)
+					return wrap(data);
+				// the size was wrong, keep the byte read ahead
+				byte[] head = new byte[data.length + 1];
+				System.arraycopy(data, 0, head, 0, data.length);
+				head[data.length] = (byte) next;
+				return spoolToFile(in, head, head.length);
+			}
+			if (size < 0) {
+				byte[] data = new byte[threshold];
+				int read = 0;
+				int n = 0;
+				while (read < data.length && (n = in.read(data, read, data.length - read)) != -1) {
+					read += n;
+				}
+				if (n == -1) {
+					byte[] result = new byte[read];
+					System.arraycopy(data, 0, result, 0, read);
+					return wrap(result);
+				}
+				return spoolToFile(in, data, read);
+			}
+			return spoolToFile(in, null, 0);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static SpooledData spoolToFile(InputStream in, byte[] head, int headLength) throws IOException {
+		File file = File.createTempFile("jdon-upload", ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		boolean done = false;
+		try {
+			FileChannel out = raf.getChannel();
+			if (headLength > 0)
+				out.write(ByteBuffer.wrap(head, 0, headLength));
+			long position = headLength;
+			if (in instanceof FileInputStream) {
+				// the upload is on disk already, copy it file to file
+				FileChannel src = ((FileInputStream) in).getChannel();
+				long count = src.size() - src.position();
+				while (count > 0) {
+					long n = src.transferTo(src.position(), count, out);
+					if (n <= 0)
+						break;
+					src.position(src.position() + n);
+					count -= n;
+				}
+			} else {
+				ReadableByteChannel src = Channels.newChannel(in);
+				long n;
+				while ((n = out.transferFrom(src, position, Integer.MAX_VALUE)) > 0) {
+					position += n;
+				}
+			}
+			SpooledData spooledData = new SpooledData(null, file, out.size());
+			done = true;
+			return spooledData;
+		} finally {
+			raf.close();
+			if (!done)
+				file.delete();
+		}
+	}
+
+	public boolean isInMemory() {
+		return file == null;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public InputStream getInputStream() throws IOException {
+		if (file == null)
+			return new ByteArrayInputStream(bytes);
+		return new FileInputStream(file);
+	}
+
+	/**
+	 * load all bytes into the heap, use getInputStream or transferTo for big
+	 * files.
+	 */
+	public byte[] getBytes() throws IOException {
+		if (file == null)
+			return bytes;
+		byte[] data = new byte[(int) size];
+		read(ByteBuffer.wrap(data));
+		return data;
+	}
+
+	/**
+	 * copy the bytes into the buffer, it must have getSize() bytes remaining.
+	 */
+	public void read(ByteBuffer buffer) throws IOException {
+		if (file == null) {
+			buffer.put(bytes);
+			return;
+		}
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * write the bytes to the stream; a temp file is sent by
+	 * FileChannel.transferTo without loading it into the heap.
+	 *
+	 * @return the bytes written
+	 */
+	public long transferTo(OutputStream out) throws IOException {
+		if (file == null) {
+			out.write(bytes);
+			return bytes.length;
+		}
+		WritableByteChannel target = Channels.newChannel(out);
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			long position = 0;
+			long count = channel.size();
+			while (position < count) {
+				long n = channel.transferTo(position, count - position, target);
+				if (n <= 0)
+					break;
+				position += n;
+			}
+			return position;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * delete the temp file, the data can not be read after it.
+	 */
+	public void delete() {
+		if (file != null)
+			file.delete();
+	}
+
+}
@@ -14,8 +14,20 @@
 
 package com.jdon.strutsutil.file;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import com.jdon.controller.model.Model;
+import com.jdon.util.Debug;
 
+/**
+ * a upload file, its bytes are a byte[] (data) or a SpooledData that may be
+ * in a temp file. use getInputStream or transferTo to read both of them
+ * without loading a temp file into the heap.
+ *
+ */
 public class UploadFile extends Model {
 
     /**
@@ -31,6 +43,8 @@ public class UploadFile extends Model {
 
     private byte[] data;
 
+    private SpooledData spooledData;
+
     private String contentType;
 
     private int size;
@@ -40,10 +54,68 @@ public class UploadFile extends Model {
 
     private String tempId;
 
+    /**
+     * @return the bytes, a spooled temp file is loaded into the heap.
+     */
     public byte[] getData() {
+        if (data == null && spooledData != null) {
+            try {
+                return spooledData.getBytes();
+            } catch (IOException ex) {
+                Debug.logError("[JdonFramework] read spooled upload error:" + ex, UploadFile.class.getName());
+            }
+        }
         return data;
     }
 
+    public SpooledData getSpooledData() {
+        return spooledData;
+    }
+
+    public void setSpooledData(SpooledData spooledData) {
+        this.spooledData = spooledData;
+    }
+
+    public boolean hasData() {
+        return data != null || spooledData != null;
+    }
+
+    /**
+     * @return null if there is no data.
+     */
+    public InputStream getInputStream() throws IOException {
+        if (data != null)
+            return new ByteArrayInputStream(data);
+        if (spooledData != null)
+            return spooledData.getInputStream();
+        return null;
+    }
+
+    /**
+     * write the bytes to the stream, a spooled temp file is sent by
+     * FileChannel.transferTo.
+     *
+     * @return the bytes written
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        if (data != null) {
+            out.write(data);
+            return data.length;
+        }
+        if (spooledData != null)
+            return spooledData.transferTo(out);
+        return 0;
+    }
+
+    /**
+     * delete the spooled temp file, call it after the file is saved or
+     * discarded.
+     */
+    public void release() {
+        if (spooledData != null)
+            spooledData.delete();
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.jdon.strutsutil.file.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import com.jdon.strutsutil.file.UploadFile;
+
+/**
+ * a image in ImageByteCache, the bytes are in a direct ByteBuffer out of
+ * the java heap. it is immutable and can be shared by many requests.
+ *
+ */
+public class CachedImage {
+
+  private final String id;
+
+  private final String name;
+
+  private final String contentType;
+
+  private final ByteBuffer data;
+
+  private final String etag;
+
+  public CachedImage(String id, String name, String contentType, ByteBuffer data,
+                     String etag) {
+    this.id = id;
+    this.name = name;
+    this.contentType = contentType;
+    this.data = data.asReadOnlyBuffer();
+    this.etag = etag;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * @return a read-only view of the bytes, every caller has its own position.
+   */
+  public ByteBuffer getData() {
+    return data.duplicate();
+  }
+
+  public int getSize() {
+    return data.capacity();
+  }
+
+  public String getETag() {
+    return etag;
+  }
+
+  /**
+   * write the bytes to the stream, the channel copies them in small chunks,
+   * the whole image is never copied onto the heap.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    WritableByteChannel channel = Channels.newChannel(out);
+    ByteBuffer buffer = getData();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * copy the image into a new UploadFile, for callers that need the byte[].
+   */
+  public UploadFile toUploadFile() {
+    UploadFile uploadFile = new UploadFile();
+    byte[] bytes = new byte[getSize()];
+    getData().get(bytes);
+    uploadFile.setId(id);
+    uploadFile.setName(name);
+    uploadFile.setContentType(contentType);
+    uploadFile.setData(bytes);
+    uploadFile.setSize(bytes.length);
+    return uploadFile;
+  }
+
+}
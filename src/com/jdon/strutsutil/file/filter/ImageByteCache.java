@@ -0,0 +1,242 @@
+/**
+ * Copyright 2003-2006 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+
+package com.jdon.strutsutil.file.filter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+import javax.servlet.ServletContext;
+
+import com.jdon.strutsutil.file.SpooledData;
+import com.jdon.strutsutil.file.UploadFile;
+import com.jdon.util.Debug;
+
+/**
+ * image bytes cache keyed by the region and the id of the image, used by
+ * ImageCacheFilter; the region is the class of the ImageFilter, so two
+ * stores with the same ids do not share their images.
+ *
+ * the bytes are copied into direct ByteBuffers, so big images are not in the
+ * java heap (the direct memory is limited by -XX:MaxDirectMemorySize). the
+ * cache is bounded by the total bytes, the least recently used images are
+ * evicted first; a image bigger than maxEntryBytes is not cached.
+ *
+ * a web application has its own instance, getInstance(ServletContext),
+ * InitPlugIn clears it when the application stops, without it the instance
+ * goes with the ServletContext; its size can be set by the system property
+ * "jdon.imageCache.maxBytes" (default 32M).
+ * the ETag is made from the bytes, so it is the same on every node and
+ * after every reload; there is no Last-Modified, the upload has no time.
+ *
+ * if the application changes a image without ImageCacheFilter.deleteUploadFile,
+ * it should call remove(ImageCacheFilter.getRegion(imageFilter), id).
+ *
+ */
+public class ImageByteCache {
+  public final static String module = ImageByteCache.class.getName();
+
+  public final static String MAX_BYTES_PROPERTY = "jdon.imageCache.maxBytes";
+
+  public final static long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+  // access order
+  private final LinkedHashMap images = new LinkedHashMap(16, 0.75f, true);
+
+  private final long maxBytes;
+
+  private final long maxEntryBytes;
+
+  private long totalBytes;
+
+  private long hits;
+
+  private long misses;
+
+  private long evictions;
+
+  public final static String CONTEXT_KEY = ImageByteCache.class.getName();
+
+  /**
+   * the instance of the web application.
+   */
+  public static synchronized ImageByteCache getInstance(ServletContext servletContext) {
+    ImageByteCache cache = (ImageByteCache) servletContext.getAttribute(CONTEXT_KEY);
+    if (cache == null) {
+      cache = new ImageByteCache(Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES).longValue());
+      servletContext.setAttribute(CONTEXT_KEY, cache);
+    }
+    return cache;
+  }
+
+  /**
+   * clears the instance of the web application when it stops.
+   */
+  public static synchronized void destroy(ServletContext servletContext) {
+    ImageByteCache cache = (ImageByteCache) servletContext.getAttribute(CONTEXT_KEY);
+    if (cache != null) {
+      cache.clear();
+      servletContext.removeAttribute(CONTEXT_KEY);
+    }
+  }
+
+  /**
+   * @param maxBytes the max total bytes of the images
+   */
+  public ImageByteCache(long maxBytes) {
+    this(maxBytes, maxBytes / 8);
+  }
+
+  public ImageByteCache(long maxBytes, long maxEntryBytes) {
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+  }
+
+  private static String key(String region, String id) {
+    return region + "#" + id;
+  }
+
+  public synchronized CachedImage get(String region, String id) {
+    CachedImage image = (CachedImage) images.get(key(region, id));
+    if (image == null)
+      misses++;
+    else
+      hits++;
+    return image;
+  }
+
+  /**
+   * copy the data of the uploadFile into the cache.
+   *
+   * @return the cached image, or a image not in the cache if it is too big.
+   *         null if the uploadFile has no data.
+   */
+  public CachedImage put(String region, String id, UploadFile uploadFile) {
+    // copy out of the lock
+    ByteBuffer buffer = copy(uploadFile);
+    if (buffer == null)
+      return null;
+    CachedImage image = new CachedImage(id, uploadFile.getName(), uploadFile.getContentType(),
+                                        buffer, createETag(id, buffer.duplicate()));
+    if (image.getSize() > maxEntryBytes) {
+      Debug.logVerbose("[JdonFramework] image is too big to be cached: " + id, module);
+      return image;
+    }
+    synchronized (this) {
+      CachedImage old = (CachedImage) images.put(key(region, id), image);
+      if (old != null)
+        totalBytes -= old.getSize();
+      totalBytes += image.getSize();
+      evict();
+    }
+    return image;
+  }
+
+  // a spooled file is read into the direct buffer, not onto the heap
+  private ByteBuffer copy(UploadFile uploadFile) {
+    SpooledData spooledData = uploadFile.getSpooledData();
+    if (spooledData != null && !spooledData.isInMemory()) {
+      try {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) spooledData.getSize());
+        spooledData.read(buffer);
+        buffer.flip();
+        return buffer;
+      } catch (IOException ex) {
+        Debug.logError("[JdonFramework] read spooled image error:" + ex, module);
+        return null;
+      }
+    }
+    byte[] data = uploadFile.getData();
+    if (data == null)
+      return null;
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+    buffer.put(data);
+    buffer.flip();
+    return buffer;
+  }
+
+  private void evict() {
+    Iterator iter = images.values().iterator();
+    while (totalBytes > maxBytes && iter.hasNext()) {
+      CachedImage eldest = (CachedImage) iter.next();
+      iter.remove();
+      totalBytes -= eldest.getSize();
+      evictions++;
+    }
+  }
+
+  public synchronized void remove(String region, String id) {
+    CachedImage old = (CachedImage) images.remove(key(region, id));
+    if (old != null)
+      totalBytes -= old.getSize();
+  }
+
+  public synchronized void clear() {
+    images.clear();
+    totalBytes = 0;
+  }
+
+  /**
+   * a strong ETag from the id and the crc of the bytes.
+   */
+  protected String createETag(String id, ByteBuffer data) {
+    int length = data.remaining();
+    CRC32 crc = new CRC32();
+    byte[] chunk = new byte[Math.min(length, 8192)];
+    while (data.hasRemaining()) {
+      int n = Math.min(chunk.length, data.remaining());
+      data.get(chunk, 0, n);
+      crc.update(chunk, 0, n);
+    }
+    return "\"" + id + "-" + Long.toHexString(crc.getValue()) + "-" + length + "\"";
+  }
+
+  public synchronized int size() {
+    return images.size();
+  }
+
+  public synchronized long getTotalBytes() {
+    return totalBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public long getMaxEntryBytes() {
+    return maxEntryBytes;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public synchronized String toString() {
+    return "ImageByteCache size=" + images.size() + " bytes=" + totalBytes + "/" + maxBytes
+        + " hits=" + hits + " misses=" + misses + " evictions=" + evictions;
+  }
+
+}
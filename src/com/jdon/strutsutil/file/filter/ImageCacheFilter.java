@@ -22,14 +22,45 @@ import javax.servlet.http.HttpServletRequest;
 import com.jdon.strutsutil.file.UploadFile;
 import com.jdon.util.Debug;
 
+/**
+ * cache the image bytes of the next ImageFilter (usually from database) in
+ * ImageByteCache, in the region of the class of the next ImageFilter.
+ *
+ * without a ImageByteCache the one of the web application of the request is
+ * used, the same one ImageShowAction uses.
+ *
+ */
 public class ImageCacheFilter implements ImageFilter {
   public final static String module = ImageCacheFilter.class.getName();
 
   private ImageFilter imageFilter = null;
 
+  // null is the cache of the web application of the request
+  private final ImageByteCache imageByteCache;
+
+  private final String region;
+
   public ImageCacheFilter(ImageFilter imageFilter) {
+    this(imageFilter, null);
+  }
+
+  public ImageCacheFilter(ImageFilter imageFilter, ImageByteCache imageByteCache) {
     this.imageFilter = imageFilter;
+    this.imageByteCache = imageByteCache;
+    this.region = getRegion(imageFilter);
+  }
 
+  /**
+   * the region of the images of the ImageFilter in ImageByteCache.
+   */
+  public static String getRegion(ImageFilter imageFilter) {
+    return imageFilter.getClass().getName();
+  }
+
+  private ImageByteCache getImageByteCache(HttpServletRequest request) {
+    if (imageByteCache != null)
+      return imageByteCache;
+    return ImageByteCache.getInstance(request.getSession().getServletContext());
   }
 
   /**
@@ -59,17 +90,41 @@ public class ImageCacheFilter implements ImageFilter {
     Debug.logVerbose("[JdonFramework]--> enter cache filter ", module);
     UploadFile uploadFile = null;
     try {
-//      uploadFile = (UploadFile) getImageFromCache(id);
-      if (uploadFile == null) {
-        uploadFile = imageFilter.getUploadFile(request, id);
-//        if (uploadFile != null)
-//          saveImageToCache(id, uploadFile); //空白图片不放入了缓存,
+      ImageByteCache cache = getImageByteCache(request);
+      CachedImage image = cache.get(region, id);
+      if (image != null)
+        return image.toUploadFile();
+      uploadFile = imageFilter.getUploadFile(request, id);
+      if (uploadFile != null)
+        cache.put(region, id, uploadFile);
+    } catch (Exception ex) {
+      Debug.logError("[JdonFramework]getData error:" + ex, module);
+    }
+    return uploadFile;
+  }
+
+  /**
+   * get the image from the cache, load it by the next ImageFilter if it is
+   * not in the cache.
+   *
+   * @return null if the next ImageFilter has not the image.
+   */
+  public CachedImage getCachedImage(HttpServletRequest request, String id) {
+    Debug.logVerbose("[JdonFramework]--> enter cache filter ", module);
+    CachedImage image = null;
+    try {
+      ImageByteCache cache = getImageByteCache(request);
+      image = cache.get(region, id);
+      if (image == null) {
+        UploadFile uploadFile = imageFilter.getUploadFile(request, id);
+        if (uploadFile != null)
+          image = cache.put(region, id, uploadFile); //空白图片不放入了缓存,
       }
     } catch (Exception ex) {
       Debug.logError("[JdonFramework]getData error:" + ex, module);
 
     }
-    return uploadFile;
+    return image;
   }
 
   /**
@@ -80,7 +135,7 @@ public class ImageCacheFilter implements ImageFilter {
   public void deleteUploadFile(HttpServletRequest request,
                                UploadFile uploadFile) {
     try {
-//      removeImageFromCache(uploadFile.getId());
+      getImageByteCache(request).remove(region, uploadFile.getId());
       imageFilter.deleteUploadFile(request, uploadFile);
     } catch (Exception ex) {
       Debug.logError("[JdonFramework] deleteUploadFile error" + ex, module);
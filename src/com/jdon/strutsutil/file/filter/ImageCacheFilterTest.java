@@ -0,0 +1,147 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.strutsutil.file.filter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.strutsutil.file.UploadFile;
+
+public class ImageCacheFilterTest extends TestCase {
+
+	private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+	private HttpServletRequest request;
+
+	// the images of a store, by id
+	static class StoreFilter implements ImageFilter {
+		final Map<String, UploadFile> images = new HashMap<String, UploadFile>();
+		int loads;
+
+		void save(String id, String data) {
+			UploadFile uploadFile = new UploadFile();
+			uploadFile.setId(id);
+			uploadFile.setData(data.getBytes());
+			images.put(id, uploadFile);
+		}
+
+		public UploadFile getUploadFile(HttpServletRequest request, String id) {
+			loads++;
+			return images.get(id);
+		}
+
+		public void deleteUploadFile(HttpServletRequest request, UploadFile uploadFile) {
+			images.remove(uploadFile.getId());
+		}
+
+		public Collection getUploadFileID(HttpServletRequest request) {
+			return images.keySet();
+		}
+
+		public void addUploadFile(HttpServletRequest request, UploadFile uploadFile) {
+		}
+
+		public Collection loadAllUploadFile(HttpServletRequest request) {
+			return images.values();
+		}
+	}
+
+	static class OtherStoreFilter extends StoreFilter {
+	}
+
+	private Object proxy(Class type, InvocationHandler handler) {
+		return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { type }, handler);
+	}
+
+	protected void setUp() throws Exception {
+		final ServletContext servletContext = (ServletContext) proxy(ServletContext.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (method.getName().equals("getAttribute"))
+					return attributes.get(args[0]);
+				if (method.getName().equals("setAttribute"))
+					attributes.put((String) args[0], args[1]);
+				if (method.getName().equals("removeAttribute"))
+					attributes.remove(args[0]);
+				return null;
+			}
+		});
+		final HttpSession session = (HttpSession) proxy(HttpSession.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				return method.getName().equals("getServletContext") ? servletContext : null;
+			}
+		});
+		request = (HttpServletRequest) proxy(HttpServletRequest.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				return method.getName().equals("getSession") ? session : null;
+			}
+		});
+	}
+
+	private String text(CachedImage image) {
+		byte[] bytes = new byte[image.getSize()];
+		image.getData().get(bytes);
+		return new String(bytes);
+	}
+
+	public void testDeleteThenFetch() {
+		StoreFilter store = new StoreFilter();
+		store.save("1", "first");
+		// the action shows the image with the cache of the web application
+		ImageCacheFilter show = new ImageCacheFilter(store, ImageByteCache.getInstance(request.getSession().getServletContext()));
+		Assert.assertEquals("first", text(show.getCachedImage(request, "1")));
+		Assert.assertEquals("first", text(show.getCachedImage(request, "1")));
+		Assert.assertEquals(1, store.loads);
+
+		// the application deletes it by its own filter, then saves a new one
+		new ImageCacheFilter(store).deleteUploadFile(request, store.getUploadFile(request, "1"));
+		Assert.assertNull(show.getCachedImage(request, "1"));
+		store.save("1", "second");
+		Assert.assertEquals("second", text(show.getCachedImage(request, "1")));
+	}
+
+	public void testStoresDoNotShareIds() {
+		StoreFilter store = new StoreFilter();
+		StoreFilter other = new OtherStoreFilter();
+		store.save("1", "store");
+		other.save("1", "other");
+		Assert.assertEquals("store", text(new ImageCacheFilter(store).getCachedImage(request, "1")));
+		Assert.assertEquals("other", text(new ImageCacheFilter(other).getCachedImage(request, "1")));
+		Assert.assertEquals("store", text(new ImageCacheFilter(store).getCachedImage(request, "1")));
+		Assert.assertEquals(1, store.loads);
+		Assert.assertEquals(1, other.loads);
+	}
+
+	public void testDestroy() {
+		ServletContext servletContext = request.getSession().getServletContext();
+		ImageByteCache cache = ImageByteCache.getInstance(servletContext);
+		Assert.assertSame(cache, ImageByteCache.getInstance(servletContext));
+		ImageByteCache.destroy(servletContext);
+		Assert.assertTrue(attributes.isEmpty());
+		Assert.assertNotSame(cache, ImageByteCache.getInstance(servletContext));
+	}
+
+}
@@ -27,6 +27,9 @@ public class ImageSessionFilter implements ImageFilter {
 
   private final static String PIC_NAME_PACKAGE = "PicturesPakage";
 
+  // the files given out by loadAllUploadFile, until the next load or the session end
+  private final static String LOADED_PIC_NAME_PACKAGE = "PicturesPakage.loaded";
+
   private ImageFilter imageFilter = null;
 
   public ImageSessionFilter(ImageFilter imageFilter) {
@@ -142,7 +145,7 @@ public class ImageSessionFilter implements ImageFilter {
       HttpSession session = request.getSession(true);
       Collection uploadList = (Collection)session.getAttribute(PIC_NAME_PACKAGE);
       if (uploadList == null) {
-        uploadList = new ArrayList();
+        uploadList = new UploadFileList();
         session.setAttribute(PIC_NAME_PACKAGE, uploadList);
       }
       uploadList.add(uploadFile);
@@ -164,12 +167,17 @@ public class ImageSessionFilter implements ImageFilter {
    * @return UploadFile 集合
    */
   public Collection loadAllUploadFile(HttpServletRequest request) {
+    // the spooled temp files stay on disk, the caller streams them to the
+    // store by UploadFile.getInputStream or transferTo; they are deleted by
+    // UploadFile.release, or at the next load or the session end.
     Debug.logVerbose("[JdonFramework] load all upload files from session and remove them", module);
     Collection uploadList = null;
     try {
       HttpSession session = request.getSession();
       if (session != null) {
         uploadList = (Collection) session.getAttribute(PIC_NAME_PACKAGE);
+        if (uploadList != null)
+          session.setAttribute(LOADED_PIC_NAME_PACKAGE, uploadList);
         session.removeAttribute(PIC_NAME_PACKAGE);
       }
     } catch (Exception ex) {
@@ -204,12 +212,14 @@ public class ImageSessionFilter implements ImageFilter {
    * @param id
    * @return
    */
-  private UploadFile getUploadFileFromSession(HttpServletRequest request,
-                                              String id) {
+  public UploadFile getUploadFileFromSession(HttpServletRequest request,
+                                             String id) {
     UploadFile uploadFile = null;
     boolean found = false;
     try {
-      HttpSession session = request.getSession(true);
+      HttpSession session = request.getSession(false);
+      if (session == null)
+        return null;
       Collection uploadList = (Collection) session.getAttribute(PIC_NAME_PACKAGE);
       if (uploadList == null)
         return null;
@@ -262,8 +272,11 @@ public class ImageSessionFilter implements ImageFilter {
           break;
         }
       }
-      if (found )
+      if (found ) {
         uploadList.remove(uploadFile);
+        // delete the spooled temp file
+        uploadFile.release();
+      }
     } catch (Exception ex) {
       Debug.logError("[JdonFramework] deleteUploadFileFromSession error" + ex, module);
 
@@ -271,4 +284,30 @@ public class ImageSessionFilter implements ImageFilter {
 
   }
 
+  /**
+   * the upload files of a session, their temp files are deleted when the
+   * session ends or the list is removed from all its names in it.
+   */
+  static class UploadFileList extends ArrayList implements HttpSessionBindingListener {
+
+    private static final long serialVersionUID = 4180516924355837745L;
+
+    // the names of the list in the session
+    private final Set names = new HashSet();
+
+    public synchronized void valueBound(HttpSessionBindingEvent event) {
+      names.add(event.getName());
+    }
+
+    public synchronized void valueUnbound(HttpSessionBindingEvent event) {
+      names.remove(event.getName());
+      if (!names.isEmpty())
+        return;
+      Iterator iter = iterator();
+      while (iter.hasNext()) {
+        ((UploadFile) iter.next()).release();
+      }
+    }
+  }
+
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.strutsutil.file.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.jdon.strutsutil.file.SpooledData;
+import com.jdon.strutsutil.file.UploadFile;
+
+public class ImageSessionFilterTest extends TestCase {
+
+	private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+	private HttpSession session;
+
+	private HttpServletRequest request;
+
+	private final ImageSessionFilter filter = new ImageSessionFilter();
+
+	// a session that tells its HttpSessionBindingListener values
+	protected void setUp() throws Exception {
+		session = (HttpSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { HttpSession.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						String name = method.getName();
+						if (name.equals("getAttribute"))
+							return attributes.get(args[0]);
+						if (name.equals("setAttribute")) {
+							Object old = attributes.put((String) args[0], args[1]);
+							if (args[1] instanceof HttpSessionBindingListener)
+								((HttpSessionBindingListener) args[1]).valueBound(new HttpSessionBindingEvent((HttpSession) proxy,
+										(String) args[0], args[1]));
+							unbound((HttpSession) proxy, (String) args[0], old == args[1] ? null : old);
+						}
+						if (name.equals("removeAttribute"))
+							unbound((HttpSession) proxy, (String) args[0], attributes.remove(args[0]));
+						if (name.equals("invalidate")) {
+							for (String key : new ArrayList<String>(attributes.keySet()))
+								unbound((HttpSession) proxy, key, attributes.remove(key));
+						}
+						return null;
+					}
+				});
+		request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { HttpServletRequest.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						return method.getName().equals("getSession") ? session : null;
+					}
+				});
+	}
+
+	private void unbound(HttpSession session, String name, Object value) {
+		if (value instanceof HttpSessionBindingListener)
+			((HttpSessionBindingListener) value).valueUnbound(new HttpSessionBindingEvent(session, name, value));
+	}
+
+	private UploadFile upload(String text) throws Exception {
+		UploadFile uploadFile = new UploadFile();
+		uploadFile.setId("");
+		// spooled to a temp file
+		uploadFile.setSpooledData(SpooledData.spool(new ByteArrayInputStream(text.getBytes()), text.length(), 0));
+		filter.addUploadFile(request, uploadFile);
+		return uploadFile;
+	}
+
+	private File file(UploadFile uploadFile) {
+		return uploadFile.getSpooledData().getFile();
+	}
+
+	public void testLoadedFilesAreStreamedFromDisk() throws Exception {
+		UploadFile a = upload("first image");
+		UploadFile b = upload("second image");
+		Assert.assertTrue(file(a).exists());
+
+		Collection loaded = filter.loadAllUploadFile(request);
+		Assert.assertEquals(2, loaded.size());
+		Assert.assertNull(filter.getAllUploadFile(request));
+		// still spooled, the store reads it from the temp file
+		Iterator iter = loaded.iterator();
+		UploadFile first = (UploadFile) iter.next();
+		Assert.assertFalse(first.getSpooledData().isInMemory());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		first.transferTo(out);
+		Assert.assertEquals("first image", out.toString());
+		Assert.assertTrue(file(b).exists());
+
+		// the next upload batch deletes the files given out before
+		upload("third image");
+		Collection next = filter.loadAllUploadFile(request);
+		Assert.assertFalse(file(a).exists());
+		Assert.assertFalse(file(b).exists());
+		UploadFile third = (UploadFile) next.iterator().next();
+		Assert.assertTrue(file(third).exists());
+
+		session.invalidate();
+		Assert.assertFalse(file(third).exists());
+	}
+
+	public void testSessionEndDeletesUploads() throws Exception {
+		UploadFile a = upload("image");
+		session.invalidate();
+		Assert.assertFalse(file(a).exists());
+	}
+
+}
@@ -80,4 +80,16 @@ public class ConcurrentLinkedList {
 		}
 	}
 
+	/**
+	 * @return a copy of the elements, the most recently used first
+	 */
+	public Object[] toArray() {
+		readLock.lock();
+		try {
+			return keyLRUList.toArray();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
 }
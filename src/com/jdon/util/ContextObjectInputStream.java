@@ -0,0 +1,53 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * a ObjectInputStream that resolves the classes by the given class loader
+ * first, for the objects read by a thread that does not have the class
+ * loader of the web application (a background thread, the thread starting
+ * the container).
+ *
+ */
+public class ContextObjectInputStream extends ObjectInputStream {
+	private final ClassLoader classLoader;
+
+	/**
+	 * @param classLoader
+	 *            the class loader of the web application, null for the
+	 *            default resolution
+	 */
+	public ContextObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+		super(in);
+		this.classLoader = classLoader;
+	}
+
+	protected Class resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+		if (classLoader == null)
+			return super.resolveClass(desc);
+		try {
+			return Class.forName(desc.getName(), false, classLoader);
+		} catch (ClassNotFoundException e) {
+			return super.resolveClass(desc);
+		}
+	}
+
+}
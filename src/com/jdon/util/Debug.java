@@ -148,7 +148,7 @@ public final class Debug {
 	}
 
 	public static boolean isOn(int level) {
-		return (level == Debug.ALWAYS);
+		return level >= conf_level;
 	}
 
 	public static void log(String msg) {
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a lock-free histogram of latencies in microseconds.
+ *
+ * every power of two is split into 8 buckets, so a percentile is at most
+ * 12.5% bigger than the real value; values below 16 have their own bucket.
+ * record() is one atomic increment of the bucket and a StripedCounter add, it
+ * never allocates; the count is the sum of the buckets.
+ *
+ */
+public class LatencyHistogram {
+
+	private final static int SUB_BITS = 3;
+
+	private final static int SUB = 1 << SUB_BITS;
+
+	private final static int BUCKETS = (63 - SUB_BITS) * SUB + SUB;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final StripedCounter sum = new StripedCounter();
+
+	private final AtomicLong max = new AtomicLong();
+
+	static int index(long value) {
+		if (value < SUB * 2)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+		return (exponent - SUB_BITS) * SUB + SUB + sub;
+	}
+
+	// the biggest value of the bucket
+	static long upperBound(int index) {
+		if (index < SUB * 2)
+			return index;
+		int exponent = (index - SUB) / SUB + SUB_BITS;
+		int sub = (index - SUB) % SUB;
+		int shift = exponent - SUB_BITS;
+		return ((long) (SUB + sub) << shift) + (1L << shift) - 1;
+	}
+
+	/**
+	 * @param micros
+	 *            the latency, negative values are recorded as 0
+	 */
+	public void record(long micros) {
+		if (micros < 0)
+			micros = 0;
+		buckets.incrementAndGet(index(micros));
+		sum.add(micros);
+		long m;
+		while (micros > (m = max.get())) {
+			if (max.compareAndSet(m, micros))
+				break;
+		}
+	}
+
+	public long getCount() {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += buckets.get(i);
+		}
+		return total;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * @param percentile
+	 *            0 to 100
+	 * @return the upper bound of the bucket of the percentile, not bigger
+	 *         than the max
+	 */
+	public long getPercentile(double percentile) {
+		return getPercentiles(new double[] { percentile })[0];
+	}
+
+	/**
+	 * the percentiles of one pass over the buckets
+	 */
+	public long[] getPercentiles(double[] percentiles) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		long maxValue = max.get();
+		long[] result = new long[percentiles.length];
+		for (int p = 0; p < percentiles.length; p++) {
+			if (total == 0)
+				continue;
+			long rank = (long) Math.ceil(percentiles[p] / 100 * total);
+			if (rank < 1)
+				rank = 1;
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					result[p] = Math.min(upperBound(i), maxValue);
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * reset all counts, records concurrent with reset may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		sum.reset();
+		max.set(0);
+	}
+
+}
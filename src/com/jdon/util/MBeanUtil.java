@@ -0,0 +1,83 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.util;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * registers the metrics of the framework in the platform MBeanServer. the
+ * server is shared by all the web applications of the jvm: a name that is
+ * registered already is left to its owner, and the errors are only logged,
+ * the metrics work without JMX.
+ *
+ */
+public class MBeanUtil {
+	private final static String module = MBeanUtil.class.getName();
+
+	/**
+	 * @return the value of a key property, quoted if it has a character that
+	 *         is not allowed unquoted
+	 */
+	public static String quote(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (",=:*?\"\n".indexOf(value.charAt(i)) >= 0)
+				return ObjectName.quote(value);
+		}
+		return value;
+	}
+
+	/**
+	 * @return a id of the class loader of the framework, for the names of the
+	 *         static registries: every web application with its own jdon jar
+	 *         has its own registry
+	 */
+	public static String getContext() {
+		ClassLoader classLoader = MBeanUtil.class.getClassLoader();
+		return Integer.toHexString(System.identityHashCode(classLoader));
+	}
+
+	/**
+	 * @return true if the mbean is registered with the name
+	 */
+	public static boolean register(Object mbean, String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(name);
+			if (server.isRegistered(objectName))
+				return false;
+			server.registerMBean(mbean, objectName);
+			return true;
+		} catch (Throwable e) {
+			Debug.logWarning("[JdonFramework] register the MBean " + name + " error:" + e, module);
+			return false;
+		}
+	}
+
+	public static void unregister(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(name);
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		} catch (Throwable e) {
+			Debug.logWarning("[JdonFramework] unregister the MBean " + name + " error:" + e, module);
+		}
+	}
+
+}
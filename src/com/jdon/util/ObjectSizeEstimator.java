@@ -0,0 +1,95 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * estimate the heap bytes of objects, it is not exact, it assumes a 64-bit
+ * JVM with compressed references: 12 bytes object header, 4 bytes reference,
+ * 8 bytes alignment.
+ *
+ */
+public class ObjectSizeEstimator {
+
+	public final static int OBJECT_HEADER = 12;
+	public final static int ARRAY_HEADER = 16;
+	public final static int REFERENCE = 4;
+
+	// the shallow size of every class is computed once by reflection
+	private final static Map<Class, Integer> shallowSizes = new ConcurrentHashMap<Class, Integer>();
+
+	public static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * @return bytes of the String object and its char array.
+	 */
+	public static long sizeOf(String s) {
+		if (s == null)
+			return 0;
+		return align(OBJECT_HEADER + REFERENCE + 8) + align(ARRAY_HEADER + 2L * s.length());
+	}
+
+	/**
+	 * @return bytes of the object itself, the objects referenced by it are
+	 *         not counted except the elements of a primitive array.
+	 */
+	public static long shallowSizeOf(Object o) {
+		if (o == null)
+			return 0;
+		Class c = o.getClass();
+		if (c.isArray()) {
+			int length = java.lang.reflect.Array.getLength(o);
+			return align(ARRAY_HEADER + (long) length * primitiveSize(c.getComponentType()));
+		}
+		Integer size = shallowSizes.get(c);
+		if (size == null) {
+			size = Integer.valueOf((int) align(fieldsSize(c)));
+			shallowSizes.put(c, size);
+		}
+		return size.intValue();
+	}
+
+	private static long fieldsSize(Class c) {
+		long size = OBJECT_HEADER;
+		for (Class k = c; k != null; k = k.getSuperclass()) {
+			Field[] fields = k.getDeclaredFields();
+			for (int i = 0; i < fields.length; i++) {
+				if (!Modifier.isStatic(fields[i].getModifiers()))
+					size += primitiveSize(fields[i].getType());
+			}
+		}
+		return size;
+	}
+
+	private static int primitiveSize(Class type) {
+		if (!type.isPrimitive())
+			return REFERENCE;
+		if (type == long.class || type == double.class)
+			return 8;
+		if (type == int.class || type == float.class)
+			return 4;
+		if (type == short.class || type == char.class)
+			return 2;
+		return 1;
+	}
+
+}
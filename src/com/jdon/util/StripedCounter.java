@@ -0,0 +1,111 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.jdon.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a counter that is updated by many threads without contention.
+ *
+ * every thread adds to its own cell (choosed by thread id), the cells are
+ * padded so that two cells never share one cache line; sum() adds all cells,
+ * so it is more expensive than add(), call it only for statistics.
+ *
+ * the cells are created at the first contention, till then the counter is
+ * one AtomicLong; most counters are never contended and stay small.
+ *
+ */
+public class StripedCounter {
+
+	// 8 longs = 64 bytes, one cache line
+	private final static int PAD = 8;
+
+	private final static int CELLS;
+
+	static {
+		int n = 1;
+		int cpus = Runtime.getRuntime().availableProcessors() * 2;
+		while (n < cpus)
+			n <<= 1;
+		CELLS = n;
+	}
+
+	private final AtomicLong base = new AtomicLong();
+
+	private volatile AtomicLongArray cells;
+
+	private static int index() {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32));
+		h ^= (h >>> 16);
+		return (h & (CELLS - 1)) * PAD;
+	}
+
+	public void add(long x) {
+		AtomicLongArray c = cells;
+		if (c == null) {
+			long b = base.get();
+			if (base.compareAndSet(b, b + x))
+				return;
+			c = expand();
+		}
+		c.addAndGet(index(), x);
+	}
+
+	private synchronized AtomicLongArray expand() {
+		if (cells == null)
+			cells = new AtomicLongArray(CELLS * PAD);
+		return cells;
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	public void decrement() {
+		add(-1);
+	}
+
+	public long sum() {
+		long sum = base.get();
+		AtomicLongArray c = cells;
+		if (c != null) {
+			for (int i = 0; i < CELLS; i++) {
+				sum += c.get(i * PAD);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * reset all cells to zero, updates concurrent with reset may be lost.
+	 */
+	public void reset() {
+		base.set(0);
+		AtomicLongArray c = cells;
+		if (c != null) {
+			for (int i = 0; i < CELLS; i++) {
+				c.set(i * PAD, 0);
+			}
+		}
+	}
+
+	public String toString() {
+		return Long.toString(sum());
+	}
+
+}